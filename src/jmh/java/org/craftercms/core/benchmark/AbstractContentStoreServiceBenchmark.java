@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.craftercms.core.service.Item;
+import org.craftercms.core.service.Tree;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base state for the {@link org.craftercms.core.service.impl.ContentStoreServiceImpl} benchmarks: generates (or
+ * reuses) a site with the configured shape and opens a context on it. Subclasses decide the state of the cache
+ * when each operation runs and add the {@code @Benchmark} methods.
+ *
+ * @since 4.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public abstract class AbstractContentStoreServiceBenchmark {
+
+    /**
+     * Number of page descriptors in the generated site
+     */
+    @Param({ "1000", "10000", "100000", "500000" })
+    public int siteSize;
+
+    /**
+     * Number of folder levels, each one adding a level descriptor to the inherit-levels merge
+     */
+    @Param({ "3" })
+    public int levels;
+
+    /**
+     * Percentage of pages that have a content bundle variant
+     */
+    @Param({ "10" })
+    public int bundlePercentage;
+
+    /**
+     * Number of {@code <include>} elements that the flattening processor has to resolve per page
+     */
+    @Param({ "3" })
+    public int includesPerPage;
+
+    /**
+     * Maximum number of items in the context's cache scope
+     */
+    @Param({ "100000" })
+    public int maxItemsInCache;
+
+    /**
+     * Depth used for the {@code getTree} calls
+     */
+    @Param({ "2" })
+    public int treeDepth;
+
+    protected SiteFixture site;
+
+    @Setup(Level.Trial)
+    public void startSite() throws Exception {
+        site = new SiteFixture(siteSize, levels, bundlePercentage, includesPerPage, maxItemsInCache).start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopSite() {
+        site.close();
+    }
+
+    protected Item getItem(int index) {
+        return site.getStoreService().getItem(site.getContext(), null, site.getPageUrl(index), null, true);
+    }
+
+    protected List<Item> getChildren(int index) {
+        return site.getStoreService().getChildren(site.getContext(), null, site.getFolderUrl(index), null, null,
+                                                  true);
+    }
+
+    protected Tree getTree(int index) {
+        return site.getStoreService().getTree(site.getContext(), null, site.getSectionUrl(index), treeDepth, null,
+                                              null, true);
+    }
+
+    /**
+     * Per-thread position in the sampled URLs, so every thread walks the whole sample instead of hammering a single
+     * URL.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        public int next() {
+            return next++ & Integer.MAX_VALUE;
+        }
+
+    }
+
+}
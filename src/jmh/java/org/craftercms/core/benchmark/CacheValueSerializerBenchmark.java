@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.craftercms.core.cache.impl.serialization.BinaryCacheValueSerializer;
+import org.craftercms.core.cache.impl.serialization.XmlCacheValueSerializer;
+import org.craftercms.core.service.ContentStoreService;
+import org.craftercms.core.service.Context;
+import org.craftercms.core.util.json.jackson.Dom4jDocumentJsonSerializer;
+import org.craftercms.core.util.xml.marshalling.xstream.CrafterXStreamMarshaller;
+import org.dom4j.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the size and the encode/decode cost of the cached values of a generated site (fully processed items and
+ * trees, like the ones kept by {@link org.craftercms.core.service.impl.ContentStoreServiceImpl}) with the
+ * {@link BinaryCacheValueSerializer}, the {@link XmlCacheValueSerializer}, the {@link CrafterXStreamMarshaller} and
+ * Jackson with the {@link Dom4jDocumentJsonSerializer}. The last two are the formats used by the REST API and can
+ * only write documents, so they're only part of the encode benchmarks. The encoded sizes are printed at setup.
+ *
+ * @since 4.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class CacheValueSerializerBenchmark {
+
+    /**
+     * Number of values sampled from the site
+     */
+    public static final int VALUE_COUNT = 256;
+
+    /**
+     * Number of page descriptors in the generated site
+     */
+    @Param({ "1000" })
+    public int siteSize;
+
+    /**
+     * Number of {@code <include>} elements that the flattening processor has to resolve per page, which makes the
+     * processed descriptors bigger
+     */
+    @Param({ "3" })
+    public int includesPerPage;
+
+    /**
+     * The kind of value that is serialized: {@code item} for a page, {@code tree} for a folder tree of depth 2
+     */
+    @Param({ "item", "tree" })
+    public String valueType;
+
+    protected BinaryCacheValueSerializer binarySerializer;
+    protected XmlCacheValueSerializer xmlSerializer;
+    protected CrafterXStreamMarshaller xstreamMarshaller;
+    protected ObjectMapper objectMapper;
+
+    protected Object[] values;
+    protected byte[][] binaryValues;
+    protected ByteBuffer[] directBinaryValues;
+    protected byte[][] xmlValues;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        binarySerializer = new BinaryCacheValueSerializer();
+        xmlSerializer = new XmlCacheValueSerializer();
+
+        xstreamMarshaller = new CrafterXStreamMarshaller();
+        xstreamMarshaller.afterPropertiesSet();
+
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(Document.class, new Dom4jDocumentJsonSerializer(true));
+
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(module);
+
+        try (SiteFixture site = new SiteFixture(siteSize, 3, 10, includesPerPage, 100000).start()) {
+            ContentStoreService storeService = site.getStoreService();
+            Context context = site.getContext();
+
+            values = new Object[VALUE_COUNT];
+            for (int i = 0; i < VALUE_COUNT; i++) {
+                if ("tree".equals(valueType)) {
+                    values[i] = storeService.getTree(context, null, site.getFolderUrl(i), 2, null, null, true);
+                } else {
+                    values[i] = storeService.getItem(context, null, site.getPageUrl(i), null, true);
+                }
+            }
+        }
+
+        binaryValues = new byte[VALUE_COUNT][];
+        directBinaryValues = new ByteBuffer[VALUE_COUNT];
+        xmlValues = new byte[VALUE_COUNT][];
+
+        long binarySize = 0;
+        long xmlSize = 0;
+        long xstreamSize = 0;
+        long jacksonSize = 0;
+
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            binaryValues[i] = binarySerializer.serialize(values[i]);
+            directBinaryValues[i] = ByteBuffer.allocateDirect(binaryValues[i].length).put(binaryValues[i]).flip();
+            xmlValues[i] = xmlSerializer.serialize(values[i]);
+
+            binarySize += binaryValues[i].length;
+            xmlSize += xmlValues[i].length;
+            xstreamSize += xstreamEncode(values[i]).length;
+            jacksonSize += objectMapper.writeValueAsBytes(values[i]).length;
+        }
+
+        System.out.printf("%nAverage encoded size of a %s: binary=%d, xml=%d, xstream=%d, jackson=%d bytes%n",
+                          valueType, binarySize / VALUE_COUNT, xmlSize / VALUE_COUNT, xstreamSize / VALUE_COUNT,
+                          jacksonSize / VALUE_COUNT);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode(Cursor cursor) throws IOException {
+        return binarySerializer.serialize(values[cursor.next()]);
+    }
+
+    @Benchmark
+    public byte[] xmlEncode(Cursor cursor) throws IOException {
+        return xmlSerializer.serialize(values[cursor.next()]);
+    }
+
+    @Benchmark
+    public byte[] xstreamEncode(Cursor cursor) throws IOException {
+        return xstreamEncode(values[cursor.next()]);
+    }
+
+    @Benchmark
+    public byte[] jacksonEncode(Cursor cursor) throws IOException {
+        return objectMapper.writeValueAsBytes(values[cursor.next()]);
+    }
+
+    @Benchmark
+    public Object binaryDecode(Cursor cursor) throws IOException {
+        return binarySerializer.deserialize(binaryValues[cursor.next()]);
+    }
+
+    /**
+     * Reads straight from off-heap memory, like a store that keeps its values in direct buffers or mapped files
+     * would.
+     */
+    @Benchmark
+    public Object binaryDecodeDirect(Cursor cursor) throws IOException {
+        return binarySerializer.deserialize(directBinaryValues[cursor.next()].duplicate());
+    }
+
+    @Benchmark
+    public Object xmlDecode(Cursor cursor) throws IOException {
+        return xmlSerializer.deserialize(xmlValues[cursor.next()]);
+    }
+
+    protected byte[] xstreamEncode(Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        xstreamMarshaller.marshalOutputStream(value, out);
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Per-thread position in the sampled values.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        public int next() {
+            return (next++ & Integer.MAX_VALUE) % VALUE_COUNT;
+        }
+
+    }
+
+}
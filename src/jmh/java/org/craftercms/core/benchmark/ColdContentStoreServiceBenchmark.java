@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.benchmark;
+
+import java.util.List;
+
+import org.craftercms.core.service.Item;
+import org.craftercms.core.service.Tree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Reads with an empty cache scope: the scope is cleared before every invocation, so each operation pays for the
+ * file system access, the XML parsing, the descriptor merging and the flattening of includes.
+ *
+ * @since 4.2.0
+ */
+public class ColdContentStoreServiceBenchmark extends AbstractContentStoreServiceBenchmark {
+
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        site.clearCache();
+    }
+
+    @Benchmark
+    public Item getItem(Cursor cursor) {
+        return getItem(cursor.next());
+    }
+
+    @Benchmark
+    public List<Item> getChildren(Cursor cursor) {
+        return getChildren(cursor.next());
+    }
+
+    @Benchmark
+    public Tree getTree(Cursor cursor) {
+        return getTree(cursor.next());
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.craftercms.core.service.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Concurrent reads through {@link org.craftercms.core.util.cache.impl.DefaultCacheTemplate}:
+ * <ul>
+ *     <li>{@code getItem}/{@code getChildren}: several threads reading a populated cache, to measure contention
+ *     in the cache lookup path.</li>
+ *     <li>{@code readWhileInvalidating}: readers working on a small hot set of URLs while another thread keeps
+ *     clearing the scope, so that most misses happen on keys that other threads are loading at the same time
+ *     (the cache stampede scenario the per-key locks are there for).</li>
+ * </ul>
+ *
+ * @since 4.2.0
+ */
+public class ContendedContentStoreServiceBenchmark extends AbstractContentStoreServiceBenchmark {
+
+    /**
+     * Time between scope invalidations in the {@code readWhileInvalidating} group
+     */
+    @Param({ "50" })
+    public int invalidationIntervalMillis;
+
+    /**
+     * Number of sampled URLs the readers of the {@code readWhileInvalidating} group cycle through
+     */
+    @Param({ "16" })
+    public int hotSetSize;
+
+    @Setup(Level.Trial)
+    public void primeCache() {
+        site.prime(treeDepth);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Item getItem(Cursor cursor) {
+        return getItem(cursor.next());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public List<Item> getChildren(Cursor cursor) {
+        return getChildren(cursor.next());
+    }
+
+    @Benchmark
+    @Group("readWhileInvalidating")
+    @GroupThreads(7)
+    public Item readHotSet(Cursor cursor) {
+        return getItem(cursor.next() % hotSetSize);
+    }
+
+    @Benchmark
+    @Group("readWhileInvalidating")
+    @GroupThreads(1)
+    public void invalidate() throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(invalidationIntervalMillis);
+        site.clearCache();
+    }
+
+}
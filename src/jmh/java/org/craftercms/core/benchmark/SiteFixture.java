@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.craftercms.core.service.CacheService;
+import org.craftercms.core.service.ContentStoreService;
+import org.craftercms.core.service.Context;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * Generated site plus the Spring application context and {@link Context} used to read it. The context is created
+ * with merging and caching on, like Engine does for a delivery site.
+ *
+ * @since 4.2.0
+ */
+public class SiteFixture implements AutoCloseable {
+
+    public static final String SITES_FOLDER_PROPERTY = "crafter.benchmark.sites.folder";
+    public static final String DEFAULT_SITES_FOLDER = "target/jmh-sites";
+    public static final String APP_CONTEXT_LOCATION = "classpath:benchmark-context.xml";
+    public static final String STORE_TYPE = "filesystem";
+
+    /**
+     * Number of URLs sampled from the site that the benchmarks cycle through
+     */
+    public static final int SAMPLE_SIZE = 1024;
+
+    protected SiteGenerator generator;
+    protected int maxItemsInCache;
+    protected ClassPathXmlApplicationContext appContext;
+    protected ContentStoreService storeService;
+    protected CacheService cacheService;
+    protected Context context;
+
+    protected List<String> pageUrls;
+    protected List<String> folderUrls;
+    protected List<String> sectionUrls;
+
+    public SiteFixture(int descriptors, int levels, int bundlePercentage, int includesPerPage,
+                       int maxItemsInCache) {
+        this.generator = new SiteGenerator(descriptors, levels, bundlePercentage, includesPerPage);
+        this.maxItemsInCache = maxItemsInCache;
+    }
+
+    public SiteFixture start() throws IOException {
+        Path sitesFolder = Path.of(System.getProperty(SITES_FOLDER_PROPERTY, DEFAULT_SITES_FOLDER));
+        Path root = generator.generate(sitesFolder).toAbsolutePath();
+
+        appContext = new ClassPathXmlApplicationContext(APP_CONTEXT_LOCATION);
+        storeService = appContext.getBean("crafter.contentStoreService", ContentStoreService.class);
+        cacheService = appContext.getBean("crafter.cacheService", CacheService.class);
+        context = storeService.getContext(null, STORE_TYPE, root.toUri().toString(), true, true, maxItemsInCache,
+                                          true, null);
+
+        pageUrls = sample(generator.getPageUrls());
+        folderUrls = sample(generator.getFolderUrls());
+        sectionUrls = generator.getFolderUrls().stream()
+                               .filter(url -> url.lastIndexOf('/') == SiteGenerator.WEBSITE_PATH.length())
+                               .toList();
+
+        return this;
+    }
+
+    public ContentStoreService getStoreService() {
+        return storeService;
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    public String getPageUrl(int index) {
+        return pageUrls.get(index % pageUrls.size());
+    }
+
+    public String getFolderUrl(int index) {
+        return folderUrls.get(index % folderUrls.size());
+    }
+
+    public String getSectionUrl(int index) {
+        return sectionUrls.get(index % sectionUrls.size());
+    }
+
+    /**
+     * Empties the context's cache scope, so that the next read goes through the store adapter, the merger and the
+     * processors again.
+     */
+    public void clearCache() {
+        cacheService.clearScope(context);
+    }
+
+    /**
+     * Reads every sampled URL once so that the following reads are cache hits.
+     */
+    public void prime(int treeDepth) {
+        for (String url : pageUrls) {
+            storeService.getItem(context, null, url, null, true);
+        }
+        for (String url : folderUrls) {
+            storeService.getChildren(context, null, url, null, null, true);
+        }
+        for (String url : sectionUrls) {
+            storeService.getTree(context, null, url, treeDepth, null, null, true);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (context != null) {
+            storeService.destroyContext(context);
+        }
+        if (appContext != null) {
+            appContext.close();
+        }
+    }
+
+    /**
+     * Picks up to {@link #SAMPLE_SIZE} URLs spread evenly across the whole list, so that every part of the site is
+     * represented without keeping every URL in memory.
+     */
+    protected List<String> sample(List<String> urls) {
+        if (urls.size() <= SAMPLE_SIZE) {
+            return urls;
+        }
+
+        List<String> sample = new ArrayList<>(SAMPLE_SIZE);
+        double step = urls.size() / (double) SAMPLE_SIZE;
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            sample.add(urls.get((int) (i * step)));
+        }
+
+        return sample;
+    }
+
+}
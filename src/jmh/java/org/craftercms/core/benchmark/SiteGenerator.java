@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates a synthetic site on disk with the same shape the merging and flattening code sees in production:
+ * a folder hierarchy under {@code /site/website} with a level descriptor per folder (inherit-levels), pages that
+ * include shared components through {@code <include>} elements and, optionally, content bundle variants
+ * ({@code page_fr.xml}) of a fraction of the pages.
+ *
+ * <p>Generated sites are kept in {@code baseFolder} and reused across runs, since creating several hundred
+ * thousand files takes much longer than the benchmarks themselves.</p>
+ *
+ * @since 4.2.0
+ */
+public class SiteGenerator {
+
+    public static final String LEVEL_DESCRIPTOR_NAME = "crafter-level-descriptor.level.xml";
+    public static final String WEBSITE_PATH = "/site/website";
+    public static final String COMPONENTS_PATH = "/site/components";
+    public static final String BUNDLE_SUFFIX = "_fr";
+
+    private static final String COMPLETED_MARKER = ".completed";
+    private static final int PAGES_PER_FOLDER = 50;
+    private static final int COMPONENT_COUNT = 200;
+
+    /**
+     * Total number of page descriptors (bundle variants included)
+     */
+    protected int descriptors;
+    /**
+     * Number of folder levels under {@code /site/website}, each one with its own level descriptor
+     */
+    protected int levels;
+    /**
+     * Percentage (0-100) of the pages that also have a content bundle variant
+     */
+    protected int bundlePercentage;
+    /**
+     * Number of {@code <include>} elements per page
+     */
+    protected int includesPerPage;
+
+    protected List<String> pageUrls;
+    protected List<String> folderUrls;
+
+    public SiteGenerator(int descriptors, int levels, int bundlePercentage, int includesPerPage) {
+        this.descriptors = descriptors;
+        this.levels = Math.max(1, levels);
+        this.bundlePercentage = bundlePercentage;
+        this.includesPerPage = includesPerPage;
+    }
+
+    /**
+     * Returns the URLs of the generated pages, including the content bundle variants
+     */
+    public List<String> getPageUrls() {
+        return pageUrls;
+    }
+
+    /**
+     * Returns the URLs of the generated folders, from the top level down
+     */
+    public List<String> getFolderUrls() {
+        return folderUrls;
+    }
+
+    /**
+     * Generates the site under {@code baseFolder}, or reuses it if a previous run already generated a site with the
+     * same parameters.
+     *
+     * @return the root folder of the site
+     */
+    public Path generate(Path baseFolder) throws IOException {
+        Path root = baseFolder.resolve(String.format("site-%d-%d-%d-%d", descriptors, levels, bundlePercentage,
+                                                     includesPerPage));
+        boolean reuse = Files.exists(root.resolve(COMPLETED_MARKER));
+
+        pageUrls = new ArrayList<>();
+        folderUrls = new ArrayList<>();
+
+        if (!reuse) {
+            Files.createDirectories(root);
+            generateComponents(root);
+        }
+
+        int basePages = Math.max(1, descriptors * 100 / (100 + bundlePercentage));
+        int leafFolders = Math.max(1, (int) Math.ceil(basePages / (double) PAGES_PER_FOLDER));
+        int fanout = Math.max(1, (int) Math.ceil(Math.pow(leafFolders, 1.0 / levels)));
+
+        writeLevelDescriptor(root, WEBSITE_PATH, 0, reuse);
+        writePage(root, WEBSITE_PATH + "/index.xml", 0, false, reuse);
+
+        List<String> currentLevel = List.of(WEBSITE_PATH);
+        for (int level = 1; level <= levels; level++) {
+            List<String> nextLevel = new ArrayList<>();
+            for (String parent : currentLevel) {
+                for (int i = 0; i < fanout && (level < levels || nextLevel.size() < leafFolders); i++) {
+                    String folder = parent + "/section-" + i;
+                    writeLevelDescriptor(root, folder, level, reuse);
+                    writePage(root, folder + "/index.xml", level, false, reuse);
+
+                    folderUrls.add(folder);
+                    nextLevel.add(folder);
+                }
+            }
+            currentLevel = nextLevel;
+        }
+
+        int page = 0;
+        for (String folder : currentLevel) {
+            for (int i = 0; i < PAGES_PER_FOLDER && page < basePages; i++, page++) {
+                String url = folder + "/page-" + i + ".xml";
+                boolean bundle = bundlePercentage > 0 && page % 100 < bundlePercentage;
+
+                writePage(root, url, page, bundle, reuse);
+                pageUrls.add(url);
+                if (bundle) {
+                    pageUrls.add(bundleUrl(url));
+                }
+            }
+        }
+
+        if (!reuse) {
+            Files.createFile(root.resolve(COMPLETED_MARKER));
+        }
+
+        return root;
+    }
+
+    protected void generateComponents(Path root) throws IOException {
+        for (int i = 0; i < COMPONENT_COUNT; i++) {
+            write(root, COMPONENTS_PATH + "/component-" + i + ".xml",
+                  "<component>" +
+                  "<content-type>/component/generic</content-type>" +
+                  "<title>Component " + i + "</title>" +
+                  "<text>" + "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(4) + "</text>" +
+                  "</component>");
+        }
+    }
+
+    protected void writeLevelDescriptor(Path root, String folder, int level, boolean reuse) throws IOException {
+        if (reuse) {
+            return;
+        }
+
+        write(root, folder + "/" + LEVEL_DESCRIPTOR_NAME,
+              "<level-descriptor>" +
+              "<merge-strategy>inherit-levels</merge-strategy>" +
+              "<level-" + level + ">inherited from level " + level + "</level-" + level + ">" +
+              "<header><include>" + componentUrl(level) + "</include></header>" +
+              "</level-descriptor>");
+    }
+
+    protected void writePage(Path root, String url, int index, boolean bundle, boolean reuse) throws IOException {
+        if (reuse) {
+            return;
+        }
+
+        write(root, url, pageXml(index, "inherit-levels", "Page " + index));
+
+        if (bundle) {
+            write(root, bundleUrl(url), pageXml(index, "content-bundle", "Page " + index + " (fr)"));
+        }
+    }
+
+    protected String pageXml(int index, String mergeStrategy, String title) {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<page>")
+           .append("<merge-strategy>").append(mergeStrategy).append("</merge-strategy>")
+           .append("<content-type>/page/generic</content-type>")
+           .append("<title>").append(title).append("</title>")
+           .append("<body>").append("Lorem ipsum dolor sit amet. ".repeat(20)).append("</body>")
+           .append("<components item-list=\"true\">");
+
+        for (int i = 0; i < includesPerPage; i++) {
+            xml.append("<item><include>").append(componentUrl(index + i)).append("</include>")
+               .append("<disableFlattening>false</disableFlattening></item>");
+        }
+
+        return xml.append("</components></page>").toString();
+    }
+
+    protected String bundleUrl(String url) {
+        return url.substring(0, url.length() - ".xml".length()) + BUNDLE_SUFFIX + ".xml";
+    }
+
+    protected String componentUrl(int index) {
+        return COMPONENTS_PATH + "/component-" + (index % COMPONENT_COUNT) + ".xml";
+    }
+
+    protected void write(Path root, String url, String xml) throws IOException {
+        Path file = root.resolve(url.substring(1));
+        Files.createDirectories(file.getParent());
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+            writer.write(xml);
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.benchmark;
+
+import java.util.List;
+
+import org.craftercms.core.service.Item;
+import org.craftercms.core.service.Tree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Reads with a populated cache: every operation should be served by
+ * {@link org.craftercms.core.util.cache.impl.DefaultCacheTemplate} without reaching the store adapter. This measures
+ * the cost of key generation, scope resolution and the cache store adapter lookup.
+ *
+ * @since 4.2.0
+ */
+public class WarmContentStoreServiceBenchmark extends AbstractContentStoreServiceBenchmark {
+
+    @Setup(Level.Trial)
+    public void primeCache() {
+        site.prime(treeDepth);
+    }
+
+    @Benchmark
+    public Item getItem(Cursor cursor) {
+        return getItem(cursor.next());
+    }
+
+    @Benchmark
+    public List<Item> getChildren(Cursor cursor) {
+        return getChildren(cursor.next());
+    }
+
+    @Benchmark
+    public Tree getTree(Cursor cursor) {
+        return getTree(cursor.next());
+    }
+
+}
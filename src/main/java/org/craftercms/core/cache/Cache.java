@@ -102,6 +102,22 @@ public interface Cache {
      */
     CacheItem get(String scope, Object key) throws InvalidScopeException, InternalCacheEngineException;
 
+    /**
+     * Retrieves an item from a scope like {@link #get(String, Object)}, but without recording a hit or a miss in the
+     * statistics of the scope and without revalidating the item. Useful to check again for an item whose lookup was
+     * already recorded. Implementations that don't support it fall back to {@link #get(String, Object)}.
+     *
+     * @param scope scope to get the item from
+     * @param key   unique key for the item within this scope
+     * @return the requested item if found, null otherwise
+     * @throws InvalidScopeException        if the specified scope isn't a registered one
+     * @throws InternalCacheEngineException if an error occurred in the underlying cache implementation
+     * @since 4.2.0
+     */
+    default CacheItem peek(String scope, Object key) throws InvalidScopeException, InternalCacheEngineException {
+        return get(scope, key);
+    }
+
     /**
      * Puts an item in a scope.
      *
@@ -143,6 +159,30 @@ public interface Cache {
     void put(String scope, Object key, Object value, long expireAfter, long refreshFrequency, CacheLoader loader,
              Object... loaderParams) throws InvalidScopeException, InternalCacheEngineException;
 
+    /**
+     * Puts and item in a scope, indicating if the item should be served stale while it's reloaded in the background
+     * once it needs to be refreshed (see {@link CacheItem#isStaleWhileRevalidate()}). Implementations that don't
+     * support it refresh the item like any other.
+     *
+     * @param scope                scope to add the item to
+     * @param key                  unique key for the item within this scope
+     * @param value                value to store in the cache
+     * @param expireAfter          the amount of time (in ticks) before the item can be removed from cache
+     * @param refreshFrequency     the amount of time (in ticks) before the item is reloaded into the cache
+     * @param staleWhileRevalidate if the item should be reloaded in the background on the first read after its
+     *                             refresh deadline, instead of by the ticker
+     * @param loader               the cache loader used to load a new value when the item needs to be refreshed
+     * @param loaderParams         additional parameters the loader could need
+     * @throws InvalidScopeException        if the specified scope isn't a registered one
+     * @throws InternalCacheEngineException if an error occurred in the underlying cache implementation
+     * @since 4.2.0
+     */
+    default void put(String scope, Object key, Object value, long expireAfter, long refreshFrequency,
+                     boolean staleWhileRevalidate, CacheLoader loader, Object... loaderParams)
+        throws InvalidScopeException, InternalCacheEngineException {
+        put(scope, key, value, expireAfter, refreshFrequency, loader, loaderParams);
+    }
+
     /**
      * Removes an item from a scope.
      *
@@ -177,4 +217,16 @@ public interface Cache {
      */
     CacheStatistics getStatistics(String scope);
 
+    /**
+     * Records the load of an item of the specified scope, to be included in the statistics of the scope. Called by
+     * the code that loads the items (normally a {@link org.craftercms.core.util.cache.CacheTemplate} or a
+     * {@link org.craftercms.core.cache.impl.CacheRefresher}). Does nothing by default.
+     *
+     * @param scope    scope of the item
+     * @param loadTime the time the load took, in nanoseconds
+     * @param success  if the load finished without exceptions
+     */
+    default void recordLoad(String scope, long loadTime, boolean success) {
+    }
+
 }
@@ -90,4 +90,12 @@ public interface CacheItem {
      */
     boolean needsRefresh(long currentTicks);
 
+    /**
+     * Returns true if, once the item needs to be refreshed, it should keep being served while it's reloaded in the
+     * background on the next read, instead of being reloaded by the ticker.
+     */
+    default boolean isStaleWhileRevalidate() {
+        return false;
+    }
+
 }
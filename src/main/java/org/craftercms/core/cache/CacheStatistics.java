@@ -16,20 +16,54 @@
 
 package org.craftercms.core.cache;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Base class for all cache implementations to provide statistics.
+ *
+ * <p>Besides the size, which is always provided, statistics include lookup (hit/miss) and load counts, a histogram
+ * of the load times, the evictions by cause and an estimate of the memory used by the items. Values that are not
+ * tracked by the cache implementation are 0 (or -1 for the estimated memory).</p>
+ *
+ * <p>When the store of the context keeps a path existence filter, the statistics also include its counters, since
+ * the lookups it answers never reach the cache.</p>
+ *
  * @author joseross
  */
 public class CacheStatistics {
 
+    /**
+     * Upper bounds (exclusive, in milliseconds) of the buckets of the load time histogram. The last bucket holds
+     * all the loads that took longer than the last bound.
+     */
+    public static final long[] LOAD_TIME_HISTOGRAM_BOUNDS = { 1, 5, 10, 50, 100, 500, 1000, 5000 };
+
     public static final CacheStatistics EMPTY = new CacheStatistics();
 
     protected long size;
+    protected long hitCount;
+    protected long missCount;
+    protected long loadSuccessCount;
+    protected long loadFailureCount;
+    protected long totalLoadTime;
+    protected long[] loadTimeHistogram;
+    protected Map<String, Long> evictionCounts;
+    protected long estimatedMemory;
+    protected long existenceFilterQueryCount;
+    protected long existenceFilterNegativeCount;
+    protected long existenceFilterFalsePositiveCount;
 
     public CacheStatistics() {
+        loadTimeHistogram = new long[LOAD_TIME_HISTOGRAM_BOUNDS.length + 1];
+        evictionCounts = new LinkedHashMap<>();
+        estimatedMemory = -1;
     }
 
     public CacheStatistics(final long size) {
+        this();
         this.size = size;
     }
 
@@ -37,4 +71,194 @@ public class CacheStatistics {
         return size;
     }
 
+    /**
+     * Returns the number of lookups that found an item.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public void setHitCount(long hitCount) {
+        this.hitCount = hitCount;
+    }
+
+    /**
+     * Returns the number of lookups that didn't find an item.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public void setMissCount(long missCount) {
+        this.missCount = missCount;
+    }
+
+    /**
+     * Returns the ratio of lookups that found an item, or 0 if there have been no lookups.
+     */
+    public double getHitRate() {
+        long lookups = hitCount + missCount;
+
+        return lookups > 0? (double) hitCount / lookups : 0;
+    }
+
+    /**
+     * Returns the number of times an item was successfully loaded (on a miss or on a refresh).
+     */
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public void setLoadSuccessCount(long loadSuccessCount) {
+        this.loadSuccessCount = loadSuccessCount;
+    }
+
+    /**
+     * Returns the number of times loading an item threw an exception.
+     */
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public void setLoadFailureCount(long loadFailureCount) {
+        this.loadFailureCount = loadFailureCount;
+    }
+
+    /**
+     * Returns the total time spent loading items, in nanoseconds.
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    public void setTotalLoadTime(long totalLoadTime) {
+        this.totalLoadTime = totalLoadTime;
+    }
+
+    /**
+     * Returns the average time spent loading an item, in milliseconds.
+     */
+    public double getAverageLoadTime() {
+        long loads = loadSuccessCount + loadFailureCount;
+
+        return loads > 0? TimeUnit.NANOSECONDS.toMicros(totalLoadTime) / 1000.0 / loads : 0;
+    }
+
+    /**
+     * Returns the number of loads per load time bucket, keyed by a label of the bucket (e.g. {@code <50ms}), in
+     * ascending order.
+     */
+    public Map<String, Long> getLoadTimeHistogram() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < LOAD_TIME_HISTOGRAM_BOUNDS.length; i++) {
+            histogram.put("<" + LOAD_TIME_HISTOGRAM_BOUNDS[i] + "ms", loadTimeHistogram[i]);
+        }
+        histogram.put(">=" + LOAD_TIME_HISTOGRAM_BOUNDS[LOAD_TIME_HISTOGRAM_BOUNDS.length - 1] + "ms",
+                      loadTimeHistogram[LOAD_TIME_HISTOGRAM_BOUNDS.length]);
+
+        return histogram;
+    }
+
+    /**
+     * Adds the specified number of loads to a bucket of the load time histogram.
+     *
+     * @param bucket the index of the bucket, see {@link #getLoadTimeBucket(long)}
+     * @param count  the number of loads
+     */
+    public void addLoadTimes(int bucket, long count) {
+        loadTimeHistogram[bucket] += count;
+    }
+
+    /**
+     * Returns the total number of items evicted, for any cause.
+     */
+    public long getEvictionCount() {
+        return evictionCounts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Returns the number of items evicted, keyed by the cause of the eviction (e.g. {@code SIZE} or
+     * {@code EXPIRED}).
+     */
+    public Map<String, Long> getEvictionCounts() {
+        return Collections.unmodifiableMap(evictionCounts);
+    }
+
+    /**
+     * Adds the specified number of evictions to the count of the cause.
+     */
+    public void addEvictions(String cause, long count) {
+        if (count > 0) {
+            evictionCounts.merge(cause, count, Long::sum);
+        }
+    }
+
+    /**
+     * Returns the estimated size in bytes of the items, or -1 if it's unknown.
+     */
+    public long getEstimatedMemory() {
+        return estimatedMemory;
+    }
+
+    public void setEstimatedMemory(long estimatedMemory) {
+        this.estimatedMemory = estimatedMemory;
+    }
+
+    /**
+     * Returns the number of lookups answered by the path existence filter of the store.
+     */
+    public long getExistenceFilterQueryCount() {
+        return existenceFilterQueryCount;
+    }
+
+    public void setExistenceFilterQueryCount(long existenceFilterQueryCount) {
+        this.existenceFilterQueryCount = existenceFilterQueryCount;
+    }
+
+    /**
+     * Returns the number of lookups the path existence filter answered as "definitely absent".
+     */
+    public long getExistenceFilterNegativeCount() {
+        return existenceFilterNegativeCount;
+    }
+
+    public void setExistenceFilterNegativeCount(long existenceFilterNegativeCount) {
+        this.existenceFilterNegativeCount = existenceFilterNegativeCount;
+    }
+
+    /**
+     * Returns the number of paths the path existence filter reported as possible but didn't exist.
+     */
+    public long getExistenceFilterFalsePositiveCount() {
+        return existenceFilterFalsePositiveCount;
+    }
+
+    public void setExistenceFilterFalsePositiveCount(long existenceFilterFalsePositiveCount) {
+        this.existenceFilterFalsePositiveCount = existenceFilterFalsePositiveCount;
+    }
+
+    /**
+     * Returns the fraction of the lookups of missing paths that the path existence filter didn't catch, or 0 if
+     * there have been none.
+     */
+    public double getExistenceFilterFalsePositiveRate() {
+        long absent = existenceFilterFalsePositiveCount + existenceFilterNegativeCount;
+
+        return absent > 0? (double) existenceFilterFalsePositiveCount / absent : 0;
+    }
+
+    /**
+     * Returns the index of the load time histogram bucket for the given load time in nanoseconds.
+     */
+    public static int getLoadTimeBucket(long loadTime) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(loadTime);
+        for (int i = 0; i < LOAD_TIME_HISTOGRAM_BOUNDS.length; i++) {
+            if (millis < LOAD_TIME_HISTOGRAM_BOUNDS[i]) {
+                return i;
+            }
+        }
+
+        return LOAD_TIME_HISTOGRAM_BOUNDS.length;
+    }
+
 }
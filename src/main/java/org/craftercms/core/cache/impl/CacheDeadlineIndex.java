@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.craftercms.core.cache.CacheItem;
+
+/**
+ * Index of the cache items that have an expiration or refresh deadline, ordered by the tick at which they are due.
+ * Lets {@link CacheImpl#tick()} visit only the items that are due instead of every item of every scope.
+ *
+ * <p>The index only holds the scope and key of the items, so it doesn't keep evicted values alive. Each key has at
+ * most one entry: adding an item replaces the entry of the previous item with the same key, and entries are removed
+ * with their item or their scope, so the index doesn't grow beyond the items that have a deadline. Items that a
+ * store evicts without notifying it keep their entry until it's due. In any case, when an entry becomes due the
+ * caller has to look up the current item and check it again, ignoring entries whose item is gone.</p>
+ *
+ * @since 4.2.0
+ */
+public class CacheDeadlineIndex {
+
+    private final ConcurrentSkipListMap<Long, Bucket> buckets;
+    private final ConcurrentMap<String, ConcurrentMap<Object, Slot>> slots;
+
+    public CacheDeadlineIndex() {
+        buckets = new ConcurrentSkipListMap<>();
+        slots = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds an entry for the item, due at the specified tick, replacing any entry of the same key.
+     */
+    public void add(long deadline, CacheItem item) {
+        getSlots(item.getScope()).compute(item.getKey(), (key, slot) -> {
+            Entry entry = slot != null? slot.entry : new Entry(item.getScope(), key);
+            if (slot != null) {
+                removeFromBucket(slot);
+            }
+
+            return new Slot(entry, addToBucket(deadline, entry), item);
+        });
+    }
+
+    /**
+     * Same as {@link #add(long, CacheItem)}, but doesn't replace the entry of a different item with the same key.
+     * Used to schedule the next check of an item that was already due, which could have been replaced meanwhile.
+     */
+    public void reschedule(long deadline, CacheItem item) {
+        getSlots(item.getScope()).compute(item.getKey(), (key, slot) -> {
+            if (slot != null && slot.item != item) {
+                return slot;
+            }
+
+            Entry entry = slot != null? slot.entry : new Entry(item.getScope(), key);
+            if (slot != null) {
+                removeFromBucket(slot);
+            }
+
+            return new Slot(entry, addToBucket(deadline, entry), item);
+        });
+    }
+
+    /**
+     * Removes the entry of the specified key, if any.
+     */
+    public void remove(String scope, Object key) {
+        ConcurrentMap<Object, Slot> scopeSlots = slots.get(scope);
+        if (scopeSlots != null) {
+            scopeSlots.computeIfPresent(key, (k, slot) -> {
+                removeFromBucket(slot);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Removes the entry of the item, but only if it wasn't replaced by the entry of another item with the same key.
+     */
+    public void remove(CacheItem item) {
+        ConcurrentMap<Object, Slot> scopeSlots = slots.get(item.getScope());
+        if (scopeSlots != null) {
+            scopeSlots.computeIfPresent(item.getKey(), (k, slot) -> {
+                if (slot.item != item) {
+                    return slot;
+                }
+
+                removeFromBucket(slot);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Removes all the entries of the specified scope.
+     */
+    public void removeScope(String scope) {
+        ConcurrentMap<Object, Slot> scopeSlots = slots.remove(scope);
+        if (scopeSlots != null) {
+            scopeSlots.values().forEach(this::removeFromBucket);
+        }
+    }
+
+    /**
+     * Removes and returns the entries due at or before the specified tick, without duplicates.
+     */
+    public Collection<Entry> pollDue(long currentTicks) {
+        Set<Entry> due = null;
+
+        for (Map.Entry<Long, Bucket> first = buckets.firstEntry();
+             first != null && first.getKey() <= currentTicks;
+             first = buckets.firstEntry()) {
+            Bucket bucket = first.getValue();
+            if (buckets.remove(first.getKey(), bucket)) {
+                if (due == null) {
+                    due = new LinkedHashSet<>();
+                }
+
+                for (Entry entry : bucket.seal()) {
+                    ConcurrentMap<Object, Slot> scopeSlots = slots.get(entry.getScope());
+                    if (scopeSlots != null) {
+                        // The entry could have been moved to another bucket meanwhile
+                        scopeSlots.computeIfPresent(entry.getKey(), (k, slot) -> slot.bucket == bucket? null : slot);
+                    }
+
+                    due.add(entry);
+                }
+            }
+        }
+
+        return due != null? due : Collections.emptySet();
+    }
+
+    /**
+     * Returns the number of entries in the index.
+     */
+    public int size() {
+        int size = 0;
+        for (Bucket bucket : buckets.values()) {
+            size += bucket.size();
+        }
+
+        return size;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        slots.clear();
+        buckets.clear();
+    }
+
+    private ConcurrentMap<Object, Slot> getSlots(String scope) {
+        ConcurrentMap<Object, Slot> scopeSlots = slots.get(scope);
+        if (scopeSlots == null) {
+            scopeSlots = slots.computeIfAbsent(scope, s -> new ConcurrentHashMap<>());
+        }
+
+        return scopeSlots;
+    }
+
+    private Bucket addToBucket(long deadline, Entry entry) {
+        // A bucket is sealed right after it's removed from the map, so if we got a sealed bucket we just need to try
+        // again to get a new one
+        Bucket bucket;
+        while (!(bucket = buckets.computeIfAbsent(deadline, Bucket::new)).add(entry)) {
+            Thread.onSpinWait();
+        }
+
+        return bucket;
+    }
+
+    private void removeFromBucket(Slot slot) {
+        if (slot.bucket.remove(slot.entry)) {
+            buckets.remove(slot.bucket.deadline, slot.bucket);
+        }
+    }
+
+    /**
+     * Scope and key of an item in the index.
+     */
+    public static final class Entry {
+
+        private final String scope;
+        private final Object key;
+
+        private Entry(String scope, Object key) {
+            this.scope = scope;
+            this.key = key;
+        }
+
+        public String getScope() {
+            return scope;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Entry entry = (Entry) o;
+
+            return scope.equals(entry.scope) && key.equals(entry.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * scope.hashCode() + key.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "[scope='" + scope + "', key=" + key + "]";
+        }
+
+    }
+
+    /**
+     * Current entry of a key: the bucket it's in and the item it was added for.
+     */
+    private static final class Slot {
+
+        private final Entry entry;
+        private final Bucket bucket;
+        private final CacheItem item;
+
+        private Slot(Entry entry, Bucket bucket, CacheItem item) {
+            this.entry = entry;
+            this.bucket = bucket;
+            this.item = item;
+        }
+
+    }
+
+    private static final class Bucket {
+
+        private final long deadline;
+        private final Set<Entry> entries = new LinkedHashSet<>(4);
+        private boolean sealed;
+
+        private Bucket(long deadline) {
+            this.deadline = deadline;
+        }
+
+        synchronized boolean add(Entry entry) {
+            if (sealed) {
+                return false;
+            }
+
+            entries.add(entry);
+
+            return true;
+        }
+
+        /**
+         * Removes the entry, and seals the bucket if it's left empty. Returns true if the bucket was sealed, so it
+         * should be removed from the map.
+         */
+        synchronized boolean remove(Entry entry) {
+            if (sealed) {
+                return false;
+            }
+
+            entries.remove(entry);
+            if (entries.isEmpty()) {
+                sealed = true;
+                return true;
+            }
+
+            return false;
+        }
+
+        synchronized Set<Entry> seal() {
+            sealed = true;
+
+            return entries;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+    }
+
+}
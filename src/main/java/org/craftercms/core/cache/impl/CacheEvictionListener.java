@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl;
+
+import org.craftercms.core.cache.CacheItem;
+
+/**
+ * Listener of the items a {@link CacheStoreAdapter} evicts by itself, like the ones evicted to keep a scope within
+ * its max size. Items that are removed or replaced explicitly are not notified.
+ *
+ * @since 4.2.0
+ */
+@FunctionalInterface
+public interface CacheEvictionListener {
+
+    /**
+     * Called after an item is evicted from its scope.
+     *
+     * @param item  the evicted item
+     * @param cause the cause of the eviction, like {@code SIZE} or {@code EXPIRED}
+     */
+    void itemEvicted(CacheItem item, String cause);
+
+}
@@ -28,7 +28,10 @@ import org.craftercms.core.util.cache.CachingAwareObject;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -41,6 +44,11 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class CacheImpl implements Cache {
 
     private static final Log logger = LogFactory.getLog(CacheImpl.class);
+
+    /**
+     * Eviction cause recorded for the items removed because they expired.
+     */
+    public static final String EXPIRED_EVICTION_CAUSE = "EXPIRED";
     /**
      * Holds the current number of ticks.
      */
@@ -53,6 +61,20 @@ public class CacheImpl implements Cache {
      * Used to refresh a list of items.
      */
     protected CacheRefresher cacheRefresher;
+    /**
+     * Used to refresh, in the background, the stale-while-revalidate items that are read after their refresh
+     * deadline. If not set, those items are refreshed by the ticker like any other.
+     */
+    protected CacheRefresher staleItemRefresher;
+    /**
+     * Items that have an expiration or refresh deadline, ordered by deadline, so that each tick only checks the
+     * items that are due.
+     */
+    protected CacheDeadlineIndex deadlineIndex;
+    /**
+     * Lookup, load and expiration counters for each scope.
+     */
+    protected Map<String, CacheStatisticsRecorder> statisticsRecorders;
 
     /**
      * Default constructor. Sets <code>timestampGenerator</code> to {@link org.craftercms.core.util.generators.impl
@@ -61,6 +83,11 @@ public class CacheImpl implements Cache {
     public CacheImpl(CacheStoreAdapter cacheStoreAdapter) {
         this.cacheStoreAdapter = cacheStoreAdapter;
         ticks = new AtomicInteger(0);
+        deadlineIndex = new CacheDeadlineIndex();
+        statisticsRecorders = new ConcurrentHashMap<>();
+
+        // Items evicted by the store don't need to be checked anymore
+        cacheStoreAdapter.setEvictionListener((item, cause) -> deadlineIndex.remove(item));
     }
 
     /**
@@ -70,6 +97,15 @@ public class CacheImpl implements Cache {
         this.cacheRefresher = cacheRefresher;
     }
 
+    /**
+     * Sets the {@link CacheRefresher} used to refresh the stale-while-revalidate items when they're read after their
+     * refresh deadline. It should return immediately (like {@link ConcurrentCacheRefresher}), since it's called from
+     * the thread that reads the item.
+     */
+    public void setStaleItemRefresher(CacheRefresher staleItemRefresher) {
+        this.staleItemRefresher = staleItemRefresher;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -102,6 +138,7 @@ public class CacheImpl implements Cache {
     public void addScope(String scope, int maxItemsInMemory) throws InternalCacheEngineException {
         try {
             cacheStoreAdapter.addScope(scope, maxItemsInMemory);
+            statisticsRecorders.put(scope, new CacheStatisticsRecorder());
         } catch (Exception ex) {
             throw new InternalCacheEngineException("Exception while adding scope " + scope, ex);
         }
@@ -114,6 +151,8 @@ public class CacheImpl implements Cache {
     public void removeScope(String scope) throws InvalidScopeException, InternalCacheEngineException {
         try {
             cacheStoreAdapter.removeScope(scope);
+            statisticsRecorders.remove(scope);
+            deadlineIndex.removeScope(scope);
         } catch (InvalidScopeException ex) {
             throw ex;
         } catch (Exception ex) {
@@ -171,10 +210,22 @@ public class CacheImpl implements Cache {
     public CacheItem get(String scope, Object key) throws InvalidScopeException, InternalCacheEngineException {
         try {
             CacheItem item = cacheStoreAdapter.get(scope, key);
-            if (item != null && logger.isDebugEnabled()) {
-                logger.debug("Cache hit: found " + item);
-            } else if (logger.isDebugEnabled()) {
-                logger.debug("Cache miss: item with key " + key + " not found in scope " + scope);
+            if (item != null) {
+                getStatisticsRecorder(scope).recordHit();
+
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Cache hit: found " + item);
+                }
+
+                if (isRefreshedOnRead(item) && item.needsRefresh(ticks.get())) {
+                    revalidate(item);
+                }
+            } else {
+                getStatisticsRecorder(scope).recordMiss();
+
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Cache miss: item with key " + key + " not found in scope " + scope);
+                }
             }
 
             return item;
@@ -186,6 +237,21 @@ public class CacheImpl implements Cache {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheItem peek(String scope, Object key) throws InvalidScopeException, InternalCacheEngineException {
+        try {
+            return cacheStoreAdapter.peek(scope, key);
+        } catch (InvalidScopeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new InternalCacheEngineException("Exception while getting item with key " + key + " from scope " +
+                scope, ex);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -201,6 +267,16 @@ public class CacheImpl implements Cache {
     public void put(String scope, Object key, Object value, long expireAfter, long refreshFrequency,
                     CacheLoader loader, Object... loaderParams) throws InvalidScopeException,
         InternalCacheEngineException {
+        put(scope, key, value, expireAfter, refreshFrequency, false, loader, loaderParams);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(String scope, Object key, Object value, long expireAfter, long refreshFrequency,
+                    boolean staleWhileRevalidate, CacheLoader loader, Object... loaderParams)
+        throws InvalidScopeException, InternalCacheEngineException {
         if (expireAfter < 0) {
             throw new IllegalArgumentException("The expireAfter argument should be 0 or positive");
         }
@@ -218,10 +294,18 @@ public class CacheImpl implements Cache {
 
         try {
             CacheItem item = new CacheItemImpl(scope, ticks.get(), key, value, expireAfter, refreshFrequency,
-                                               loader, loaderParams);
+                                               staleWhileRevalidate, loader, loaderParams);
 
             cacheStoreAdapter.put(item);
 
+            long deadline = getNextDeadline(item, -1);
+            if (deadline > 0) {
+                deadlineIndex.add(deadline, item);
+            } else {
+                // Drop the entry of the item this one replaced, if any
+                deadlineIndex.remove(scope, key);
+            }
+
             if (logger.isDebugEnabled()) {
                 logger.debug("Put into cache: " + item);
             }
@@ -243,6 +327,8 @@ public class CacheImpl implements Cache {
         }
 
         try {
+            deadlineIndex.remove(scope, key);
+
             return cacheStoreAdapter.remove(scope, key);
         } catch (InvalidScopeException ex) {
             throw ex;
@@ -259,6 +345,7 @@ public class CacheImpl implements Cache {
     public void clearAll() throws InternalCacheEngineException {
         try {
             cacheStoreAdapter.clearAll();
+            deadlineIndex.clear();
         } catch (Exception ex) {
             throw new InternalCacheEngineException("Exception while clearing all items from the cache", ex);
         }
@@ -271,6 +358,7 @@ public class CacheImpl implements Cache {
     public void clearScope(String scope) throws InvalidScopeException, InternalCacheEngineException {
         try {
             cacheStoreAdapter.clearScope(scope);
+            deadlineIndex.removeScope(scope);
         } catch (InvalidScopeException ex) {
             throw ex;
         } catch (Exception ex) {
@@ -283,18 +371,36 @@ public class CacheImpl implements Cache {
      */
     @Override
     public CacheStatistics getStatistics(String scope) {
-        return cacheStoreAdapter.getStatistics(scope);
+        CacheStatistics statistics = cacheStoreAdapter.getStatistics(scope);
+        if (statistics != CacheStatistics.EMPTY) {
+            getStatisticsRecorder(scope).applyTo(statistics);
+        }
+
+        return statistics;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordLoad(String scope, long loadTime, boolean success) {
+        // Loads can finish after the scope was removed, so don't create a recorder for them
+        CacheStatisticsRecorder recorder = statisticsRecorders.get(scope);
+        if (recorder != null) {
+            recorder.recordLoad(loadTime, success);
+        }
     }
 
     /**
      * Called when a tick occurs. A tick is a logical unit of time. It basically symbolizes the time span between
      * calls to this method (i.e. 15 mins) by a job scheduler like Quartz.
-     * Checks if some of the {@link CacheItem}s in the cache have expired or need to be refreshed. If the item
+     * Checks if the {@link CacheItem}s whose deadline is due have expired or need to be refreshed. If the item
      * has expired, it is removed from the cache. If it needs to be refreshed, it is added to a list of items that
-     * need to be refreshed that is later passed to the {@link CacheRefresher}.
+     * need to be refreshed that is later passed to the {@link CacheRefresher}. Items without an expiration or
+     * refresh deadline are never visited.
      */
     public void tick() {
-        ticks.incrementAndGet();
+        long currentTicks = ticks.incrementAndGet();
 
         if (logger.isDebugEnabled()) {
             logger.debug("Tick!");
@@ -303,22 +409,14 @@ public class CacheImpl implements Cache {
         List<CacheItem> itemsToRefresh = new ArrayList<CacheItem>();
 
         try {
-            Collection<String> scopes = cacheStoreAdapter.getScopes();
-            if (CollectionUtils.isNotEmpty(scopes)) {
-                for (String scope : scopes) {
-                    Collection<Object> keys = cacheStoreAdapter.getKeys(scope);
-                    if (CollectionUtils.isNotEmpty(keys)) {
-                        for (Object key : keys) {
-                            CacheItem item = cacheStoreAdapter.get(scope, key);
-                            if (item != null) {
-                                doChecks(item, itemsToRefresh);
-                            } else {
-                                if (logger.isDebugEnabled()) {
-                                    logger.debug(item + " was removed before it could be checked for " +
-                                                 "expiration/refresh");
-                                }
-                            }
-                        }
+            for (CacheDeadlineIndex.Entry entry : deadlineIndex.pollDue(currentTicks)) {
+                CacheItem item = getDueItem(entry);
+                if (item != null) {
+                    doChecks(item, itemsToRefresh);
+                } else {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Item with " + entry + " was removed before it could be checked for " +
+                                     "expiration/refresh");
                     }
                 }
             }
@@ -331,6 +429,71 @@ public class CacheImpl implements Cache {
         }
     }
 
+    /**
+     * Returns the statistics recorder of the scope. The recorder is created if it doesn't exist, since the scope
+     * could have been added directly to the {@link CacheStoreAdapter}.
+     */
+    protected CacheStatisticsRecorder getStatisticsRecorder(String scope) {
+        CacheStatisticsRecorder recorder = statisticsRecorders.get(scope);
+        if (recorder == null) {
+            recorder = statisticsRecorders.computeIfAbsent(scope, s -> new CacheStatisticsRecorder());
+        }
+
+        return recorder;
+    }
+
+    /**
+     * Returns the current item for the given deadline index entry, or null if it's not in the cache anymore.
+     */
+    protected CacheItem getDueItem(CacheDeadlineIndex.Entry entry) {
+        try {
+            // Checking an item isn't an access to it, so it shouldn't change where the store keeps it
+            return cacheStoreAdapter.peek(entry.getScope(), entry.getKey());
+        } catch (Exception ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Unable to get item with " + entry + " for expiration/refresh check", ex);
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Adds the item back to the deadline index after it was checked, at its first expiration or refresh deadline
+     * after the specified tick. Does nothing if the item doesn't have a deadline after that tick, or if it was
+     * replaced meanwhile.
+     */
+    protected void scheduleChecks(CacheItem item, long afterTicks) {
+        long deadline = getNextDeadline(item, afterTicks);
+        if (deadline > 0) {
+            deadlineIndex.reschedule(deadline, item);
+        }
+    }
+
+    /**
+     * Returns the first tick after {@code afterTicks} at which the item expires or needs to be refreshed, or -1 if
+     * there's none.
+     */
+    protected long getNextDeadline(CacheItem item, long afterTicks) {
+        long deadline = -1;
+
+        if (item.getTicksToExpire() != CacheItem.NEVER_EXPIRE) {
+            long expiration = item.getTicksAtCreation() + item.getTicksToExpire();
+            if (expiration > afterTicks) {
+                deadline = expiration;
+            }
+        }
+        if (item.getTicksToRefresh() != CacheItem.NEVER_REFRESH && item.getLoader() != null &&
+            !isRefreshedOnRead(item)) {
+            long refresh = item.getTicksAtCreation() + item.getTicksToRefresh();
+            if (refresh > afterTicks && (deadline < 0 || refresh < deadline)) {
+                deadline = refresh;
+            }
+        }
+
+        return deadline;
+    }
+
     /**
      * Checks if the given {@link CacheItem} has expired or needs to be refreshed.
      *
@@ -353,6 +516,11 @@ public class CacheImpl implements Cache {
                     if (logger.isDebugEnabled()) {
                         logger.debug(item + " will be refreshed");
                     }
+
+                    // Check again next tick in case the refresh fails and the item is not replaced
+                    deadlineIndex.reschedule(ticks.get() + 1, item);
+                } else {
+                    scheduleChecks(item, ticks.get());
                 }
             }
         } catch (Exception ex) {
@@ -370,6 +538,7 @@ public class CacheImpl implements Cache {
     protected boolean checkForExpiration(CacheItem item) throws Exception {
         if (item.isExpired(ticks.get())) {
             cacheStoreAdapter.remove(item.getScope(), item.getKey());
+            getStatisticsRecorder(item.getScope()).recordEviction(EXPIRED_EVICTION_CAUSE);
 
             return true;
         } else {
@@ -386,7 +555,7 @@ public class CacheImpl implements Cache {
      * @return true if the item will be refreshed, false otherwise
      */
     protected boolean checkForRefresh(CacheItem item, List<CacheItem> itemsToRefresh) {
-        if (item.getLoader() != null && item.needsRefresh(ticks.get())) {
+        if (item.getLoader() != null && !isRefreshedOnRead(item) && item.needsRefresh(ticks.get())) {
             itemsToRefresh.add(item);
 
             return true;
@@ -395,4 +564,28 @@ public class CacheImpl implements Cache {
         }
     }
 
+    /**
+     * Returns true if the item is a stale-while-revalidate item that is refreshed when read after its refresh
+     * deadline, instead of by the ticker.
+     */
+    protected boolean isRefreshedOnRead(CacheItem item) {
+        return staleItemRefresher != null && item.isStaleWhileRevalidate() && item.getLoader() != null;
+    }
+
+    /**
+     * Submits the stale item to the {@link #staleItemRefresher}. The caller keeps the stale value, and the item is
+     * replaced once the new value is loaded. Any error is logged, since it shouldn't fail the read.
+     */
+    protected void revalidate(CacheItem item) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(item + " is stale, it will be refreshed in the background");
+        }
+
+        try {
+            staleItemRefresher.refreshItems(Collections.singletonList(item), this);
+        } catch (Exception ex) {
+            logger.warn("Exception while refreshing stale " + item, ex);
+        }
+    }
+
 }
@@ -41,12 +41,23 @@ public class CacheItemImpl implements CacheItem {
     protected final CacheLoader loader;
     protected final Object[] loaderParams;
 
+    protected final boolean staleWhileRevalidate;
+
     /**
      * Value constructor.
      */
     public CacheItemImpl(final String scope, final long ticksAtCreation, final Object key, final Object value,
                          final long ticksToExpire, final long ticksToRefresh, final CacheLoader loader,
                          final Object[] loaderParams) {
+        this(scope, ticksAtCreation, key, value, ticksToExpire, ticksToRefresh, false, loader, loaderParams);
+    }
+
+    /**
+     * Value constructor, for items that can be served stale while they're reloaded.
+     */
+    public CacheItemImpl(final String scope, final long ticksAtCreation, final Object key, final Object value,
+                         final long ticksToExpire, final long ticksToRefresh, final boolean staleWhileRevalidate,
+                         final CacheLoader loader, final Object[] loaderParams) {
         this.scope = scope;
         this.ticksAtCreation = ticksAtCreation;
 
@@ -58,6 +69,8 @@ public class CacheItemImpl implements CacheItem {
 
         this.loader = loader;
         this.loaderParams = loaderParams;
+
+        this.staleWhileRevalidate = staleWhileRevalidate;
     }
 
     /**
@@ -140,6 +153,14 @@ public class CacheItemImpl implements CacheItem {
         return this.ticksToRefresh != NEVER_REFRESH && currentTicks >= (this.ticksAtCreation + this.ticksToRefresh);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isStaleWhileRevalidate() {
+        return this.staleWhileRevalidate;
+    }
+
     /**
      * Returns true if the specified {@code CacheItemImpl}'s and this instance's key and scope are equal.
      */
@@ -180,6 +201,7 @@ public class CacheItemImpl implements CacheItem {
             ", value=" + this.value +
             ", ticksToExpire=" + this.ticksToExpire +
             ", ticksToRefresh=" + this.ticksToRefresh +
+            ", staleWhileRevalidate=" + this.staleWhileRevalidate +
             ", loader=" + this.loader +
             ", loaderParams=" + (this.loaderParams == null? null: Arrays.asList(this.loaderParams)) +
             ']';
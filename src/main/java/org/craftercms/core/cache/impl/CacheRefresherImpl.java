@@ -53,6 +53,16 @@ public class CacheRefresherImpl implements CacheRefresher {
      * @throws Exception
      */
     protected void refreshItem(CacheItem item, Cache cache) throws Exception {
+        updateItem(item, cache, loadNewValue(item, cache));
+    }
+
+    /**
+     * Calls the item's {@link CacheLoader} to get the new value of the item, recording the load in the cache
+     * statistics.
+     *
+     * @throws Exception
+     */
+    protected Object loadNewValue(CacheItem item, Cache cache) throws Exception {
         CacheLoader loader = item.getLoader();
         Object[] loaderParams = item.getLoaderParams();
 
@@ -64,8 +74,28 @@ public class CacheRefresherImpl implements CacheRefresher {
             logger.debug("Refreshing " + getScopeAndKeyString(item));
         }
 
-        Object newValue = loader.load(loaderParams);
-        if (newValue != null) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object newValue = loader.load(loaderParams);
+            success = true;
+
+            return newValue;
+        } finally {
+            cache.recordLoad(item.getScope(), System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * Puts the new value of the item in the cache, or removes the item if the new value is null.
+     *
+     * @throws Exception
+     */
+    protected void updateItem(CacheItem item, Cache cache, Object newValue) throws Exception {
+        if (newValue != null && item.isStaleWhileRevalidate()) {
+            cache.put(item.getScope(), item.getKey(), newValue, item.getTicksToExpire(), item.getTicksToRefresh(),
+                      true, item.getLoader(), item.getLoaderParams());
+        } else if (newValue != null) {
             cache.put(item.getScope(), item.getKey(), newValue, item.getTicksToExpire(), item.getTicksToRefresh(),
                       item.getLoader(), item.getLoaderParams());
         } else {
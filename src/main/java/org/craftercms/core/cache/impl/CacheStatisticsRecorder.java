@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.craftercms.core.cache.CacheStatistics;
+
+/**
+ * Thread-safe counters of the events of a cache scope (lookups, loads and evictions). Uses {@link LongAdder}s so
+ * recording doesn't become a point of contention when lots of threads read from the same scope.
+ *
+ * @since 4.2.0
+ */
+public class CacheStatisticsRecorder {
+
+    protected final LongAdder hitCount;
+    protected final LongAdder missCount;
+    protected final LongAdder loadSuccessCount;
+    protected final LongAdder loadFailureCount;
+    protected final LongAdder totalLoadTime;
+    protected final LongAdder[] loadTimeHistogram;
+    protected final Map<String, LongAdder> evictionCounts;
+
+    public CacheStatisticsRecorder() {
+        hitCount = new LongAdder();
+        missCount = new LongAdder();
+        loadSuccessCount = new LongAdder();
+        loadFailureCount = new LongAdder();
+        totalLoadTime = new LongAdder();
+        loadTimeHistogram = new LongAdder[CacheStatistics.LOAD_TIME_HISTOGRAM_BOUNDS.length + 1];
+        evictionCounts = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < loadTimeHistogram.length; i++) {
+            loadTimeHistogram[i] = new LongAdder();
+        }
+    }
+
+    public void recordHit() {
+        hitCount.increment();
+    }
+
+    public void recordMiss() {
+        missCount.increment();
+    }
+
+    /**
+     * Records a load of an item.
+     *
+     * @param loadTime the time the load took, in nanoseconds
+     * @param success  if the load finished without exceptions
+     */
+    public void recordLoad(long loadTime, boolean success) {
+        if (success) {
+            loadSuccessCount.increment();
+        } else {
+            loadFailureCount.increment();
+        }
+
+        totalLoadTime.add(loadTime);
+        loadTimeHistogram[CacheStatistics.getLoadTimeBucket(loadTime)].increment();
+    }
+
+    /**
+     * Records the eviction of an item.
+     *
+     * @param cause the cause of the eviction, like {@code SIZE} or {@code EXPIRED}
+     */
+    public void recordEviction(String cause) {
+        evictionCounts.computeIfAbsent(cause, c -> new LongAdder()).increment();
+    }
+
+    /**
+     * Copies the hit and miss counts to the statistics, replacing the existing ones, and adds the load and eviction
+     * counts to the existing ones.
+     */
+    public void applyTo(CacheStatistics statistics) {
+        statistics.setHitCount(hitCount.sum());
+        statistics.setMissCount(missCount.sum());
+
+        applyLoadsAndEvictionsTo(statistics);
+    }
+
+    /**
+     * Adds the load and eviction counts to the ones of the statistics.
+     */
+    public void applyLoadsAndEvictionsTo(CacheStatistics statistics) {
+        statistics.setLoadSuccessCount(statistics.getLoadSuccessCount() + loadSuccessCount.sum());
+        statistics.setLoadFailureCount(statistics.getLoadFailureCount() + loadFailureCount.sum());
+        statistics.setTotalLoadTime(statistics.getTotalLoadTime() + totalLoadTime.sum());
+
+        for (int i = 0; i < loadTimeHistogram.length; i++) {
+            statistics.addLoadTimes(i, loadTimeHistogram[i].sum());
+        }
+
+        evictionCounts.forEach((cause, count) -> statistics.addEvictions(cause, count.sum()));
+    }
+
+}
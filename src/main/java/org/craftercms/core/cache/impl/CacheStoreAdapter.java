@@ -93,6 +93,21 @@ public interface CacheStoreAdapter {
      */
     CacheItem get(String scope, Object key) throws Exception;
 
+    /**
+     * Retrieves an item from a scope like {@link #get(String, Object)}, but without any side effect of a read, like
+     * moving the item between levels of a tiered store. Used by background checks that shouldn't count as an access
+     * to the item.
+     *
+     * @param scope scope to get the item from
+     * @param key   unique key for the item within this scope
+     * @return the requested item if found, null otherwise
+     * @throws Exception
+     * @since 4.2.0
+     */
+    default CacheItem peek(String scope, Object key) throws Exception {
+        return get(scope, key);
+    }
+
     /**
      * Puts an item in a scope. The scope is obtained through {@link CacheItem#getScope()}.
      *
@@ -133,4 +148,14 @@ public interface CacheStoreAdapter {
      */
     CacheStatistics getStatistics(String scope);
 
+    /**
+     * Sets a listener to notify of the items the store evicts by itself. Stores that never evict items, or that can't
+     * notify their evictions, ignore it.
+     *
+     * @param evictionListener the listener
+     * @since 4.2.0
+     */
+    default void setEvictionListener(CacheEvictionListener evictionListener) {
+    }
+
 }
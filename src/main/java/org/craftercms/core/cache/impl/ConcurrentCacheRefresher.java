@@ -0,0 +1,473 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.craftercms.core.cache.Cache;
+import org.craftercms.core.cache.CacheItem;
+import org.craftercms.core.util.cache.impl.CompositeCacheKey;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * {@link CacheRefresher} that runs the loaders of the items in the background, so a slow loader doesn't hold the
+ * ticker thread (and with it the expiration checks of the next ticks). Refreshes are:
+ * <ul>
+ *     <li><b>Bounded:</b> at most {@code maxConcurrentRefreshes} loaders run at the same time, and at most
+ *     {@code maxPendingRefreshes} refreshes wait for their turn. Refreshes over that limit are dropped; the item is
+ *     checked again in the next tick.</li>
+ *     <li><b>Deduplicated:</b> a refresh for a scope/key that is already pending or running is ignored.</li>
+ *     <li><b>Time limited:</b> if a loader takes longer than {@code refreshTimeout} its thread is interrupted and
+ *     whatever it returns afterwards is discarded. A loader that ignores the interrupt keeps its slot until it
+ *     actually returns, so there are never more than {@code maxConcurrentRefreshes} loaders running.</li>
+ * </ul>
+ * Loaders run in virtual threads when the JVM supports them (and {@code virtualThreadsEnabled} is true), or in a
+ * fixed pool of {@code maxConcurrentRefreshes} platform threads otherwise. {@link #afterPropertiesSet()} needs to be
+ * called before any refresh. The executors are only created on the first refresh, so a refresher that is never
+ * used doesn't start any threads.
+ *
+ * @since 4.2.0
+ */
+public class ConcurrentCacheRefresher extends CacheRefresherImpl implements InitializingBean, DisposableBean {
+
+    private static final Log logger = LogFactory.getLog(ConcurrentCacheRefresher.class);
+
+    public static final int DEFAULT_MAX_CONCURRENT_REFRESHES = 8;
+    public static final int DEFAULT_MAX_PENDING_REFRESHES = 10000;
+    public static final long DEFAULT_REFRESH_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+    private static final String THREAD_NAME_PREFIX = "crafter-cache-refresher-";
+
+    /**
+     * Max number of loaders running at the same time.
+     */
+    protected int maxConcurrentRefreshes;
+    /**
+     * Max number of refreshes waiting to run.
+     */
+    protected int maxPendingRefreshes;
+    /**
+     * Max time in milliseconds a loader can run before being interrupted. 0 or less means no limit.
+     */
+    protected long refreshTimeout;
+    /**
+     * If virtual threads should be used when available.
+     */
+    protected boolean virtualThreadsEnabled;
+
+    protected volatile ExecutorService executor;
+    protected ScheduledExecutorService timeoutScheduler;
+    protected boolean destroyed;
+    protected Semaphore permits;
+    protected Map<Object, Boolean> inFlightRefreshes;
+
+    protected AtomicInteger pendingRefreshes;
+    protected AtomicInteger runningRefreshes;
+    protected LongAdder completedRefreshes;
+    protected LongAdder failedRefreshes;
+    protected LongAdder timedOutRefreshes;
+    protected LongAdder coalescedRefreshes;
+    protected LongAdder rejectedRefreshes;
+    protected LongAdder totalRefreshTime;
+    protected LongAdder totalWaitTime;
+    protected AtomicLong maxRefreshTime;
+
+    public ConcurrentCacheRefresher() {
+        maxConcurrentRefreshes = DEFAULT_MAX_CONCURRENT_REFRESHES;
+        maxPendingRefreshes = DEFAULT_MAX_PENDING_REFRESHES;
+        refreshTimeout = DEFAULT_REFRESH_TIMEOUT;
+        virtualThreadsEnabled = true;
+        inFlightRefreshes = new ConcurrentHashMap<>();
+        pendingRefreshes = new AtomicInteger();
+        runningRefreshes = new AtomicInteger();
+        completedRefreshes = new LongAdder();
+        failedRefreshes = new LongAdder();
+        timedOutRefreshes = new LongAdder();
+        coalescedRefreshes = new LongAdder();
+        rejectedRefreshes = new LongAdder();
+        totalRefreshTime = new LongAdder();
+        totalWaitTime = new LongAdder();
+        maxRefreshTime = new AtomicLong();
+    }
+
+    public void setMaxConcurrentRefreshes(int maxConcurrentRefreshes) {
+        this.maxConcurrentRefreshes = maxConcurrentRefreshes;
+    }
+
+    public void setMaxPendingRefreshes(int maxPendingRefreshes) {
+        this.maxPendingRefreshes = maxPendingRefreshes;
+    }
+
+    public void setRefreshTimeout(long refreshTimeout) {
+        this.refreshTimeout = refreshTimeout;
+    }
+
+    public void setVirtualThreadsEnabled(boolean virtualThreadsEnabled) {
+        this.virtualThreadsEnabled = virtualThreadsEnabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (maxConcurrentRefreshes <= 0) {
+            throw new IllegalStateException("maxConcurrentRefreshes should be positive");
+        }
+
+        permits = new Semaphore(maxConcurrentRefreshes);
+    }
+
+    @Override
+    public synchronized void destroy() {
+        destroyed = true;
+
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (timeoutScheduler != null) {
+            timeoutScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits the refresh of each item and returns immediately.
+     */
+    @Override
+    public void refreshItems(List<CacheItem> itemsToRefresh, Cache cache) {
+        if (permits == null) {
+            throw new IllegalStateException("The refresher hasn't been initialized, afterPropertiesSet() should be " +
+                                            "called first");
+        }
+
+        ExecutorService executor = getExecutor();
+        for (CacheItem item : itemsToRefresh) {
+            submitRefresh(item, cache, executor);
+        }
+    }
+
+    /**
+     * Returns the number of refreshes waiting for a free slot.
+     */
+    public int getQueueDepth() {
+        return pendingRefreshes.get();
+    }
+
+    /**
+     * Returns the number of loaders currently running.
+     */
+    public int getActiveRefreshes() {
+        return runningRefreshes.get();
+    }
+
+    /**
+     * Returns the number of refreshes that finished successfully (including the ones whose loader returned null).
+     */
+    public long getCompletedRefreshes() {
+        return completedRefreshes.sum();
+    }
+
+    /**
+     * Returns the number of refreshes whose loader threw an exception.
+     */
+    public long getFailedRefreshes() {
+        return failedRefreshes.sum();
+    }
+
+    /**
+     * Returns the number of refreshes that took longer than the timeout.
+     */
+    public long getTimedOutRefreshes() {
+        return timedOutRefreshes.sum();
+    }
+
+    /**
+     * Returns the number of refreshes ignored because the same item was already being refreshed.
+     */
+    public long getCoalescedRefreshes() {
+        return coalescedRefreshes.sum();
+    }
+
+    /**
+     * Returns the number of refreshes dropped because too many were pending.
+     */
+    public long getRejectedRefreshes() {
+        return rejectedRefreshes.sum();
+    }
+
+    /**
+     * Returns the average time in milliseconds the loaders took to run.
+     */
+    public double getAverageRefreshTime() {
+        long count = completedRefreshes.sum() + failedRefreshes.sum() + timedOutRefreshes.sum();
+
+        return count > 0? TimeUnit.NANOSECONDS.toMicros(totalRefreshTime.sum()) / 1000.0 / count : 0;
+    }
+
+    /**
+     * Returns the max time in milliseconds a loader took to run.
+     */
+    public double getMaxRefreshTime() {
+        return TimeUnit.NANOSECONDS.toMicros(maxRefreshTime.get()) / 1000.0;
+    }
+
+    /**
+     * Returns the average time in milliseconds refreshes waited before their loader started running.
+     */
+    public double getAverageWaitTime() {
+        long count = completedRefreshes.sum() + failedRefreshes.sum() + timedOutRefreshes.sum();
+
+        return count > 0? TimeUnit.NANOSECONDS.toMicros(totalWaitTime.sum()) / 1000.0 / count : 0;
+    }
+
+    protected void submitRefresh(CacheItem item, Cache cache, ExecutorService executor) {
+        Object refreshKey = new CompositeCacheKey(item.getScope(), item.getKey());
+
+        if (inFlightRefreshes.putIfAbsent(refreshKey, Boolean.TRUE) != null) {
+            coalescedRefreshes.increment();
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Refresh for " + getScopeAndKeyString(item) + " already in progress");
+            }
+
+            return;
+        }
+
+        if (pendingRefreshes.incrementAndGet() > maxPendingRefreshes) {
+            rejectRefresh(item, refreshKey, null);
+            return;
+        }
+
+        long submittedAt = System.nanoTime();
+        try {
+            executor.execute(() -> runRefresh(item, cache, refreshKey, submittedAt));
+        } catch (RejectedExecutionException e) {
+            rejectRefresh(item, refreshKey, e);
+        }
+    }
+
+    protected void rejectRefresh(CacheItem item, Object refreshKey, Exception cause) {
+        pendingRefreshes.decrementAndGet();
+        inFlightRefreshes.remove(refreshKey);
+        rejectedRefreshes.increment();
+
+        logger.warn("Refresh for " + getScopeAndKeyString(item) + " rejected (" + pendingRefreshes.get() +
+                    " refreshes pending), it will be retried on the next tick", cause);
+    }
+
+    protected void runRefresh(CacheItem item, Cache cache, Object refreshKey, long submittedAt) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            pendingRefreshes.decrementAndGet();
+            inFlightRefreshes.remove(refreshKey);
+
+            return;
+        }
+
+        pendingRefreshes.decrementAndGet();
+        runningRefreshes.incrementAndGet();
+
+        long startedAt = System.nanoTime();
+        totalWaitTime.add(startedAt - submittedAt);
+
+        // Counted once the slot is released, so that the refresh is no longer active when it's seen as done
+        LongAdder outcome = null;
+
+        RefreshTimeout timeout = scheduleTimeout(item, Thread.currentThread());
+        try {
+            Object newValue = loadNewValue(item, cache);
+            if (finish(timeout)) {
+                updateItem(item, cache, newValue);
+                outcome = completedRefreshes;
+            }
+        } catch (Exception ex) {
+            if (finish(timeout)) {
+                outcome = failedRefreshes;
+                logger.error("Refresh for " + getScopeAndKeyString(item) + " failed", ex);
+            }
+        } finally {
+            finish(timeout);
+
+            long elapsed = System.nanoTime() - startedAt;
+            totalRefreshTime.add(elapsed);
+            maxRefreshTime.accumulateAndGet(elapsed, Math::max);
+
+            // The loader has returned at this point, even if it timed out and ignored the interrupt, so only now
+            // its slot can be used by another refresh
+            runningRefreshes.decrementAndGet();
+            permits.release();
+            inFlightRefreshes.remove(refreshKey);
+
+            // Clear the interrupt flag set by the timeout, if any, before the thread is reused. Once the refresh
+            // is finished the timeout can't interrupt the thread anymore
+            Thread.interrupted();
+        }
+
+        if (outcome != null) {
+            outcome.increment();
+        }
+    }
+
+    /**
+     * Returns the executor of the refreshes, creating it (and the timeout scheduler) on the first call.
+     */
+    protected ExecutorService getExecutor() {
+        ExecutorService executor = this.executor;
+        if (executor == null) {
+            synchronized (this) {
+                if (destroyed) {
+                    throw new IllegalStateException("The refresher has been destroyed");
+                }
+
+                executor = this.executor;
+                if (executor == null) {
+                    timeoutScheduler = createTimeoutScheduler();
+
+                    // Published last, so the timeout scheduler is visible to any thread that sees the executor
+                    this.executor = executor = createExecutor();
+                }
+            }
+        }
+
+        return executor;
+    }
+
+    protected RefreshTimeout scheduleTimeout(CacheItem item, Thread thread) {
+        if (refreshTimeout <= 0) {
+            return null;
+        }
+
+        RefreshTimeout timeout = new RefreshTimeout(item, thread);
+        timeout.future = timeoutScheduler.schedule(timeout, refreshTimeout, TimeUnit.MILLISECONDS);
+
+        return timeout;
+    }
+
+    /**
+     * Marks the refresh as finished, so that its timeout doesn't interrupt the thread anymore.
+     *
+     * @return true if the refresh finished before timing out (always true if there's no timeout)
+     */
+    protected boolean finish(RefreshTimeout timeout) {
+        return timeout == null || timeout.finish();
+    }
+
+    protected ScheduledExecutorService createTimeoutScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+            createThreadFactory(THREAD_NAME_PREFIX + "timeout-"));
+        scheduler.setRemoveOnCancelPolicy(true);
+
+        return scheduler;
+    }
+
+    protected ExecutorService createExecutor() {
+        if (virtualThreadsEnabled) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+
+                logger.info("Cache refreshes will run in virtual threads (max " + maxConcurrentRefreshes +
+                            " at the same time)");
+
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                logger.info("Virtual threads are not available, cache refreshes will run in a pool of " +
+                            maxConcurrentRefreshes + " threads");
+            }
+        }
+
+        return Executors.newFixedThreadPool(maxConcurrentRefreshes, createThreadFactory(THREAD_NAME_PREFIX));
+    }
+
+    /**
+     * Timeout of a running refresh. Interrupting the thread and finishing the refresh are done under the same lock,
+     * so the thread is never interrupted after the refresh finished, when it could already be running another
+     * refresh.
+     */
+    protected class RefreshTimeout implements Runnable {
+
+        private final CacheItem item;
+        private final Thread thread;
+        private boolean finished;
+        private boolean timedOut;
+        private ScheduledFuture<?> future;
+
+        protected RefreshTimeout(CacheItem item, Thread thread) {
+            this.item = item;
+            this.thread = thread;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (!finished) {
+                timedOut = true;
+                finished = true;
+                timedOutRefreshes.increment();
+
+                logger.warn("Refresh for " + getScopeAndKeyString(item) + " took more than " + refreshTimeout +
+                            "ms, interrupting it and discarding its result");
+
+                thread.interrupt();
+            }
+        }
+
+        /**
+         * Marks the refresh as finished and cancels the timeout.
+         *
+         * @return true if the refresh didn't time out
+         */
+        public synchronized boolean finish() {
+            if (!finished) {
+                finished = true;
+                if (future != null) {
+                    future.cancel(false);
+                }
+            }
+
+            return !timedOut;
+        }
+
+    }
+
+    protected ThreadFactory createThreadFactory(String namePrefix) {
+        AtomicInteger count = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        };
+    }
+
+}
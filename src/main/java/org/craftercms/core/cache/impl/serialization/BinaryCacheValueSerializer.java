@@ -0,0 +1,813 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl.serialization;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.craftercms.core.service.Item;
+import org.craftercms.core.service.Tree;
+import org.craftercms.core.util.cache.impl.CachingAwareList;
+import org.dom4j.Attribute;
+import org.dom4j.Branch;
+import org.dom4j.Document;
+import org.dom4j.DocumentFactory;
+import org.dom4j.Element;
+import org.dom4j.Namespace;
+import org.dom4j.Node;
+import org.dom4j.ProcessingInstruction;
+import org.dom4j.QName;
+
+/**
+ * {@link CacheValueSerializer} that writes {@link Item}s, {@link Tree}s, {@link CachingAwareList}s of them and
+ * their descriptor DOMs in a compact binary format, without going through XML or reflection:
+ * <ul>
+ * <li>Lengths, counts and integers are written as varints.</li>
+ * <li>Element and attribute names, namespaces and property names are written once per value, and then referenced
+ * by their index in a name table (descriptors repeat the same few names over and over).</li>
+ * <li>The descriptor URL and name of an item are omitted when they can be derived from its URL.</li>
+ * </ul>
+ * <p>Values can be read directly from a {@link ByteBuffer} with {@link #deserialize(ByteBuffer)}, so memory-mapped
+ * files or direct buffers don't need to be copied to an array first.</p>
+ * <p>Like {@link XmlCacheValueSerializer}, item properties are supported as long as their values are strings,
+ * booleans, numbers or lists of them. The DOM is kept as is (including comments, CDATA sections, processing
+ * instructions and namespace declarations), except for the doctype, which descriptors don't have.</p>
+ *
+ * @since 4.2.0
+ */
+public class BinaryCacheValueSerializer implements CacheValueSerializer {
+
+    /**
+     * First byte of every value, different from the first byte of {@link XmlCacheValueSerializer} values, so that
+     * reading a value of the other format fails instead of returning garbage.
+     */
+    protected static final byte FORMAT_VERSION = (byte) 0x81;
+
+    protected static final byte TYPE_NULL = 0;
+    protected static final byte TYPE_ITEM = 1;
+    protected static final byte TYPE_TREE = 2;
+    protected static final byte TYPE_LIST = 3;
+    protected static final byte TYPE_STRING = 4;
+    protected static final byte TYPE_TRUE = 5;
+    protected static final byte TYPE_FALSE = 6;
+    protected static final byte TYPE_INTEGER = 7;
+    protected static final byte TYPE_LONG = 8;
+    protected static final byte TYPE_DOUBLE = 9;
+
+    protected static final byte NODE_END = 0;
+    protected static final byte NODE_ELEMENT = 1;
+    protected static final byte NODE_TEXT = 2;
+    protected static final byte NODE_CDATA = 3;
+    protected static final byte NODE_COMMENT = 4;
+    protected static final byte NODE_PROCESSING_INSTRUCTION = 5;
+    protected static final byte NODE_ENTITY = 6;
+    protected static final byte NODE_NAMESPACE = 7;
+
+    protected static final int FLAG_FOLDER = 1;
+    protected static final int FLAG_CACHING_TIME = 1 << 1;
+    protected static final int FLAG_DOCUMENT = 1 << 2;
+    protected static final int FLAG_PROPERTIES = 1 << 3;
+    protected static final int FLAG_DESCRIPTOR_URL_IS_URL = 1 << 4;
+    protected static final int FLAG_NAME_FROM_URL = 1 << 5;
+
+    protected DocumentFactory documentFactory;
+
+    public BinaryCacheValueSerializer() {
+        documentFactory = DocumentFactory.getInstance();
+    }
+
+    /**
+     * Sets the factory used to create the nodes of the deserialized DOMs. Defaults to
+     * {@link DocumentFactory#getInstance()}.
+     */
+    public void setDocumentFactory(DocumentFactory documentFactory) {
+        this.documentFactory = documentFactory;
+    }
+
+    @Override
+    public boolean supports(Object value) {
+        return value instanceof Item || value instanceof CachingAwareList;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws IOException {
+        Encoder out = new Encoder();
+        out.writeByte(FORMAT_VERSION);
+
+        if (value instanceof Item) {
+            writeItem(out, (Item) value);
+        } else if (value instanceof CachingAwareList) {
+            CachingAwareList<?> list = (CachingAwareList<?>) value;
+
+            out.writeByte(TYPE_LIST);
+            writeCachingTime(out, list.getCachingTime());
+            out.writeVarInt(list.size());
+
+            for (Object element : list) {
+                if (!(element instanceof Item)) {
+                    throw new NotSerializableException(element != null? element.getClass().getName() : "null");
+                }
+
+                writeItem(out, (Item) element);
+            }
+        } else {
+            throw new NotSerializableException(value != null? value.getClass().getName() : "null");
+        }
+
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] data) throws IOException {
+        return deserialize(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Deserializes the value from the remaining bytes of the buffer, without copying them first. Strings are decoded
+     * directly from the backing array of heap buffers. The position of the buffer is moved to the end of the value.
+     */
+    @Override
+    public Object deserialize(ByteBuffer buffer) throws IOException {
+        Decoder in = new Decoder(buffer);
+
+        try {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new StreamCorruptedException("Unexpected format version " + version);
+            }
+
+            byte type = in.readByte();
+            if (type == TYPE_LIST) {
+                Long cachingTime = readCachingTime(in);
+                int size = in.readCount();
+                CachingAwareList<Item> list = new CachingAwareList<>(size);
+
+                for (int i = 0; i < size; i++) {
+                    list.add(readItem(in, in.readByte()));
+                }
+
+                list.setCachingTime(cachingTime);
+
+                return list;
+            } else {
+                return readItem(in, type);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("Unexpected end of serialized value");
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | ClassCastException e) {
+            throw new StreamCorruptedException("Invalid serialized value: " + e.getMessage());
+        }
+    }
+
+    protected void writeItem(Encoder out, Item item) throws IOException {
+        boolean tree = item instanceof Tree;
+        String url = item.getUrl();
+        int flags = 0;
+
+        if (item.isFolder()) {
+            flags |= FLAG_FOLDER;
+        }
+        if (item.getCachingTime() != null) {
+            flags |= FLAG_CACHING_TIME;
+        }
+        if (item.getDescriptorDom() != null) {
+            flags |= FLAG_DOCUMENT;
+        }
+        if (item.getProperties() != null) {
+            flags |= FLAG_PROPERTIES;
+        }
+        if (url != null && url.equals(item.getDescriptorUrl())) {
+            flags |= FLAG_DESCRIPTOR_URL_IS_URL;
+        }
+        if (url != null && item.getName() != null && item.getName().equals(getNameFromUrl(url))) {
+            flags |= FLAG_NAME_FROM_URL;
+        }
+
+        out.writeByte(tree? TYPE_TREE : TYPE_ITEM);
+        out.writeVarInt(flags);
+
+        if ((flags & FLAG_CACHING_TIME) != 0) {
+            out.writeVarLong(item.getCachingTime());
+        }
+
+        out.writeString(url);
+        if ((flags & FLAG_DESCRIPTOR_URL_IS_URL) == 0) {
+            out.writeString(item.getDescriptorUrl());
+        }
+        if ((flags & FLAG_NAME_FROM_URL) == 0) {
+            out.writeString(item.getName());
+        }
+        if ((flags & FLAG_DOCUMENT) != 0) {
+            writeDocument(out, item.getDescriptorDom());
+        }
+        if ((flags & FLAG_PROPERTIES) != 0) {
+            writeProperties(out, item.getProperties());
+        }
+
+        if (tree) {
+            List<Item> children = ((Tree) item).getChildren();
+            if (children != null) {
+                out.writeVarInt(children.size() + 1);
+                for (Item child : children) {
+                    writeItem(out, child);
+                }
+            } else {
+                out.writeVarInt(0);
+            }
+        }
+    }
+
+    protected Item readItem(Decoder in, byte type) throws IOException {
+        Item item;
+        if (type == TYPE_ITEM) {
+            item = new Item();
+        } else if (type == TYPE_TREE) {
+            item = new Tree();
+        } else {
+            throw new StreamCorruptedException("Unexpected item type " + type);
+        }
+
+        int flags = in.readVarInt();
+
+        item.setFolder((flags & FLAG_FOLDER) != 0);
+        if ((flags & FLAG_CACHING_TIME) != 0) {
+            item.setCachingTime(in.readVarLong());
+        }
+
+        String url = in.readString();
+        if (url == null && (flags & (FLAG_DESCRIPTOR_URL_IS_URL | FLAG_NAME_FROM_URL)) != 0) {
+            throw new StreamCorruptedException("Item without URL has fields derived from it");
+        }
+
+        item.setUrl(url);
+        item.setDescriptorUrl((flags & FLAG_DESCRIPTOR_URL_IS_URL) != 0? url : in.readString());
+        item.setName((flags & FLAG_NAME_FROM_URL) != 0? getNameFromUrl(url) : in.readString());
+
+        if ((flags & FLAG_DOCUMENT) != 0) {
+            item.setDescriptorDom(readDocument(in));
+        }
+        if ((flags & FLAG_PROPERTIES) != 0) {
+            item.setProperties(readProperties(in));
+        }
+
+        if (type == TYPE_TREE) {
+            int size = in.readCount() - 1;
+            if (size >= 0) {
+                List<Item> children = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    children.add(readItem(in, in.readByte()));
+                }
+
+                ((Tree) item).setChildren(children);
+            }
+        }
+
+        return item;
+    }
+
+    protected void writeCachingTime(Encoder out, Long cachingTime) {
+        if (cachingTime != null) {
+            out.writeByte((byte) 1);
+            out.writeVarLong(cachingTime);
+        } else {
+            out.writeByte((byte) 0);
+        }
+    }
+
+    protected Long readCachingTime(Decoder in) throws IOException {
+        return in.readByte() != 0? in.readVarLong() : null;
+    }
+
+    protected void writeDocument(Encoder out, Document document) throws IOException {
+        out.writeString(document.getXMLEncoding());
+        writeContent(out, document);
+    }
+
+    protected Document readDocument(Decoder in) throws IOException {
+        Document document = documentFactory.createDocument();
+        document.setXMLEncoding(in.readString());
+        readContent(in, document);
+
+        return document;
+    }
+
+    /**
+     * Writes the child nodes of the branch, followed by {@link #NODE_END}.
+     */
+    protected void writeContent(Encoder out, Branch branch) throws IOException {
+        for (int i = 0, count = branch.nodeCount(); i < count; i++) {
+            Node node = branch.node(i);
+
+            switch (node.getNodeType()) {
+                case Node.ELEMENT_NODE:
+                    writeElement(out, (Element) node);
+                    break;
+                case Node.TEXT_NODE:
+                    out.writeByte(NODE_TEXT);
+                    out.writeString(node.getText());
+                    break;
+                case Node.CDATA_SECTION_NODE:
+                    out.writeByte(NODE_CDATA);
+                    out.writeString(node.getText());
+                    break;
+                case Node.COMMENT_NODE:
+                    out.writeByte(NODE_COMMENT);
+                    out.writeString(node.getText());
+                    break;
+                case Node.PROCESSING_INSTRUCTION_NODE:
+                    out.writeByte(NODE_PROCESSING_INSTRUCTION);
+                    out.writeString(((ProcessingInstruction) node).getTarget());
+                    out.writeString(node.getText());
+                    break;
+                case Node.ENTITY_REFERENCE_NODE:
+                    out.writeByte(NODE_ENTITY);
+                    out.writeString(node.getName());
+                    out.writeString(node.getText());
+                    break;
+                case Node.NAMESPACE_NODE:
+                    out.writeByte(NODE_NAMESPACE);
+                    writeNamespace(out, (Namespace) node);
+                    break;
+                case Node.DOCUMENT_TYPE_NODE:
+                    // Descriptors don't have doctypes, and they're rejected when parsing them anyway
+                    break;
+                default:
+                    throw new NotSerializableException("Unsupported node type " + node.getNodeTypeName());
+            }
+        }
+
+        out.writeByte(NODE_END);
+    }
+
+    /**
+     * Reads child nodes and adds them to the branch, until {@link #NODE_END}.
+     */
+    protected void readContent(Decoder in, Branch branch) throws IOException {
+        for (byte type = in.readByte(); type != NODE_END; type = in.readByte()) {
+            switch (type) {
+                case NODE_ELEMENT:
+                    branch.add(readElement(in));
+                    break;
+                case NODE_TEXT:
+                    branch.add(documentFactory.createText(in.readRequiredString()));
+                    break;
+                case NODE_CDATA:
+                    branch.add(documentFactory.createCDATA(in.readRequiredString()));
+                    break;
+                case NODE_COMMENT:
+                    branch.add(documentFactory.createComment(in.readRequiredString()));
+                    break;
+                case NODE_PROCESSING_INSTRUCTION:
+                    branch.add(documentFactory.createProcessingInstruction(in.readRequiredString(),
+                                                                           in.readRequiredString()));
+                    break;
+                case NODE_ENTITY:
+                    branch.add(documentFactory.createEntity(in.readRequiredString(), in.readString()));
+                    break;
+                case NODE_NAMESPACE:
+                    branch.add(readNamespace(in));
+                    break;
+                default:
+                    throw new StreamCorruptedException("Unexpected node type " + type);
+            }
+        }
+    }
+
+    protected void writeElement(Encoder out, Element element) throws IOException {
+        out.writeByte(NODE_ELEMENT);
+        writeQName(out, element.getQName());
+
+        int attributeCount = element.attributeCount();
+        out.writeVarInt(attributeCount);
+
+        for (int i = 0; i < attributeCount; i++) {
+            Attribute attribute = element.attribute(i);
+            writeQName(out, attribute.getQName());
+            out.writeString(attribute.getValue());
+        }
+
+        writeContent(out, element);
+    }
+
+    protected Element readElement(Decoder in) throws IOException {
+        Element element = documentFactory.createElement(readQName(in));
+
+        int attributeCount = in.readCount();
+        for (int i = 0; i < attributeCount; i++) {
+            element.add(documentFactory.createAttribute(element, readQName(in), in.readString()));
+        }
+
+        readContent(in, element);
+
+        return element;
+    }
+
+    protected void writeQName(Encoder out, QName qname) {
+        if (out.writeNameReference(qname)) {
+            out.writeString(qname.getName());
+            writeNamespace(out, qname.getNamespace());
+        }
+    }
+
+    protected QName readQName(Decoder in) throws IOException {
+        int index = in.readNameReference();
+        if (index >= 0) {
+            return (QName) in.getName(index);
+        }
+
+        // The QName was added to the table before its namespace, so its slot is reserved first too
+        int slot = in.addName(null);
+        String name = in.readRequiredString();
+        QName qname = documentFactory.createQName(name, readNamespace(in));
+        in.setName(slot, qname);
+
+        return qname;
+    }
+
+    protected void writeNamespace(Encoder out, Namespace namespace) {
+        if (out.writeNameReference(namespace)) {
+            out.writeString(namespace.getPrefix());
+            out.writeString(namespace.getURI());
+        }
+    }
+
+    protected Namespace readNamespace(Decoder in) throws IOException {
+        int index = in.readNameReference();
+        if (index >= 0) {
+            return (Namespace) in.getName(index);
+        }
+
+        Namespace namespace = Namespace.get(in.readRequiredString(), in.readRequiredString());
+        in.addName(namespace);
+
+        return namespace;
+    }
+
+    protected void writeProperties(Encoder out, Map<String, Object> properties) throws IOException {
+        out.writeVarInt(properties.size());
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            writeName(out, entry.getKey());
+            writePropertyValue(out, entry.getValue());
+        }
+    }
+
+    protected Map<String, Object> readProperties(Decoder in) throws IOException {
+        int size = in.readCount();
+        Map<String, Object> properties = new HashMap<>(Math.max(size * 4 / 3 + 1, 16));
+
+        for (int i = 0; i < size; i++) {
+            properties.put(readName(in), readPropertyValue(in));
+        }
+
+        return properties;
+    }
+
+    protected void writePropertyValue(Encoder out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            out.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value? TYPE_TRUE : TYPE_FALSE);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeVarLong(zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeVarLong(zigZag((Long) value));
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+
+            out.writeByte(TYPE_LIST);
+            out.writeVarInt(list.size());
+            for (Object element : list) {
+                writePropertyValue(out, element);
+            }
+        } else {
+            throw new NotSerializableException(value.getClass().getName());
+        }
+    }
+
+    protected Object readPropertyValue(Decoder in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return in.readString();
+            case TYPE_TRUE:
+                return Boolean.TRUE;
+            case TYPE_FALSE:
+                return Boolean.FALSE;
+            case TYPE_INTEGER:
+                return (int) unZigZag(in.readVarLong());
+            case TYPE_LONG:
+                return unZigZag(in.readVarLong());
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(in.readLong());
+            case TYPE_LIST:
+                int size = in.readCount();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readPropertyValue(in));
+                }
+
+                return list;
+            default:
+                throw new StreamCorruptedException("Unexpected property type " + type);
+        }
+    }
+
+    /**
+     * Writes a string that's likely to be repeated (like a property name) through the name table.
+     */
+    protected void writeName(Encoder out, String name) {
+        if (out.writeNameReference(name)) {
+            out.writeString(name);
+        }
+    }
+
+    protected String readName(Decoder in) throws IOException {
+        int index = in.readNameReference();
+        if (index >= 0) {
+            return (String) in.getName(index);
+        }
+
+        String name = in.readRequiredString();
+        in.addName(name);
+
+        return name;
+    }
+
+    protected String getNameFromUrl(String url) {
+        return url.substring(url.lastIndexOf('/') + 1);
+    }
+
+    protected static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    protected static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Growable byte array with the primitives of the format, plus the name table of the value being written.
+     */
+    protected static class Encoder {
+
+        private byte[] bytes;
+        private int position;
+        private final Map<Object, Integer> names;
+        // QNames are compared by identity, since their equals ignores the prefix (and parsed documents share the
+        // instances anyway)
+        private final Map<Object, Integer> qnames;
+
+        public Encoder() {
+            bytes = new byte[1024];
+            names = new HashMap<>();
+            qnames = new IdentityHashMap<>();
+        }
+
+        public void writeByte(byte b) {
+            ensureCapacity(1);
+            bytes[position++] = b;
+        }
+
+        /**
+         * Writes an unsigned int in 1 to 5 bytes, 7 bits per byte.
+         */
+        public void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+
+        /**
+         * Writes an unsigned long in 1 to 10 bytes, 7 bits per byte.
+         */
+        public void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+
+        public void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        /**
+         * Writes the UTF-8 bytes of the string, preceded by their length plus one (0 means null).
+         */
+        public void writeString(String str) {
+            if (str == null) {
+                writeVarInt(0);
+            } else {
+                byte[] utf8 = str.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(utf8.length + 1);
+                ensureCapacity(utf8.length);
+                System.arraycopy(utf8, 0, bytes, position, utf8.length);
+                position += utf8.length;
+            }
+        }
+
+        /**
+         * Writes the index of the name in the name table plus one if it was already written. Otherwise writes 0 and
+         * adds the name to the table, and the caller has to write the name itself.
+         *
+         * @return true if the caller has to write the name
+         */
+        public boolean writeNameReference(Object name) {
+            Map<Object, Integer> table = name instanceof QName? qnames : names;
+            Integer index = table.get(name);
+            if (index != null) {
+                writeVarInt(index + 1);
+                return false;
+            } else {
+                table.put(name, names.size() + qnames.size());
+                writeVarInt(0);
+                return true;
+            }
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(bytes, position);
+        }
+
+        private void ensureCapacity(int count) {
+            if (position + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + count));
+            }
+        }
+
+    }
+
+    /**
+     * Reads the primitives of the format from a buffer, and keeps the name table of the value being read.
+     */
+    protected static class Decoder {
+
+        private final ByteBuffer buffer;
+        private final List<Object> names;
+
+        public Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.names = new ArrayList<>();
+        }
+
+        public byte readByte() {
+            return buffer.get();
+        }
+
+        public int readVarInt() throws StreamCorruptedException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+
+            throw new StreamCorruptedException("Malformed varint");
+        }
+
+        public long readVarLong() throws StreamCorruptedException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+
+            throw new StreamCorruptedException("Malformed varint");
+        }
+
+        public long readLong() {
+            return buffer.getLong();
+        }
+
+        /**
+         * Reads the number of elements of a collection. Since every element takes at least a byte, the count can't
+         * be bigger than the remaining bytes, which avoids allocating huge collections for corrupted values.
+         */
+        public int readCount() throws StreamCorruptedException {
+            int count = readVarInt();
+            if (count < 0 || count > buffer.remaining() + 1) {
+                throw new StreamCorruptedException("Invalid count " + count);
+            }
+
+            return count;
+        }
+
+        public String readString() throws StreamCorruptedException {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > buffer.remaining()) {
+                throw new BufferUnderflowException();
+            }
+
+            String str;
+            if (buffer.hasArray()) {
+                str = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                                 StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            } else {
+                byte[] utf8 = new byte[length];
+                buffer.get(utf8);
+                str = new String(utf8, StandardCharsets.UTF_8);
+            }
+
+            return str;
+        }
+
+        /**
+         * Same as {@link #readString()}, for strings that can't be null (like names).
+         */
+        public String readRequiredString() throws StreamCorruptedException {
+            String str = readString();
+            if (str == null) {
+                throw new StreamCorruptedException("Unexpected null string");
+            }
+
+            return str;
+        }
+
+        /**
+         * Reads a reference written by {@link Encoder#writeNameReference(Object)}.
+         *
+         * @return the index of the name in the name table, or -1 if the name follows
+         */
+        public int readNameReference() throws StreamCorruptedException {
+            return readVarInt() - 1;
+        }
+
+        public Object getName(int index) throws StreamCorruptedException {
+            // Null if the name is still being read, which only happens with a corrupted value
+            Object name = index < names.size()? names.get(index) : null;
+            if (name == null) {
+                throw new StreamCorruptedException("Invalid name reference " + index);
+            }
+
+            return name;
+        }
+
+        /**
+         * Adds the name to the name table.
+         *
+         * @return the index of the name
+         */
+        public int addName(Object name) {
+            names.add(name);
+
+            return names.size() - 1;
+        }
+
+        public void setName(int index, Object name) {
+            names.set(index, name);
+        }
+
+    }
+
+}
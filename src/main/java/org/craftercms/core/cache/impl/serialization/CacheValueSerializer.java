@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl.serialization;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts the values of {@link org.craftercms.core.cache.CacheItem}s to bytes and back, so that they can be kept
+ * outside of the heap.
+ *
+ * @since 4.2.0
+ */
+public interface CacheValueSerializer {
+
+    /**
+     * Returns true if the serializer can handle values of the type of the given one. A supported value can still fail
+     * to be serialized if it references objects of an unsupported type.
+     */
+    boolean supports(Object value);
+
+    /**
+     * Serializes the value.
+     *
+     * @throws java.io.NotSerializableException if the value or an object referenced by it is not supported
+     * @throws IOException                      if an error occurs while serializing the value
+     */
+    byte[] serialize(Object value) throws IOException;
+
+    /**
+     * Deserializes a value that was serialized with {@link #serialize(Object)}.
+     *
+     * @throws IOException if the data is not a valid serialized value
+     */
+    Object deserialize(byte[] data) throws IOException;
+
+    /**
+     * Deserializes a value that was serialized with {@link #serialize(Object)} from the remaining bytes of the
+     * buffer, moving its position to the end of the value. By default the bytes are copied to an array, but
+     * implementations can read them in place.
+     *
+     * @throws IOException if the data is not a valid serialized value
+     */
+    default Object deserialize(ByteBuffer buffer) throws IOException {
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+
+        return deserialize(data);
+    }
+
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl.serialization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.craftercms.core.service.Item;
+import org.craftercms.core.service.Tree;
+import org.craftercms.core.util.cache.impl.CachingAwareList;
+import org.dom4j.Document;
+import org.dom4j.DocumentException;
+import org.dom4j.io.SAXReader;
+import org.dom4j.io.XMLWriter;
+import org.xml.sax.SAXException;
+
+/**
+ * {@link CacheValueSerializer} for the values cached by the content store service: {@link Item}s, {@link Tree}s and
+ * {@link CachingAwareList}s of them. The fields of the items are written in a simple binary format, and their
+ * descriptor DOMs as XML, which is parsed again on deserialization.
+ *
+ * <p>Item properties are supported as long as their values are strings, booleans, numbers or lists of them, which is
+ * what the processors of Crafter Core set.</p>
+ *
+ * @since 4.2.0
+ */
+public class XmlCacheValueSerializer implements CacheValueSerializer {
+
+    protected static final byte TYPE_NULL = 0;
+    protected static final byte TYPE_ITEM = 1;
+    protected static final byte TYPE_TREE = 2;
+    protected static final byte TYPE_LIST = 3;
+    protected static final byte TYPE_STRING = 4;
+    protected static final byte TYPE_BOOLEAN = 5;
+    protected static final byte TYPE_INTEGER = 6;
+    protected static final byte TYPE_LONG = 7;
+    protected static final byte TYPE_DOUBLE = 8;
+
+    @Override
+    public boolean supports(Object value) {
+        return value instanceof Item || value instanceof CachingAwareList;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        if (value instanceof Item) {
+            writeItem(out, (Item) value);
+        } else if (value instanceof CachingAwareList) {
+            CachingAwareList<?> list = (CachingAwareList<?>) value;
+
+            out.writeByte(TYPE_LIST);
+            writeCachingTime(out, list.getCachingTime());
+            out.writeInt(list.size());
+
+            for (Object element : list) {
+                if (!(element instanceof Item)) {
+                    throw new NotSerializableException(element != null? element.getClass().getName() : "null");
+                }
+
+                writeItem(out, (Item) element);
+            }
+        } else {
+            throw new NotSerializableException(value != null? value.getClass().getName() : "null");
+        }
+
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        byte type = in.readByte();
+
+        if (type == TYPE_LIST) {
+            Long cachingTime = readCachingTime(in);
+            int size = in.readInt();
+            CachingAwareList<Item> list = new CachingAwareList<>(size);
+
+            for (int i = 0; i < size; i++) {
+                list.add(readItem(in, in.readByte()));
+            }
+
+            list.setCachingTime(cachingTime);
+
+            return list;
+        } else {
+            return readItem(in, type);
+        }
+    }
+
+    protected void writeItem(DataOutputStream out, Item item) throws IOException {
+        boolean tree = item instanceof Tree;
+
+        out.writeByte(tree? TYPE_TREE : TYPE_ITEM);
+        writeCachingTime(out, item.getCachingTime());
+        writeString(out, item.getName());
+        writeString(out, item.getUrl());
+        writeString(out, item.getDescriptorUrl());
+        out.writeBoolean(item.isFolder());
+        writeDocument(out, item.getDescriptorDom());
+        writeProperties(out, item.getProperties());
+
+        if (tree) {
+            List<Item> children = ((Tree) item).getChildren();
+            if (children != null) {
+                out.writeInt(children.size());
+                for (Item child : children) {
+                    writeItem(out, child);
+                }
+            } else {
+                out.writeInt(-1);
+            }
+        }
+    }
+
+    protected Item readItem(DataInputStream in, byte type) throws IOException {
+        Item item;
+        if (type == TYPE_ITEM) {
+            item = new Item();
+        } else if (type == TYPE_TREE) {
+            item = new Tree();
+        } else {
+            throw new StreamCorruptedException("Unexpected item type " + type);
+        }
+
+        item.setCachingTime(readCachingTime(in));
+        item.setName(readString(in));
+        item.setUrl(readString(in));
+        item.setDescriptorUrl(readString(in));
+        item.setFolder(in.readBoolean());
+        item.setDescriptorDom(readDocument(in));
+        item.setProperties(readProperties(in));
+
+        if (type == TYPE_TREE) {
+            int size = in.readInt();
+            if (size >= 0) {
+                List<Item> children = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    children.add(readItem(in, in.readByte()));
+                }
+
+                ((Tree) item).setChildren(children);
+            }
+        }
+
+        return item;
+    }
+
+    protected void writeCachingTime(DataOutputStream out, Long cachingTime) throws IOException {
+        out.writeBoolean(cachingTime != null);
+        if (cachingTime != null) {
+            out.writeLong(cachingTime);
+        }
+    }
+
+    protected Long readCachingTime(DataInputStream in) throws IOException {
+        return in.readBoolean()? in.readLong() : null;
+    }
+
+    protected void writeString(DataOutputStream out, String str) throws IOException {
+        writeBytes(out, str != null? str.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    protected String readString(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+
+        return bytes != null? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    protected void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes != null) {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else {
+            out.writeInt(-1);
+        }
+    }
+
+    protected byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        return bytes;
+    }
+
+    protected void writeDocument(DataOutputStream out, Document document) throws IOException {
+        if (document != null) {
+            ByteArrayOutputStream xml = new ByteArrayOutputStream();
+            XMLWriter xmlWriter = new XMLWriter(xml);
+            xmlWriter.write(document);
+            xmlWriter.flush();
+
+            writeBytes(out, xml.toByteArray());
+        } else {
+            writeBytes(out, null);
+        }
+    }
+
+    protected Document readDocument(DataInputStream in) throws IOException {
+        byte[] xml = readBytes(in);
+        if (xml == null) {
+            return null;
+        }
+
+        try {
+            return createXmlReader().read(new ByteArrayInputStream(xml));
+        } catch (DocumentException e) {
+            throw new IOException("Unable to parse serialized descriptor", e);
+        }
+    }
+
+    protected void writeProperties(DataOutputStream out, Map<String, Object> properties) throws IOException {
+        if (properties != null) {
+            out.writeInt(properties.size());
+            for (Map.Entry<String, Object> entry : properties.entrySet()) {
+                writeString(out, entry.getKey());
+                writePropertyValue(out, entry.getValue());
+            }
+        } else {
+            out.writeInt(-1);
+        }
+    }
+
+    protected Map<String, Object> readProperties(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+
+        Map<String, Object> properties = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            properties.put(readString(in), readPropertyValue(in));
+        }
+
+        return properties;
+    }
+
+    protected void writePropertyValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+
+            out.writeByte(TYPE_LIST);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writePropertyValue(out, element);
+            }
+        } else {
+            throw new NotSerializableException(value.getClass().getName());
+        }
+    }
+
+    protected Object readPropertyValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_INTEGER:
+                return in.readInt();
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_LIST:
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readPropertyValue(in));
+                }
+
+                return list;
+            default:
+                throw new StreamCorruptedException("Unexpected property type " + type);
+        }
+    }
+
+    /**
+     * Creates the reader used to parse the descriptors. Since the XML was written by this serializer, whitespace and
+     * comments are kept as they are, but doctype declarations are still rejected.
+     */
+    protected SAXReader createXmlReader() {
+        SAXReader xmlReader = new SAXReader();
+        try {
+            xmlReader.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        } catch (SAXException e) {
+            // Should never happen with the default parser, and the XML was written by this serializer anyway
+        }
+
+        return xmlReader;
+    }
+
+}
@@ -24,6 +24,7 @@ import org.craftercms.core.cache.CacheItem;
 import org.craftercms.core.cache.CacheStatistics;
 import org.craftercms.core.cache.impl.CacheStoreAdapter;
 import org.craftercms.core.exception.InvalidScopeException;
+import org.craftercms.core.util.SizeEstimationUtils;
 
 /**
  * Implementation of a {@link org.craftercms.core.cache.impl.CacheStoreAdapter} using an underlying {@link Map}.
@@ -148,10 +149,17 @@ public class MapCacheStoreAdapter implements CacheStoreAdapter {
     }
 
     /**
-     * {@inheritDoc}
+     * {@inheritDoc}. Since items are never evicted, only the size and the estimated memory of the items are
+     * provided.
      */
     public CacheStatistics getStatistics(String scope) {
-        return new CacheStatistics(getScopeCache(scope).size());
+        Map<Object, CacheItem> scopeCache = getScopeCache(scope);
+        CacheStatistics statistics = new CacheStatistics(scopeCache.size());
+        statistics.setEstimatedMemory(scopeCache.values().stream()
+                                                .mapToLong(item -> SizeEstimationUtils.estimateSize(item.getValue()))
+                                                .sum());
+
+        return statistics;
     }
 
     /**
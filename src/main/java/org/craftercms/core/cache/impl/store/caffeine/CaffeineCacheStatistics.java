@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl.store.caffeine;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.craftercms.core.cache.CacheStatistics;
+
+/**
+ * Statistics of a scope of the {@link CaffeineCacheStoreAdapter}.
+ *
+ * @since 4.2.0
+ */
+public class CaffeineCacheStatistics extends CacheStatistics {
+
+    protected final long evictionWeight;
+    protected final long weightedSize;
+    protected final long maximum;
+
+    public <K, V> CaffeineCacheStatistics(Cache<K, V> cache) {
+        super(cache.estimatedSize());
+        var stats = cache.stats();
+        hitCount = stats.hitCount();
+        missCount = stats.missCount();
+        loadSuccessCount = stats.loadSuccessCount();
+        loadFailureCount = stats.loadFailureCount();
+        totalLoadTime = stats.totalLoadTime();
+        evictionWeight = stats.evictionWeight();
+
+        var eviction = cache.policy().eviction();
+        if (eviction.isPresent()) {
+            weightedSize = eviction.get().weightedSize().orElse(size);
+            maximum = eviction.get().getMaximum();
+        } else {
+            weightedSize = size;
+            maximum = -1;
+        }
+    }
+
+    /**
+     * Returns the sum of the weights (estimated bytes if the scope is bounded by size) of the evicted items.
+     */
+    public long getEvictionWeight() {
+        return evictionWeight;
+    }
+
+    /**
+     * Returns the estimated size in bytes of the items of the scope if it's bounded by size, or the number of items
+     * otherwise.
+     */
+    public long getWeightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * Returns the max estimated size in bytes of the scope if it's bounded by size, or the max number of items
+     * otherwise.
+     */
+    public long getMaximum() {
+        return maximum;
+    }
+
+}
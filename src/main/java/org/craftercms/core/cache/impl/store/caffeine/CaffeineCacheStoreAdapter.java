@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl.store.caffeine;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.craftercms.core.cache.CacheItem;
+import org.craftercms.core.cache.CacheStatistics;
+import org.craftercms.core.cache.impl.CacheEvictionListener;
+import org.craftercms.core.cache.impl.CacheStatisticsRecorder;
+import org.craftercms.core.cache.impl.CacheStoreAdapter;
+import org.craftercms.core.util.SizeEstimationUtils;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Implementation of a {@link CacheStoreAdapter} using Caffeine {@link Cache}s, which use W-TinyLFU for admission and
+ * eviction and so keep a better hit ratio than LRU when large parts of the site are scanned (e.g. by crawlers or
+ * deployments).
+ *
+ * <p>If {@code maxBytesPerScope} is greater than 0, each scope is bounded by the estimated heap size of its items
+ * (see {@link SizeEstimationUtils}) instead of by the {@code maxItemsInMemory} passed to
+ * {@link #addScope(String, int)}, so a scope full of big merged descriptors can't exhaust the heap.</p>
+ *
+ * <p>Optionally, expiration can also be handled natively by Caffeine, converting the {@link CacheItem} ticks to
+ * time using the {@code tickFrequency}: items are dropped as soon as their {@code ticksToExpire} pass, instead of
+ * waiting for the next cache tick. Refresh is always left to the cache ticks, so that items are only reloaded once
+ * and the loads are recorded in the statistics.</p>
+ *
+ * @since 4.2.0
+ */
+public class CaffeineCacheStoreAdapter implements CacheStoreAdapter, DisposableBean {
+
+    private static final Log logger = LogFactory.getLog(CaffeineCacheStoreAdapter.class);
+
+    protected final Map<String, Cache<Object, Object>> caches = new ConcurrentHashMap<>();
+    /**
+     * Eviction counters of each scope, by {@link com.github.benmanes.caffeine.cache.RemovalCause}
+     */
+    protected final Map<String, CacheStatisticsRecorder> evictionRecorders = new ConcurrentHashMap<>();
+
+    /**
+     * Max estimated size in bytes of the items of each scope. 0 or less means scopes are bounded by item count.
+     */
+    protected long maxBytesPerScope;
+    /**
+     * The timespan of a cache tick in milliseconds, used to convert the item ticks to time.
+     */
+    protected long tickFrequency;
+    /**
+     * If items should be expired by Caffeine, based on their ticks to expire.
+     */
+    protected boolean nativeExpirationEnabled;
+    protected CacheEvictionListener evictionListener;
+
+    public void setMaxBytesPerScope(long maxBytesPerScope) {
+        this.maxBytesPerScope = maxBytesPerScope;
+    }
+
+    public void setTickFrequency(long tickFrequency) {
+        this.tickFrequency = tickFrequency;
+    }
+
+    public void setNativeExpirationEnabled(boolean nativeExpirationEnabled) {
+        this.nativeExpirationEnabled = nativeExpirationEnabled;
+    }
+
+    /**
+     * {@inheritDoc}. The listener is called by the thread that runs the maintenance of the scope, which might not be
+     * the one that caused the eviction.
+     */
+    @Override
+    public void setEvictionListener(CacheEvictionListener evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Destroy method, called by the Spring container. Calls {@link Cache#cleanUp()} for all instances.
+     */
+    @Override
+    public void destroy() {
+        caches.forEach((scope, cache) -> {
+            cache.invalidateAll();
+            cache.cleanUp();
+        });
+    }
+
+    @Override
+    public boolean hasScope(String scope) {
+        return caches.containsKey(scope);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<String> getScopes() {
+        return caches.keySet();
+    }
+
+    /**
+     * Adds a new scope. The scope is an instance of Caffeine's {@link Cache}.
+     *
+     * @param scope            the name of the scope
+     * @param maxItemsInMemory the maximum number of items in memory, before they are evicted. Ignored if
+     *                         {@code maxBytesPerScope} is set
+     */
+    @Override
+    public void addScope(String scope, int maxItemsInMemory) {
+        CacheStatisticsRecorder evictionRecorder = new CacheStatisticsRecorder();
+        evictionRecorders.put(scope, evictionRecorder);
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                                                   .recordStats()
+                                                   .evictionListener((key, value, cause) -> {
+                                                       evictionRecorder.recordEviction(cause.name());
+
+                                                       if (evictionListener != null && value != null) {
+                                                           evictionListener.itemEvicted((CacheItem) value,
+                                                                                        cause.name());
+                                                       }
+                                                   });
+
+        if (maxBytesPerScope > 0) {
+            builder.maximumWeight(maxBytesPerScope).weigher(this::weigh);
+        } else {
+            builder.maximumSize(maxItemsInMemory);
+        }
+
+        if (nativeExpirationEnabled) {
+            if (tickFrequency > 0) {
+                builder.expireAfter(new TicksExpiry());
+            } else {
+                logger.warn("No tick frequency set, native expiration is disabled for scope " + scope);
+            }
+        }
+
+        caches.put(scope, builder.build());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeScope(String scope) {
+        caches.remove(scope);
+        evictionRecorders.remove(scope);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSize(String scope) {
+        return (int) caches.get(scope).estimatedSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Object> getKeys(String scope) {
+        return caches.get(scope).asMap().keySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasKey(String scope, Object key) {
+        return caches.get(scope).asMap().containsKey(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheItem get(String scope, Object key) {
+        return (CacheItem) caches.get(scope).getIfPresent(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(CacheItem item) {
+        caches.get(item.getScope()).put(item.getKey(), item);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(String scope, Object key) {
+        caches.get(scope).invalidate(key);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearAll() {
+        caches.values().forEach(Cache::invalidateAll);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearScope(String scope) {
+        caches.get(scope).invalidateAll();
+    }
+
+    /**
+     * {@inheritDoc}. Includes the evictions by cause and the estimated memory of the items, which requires visiting
+     * all of them if the scope is not bounded by size.
+     */
+    @Override
+    public CacheStatistics getStatistics(String scope) {
+        Cache<Object, Object> cache = caches.get(scope);
+        CaffeineCacheStatistics statistics = new CaffeineCacheStatistics(cache);
+
+        CacheStatisticsRecorder evictionRecorder = evictionRecorders.get(scope);
+        if (evictionRecorder != null) {
+            evictionRecorder.applyLoadsAndEvictionsTo(statistics);
+        }
+
+        if (maxBytesPerScope > 0) {
+            statistics.setEstimatedMemory(statistics.getWeightedSize());
+        } else {
+            statistics.setEstimatedMemory(cache.asMap().values().stream()
+                                               .mapToLong(item -> SizeEstimationUtils.estimateSize(
+                                                   ((CacheItem) item).getValue()))
+                                               .sum());
+        }
+
+        return statistics;
+    }
+
+    protected int weigh(Object key, Object value) {
+        long size = SizeEstimationUtils.estimateSize(key) +
+                    SizeEstimationUtils.estimateSize(((CacheItem) value).getValue());
+
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    protected long ticksToNanos(long ticks) {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickFrequency);
+
+        return ticks > Long.MAX_VALUE / tickNanos? Long.MAX_VALUE : ticks * tickNanos;
+    }
+
+    /**
+     * Expires the items once their {@link CacheItem#getTicksToExpire()} pass. Since refreshing an item replaces it
+     * with a new one, a refresh also restarts the expiration, like in {@link org.craftercms.core.cache.impl.CacheImpl}.
+     */
+    protected class TicksExpiry implements Expiry<Object, Object> {
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            long ticksToExpire = ((CacheItem) value).getTicksToExpire();
+
+            return ticksToExpire != CacheItem.NEVER_EXPIRE? ticksToNanos(ticksToExpire) : Long.MAX_VALUE;
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
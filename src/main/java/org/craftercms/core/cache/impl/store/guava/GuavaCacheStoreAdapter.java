@@ -17,9 +17,13 @@ package org.craftercms.core.cache.impl.store.guava;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
 import org.craftercms.core.cache.CacheItem;
 import org.craftercms.core.cache.CacheStatistics;
+import org.craftercms.core.cache.impl.CacheEvictionListener;
+import org.craftercms.core.cache.impl.CacheStatisticsRecorder;
 import org.craftercms.core.cache.impl.CacheStoreAdapter;
+import org.craftercms.core.util.SizeEstimationUtils;
 import org.springframework.beans.factory.DisposableBean;
 
 import java.util.Collection;
@@ -34,6 +38,19 @@ import java.util.concurrent.ConcurrentHashMap;
 public class GuavaCacheStoreAdapter implements CacheStoreAdapter, DisposableBean {
 
     protected final Map<String, Cache<Object, Object>> caches = new ConcurrentHashMap<>();
+    /**
+     * Eviction counters of each scope, by {@link com.google.common.cache.RemovalCause}
+     */
+    protected final Map<String, CacheStatisticsRecorder> evictionRecorders = new ConcurrentHashMap<>();
+    protected CacheEvictionListener evictionListener;
+
+    /**
+     * {@inheritDoc}. The listener is called by the thread that caused the eviction.
+     */
+    @Override
+    public void setEvictionListener(CacheEvictionListener evictionListener) {
+        this.evictionListener = evictionListener;
+    }
 
     /**
      * Destroy method, called by the Spring container. Calls {@link Cache#cleanUp()} for all instances.
@@ -67,7 +84,24 @@ public class GuavaCacheStoreAdapter implements CacheStoreAdapter, DisposableBean
      */
     @Override
     public void addScope(String scope, int maxItemsInMemory) {
-        caches.put(scope, CacheBuilder.newBuilder().recordStats().maximumSize(maxItemsInMemory).build());
+        CacheStatisticsRecorder evictionRecorder = new CacheStatisticsRecorder();
+        RemovalListener<Object, Object> removalListener = notification -> {
+            if (notification.wasEvicted()) {
+                evictionRecorder.recordEviction(notification.getCause().name());
+
+                if (evictionListener != null && notification.getValue() != null) {
+                    evictionListener.itemEvicted((CacheItem) notification.getValue(),
+                                                 notification.getCause().name());
+                }
+            }
+        };
+
+        evictionRecorders.put(scope, evictionRecorder);
+        caches.put(scope, CacheBuilder.newBuilder()
+                                      .recordStats()
+                                      .maximumSize(maxItemsInMemory)
+                                      .removalListener(removalListener)
+                                      .build());
     }
 
     /**
@@ -76,6 +110,7 @@ public class GuavaCacheStoreAdapter implements CacheStoreAdapter, DisposableBean
     @Override
     public void removeScope(String scope) {
         caches.remove(scope);
+        evictionRecorders.remove(scope);
     }
 
     /**
@@ -149,10 +184,24 @@ public class GuavaCacheStoreAdapter implements CacheStoreAdapter, DisposableBean
     }
 
     /**
-     * {@inheritDoc}
+     * {@inheritDoc}. Includes the evictions by cause and the estimated memory of the items, which requires visiting
+     * all of them.
      */
     public CacheStatistics getStatistics(String scope) {
-        return new GuavaCacheStatistics(caches.get(scope));
+        Cache<Object, Object> cache = caches.get(scope);
+        GuavaCacheStatistics statistics = new GuavaCacheStatistics(cache);
+
+        CacheStatisticsRecorder evictionRecorder = evictionRecorders.get(scope);
+        if (evictionRecorder != null) {
+            evictionRecorder.applyLoadsAndEvictionsTo(statistics);
+        }
+
+        statistics.setEstimatedMemory(cache.asMap().values().stream()
+                                           .mapToLong(item -> SizeEstimationUtils.estimateSize(
+                                               ((CacheItem) item).getValue()))
+                                           .sum());
+
+        return statistics;
     }
 
 }
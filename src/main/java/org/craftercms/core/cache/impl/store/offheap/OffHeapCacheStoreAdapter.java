@@ -0,0 +1,488 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl.store.offheap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.craftercms.core.cache.CacheItem;
+import org.craftercms.core.cache.CacheStatistics;
+import org.craftercms.core.cache.impl.CacheItemImpl;
+import org.craftercms.core.cache.impl.CacheStatisticsRecorder;
+import org.craftercms.core.cache.impl.CacheStoreAdapter;
+import org.craftercms.core.cache.impl.serialization.CacheValueSerializer;
+import org.craftercms.core.cache.impl.serialization.BinaryCacheValueSerializer;
+import org.craftercms.core.exception.InvalidScopeException;
+import org.craftercms.core.util.SizeEstimationUtils;
+import org.craftercms.core.util.cache.CachingAwareObject;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Implementation of a {@link CacheStoreAdapter} that keeps the values of the items serialized outside of the heap,
+ * in a {@link SlabArena} per scope, so that big scopes full of descriptor DOMs don't add to the work of the garbage
+ * collector. Values are deserialized every time they're read, so this adapter trades CPU for heap: it fits best as
+ * the second level of a cache with a smaller heap adapter in front.
+ *
+ * <p>Values not supported by the {@link CacheValueSerializer} (like {@link org.craftercms.core.service.Content}s)
+ * are kept in the heap as they are. Each scope is bounded by the {@code maxItemsInMemory} passed to
+ * {@link #addScope(String, int)} and by {@code maxBytesPerScope} of off-heap memory, and items are evicted with the
+ * CLOCK algorithm (an approximation of LRU that doesn't need to reorder anything on reads). Evictions are not
+ * notified to eviction listeners, so in a
+ * {@link org.craftercms.core.cache.impl.store.tiered.TieredCacheStoreAdapter} this adapter should be the last
+ * level.</p>
+ *
+ * @since 4.2.0
+ */
+public class OffHeapCacheStoreAdapter implements CacheStoreAdapter, DisposableBean {
+
+    private static final Log logger = LogFactory.getLog(OffHeapCacheStoreAdapter.class);
+
+    public static final long DEFAULT_MAX_BYTES_PER_SCOPE = 256L * 1024 * 1024;
+
+    protected final Map<String, Scope> scopes = new ConcurrentHashMap<>();
+
+    /**
+     * Max bytes of off-heap memory of each scope. 0 or less means scopes are only bounded by item count.
+     */
+    protected long maxBytesPerScope;
+    /**
+     * The size in bytes of the slabs of off-heap memory. Values bigger than this get a slab of their own.
+     */
+    protected int slabSize;
+    protected CacheValueSerializer serializer;
+
+    public OffHeapCacheStoreAdapter() {
+        maxBytesPerScope = DEFAULT_MAX_BYTES_PER_SCOPE;
+        slabSize = SlabArena.DEFAULT_SLAB_SIZE;
+        serializer = new BinaryCacheValueSerializer();
+    }
+
+    public void setMaxBytesPerScope(long maxBytesPerScope) {
+        this.maxBytesPerScope = maxBytesPerScope;
+    }
+
+    public void setSlabSize(int slabSize) {
+        this.slabSize = slabSize;
+    }
+
+    public void setSerializer(CacheValueSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    /**
+     * Destroy method, called by the Spring container. Frees the memory of all scopes.
+     */
+    @Override
+    public void destroy() {
+        clearAll();
+    }
+
+    @Override
+    public boolean hasScope(String scope) {
+        return scopes.containsKey(scope);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<String> getScopes() {
+        return scopes.keySet();
+    }
+
+    /**
+     * Adds a new scope, with its own off-heap arena.
+     *
+     * @param scope            the name of the scope
+     * @param maxItemsInMemory the maximum number of items of the scope, before they are evicted
+     */
+    @Override
+    public void addScope(String scope, int maxItemsInMemory) {
+        scopes.put(scope, new Scope(maxItemsInMemory, new SlabArena(maxBytesPerScope, slabSize)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeScope(String scope) {
+        Scope removed = scopes.remove(scope);
+        if (removed != null) {
+            removed.clear();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSize(String scope) throws InvalidScopeException {
+        return getScope(scope).entries.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<Object> getKeys(String scope) throws InvalidScopeException {
+        return Collections.unmodifiableSet(getScope(scope).entries.keySet());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasKey(String scope, Object key) throws InvalidScopeException {
+        return getScope(scope).entries.containsKey(key);
+    }
+
+    /**
+     * Returns the item with the given key, deserializing its value if it's kept off-heap. If the value can't be
+     * deserialized the item is removed and null is returned, so it's loaded again.
+     */
+    @Override
+    public CacheItem get(String scope, Object key) throws InvalidScopeException {
+        Scope scopeCache = getScope(scope);
+        Entry entry = scopeCache.entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+
+        if (!entry.isOffHeap()) {
+            return entry.item;
+        }
+
+        byte[] data = scopeCache.read(entry);
+        if (data == null) {
+            return null;
+        }
+
+        Object value;
+        try {
+            value = serializer.deserialize(data);
+        } catch (IOException e) {
+            logger.warn("Unable to deserialize value of item with key " + key + " in scope " + scope +
+                        ", the item will be removed", e);
+
+            remove(scope, key);
+
+            return null;
+        }
+
+        if (value instanceof CachingAwareObject) {
+            ((CachingAwareObject) value).setScope(scope);
+            ((CachingAwareObject) value).setKey(key);
+        }
+
+        CacheItem item = entry.item;
+
+        return new CacheItemImpl(item.getScope(), item.getTicksAtCreation(), item.getKey(), value,
+                                 item.getTicksToExpire(), item.getTicksToRefresh(), item.isStaleWhileRevalidate(),
+                                 item.getLoader(), item.getLoaderParams());
+    }
+
+    /**
+     * Puts the item, serializing its value off-heap if it's supported by the serializer. Items are evicted first if
+     * the scope is full.
+     */
+    @Override
+    public void put(CacheItem item) throws InvalidScopeException {
+        Scope scopeCache = getScope(item.getScope());
+        byte[] data = serialize(item);
+
+        scopeCache.put(item, data);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(String scope, Object key) throws InvalidScopeException {
+        return getScope(scope).remove(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearAll() {
+        scopes.values().forEach(Scope::clear);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearScope(String scope) throws InvalidScopeException {
+        getScope(scope).clear();
+    }
+
+    /**
+     * {@inheritDoc}. Includes the evictions and the estimated memory of the items, which is the off-heap memory in use
+     * plus the estimated size of the values kept in the heap.
+     */
+    @Override
+    public CacheStatistics getStatistics(String scope) throws InvalidScopeException {
+        return getScope(scope).getStatistics();
+    }
+
+    /**
+     * Serializes the value of the item, or returns null if it should be kept in the heap.
+     */
+    protected byte[] serialize(CacheItem item) {
+        Object value = item.getValue();
+        if (!serializer.supports(value)) {
+            return null;
+        }
+
+        try {
+            return serializer.serialize(value);
+        } catch (IOException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Unable to serialize value of item with key " + item.getKey() + " in scope " +
+                             item.getScope() + ", it will be kept in the heap", e);
+            }
+
+            return null;
+        }
+    }
+
+    protected Scope getScope(String scope) throws InvalidScopeException {
+        Scope scopeCache = scopes.get(scope);
+        if (scopeCache == null) {
+            throw new InvalidScopeException("The scope " + scope + " doesn't exist");
+        } else {
+            return scopeCache;
+        }
+    }
+
+    /**
+     * The items of a scope. Lookups are done in a concurrent map, while changes to the arena and the eviction ring
+     * are done under a write lock. Off-heap values are read optimistically, and read again under a read lock only if
+     * the scope changed during the read, since the block could have been freed and reused.
+     */
+    protected static class Scope {
+
+        protected final int maxItems;
+        protected final SlabArena arena;
+        protected final Map<Object, Entry> entries;
+        protected final List<Entry> ring;
+        protected final StampedLock lock;
+        protected final CacheStatisticsRecorder evictionRecorder;
+        protected int hand;
+
+        public Scope(int maxItems, SlabArena arena) {
+            this.maxItems = maxItems;
+            this.arena = arena;
+            this.entries = new ConcurrentHashMap<>();
+            this.ring = new ArrayList<>();
+            this.lock = new StampedLock();
+            this.evictionRecorder = new CacheStatisticsRecorder();
+        }
+
+        /**
+         * Reads the off-heap value of the entry, or returns null if the entry was removed.
+         */
+        public byte[] read(Entry entry) {
+            Object key = entry.item.getKey();
+
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                byte[] data = arena.read(entry.address, entry.length);
+                if (entries.get(key) == entry && lock.validate(stamp)) {
+                    return data;
+                }
+            }
+
+            stamp = lock.readLock();
+            try {
+                return entries.get(key) == entry? arena.read(entry.address, entry.length) : null;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public void put(CacheItem item, byte[] data) {
+            long stamp = lock.writeLock();
+            try {
+                Entry old = entries.remove(item.getKey());
+                if (old != null) {
+                    removeEntry(old);
+                }
+
+                while (entries.size() >= maxItems && evict()) {
+                    // Keep evicting until there's room for the new item
+                }
+
+                Entry entry;
+                if (data != null && arena.fits(data.length)) {
+                    long address = arena.allocate(data.length);
+                    while (address < 0 && evict()) {
+                        address = arena.allocate(data.length);
+                    }
+
+                    if (address >= 0) {
+                        arena.write(address, data);
+
+                        entry = new Entry(withoutValue(item), address, data.length);
+                    } else {
+                        entry = new Entry(item, -1, 0);
+                    }
+                } else {
+                    entry = new Entry(item, -1, 0);
+                }
+
+                entry.ringIndex = ring.size();
+                ring.add(entry);
+                entries.put(item.getKey(), entry);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        public boolean remove(Object key) {
+            long stamp = lock.writeLock();
+            try {
+                Entry entry = entries.remove(key);
+                if (entry != null) {
+                    removeEntry(entry);
+                    return true;
+                } else {
+                    return false;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        public void clear() {
+            long stamp = lock.writeLock();
+            try {
+                entries.clear();
+                ring.clear();
+                arena.clear();
+                hand = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        public CacheStatistics getStatistics() {
+            long stamp = lock.readLock();
+            try {
+                CacheStatistics statistics = new CacheStatistics(entries.size());
+                evictionRecorder.applyLoadsAndEvictionsTo(statistics);
+
+                long heapMemory = ring.stream()
+                                      .filter(entry -> !entry.isOffHeap())
+                                      .mapToLong(entry -> SizeEstimationUtils.estimateSize(entry.item.getValue()))
+                                      .sum();
+
+                statistics.setEstimatedMemory(arena.getUsedBytes() + heapMemory);
+
+                return statistics;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Evicts the next item not referenced since the last time the clock hand passed over it.
+         *
+         * @return false if there are no items left to evict
+         */
+        protected boolean evict() {
+            while (!ring.isEmpty()) {
+                if (hand >= ring.size()) {
+                    hand = 0;
+                }
+
+                Entry entry = ring.get(hand);
+                if (entry.referenced) {
+                    entry.referenced = false;
+                    hand++;
+                } else {
+                    entries.remove(entry.item.getKey());
+                    removeEntry(entry);
+                    evictionRecorder.recordEviction("SIZE");
+
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Removes the entry from the ring, moving the last one to its place, and frees its off-heap block.
+         */
+        protected void removeEntry(Entry entry) {
+            Entry last = ring.remove(ring.size() - 1);
+            if (last != entry) {
+                ring.set(entry.ringIndex, last);
+                last.ringIndex = entry.ringIndex;
+            }
+
+            if (entry.isOffHeap()) {
+                arena.free(entry.address);
+            }
+        }
+
+        protected static CacheItem withoutValue(CacheItem item) {
+            return new CacheItemImpl(item.getScope(), item.getTicksAtCreation(), item.getKey(), null,
+                                     item.getTicksToExpire(), item.getTicksToRefresh(),
+                                     item.isStaleWhileRevalidate(), item.getLoader(), item.getLoaderParams());
+        }
+
+    }
+
+    /**
+     * An item of a scope. If the value is kept off-heap, the item has no value and the address and length of the
+     * serialized value in the arena are set instead.
+     */
+    protected static class Entry {
+
+        protected final CacheItem item;
+        protected final long address;
+        protected final int length;
+        protected volatile boolean referenced;
+        protected int ringIndex;
+
+        public Entry(CacheItem item, long address, int length) {
+            this.item = item;
+            this.address = address;
+            this.length = length;
+        }
+
+        public boolean isOffHeap() {
+            return address >= 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl.store.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Off-heap memory used by the {@link OffHeapCacheStoreAdapter} to keep the serialized cache values. Memory is
+ * allocated in slabs (direct {@link ByteBuffer}s) of a fixed size, and like in memcached each slab is split in blocks
+ * of one size class, so that values of similar size can reuse the blocks of the values removed before them. Values
+ * bigger than a slab get a slab of their own.
+ *
+ * <p>Slabs that become empty are kept and reused for any size class, so the memory released by removing values of
+ * one size can be used by values of another size. Blocks are identified by an address that combines the index of the
+ * slab and the offset of the block, so no heap objects are needed per block.</p>
+ *
+ * <p>Allocation is not thread-safe, but {@link #read(long, int)} can be called concurrently with other reads.</p>
+ *
+ * @since 4.2.0
+ */
+public class SlabArena {
+
+    public static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+    public static final int MIN_BLOCK_SIZE = 64;
+
+    /**
+     * Growth factor between consecutive size classes. Like in memcached, it keeps the average space wasted per block
+     * around 10%.
+     */
+    protected static final double SIZE_CLASS_FACTOR = 1.25;
+
+    protected final long capacity;
+    protected final int slabSize;
+    protected final int[] blockSizes;
+    /**
+     * Slabs by index. Replaced with a bigger copy when full, so that it can be read without locks.
+     */
+    protected volatile Slab[] slabs;
+    protected final Deque<Integer> freeIndexes;
+    protected final Deque<Slab> emptySlabs;
+    protected final List<Set<Slab>> partialSlabs;
+    protected int slabCount;
+    protected long reservedBytes;
+    protected long usedBytes;
+
+    /**
+     * Creates a new arena.
+     *
+     * @param capacity the max bytes of memory the arena can reserve, 0 or less for unlimited
+     * @param slabSize the size in bytes of the slabs
+     */
+    public SlabArena(long capacity, int slabSize) {
+        if (slabSize < MIN_BLOCK_SIZE) {
+            throw new IllegalArgumentException("The slab size should be at least " + MIN_BLOCK_SIZE + " bytes");
+        }
+
+        this.capacity = capacity > 0? capacity : Long.MAX_VALUE;
+        this.slabSize = slabSize;
+        this.blockSizes = createBlockSizes(slabSize);
+        this.slabs = new Slab[16];
+        this.freeIndexes = new ArrayDeque<>();
+        this.emptySlabs = new ArrayDeque<>();
+        this.partialSlabs = new ArrayList<>(blockSizes.length);
+
+        for (int i = 0; i < blockSizes.length; i++) {
+            partialSlabs.add(new LinkedHashSet<>());
+        }
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    /**
+     * Returns the bytes of the slabs currently allocated, including the empty ones.
+     */
+    public long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    /**
+     * Returns the bytes of the blocks in use.
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Returns true if a block of the given length can be allocated when the arena is empty.
+     */
+    public boolean fits(int length) {
+        return length <= slabSize? slabSize <= capacity : length <= capacity;
+    }
+
+    /**
+     * Allocates a block of at least the given length.
+     *
+     * @return the address of the block, or -1 if there's not enough memory left in the arena
+     */
+    public long allocate(int length) {
+        if (length > slabSize) {
+            if (!reserve(length)) {
+                return -1;
+            }
+
+            Slab slab = new Slab(nextIndex(), ByteBuffer.allocateDirect(length), true);
+            slab.init(-1, length);
+            addSlab(slab);
+
+            usedBytes += length;
+
+            return toAddress(slab.index, slab.allocateBlock());
+        }
+
+        int sizeClass = getSizeClass(length);
+        Set<Slab> partial = partialSlabs.get(sizeClass);
+        Slab slab;
+
+        if (!partial.isEmpty()) {
+            slab = partial.iterator().next();
+        } else {
+            slab = emptySlabs.poll();
+            if (slab == null) {
+                if (!reserve(slabSize)) {
+                    return -1;
+                }
+
+                slab = new Slab(nextIndex(), ByteBuffer.allocateDirect(slabSize), false);
+                addSlab(slab);
+            }
+
+            slab.init(sizeClass, blockSizes[sizeClass]);
+            partial.add(slab);
+        }
+
+        int offset = slab.allocateBlock();
+        if (slab.isFull()) {
+            partial.remove(slab);
+        }
+
+        usedBytes += slab.blockSize;
+
+        return toAddress(slab.index, offset);
+    }
+
+    /**
+     * Frees the block at the given address, so that it can be allocated again.
+     */
+    public void free(long address) {
+        Slab slab = slabs[toIndex(address)];
+        usedBytes -= slab.blockSize;
+
+        if (slab.huge) {
+            releaseSlab(slab);
+            return;
+        }
+
+        boolean wasFull = slab.isFull();
+        slab.freeBlock(toOffset(address));
+
+        Set<Slab> partial = partialSlabs.get(slab.sizeClass);
+        if (slab.isEmpty()) {
+            partial.remove(slab);
+            emptySlabs.push(slab);
+        } else if (wasFull) {
+            partial.add(slab);
+        }
+    }
+
+    /**
+     * Writes the data at the start of the block at the given address.
+     */
+    public void write(long address, byte[] data) {
+        slabs[toIndex(address)].buffer.put(toOffset(address), data);
+    }
+
+    /**
+     * Reads the given number of bytes from the start of the block at the given address. Reads are done with absolute
+     * positions, so they can happen concurrently. If the block is freed during the read, the data or the address
+     * might not be valid anymore: in that case either garbage or null is returned, so callers should check that the
+     * block was not freed before using the data.
+     */
+    public byte[] read(long address, int length) {
+        Slab[] slabs = this.slabs;
+        int index = toIndex(address);
+        int offset = toOffset(address);
+
+        if (index < 0 || index >= slabs.length) {
+            return null;
+        }
+
+        Slab slab = slabs[index];
+        if (slab == null || offset + length > slab.buffer.capacity()) {
+            return null;
+        }
+
+        byte[] data = new byte[length];
+        slab.buffer.get(offset, data);
+
+        return data;
+    }
+
+    /**
+     * Frees all the blocks. Regular slabs are kept to be reused, while the slabs of big values are released.
+     */
+    public void clear() {
+        for (Set<Slab> partial : partialSlabs) {
+            partial.clear();
+        }
+
+        emptySlabs.clear();
+
+        for (int i = 0; i < slabCount; i++) {
+            Slab slab = slabs[i];
+            if (slab != null) {
+                if (slab.huge) {
+                    releaseSlab(slab);
+                } else {
+                    slab.init(-1, slabSize);
+                    emptySlabs.push(slab);
+                }
+            }
+        }
+
+        usedBytes = 0;
+    }
+
+    /**
+     * Reserves memory for a new slab, releasing empty slabs if needed.
+     */
+    protected boolean reserve(long size) {
+        while (reservedBytes + size > capacity) {
+            Slab empty = emptySlabs.poll();
+            if (empty == null) {
+                return false;
+            }
+
+            releaseSlab(empty);
+        }
+
+        reservedBytes += size;
+
+        return true;
+    }
+
+    protected void releaseSlab(Slab slab) {
+        // The memory is freed by the JVM once the buffer is garbage collected
+        slabs[slab.index] = null;
+        freeIndexes.push(slab.index);
+        reservedBytes -= slab.buffer.capacity();
+    }
+
+    protected int nextIndex() {
+        Integer index = freeIndexes.poll();
+
+        return index != null? index : slabCount++;
+    }
+
+    protected void addSlab(Slab slab) {
+        if (slab.index >= slabs.length) {
+            slabs = Arrays.copyOf(slabs, slabs.length * 2);
+        }
+
+        slabs[slab.index] = slab;
+    }
+
+    protected int getSizeClass(int length) {
+        int sizeClass = Arrays.binarySearch(blockSizes, length);
+
+        return sizeClass >= 0? sizeClass : -sizeClass - 1;
+    }
+
+    protected static int[] createBlockSizes(int slabSize) {
+        List<Integer> sizes = new ArrayList<>();
+        int size = MIN_BLOCK_SIZE;
+
+        while (size < slabSize / 2) {
+            sizes.add(size);
+            // Keep the sizes aligned to 8 bytes
+            size = Math.max(size + 8, ((int) (size * SIZE_CLASS_FACTOR) + 7) & ~7);
+        }
+
+        sizes.add(slabSize);
+
+        return sizes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    protected static long toAddress(int index, int offset) {
+        return ((long) index << 32) | offset;
+    }
+
+    protected static int toIndex(long address) {
+        return (int) (address >>> 32);
+    }
+
+    protected static int toOffset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * Direct buffer split in blocks of the same size. Keeps the offsets of the freed blocks in a stack, and the ones
+     * never allocated are taken from the end of the used part.
+     */
+    protected static class Slab {
+
+        protected final int index;
+        protected final ByteBuffer buffer;
+        protected final boolean huge;
+        protected int sizeClass;
+        protected int blockSize;
+        protected int blockCount;
+        protected int usedBlocks;
+        protected int carvedBlocks;
+        protected int[] freeOffsets;
+        protected int freeCount;
+
+        public Slab(int index, ByteBuffer buffer, boolean huge) {
+            this.index = index;
+            this.buffer = buffer;
+            this.huge = huge;
+            this.freeOffsets = new int[16];
+        }
+
+        public void init(int sizeClass, int blockSize) {
+            this.sizeClass = sizeClass;
+            this.blockSize = blockSize;
+            this.blockCount = buffer.capacity() / blockSize;
+            this.usedBlocks = 0;
+            this.carvedBlocks = 0;
+            this.freeCount = 0;
+        }
+
+        public int allocateBlock() {
+            usedBlocks++;
+
+            return freeCount > 0? freeOffsets[--freeCount] : blockSize * carvedBlocks++;
+        }
+
+        public void freeBlock(int offset) {
+            usedBlocks--;
+
+            if (freeCount == freeOffsets.length) {
+                freeOffsets = Arrays.copyOf(freeOffsets, freeCount * 2);
+            }
+
+            freeOffsets[freeCount++] = offset;
+        }
+
+        public boolean isFull() {
+            return usedBlocks == blockCount;
+        }
+
+        public boolean isEmpty() {
+            return usedBlocks == 0;
+        }
+
+    }
+
+}
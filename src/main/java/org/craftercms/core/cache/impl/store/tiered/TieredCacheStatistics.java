@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl.store.tiered;
+
+import java.util.List;
+
+import org.craftercms.core.cache.CacheStatistics;
+
+/**
+ * Statistics of a scope of the {@link TieredCacheStoreAdapter}, which also include the statistics of the scope in
+ * each level.
+ *
+ * @since 4.2.0
+ */
+public class TieredCacheStatistics extends CacheStatistics {
+
+    protected final List<CacheStatistics> levelStatistics;
+
+    public TieredCacheStatistics(long size, List<CacheStatistics> levelStatistics) {
+        super(size);
+        this.levelStatistics = levelStatistics;
+    }
+
+    /**
+     * Returns the statistics of the scope in each level, starting with the first one.
+     */
+    public List<CacheStatistics> getLevelStatistics() {
+        return levelStatistics;
+    }
+
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl.store.tiered;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.craftercms.core.cache.CacheItem;
+import org.craftercms.core.cache.CacheStatistics;
+import org.craftercms.core.cache.impl.CacheEvictionListener;
+import org.craftercms.core.cache.impl.CacheStatisticsRecorder;
+import org.craftercms.core.cache.impl.CacheStoreAdapter;
+import org.craftercms.core.exception.InternalCacheEngineException;
+
+/**
+ * {@link CacheStoreAdapter} that chains several adapters as levels of the same cache, like a small heap cache in
+ * front of a bigger {@link org.craftercms.core.cache.impl.store.offheap.OffHeapCacheStoreAdapter}. Items are looked
+ * up level by level, and items found in a lower level are promoted to the first one.
+ *
+ * <p>Items can be written in two ways:</p>
+ * <ul>
+ *     <li><b>Write-back</b> (the default): items are only put in the first level, and each item is kept in a single
+ *     level. The items a level evicts because it's full are demoted to the next level, so they're only discarded by
+ *     the last one. Promoted items are removed from the level they were found in.</li>
+ *     <li><b>Write-through:</b> items are put in all levels, so the first levels only hold copies of the hottest
+ *     items and their evictions are discarded.</li>
+ * </ul>
+ *
+ * <p>Each level but the last is bounded by a ratio of the {@code maxItemsInMemory} of the scope (see
+ * {@link #setUpperLevelMaxItemsRatio(double)}). The keys, size and statistics of a scope combine the ones of all
+ * levels, counting each key once, so they require visiting all the keys of the scope.</p>
+ *
+ * <p>Items are removed from the first level down, so that an item being demoted while it's removed doesn't outlive
+ * the removal. This requires the upper levels to notify their evictions atomically with the eviction itself, like
+ * the {@link org.craftercms.core.cache.impl.store.caffeine.CaffeineCacheStoreAdapter} does. Promotions, puts and
+ * removals of the same key are serialized by a striped lock, and a promotion looks the item up again under the lock,
+ * so that an older version read from a lower level can't be written back over a newer put or a removal.
+ * {@link #peek(String, Object)} never promotes, so the expiration and refresh checks of the cache ticks don't move
+ * items between levels.</p>
+ *
+ * @since 4.2.0
+ */
+public class TieredCacheStoreAdapter implements CacheStoreAdapter {
+
+    private static final Log logger = LogFactory.getLog(TieredCacheStoreAdapter.class);
+
+    /**
+     * Cause of the evictions that are demoted to the next level. Other evictions, like expirations, are discarded.
+     */
+    public static final String DEMOTED_EVICTION_CAUSE = "SIZE";
+    public static final double DEFAULT_UPPER_LEVEL_MAX_ITEMS_RATIO = 0.1;
+    /**
+     * Number of locks used to serialize the promotions, puts and removals of the keys. Must be a power of 2.
+     */
+    public static final int KEY_LOCK_STRIPES = 64;
+
+    protected final List<CacheStoreAdapter> levels;
+    /**
+     * Counters of the evictions of the upper levels that were discarded instead of demoted, by scope
+     */
+    protected final Map<String, CacheStatisticsRecorder> evictionRecorders = new ConcurrentHashMap<>();
+    protected final Lock[] keyLocks;
+
+    protected boolean writeThrough;
+    protected double upperLevelMaxItemsRatio;
+    protected CacheEvictionListener evictionListener;
+
+    public TieredCacheStoreAdapter(List<CacheStoreAdapter> levels) {
+        if (levels.isEmpty()) {
+            throw new IllegalArgumentException("At least one level is required");
+        }
+
+        this.levels = List.copyOf(levels);
+        this.upperLevelMaxItemsRatio = DEFAULT_UPPER_LEVEL_MAX_ITEMS_RATIO;
+        this.keyLocks = new Lock[KEY_LOCK_STRIPES];
+
+        for (int i = 0; i < keyLocks.length; i++) {
+            keyLocks[i] = new ReentrantLock();
+        }
+
+        for (int i = 0; i < this.levels.size() - 1; i++) {
+            int level = i;
+            this.levels.get(i).setEvictionListener((item, cause) -> demote(level, item, cause));
+        }
+    }
+
+    public List<CacheStoreAdapter> getLevels() {
+        return levels;
+    }
+
+    /**
+     * Sets if items should be put in all levels instead of only in the first one.
+     */
+    public void setWriteThrough(boolean writeThrough) {
+        this.writeThrough = writeThrough;
+    }
+
+    /**
+     * {@inheritDoc}. Notified of the items evicted by the last level, and of the items evicted by the upper levels
+     * that are discarded instead of demoted.
+     */
+    @Override
+    public void setEvictionListener(CacheEvictionListener evictionListener) {
+        this.evictionListener = evictionListener;
+        levels.get(levels.size() - 1).setEvictionListener(evictionListener);
+    }
+
+    /**
+     * Sets the ratio of the {@code maxItemsInMemory} of a scope used as the max items of all levels but the last.
+     */
+    public void setUpperLevelMaxItemsRatio(double upperLevelMaxItemsRatio) {
+        this.upperLevelMaxItemsRatio = upperLevelMaxItemsRatio;
+    }
+
+    @Override
+    public boolean hasScope(String scope) throws Exception {
+        return levels.get(0).hasScope(scope);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<String> getScopes() throws Exception {
+        return levels.get(0).getScopes();
+    }
+
+    /**
+     * Adds the scope to all levels. All levels but the last are bounded by {@code upperLevelMaxItemsRatio} of the
+     * {@code maxItemsInMemory}.
+     *
+     * @param scope            the name of the scope
+     * @param maxItemsInMemory the maximum number of items in the last level, before they are evicted
+     */
+    @Override
+    public void addScope(String scope, int maxItemsInMemory) throws Exception {
+        evictionRecorders.put(scope, new CacheStatisticsRecorder());
+
+        int lastLevel = levels.size() - 1;
+        for (int i = 0; i < lastLevel; i++) {
+            levels.get(i).addScope(scope, Math.max(1, (int) (maxItemsInMemory * upperLevelMaxItemsRatio)));
+        }
+
+        levels.get(lastLevel).addScope(scope, maxItemsInMemory);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeScope(String scope) throws Exception {
+        evictionRecorders.remove(scope);
+
+        for (CacheStoreAdapter level : levels) {
+            level.removeScope(scope);
+        }
+    }
+
+    /**
+     * Returns the number of distinct keys in all levels.
+     */
+    @Override
+    public int getSize(String scope) throws Exception {
+        return getKeySet(scope).size();
+    }
+
+    /**
+     * Returns a snapshot of the distinct keys in all levels.
+     */
+    @Override
+    public Collection<Object> getKeys(String scope) throws Exception {
+        return Collections.unmodifiableSet(getKeySet(scope));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasKey(String scope, Object key) throws Exception {
+        for (CacheStoreAdapter level : levels) {
+            if (level.hasKey(scope, key)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the item from the first level that has it. If that's not the first level, the item is promoted.
+     */
+    @Override
+    public CacheItem get(String scope, Object key) throws Exception {
+        CacheItem item = levels.get(0).get(scope, key);
+        if (item != null || levels.size() == 1) {
+            return item;
+        }
+
+        Lock lock = getKeyLock(scope, key);
+        lock.lock();
+        try {
+            // Look up all the levels again, since a put or a removal could have happened before getting the lock
+            for (int i = 0; i < levels.size(); i++) {
+                item = levels.get(i).get(scope, key);
+                if (item != null) {
+                    if (i > 0) {
+                        promote(i, item);
+                    }
+
+                    return item;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the item from the first level that has it, without promoting it.
+     */
+    @Override
+    public CacheItem peek(String scope, Object key) throws Exception {
+        for (CacheStoreAdapter level : levels) {
+            CacheItem item = level.peek(scope, key);
+            if (item != null) {
+                return item;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Puts the item in the first level, or in all levels if {@code writeThrough} is enabled. In write-back, older
+     * versions of the item in the lower levels are removed.
+     */
+    @Override
+    public void put(CacheItem item) throws Exception {
+        Lock lock = getKeyLock(item.getScope(), item.getKey());
+        lock.lock();
+        try {
+            if (writeThrough) {
+                for (CacheStoreAdapter level : levels) {
+                    level.put(item);
+                }
+            } else {
+                levels.get(0).put(item);
+
+                for (int i = 1; i < levels.size(); i++) {
+                    CacheStoreAdapter level = levels.get(i);
+                    if (level.hasKey(item.getScope(), item.getKey())) {
+                        level.remove(item.getScope(), item.getKey());
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(String scope, Object key) throws Exception {
+        Lock lock = getKeyLock(scope, key);
+        lock.lock();
+        try {
+            boolean removed = false;
+            for (CacheStoreAdapter level : levels) {
+                removed |= level.remove(scope, key);
+            }
+
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearAll() throws Exception {
+        for (CacheStoreAdapter level : levels) {
+            level.clearAll();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearScope(String scope) throws Exception {
+        for (CacheStoreAdapter level : levels) {
+            level.clearScope(scope);
+        }
+    }
+
+    /**
+     * {@inheritDoc}. The size is the number of distinct keys, the estimated memory the sum of the one of the levels,
+     * and the evictions the ones of the last level plus the ones of the upper levels that were discarded instead of
+     * demoted.
+     */
+    @Override
+    public CacheStatistics getStatistics(String scope) {
+        List<CacheStatistics> levelStatistics = new ArrayList<>(levels.size());
+        for (CacheStoreAdapter level : levels) {
+            levelStatistics.add(level.getStatistics(scope));
+        }
+
+        TieredCacheStatistics statistics;
+        try {
+            statistics = new TieredCacheStatistics(getSize(scope), levelStatistics);
+        } catch (Exception e) {
+            throw new InternalCacheEngineException("Unable to get the keys of scope " + scope, e);
+        }
+
+        statistics.setEstimatedMemory(levelStatistics.stream().mapToLong(CacheStatistics::getEstimatedMemory).sum());
+
+        levelStatistics.get(levelStatistics.size() - 1).getEvictionCounts().forEach(statistics::addEvictions);
+
+        CacheStatisticsRecorder evictionRecorder = evictionRecorders.get(scope);
+        if (evictionRecorder != null) {
+            evictionRecorder.applyLoadsAndEvictionsTo(statistics);
+        }
+
+        return statistics;
+    }
+
+    protected Set<Object> getKeySet(String scope) throws Exception {
+        Set<Object> keys = new LinkedHashSet<>();
+        for (CacheStoreAdapter level : levels) {
+            keys.addAll(level.getKeys(scope));
+        }
+
+        return keys;
+    }
+
+    protected Lock getKeyLock(String scope, Object key) {
+        int hash = 31 * scope.hashCode() + key.hashCode();
+
+        return keyLocks[(hash ^ (hash >>> 16)) & (keyLocks.length - 1)];
+    }
+
+    /**
+     * Copies the item found in the given level to the upper levels in write-through, or moves it to the first level
+     * in write-back. Must be called while holding the lock of the item's key.
+     */
+    protected void promote(int level, CacheItem item) throws Exception {
+        if (writeThrough) {
+            for (int i = 0; i < level; i++) {
+                levels.get(i).put(item);
+            }
+        } else {
+            levels.get(0).put(item);
+            levels.get(level).remove(item.getScope(), item.getKey());
+        }
+    }
+
+    /**
+     * Called when the given level evicts an item. In write-back, items evicted because the level is full are put in
+     * the next level, and any other eviction is counted as a discarded item. In write-through the next levels
+     * already have the item, so there's nothing to do.
+     */
+    protected void demote(int level, CacheItem item, String cause) {
+        if (writeThrough) {
+            return;
+        }
+
+        CacheStatisticsRecorder evictionRecorder = evictionRecorders.get(item.getScope());
+        if (evictionRecorder == null) {
+            // The scope was removed
+            return;
+        }
+
+        if (DEMOTED_EVICTION_CAUSE.equals(cause)) {
+            try {
+                levels.get(level + 1).put(item);
+                return;
+            } catch (Exception e) {
+                logger.warn("Unable to demote item with key " + item.getKey() + " in scope " + item.getScope() +
+                            " to level " + (level + 2), e);
+            }
+        }
+
+        evictionRecorder.recordEviction(cause);
+
+        if (evictionListener != null) {
+            evictionListener.itemEvicted(item, cause);
+        }
+    }
+
+}
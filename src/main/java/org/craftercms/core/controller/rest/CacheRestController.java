@@ -19,16 +19,21 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.craftercms.commons.exceptions.InvalidManagementTokenException;
+import org.craftercms.core.cache.CacheStatistics;
 import org.craftercms.core.exception.CacheException;
 import org.craftercms.core.exception.InvalidContextException;
 import org.craftercms.core.service.ContentStoreService;
 import org.craftercms.core.service.Context;
+import org.craftercms.core.service.impl.CacheSnapshotManager;
+import org.craftercms.core.store.impl.PathExistenceFilter;
+import org.craftercms.core.store.impl.filesystem.FileSystemContext;
 import org.craftercms.core.util.cache.CacheTemplate;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -49,6 +54,8 @@ public class CacheRestController extends RestControllerBase {
     public static final String URL_ROOT = "/cache";
     public static final String URL_CLEAR_ALL_SCOPES = "/clear_all";
     public static final String URL_CLEAR_SCOPE = "/clear";
+    public static final String URL_STATISTICS = "/statistics";
+    public static final String URL_SNAPSHOT = "/snapshot";
 
     public static final String REQUEST_PARAM_CONTEXT_ID = "contextId";
 
@@ -57,12 +64,18 @@ public class CacheRestController extends RestControllerBase {
 
     private String authorizationToken;
 
+    private CacheSnapshotManager cacheSnapshotManager;
+
     public CacheRestController(CacheTemplate cacheTemplate, ContentStoreService storeService, final String authorizationToken) {
         this.cacheTemplate = cacheTemplate;
         this.storeService = storeService;
         this.authorizationToken = authorizationToken;
     }
 
+    public void setCacheSnapshotManager(CacheSnapshotManager cacheSnapshotManager) {
+        this.cacheSnapshotManager = cacheSnapshotManager;
+    }
+
     @RequestMapping(value = URL_CLEAR_ALL_SCOPES, method = RequestMethod.GET)
     public Map<String, Object> clearAllScopes(@RequestParam String token)
         throws CacheException, InvalidManagementTokenException {
@@ -93,6 +106,50 @@ public class CacheRestController extends RestControllerBase {
         return createResponseMessage("Cache scope for context '" + contextId + "' has been cleared");
     }
 
+    @RequestMapping(value = URL_STATISTICS, method = RequestMethod.GET)
+    public CacheStatistics getStatistics(@RequestParam(REQUEST_PARAM_CONTEXT_ID) String contextId,
+                                         @RequestParam String token)
+        throws InvalidContextException, InvalidManagementTokenException {
+        validateToken(token);
+        Context context = storeService.getContext(contextId);
+        if (context == null) {
+            throw new InvalidContextException("No context found for ID " + contextId);
+        }
+
+        CacheStatistics statistics = cacheTemplate.getCacheService().getStatistics(context);
+        if (statistics != CacheStatistics.EMPTY && context instanceof FileSystemContext) {
+            PathExistenceFilter filter = ((FileSystemContext) context).getExistenceFilter();
+            if (filter != null) {
+                filter.applyTo(statistics);
+            }
+        }
+
+        return statistics;
+    }
+
+    @RequestMapping(value = URL_SNAPSHOT, method = RequestMethod.GET)
+    public Map<String, Object> saveSnapshot(@RequestParam(REQUEST_PARAM_CONTEXT_ID) String contextId,
+                                            @RequestParam String token)
+        throws InvalidContextException, IOException, InvalidManagementTokenException {
+        validateToken(token);
+        Context context = storeService.getContext(contextId);
+        if (context == null) {
+            throw new InvalidContextException("No context found for ID " + contextId);
+        }
+
+        if (cacheSnapshotManager == null || !cacheSnapshotManager.isSupported(context)) {
+            return createResponseMessage("Cache snapshots are not enabled for context '" + contextId + "'");
+        }
+
+        int saved = cacheSnapshotManager.saveSnapshot(context);
+        if (logger.isInfoEnabled()) {
+            logger.info("[CACHE] Snapshot of scope for context " + context + " has been saved");
+        }
+
+        return createResponseMessage("Cache snapshot for context '" + contextId + "' has been saved with " + saved +
+                                     " items");
+    }
+
     protected void validateToken(String token) throws InvalidManagementTokenException {
         if (!StringUtils.equals(token, authorizationToken)) {
             throw new InvalidManagementTokenException("Management authorization failed, invalid token.");
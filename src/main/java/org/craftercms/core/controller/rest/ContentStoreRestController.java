@@ -16,12 +16,14 @@
 package org.craftercms.core.controller.rest;
 
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.craftercms.commons.lang.RegexUtils;
 import org.craftercms.core.exception.*;
 import org.craftercms.core.service.*;
 import org.craftercms.core.service.impl.CompositeItemFilter;
 import org.craftercms.core.service.impl.ExcludeByUrlItemFilter;
 import org.craftercms.core.service.impl.IncludeByUrlItemFilter;
+import org.craftercms.core.util.cache.CachingAwareObject;
 import org.craftercms.core.util.cache.impl.CachingAwareList;
 import org.dom4j.Document;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -36,6 +38,7 @@ import java.beans.ConstructorProperties;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,15 +60,23 @@ public class ContentStoreRestController extends RestControllerBase implements In
     public static final String REQUEST_PARAM_CONTEXT_ID = "contextId";
     public static final String REQUEST_PARAM_URL = "url";
     public static final String REQUEST_PARAM_TREE_DEPTH = "depth";
+    public static final String REQUEST_PARAM_OFFSET = "offset";
+    public static final String REQUEST_PARAM_CURSOR = "cursor";
+    public static final String REQUEST_PARAM_LIMIT = "limit";
     public static final String URL_DESCRIPTOR = "/descriptor";
     public static final String URL_ITEM = "/item";
     public static final String URL_CHILDREN = "/children";
     public static final String URL_TREE = "/tree";
+    public static final String URL_CHILDREN_PAGE = "/children/page";
+
+    public static final int DEFAULT_PAGE_LIMIT = 20;
 
     private ContentStoreService storeService;
     private final int treeDepthLimit;
     private String[] allowedUrlPatterns;
     private String[] forbiddenUrlPatterns;
+    private boolean streamingEnabled;
+    private int maxPageLimit;
 
     private ItemFilter itemFilter;
 
@@ -77,6 +88,7 @@ public class ContentStoreRestController extends RestControllerBase implements In
         } else {
             this.treeDepthLimit = treeDepthLimit;
         }
+        this.maxPageLimit = DEFAULT_PAGE_LIMIT;
     }
 
     public void setAllowedUrlPatterns(String[] allowedUrlPatterns) {
@@ -87,6 +99,26 @@ public class ContentStoreRestController extends RestControllerBase implements In
         this.forbiddenUrlPatterns = forbiddenUrlPatterns;
     }
 
+    /**
+     * Sets if trees and children should be streamed: each child is loaded while the response is being written,
+     * instead of loading the whole tree before writing it. Streamed trees don't support conditional requests, since
+     * their last modified time is not known until they're completely loaded.
+     *
+     * @since 4.2.0
+     */
+    public void setStreamingEnabled(boolean streamingEnabled) {
+        this.streamingEnabled = streamingEnabled;
+    }
+
+    /**
+     * Sets the max number of children that can be requested in a single page. Greater limits are lowered to it.
+     *
+     * @since 4.2.0
+     */
+    public void setMaxPageLimit(int maxPageLimit) {
+        this.maxPageLimit = maxPageLimit;
+    }
+
     public void afterPropertiesSet() {
         CompositeItemFilter compositeItemFilter = new CompositeItemFilter();
         compositeItemFilter.setFilters(Arrays.asList(new IncludeByUrlItemFilter(allowedUrlPatterns),
@@ -156,11 +188,58 @@ public class ContentStoreRestController extends RestControllerBase implements In
 
         if (children.getCachingTime() != null && checkNotModified(children.getCachingTime(), request, response)) {
             return null;
+        } else if (streamingEnabled) {
+            // Written straight from the cached list, without copying it
+            return new StreamingItemList(children.getActualList(), Function.identity());
         } else {
             return new ArrayList<>(children);
         }
     }
 
+    /**
+     * Returns a page of the children of the folder, sorted by name. The page starts after the given cursor (the
+     * {@code nextCursor} of the previous page) or, if there's no cursor, at the given offset.
+     *
+     * @since 4.2.0
+     */
+    @RequestMapping(value = URL_CHILDREN_PAGE, method = RequestMethod.GET)
+    public ItemPage getChildrenPage(WebRequest request, HttpServletResponse response,
+                                    @RequestParam(REQUEST_PARAM_CONTEXT_ID) String contextId,
+                                    @RequestParam(REQUEST_PARAM_URL) String url,
+                                    @RequestParam(value = REQUEST_PARAM_OFFSET, required = false, defaultValue = "0")
+                                    int offset,
+                                    @RequestParam(value = REQUEST_PARAM_CURSOR, required = false) String cursor,
+                                    @RequestParam(value = REQUEST_PARAM_LIMIT, required = false) Integer limit,
+                                    @RequestParam(required = false, defaultValue = "false") boolean flatten)
+            throws InvalidContextException, StoreException, PathNotFoundException, ForbiddenPathException,
+                   ItemProcessingException, XmlMergeException, XmlFileParseException {
+        checkIfUrlAllowed(url);
+
+        Context context = storeService.getContext(contextId);
+        if (context == null) {
+            throw new InvalidContextException("No context found for ID " + contextId);
+        }
+
+        // Pages are cached, so any out of range value is changed to keep the number of different pages low
+        offset = Math.max(offset, 0);
+        if (limit == null || limit <= 0 || limit > maxPageLimit) {
+            limit = maxPageLimit;
+        }
+
+        ItemPage page;
+        if (StringUtils.isNotEmpty(cursor)) {
+            page = storeService.getChildrenPage(context, null, url, cursor, limit, itemFilter, null, flatten);
+        } else {
+            page = storeService.getChildrenPage(context, null, url, offset, limit, itemFilter, null, flatten);
+        }
+
+        if (page.getCachingTime() != null && checkNotModified(page.getCachingTime(), request, response)) {
+            return null;
+        } else {
+            return page;
+        }
+    }
+
     @RequestMapping(value = URL_TREE, method = RequestMethod.GET)
     public Tree getTree(WebRequest request, HttpServletResponse response,
                                        @RequestParam(REQUEST_PARAM_CONTEXT_ID) String contextId,
@@ -182,6 +261,19 @@ public class ContentStoreRestController extends RestControllerBase implements In
         }
 
         try {
+            if (streamingEnabled) {
+                Item item = storeService.getItem(context, null, url, null, false);
+                List<Item> children = hasChildren(depth)? getStreamingChildren(context, item) : null;
+
+                // The rest of the tree is loaded while it's written, so the root listing is the best reference
+                Long cachingTime = children != null? getCachingTime(children) : item.getCachingTime();
+                if (cachingTime != null && checkNotModified(cachingTime, request, response)) {
+                    return null;
+                } else {
+                    return createStreamingTree(context, item, children, depth);
+                }
+            }
+
             Tree tree = storeService.getTree(context, null, url, depth, itemFilter, null, false);
             if (tree.getCachingTime() != null && checkNotModified(tree.getCachingTime(), request, response)) {
                 return null;
@@ -195,6 +287,50 @@ public class ContentStoreRestController extends RestControllerBase implements In
         }
     }
 
+    /**
+     * Creates a tree whose children are loaded (level by level, like {@link ContentStoreService#getTree}) while it's
+     * being serialized. The children of the subfolders are loaded after the response has been committed, so if
+     * that fails the error can't be sent to the client anymore: a {@link StoreException} is thrown to abort the
+     * response, which is logged by {@link ExceptionHandlers#handleHttpMessageNotWritableException}.
+     */
+    private Tree createStreamingTree(Context context, Item item, List<Item> children, int depth) {
+        Tree tree = new Tree(item, false);
+
+        if (children != null) {
+            int childDepth = depth >= 1? depth - 1 : depth;
+
+            tree.setChildren(new StreamingItemList(children, child -> {
+                if (child.isFolder()) {
+                    try {
+                        List<Item> grandchildren = hasChildren(childDepth)? getStreamingChildren(context, child) :
+                                                   null;
+
+                        return createStreamingTree(context, child, grandchildren, childDepth);
+                    } catch (CrafterException e) {
+                        throw new StoreException("Unable to load the children of '" + child.getUrl() +
+                                                 "' while streaming the tree of '" + item.getUrl() + "'", e);
+                    }
+                } else {
+                    return child;
+                }
+            }));
+        }
+
+        return tree;
+    }
+
+    private boolean hasChildren(int depth) {
+        return depth == ContentStoreService.UNLIMITED_TREE_DEPTH || depth >= 1;
+    }
+
+    private List<Item> getStreamingChildren(Context context, Item item) {
+        return storeService.getChildren(context, null, item.getUrl(), itemFilter, null, false);
+    }
+
+    private Long getCachingTime(List<Item> children) {
+        return children instanceof CachingAwareObject? ((CachingAwareObject) children).getCachingTime() : null;
+    }
+
     private boolean checkNotModified(long lastModifiedTimestamp, WebRequest request, HttpServletResponse response) {
         response.setHeader(CACHE_CONTROL_HEADER_NAME, MUST_REVALIDATE_HEADER_VALUE);
 
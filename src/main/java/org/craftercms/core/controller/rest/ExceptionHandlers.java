@@ -23,16 +23,19 @@ import org.craftercms.commons.validation.ValidationRuntimeException;
 import org.craftercms.core.exception.AuthenticationException;
 import org.craftercms.core.exception.ForbiddenPathException;
 import org.craftercms.core.exception.InvalidContextException;
+import org.craftercms.core.exception.InvalidPageException;
 import org.craftercms.core.exception.PathNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.HttpMessageNotWritableException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.ConstraintViolationException;
 import java.util.List;
 import java.util.Map;
@@ -96,6 +99,37 @@ public class ExceptionHandlers {
         return handleException(request, e);
     }
 
+    @ExceptionHandler(InvalidPageException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public Map<String, Object> handleInvalidPageException(HttpServletRequest request, InvalidPageException e) {
+        return handleException(request, e);
+    }
+
+    /**
+     * Handles the errors thrown while the response body is written. When they happen in the middle of a streamed
+     * response (like a streamed tree) the status and part of the body have already been sent, so no error can be
+     * returned: the exception is rethrown for the container to abort the response, instead of completing it and
+     * making the truncated body look like a valid one.
+     *
+     * @since 4.2.0
+     */
+    @ExceptionHandler(HttpMessageNotWritableException.class)
+    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+    @ResponseBody
+    public Map<String, Object> handleHttpMessageNotWritableException(HttpServletRequest request,
+                                                                     HttpServletResponse response,
+                                                                     HttpMessageNotWritableException e) {
+        if (response.isCommitted()) {
+            logger.error("Request for " + request.getRequestURI() + " failed after the response was committed, " +
+                         "aborting the response", e);
+
+            throw e;
+        }
+
+        return handleException(request, e);
+    }
+
     @ExceptionHandler(ValidationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ResponseBody
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.exception;
+
+/**
+ * Thrown to indicate that the offset, limit or cursor of a requested page of children is not valid.
+ *
+ * @since 4.2.0
+ */
+public class InvalidPageException extends CrafterException {
+
+    private static final long serialVersionUID = -3520926714485063210L;
+
+    public InvalidPageException() {
+    }
+
+    public InvalidPageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InvalidPageException(String message) {
+        super(message);
+    }
+
+    public InvalidPageException(Throwable cause) {
+        super(cause);
+    }
+
+}
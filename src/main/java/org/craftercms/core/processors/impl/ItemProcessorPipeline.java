@@ -27,6 +27,7 @@ import org.craftercms.core.processors.ItemProcessor;
 import org.craftercms.core.service.CachingOptions;
 import org.craftercms.core.service.Context;
 import org.craftercms.core.service.Item;
+import org.craftercms.core.util.cache.impl.CompositeCacheKey;
 
 /**
  * Pipeline of {@link org.craftercms.core.processors.ItemProcessor}s. The output of each processor's
@@ -128,6 +129,7 @@ public class ItemProcessorPipeline implements ItemProcessor {
 
     /**
      * Returns true if the specified {@code ItemProcessorPipeline}'s and this instance's list of processors are equal.
+     * Processors are compared like the elements of a {@link CompositeCacheKey}.
      */
     @Override
     public boolean equals(Object o) {
@@ -140,11 +142,7 @@ public class ItemProcessorPipeline implements ItemProcessor {
 
         ItemProcessorPipeline that = (ItemProcessorPipeline)o;
 
-        if (processors != null? !processors.equals(that.processors): that.processors != null) {
-            return false;
-        }
-
-        return true;
+        return CompositeCacheKey.elementsEqual(processors, that.processors);
     }
 
     /**
@@ -154,7 +152,7 @@ public class ItemProcessorPipeline implements ItemProcessor {
      */
     @Override
     public int hashCode() {
-        return processors != null? processors.hashCode(): 0;
+        return CompositeCacheKey.elementsHashCode(processors);
     }
 
     @Override
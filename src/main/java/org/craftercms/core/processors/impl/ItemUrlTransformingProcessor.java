@@ -22,6 +22,8 @@ import org.craftercms.core.service.Context;
 import org.craftercms.core.service.Item;
 import org.craftercms.core.url.UrlTransformationEngine;
 
+import java.util.Objects;
+
 /**
  * {@link org.craftercms.core.processors.ItemProcessor} that takes the item url, transforms it by calling
  * the transformation engine, and places the transformed url in the properties.
@@ -48,6 +50,27 @@ public class ItemUrlTransformingProcessor implements ItemProcessor {
         return item;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ItemUrlTransformingProcessor that = (ItemUrlTransformingProcessor) o;
+
+        return Objects.equals(transformedUrlPropName, that.transformedUrlPropName) &&
+               Objects.equals(transformerName, that.transformerName) &&
+               Objects.equals(urlTransformationEngine, that.urlTransformationEngine);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(transformedUrlPropName, transformerName, urlTransformationEngine);
+    }
+
     @Override
     public String toString() {
         return "ItemUrlTransformingProcessor[" + "transformedUrlPropName='" + transformedUrlPropName + '\'' + ", " +
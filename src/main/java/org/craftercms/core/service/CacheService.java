@@ -81,6 +81,17 @@ public interface CacheService {
      */
     Object get(Context context, Object key) throws InvalidContextException, InternalCacheEngineException;
 
+    /**
+     * Retrieves an item's value from the scope of the given context, or null if not found, without recording a hit
+     * or a miss in the statistics of the scope. Implementations that don't support it fall back to
+     * {@link #get(Context, Object)}.
+     *
+     * @since 4.2.0
+     */
+    default Object peek(Context context, Object key) throws InvalidContextException, InternalCacheEngineException {
+        return get(context, key);
+    }
+
     /**
      * Puts an item in the scope of the given context.
      */
@@ -102,9 +113,40 @@ public interface CacheService {
      */
     void clearScope(Context context) throws InvalidContextException, InternalCacheEngineException;
 
+    /**
+     * Moves the given context to a new, empty scope (by changing its cache version) and removes its previous scope.
+     * Unlike {@link #clearScope(Context)}, objects that were being loaded when the scope was renewed are not put in
+     * the cache afterwards (see {@link org.craftercms.core.util.cache.impl.DefaultCacheTemplate}), so it should be
+     * used when the content of the store is replaced.
+     *
+     * @since 4.2.0
+     */
+    default void renewScope(Context context) throws InvalidContextException, InternalCacheEngineException {
+        if (context.isCacheOn()) {
+            Context previous = context.clone();
+            Context next = context.clone();
+            next.setCacheVersion(Math.max(System.nanoTime(), context.getCacheVersion() + 1));
+
+            // The new scope needs to exist before the context starts using it
+            addScope(next);
+            context.setCacheVersion(next.getCacheVersion());
+            removeScope(previous);
+        }
+    }
+
     /**
      * Returns the statistics for the scope of the given context.
      */
     CacheStatistics getStatistics(Context context);
 
+    /**
+     * Records the load of an item of the scope of the given context, to be included in the statistics of the scope.
+     * Does nothing by default.
+     *
+     * @param loadTime the time the load took, in nanoseconds
+     * @param success  if the load finished without exceptions
+     */
+    default void recordLoad(Context context, long loadTime, boolean success) {
+    }
+
 }
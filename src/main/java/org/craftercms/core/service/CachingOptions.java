@@ -21,6 +21,10 @@ import org.craftercms.core.cache.CacheItem;
  * Set of options that should be used when caching in a service call. {@code expireAfter} and {@code refreshFrequency}
  * are expressed in ticks.
  *
+ * <p>When {@code staleWhileRevalidate} is true, an item past its refresh deadline isn't reloaded by the ticker.
+ * Instead, the first read after the deadline returns the current (stale) value and triggers one background reload
+ * of the item, so the readers never wait for the load. Only takes effect when {@code refreshFrequency} is set.</p>
+ *
  * @author Alfonso Vásquez
  */
 public class CachingOptions {
@@ -31,6 +35,7 @@ public class CachingOptions {
     private boolean doCaching;
     private long expireAfter;
     private long refreshFrequency;
+    private boolean staleWhileRevalidate;
 
     public CachingOptions() {
         this.doCaching = true;
@@ -39,9 +44,14 @@ public class CachingOptions {
     }
 
     public CachingOptions(boolean doCaching, long expireAfter, long refreshFrequency) {
+        this(doCaching, expireAfter, refreshFrequency, false);
+    }
+
+    public CachingOptions(boolean doCaching, long expireAfter, long refreshFrequency, boolean staleWhileRevalidate) {
         this.doCaching = doCaching;
         this.expireAfter = expireAfter;
         this.refreshFrequency = refreshFrequency;
+        this.staleWhileRevalidate = staleWhileRevalidate;
     }
 
     public boolean doCaching() {
@@ -68,6 +78,14 @@ public class CachingOptions {
         this.refreshFrequency = refreshFrequency;
     }
 
+    public boolean isStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    public void setStaleWhileRevalidate(boolean staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -88,6 +106,9 @@ public class CachingOptions {
         if (refreshFrequency != options.refreshFrequency) {
             return false;
         }
+        if (staleWhileRevalidate != options.staleWhileRevalidate) {
+            return false;
+        }
 
         return true;
     }
@@ -97,6 +118,7 @@ public class CachingOptions {
         int result = (doCaching? 1: 0);
         result = 31 * result + (int)(expireAfter ^ (expireAfter >>> 32));
         result = 31 * result + (int)(refreshFrequency ^ (refreshFrequency >>> 32));
+        result = 31 * result + (staleWhileRevalidate? 1: 0);
         return result;
     }
 
@@ -17,6 +17,12 @@ package org.craftercms.core.service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * Represents the content of a file in the content store.
@@ -40,4 +46,73 @@ public interface Content {
      */
     InputStream getInputStream() throws IOException;
 
+    /**
+     * Returns a {@link ReadableByteChannel} for the data. Contents backed by a file return a {@link FileChannel},
+     * which allows the data to be sent with {@link FileChannel#transferTo(long, long, WritableByteChannel)} without
+     * copying it to the heap. By default, the channel just wraps the {@link #getInputStream()}.
+     *
+     * @since 4.2.0
+     */
+    default ReadableByteChannel getChannel() throws IOException {
+        return Channels.newChannel(getInputStream());
+    }
+
+    /**
+     * Returns a read-only {@link MappedByteBuffer} with the data, or null if the content is not backed by a file
+     * that can be mapped into memory. The buffer reads the file directly, so if the file is truncated while the
+     * buffer is in use, reading past the new end of the file fails with an {@link InternalError} instead of an
+     * {@link IOException}.
+     *
+     * @since 4.2.0
+     */
+    default MappedByteBuffer map() throws IOException {
+        return null;
+    }
+
+    /**
+     * Writes all the data to the given channel, using {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+     * when the content is backed by a file, so the data doesn't have to go through the heap. If the transfer stops
+     * making progress (e.g. because the file was truncated while being sent), the rest of the data is copied through
+     * a buffer instead, which ends at the current end of the file. The target is expected to be in blocking mode.
+     *
+     * @return the number of bytes written
+     * @since 4.2.0
+     */
+    default long transferTo(WritableByteChannel target) throws IOException {
+        try (ReadableByteChannel channel = getChannel()) {
+            long written = 0;
+
+            if (channel instanceof FileChannel) {
+                FileChannel fileChannel = (FileChannel) channel;
+                long size = fileChannel.size();
+
+                while (written < size) {
+                    long transferred = fileChannel.transferTo(written, size - written, target);
+                    if (transferred <= 0) {
+                        fileChannel.position(written);
+                        break;
+                    }
+
+                    written += transferred;
+                }
+
+                if (written >= size) {
+                    return written;
+                }
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    written += target.write(buffer);
+                }
+                buffer.clear();
+            }
+
+            return written;
+        }
+    }
+
 }
@@ -424,6 +424,102 @@ public interface ContentStoreService {
                            ItemProcessor processor, boolean flatten) throws InvalidContextException,
             PathNotFoundException, XmlFileParseException, XmlMergeException, ItemProcessingException, StoreException;
 
+    /**
+     * Returns a page of the children of the folder at the given url, sorted by name, or null if the folder can't be
+     * found. Implementations should only merge and process the children of the page. By default, all the children
+     * are loaded and the page is taken from them.
+     *
+     * @param context        the context to the content store (required)
+     * @param cachingOptions the caching options for any caching operation done inside this service call (optional)
+     * @param url            the url of the folder (required)
+     * @param offset         the position of the first child of the page
+     * @param limit          the max number of children in the page
+     * @param filter         an {@link ItemFilter} to filter out undesired children (optional, can be null)
+     * @param processor      additional {@link ItemProcessor} for the children (optional, can be null)
+     * @param flatten        indicates if descriptors should be flattened
+     * @return the page of children of the folder
+     * @throws InvalidContextException if the context is invalid
+     * @throws XmlFileParseException   if there was an error while parsing a children's XML descriptor
+     * @throws XmlMergeException       if there was an error while attempting to do a merge of XML descriptors
+     * @throws ItemProcessingException if there was an error while processing an item
+     * @throws StoreException          if an error occurred while accessing the content store
+     * @since 4.2.0
+     */
+    default ItemPage findChildrenPage(Context context, CachingOptions cachingOptions, String url, int offset,
+                                      int limit, ItemFilter filter, ItemProcessor processor, boolean flatten)
+            throws InvalidContextException, XmlFileParseException, XmlMergeException, ItemProcessingException,
+                    StoreException {
+        List<Item> children = findChildren(context, cachingOptions, url, filter, processor, flatten);
+
+        return children != null? ItemPage.fromSortedItems(children, offset, limit) : null;
+    }
+
+    /**
+     * Returns the page of the children of the folder at the given url that comes after the given cursor (see
+     * {@link ItemPage#getNextCursor()}), or null if the folder can't be found.
+     *
+     * @param context        the context to the content store (required)
+     * @param cachingOptions the caching options for any caching operation done inside this service call (optional)
+     * @param url            the url of the folder (required)
+     * @param cursor         the cursor returned with the previous page
+     * @param limit          the max number of children in the page
+     * @param filter         an {@link ItemFilter} to filter out undesired children (optional, can be null)
+     * @param processor      additional {@link ItemProcessor} for the children (optional, can be null)
+     * @param flatten        indicates if descriptors should be flattened
+     * @return the page of children of the folder
+     * @throws InvalidContextException if the context is invalid
+     * @throws XmlFileParseException   if there was an error while parsing a children's XML descriptor
+     * @throws XmlMergeException       if there was an error while attempting to do a merge of XML descriptors
+     * @throws ItemProcessingException if there was an error while processing an item
+     * @throws StoreException          if an error occurred while accessing the content store
+     * @since 4.2.0
+     */
+    default ItemPage findChildrenPage(Context context, CachingOptions cachingOptions, String url, String cursor,
+                                      int limit, ItemFilter filter, ItemProcessor processor, boolean flatten)
+            throws InvalidContextException, XmlFileParseException, XmlMergeException, ItemProcessingException,
+                    StoreException {
+        List<Item> children = findChildren(context, cachingOptions, url, filter, processor, flatten);
+
+        return children != null?
+                ItemPage.fromSortedItems(children, ItemPage.getCursorPosition(children, cursor), limit) : null;
+    }
+
+    /**
+     * Same as {@link #findChildrenPage(Context, CachingOptions, String, int, int, ItemFilter, ItemProcessor,
+     * boolean)}, but throws a {@link PathNotFoundException} if the folder can't be found.
+     *
+     * @since 4.2.0
+     */
+    default ItemPage getChildrenPage(Context context, CachingOptions cachingOptions, String url, int offset,
+                                     int limit, ItemFilter filter, ItemProcessor processor, boolean flatten)
+            throws InvalidContextException, PathNotFoundException, XmlFileParseException, XmlMergeException,
+                    ItemProcessingException, StoreException {
+        ItemPage page = findChildrenPage(context, cachingOptions, url, offset, limit, filter, processor, flatten);
+        if (page != null) {
+            return page;
+        } else {
+            throw new PathNotFoundException("No folder found at " + url);
+        }
+    }
+
+    /**
+     * Same as {@link #findChildrenPage(Context, CachingOptions, String, String, int, ItemFilter, ItemProcessor,
+     * boolean)}, but throws a {@link PathNotFoundException} if the folder can't be found.
+     *
+     * @since 4.2.0
+     */
+    default ItemPage getChildrenPage(Context context, CachingOptions cachingOptions, String url, String cursor,
+                                     int limit, ItemFilter filter, ItemProcessor processor, boolean flatten)
+            throws InvalidContextException, PathNotFoundException, XmlFileParseException, XmlMergeException,
+                    ItemProcessingException, StoreException {
+        ItemPage page = findChildrenPage(context, cachingOptions, url, cursor, limit, filter, processor, flatten);
+        if (page != null) {
+            return page;
+        } else {
+            throw new PathNotFoundException("No folder found at " + url);
+        }
+    }
+
     /**
      * Returns the folder at the given url as a tree, or null if the folder wasn't found. The tree children are
      * returned as {@link Item}s when they're files and as {@code Tree}s when they're folders. The tree depth is
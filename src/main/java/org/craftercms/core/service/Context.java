@@ -17,6 +17,7 @@
 package org.craftercms.core.service;
 
 import org.craftercms.core.store.ContentStoreAdapter;
+import org.craftercms.core.util.cache.CacheObjectListener;
 
 import java.util.Map;
 
@@ -41,6 +42,26 @@ public interface Context extends Cloneable {
 
     String getCacheScope();
 
+    /**
+     * Returns the generation of the objects in the cache scope, which changes every time some of them are removed
+     * because the content they were loaded from changed, without renewing the whole scope. Objects that started
+     * loading in a previous generation are not cached, since they could have been loaded from the previous content.
+     *
+     * @since 4.2.0
+     */
+    default long getCacheGeneration() {
+        return 0;
+    }
+
+    /**
+     * Returns the listener of the objects cached for this context, or null if there's none.
+     *
+     * @since 4.2.0
+     */
+    default CacheObjectListener getCacheObjectListener() {
+        return null;
+    }
+
     ContentStoreAdapter getStoreAdapter();
 
     boolean isMergingOn();
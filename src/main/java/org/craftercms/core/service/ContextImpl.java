@@ -35,6 +35,11 @@ public class ContextImpl implements Context {
     protected boolean mergingOn;
     protected boolean cacheOn;
     protected volatile long cacheVersion;
+    /**
+     * The cache scope for the current cache version. Computed every time the version changes instead of on every
+     * {@link #getCacheScope()} call, since the scope is resolved for every cache access.
+     */
+    protected volatile String cacheScope;
     protected int maxAllowedItemsInCache;
     protected boolean ignoreHiddenFiles;
     protected Map<String, String> configurationVariables;
@@ -46,10 +51,11 @@ public class ContextImpl implements Context {
         this.rootFolderPath = rootFolderPath;
         this.mergingOn = mergingOn;
         this.cacheOn = cacheOn;
-        this.cacheVersion = System.nanoTime();
         this.maxAllowedItemsInCache = maxAllowedItemsInCache;
         this.ignoreHiddenFiles = ignoreHiddenFiles;
         this.configurationVariables = configurationVariables;
+        this.cacheVersion = System.nanoTime();
+        this.cacheScope = String.format(CACHE_SCOPE_FORMAT, id, cacheVersion);
     }
 
     @Override
@@ -64,12 +70,13 @@ public class ContextImpl implements Context {
 
     @Override
     public void setCacheVersion(long cacheVersion) {
+        this.cacheScope = String.format(CACHE_SCOPE_FORMAT, id, cacheVersion);
         this.cacheVersion = cacheVersion;
     }
 
     @Override
     public String getCacheScope() {
-        return String.format(CACHE_SCOPE_FORMAT, id, cacheVersion);
+        return cacheScope;
     }
 
     @Override
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+
+import org.craftercms.core.exception.InvalidPageException;
+import org.craftercms.core.util.cache.impl.AbstractCachingAwareObject;
+
+/**
+ * A page of the children of a folder, sorted by name. Besides the processed items of the page, it has the position
+ * of the page, the total number of children (after the filters that run before processing) and, if there are more
+ * children after the page, an opaque cursor to request the next page.
+ * <p>The cursor identifies the last child of the page (not its position), so the next page starts at the right child
+ * even if children are added or removed before it between requests. If that child is removed, the cursor is no
+ * longer valid and the pages need to be requested again from the start.</p>
+ *
+ * @since 4.2.0
+ */
+public class ItemPage extends AbstractCachingAwareObject {
+
+    protected List<Item> items;
+    protected int offset;
+    protected int limit;
+    protected int total;
+    protected String nextCursor;
+
+    public ItemPage() {
+    }
+
+    public ItemPage(List<Item> items, int offset, int limit, int total, String nextCursor) {
+        this.items = items;
+        this.offset = offset;
+        this.limit = limit;
+        this.total = total;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns the processed children of the page. The filters that run after processing are only applied to the
+     * children of the page, so a page can have less than {@code limit} items even if it's not the last one.
+     */
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+
+    /**
+     * Returns the position of the first child of the page.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    public void setOffset(int offset) {
+        this.offset = offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the total number of children of the folder.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    /**
+     * Returns the cursor of the next page, or null if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ItemPage page = (ItemPage) o;
+
+        return offset == page.offset &&
+               limit == page.limit &&
+               total == page.total &&
+               Objects.equals(items, page.items) &&
+               Objects.equals(nextCursor, page.nextCursor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(items, offset, limit, total, nextCursor);
+    }
+
+    @Override
+    public String toString() {
+        return "ItemPage[" +
+               "items=" + items +
+               ", offset=" + offset +
+               ", limit=" + limit +
+               ", total=" + total +
+               ", nextCursor='" + nextCursor + '\'' +
+               ']';
+    }
+
+    /**
+     * Creates the page that starts at the given position of the children, which should be sorted by name.
+     *
+     * @throws InvalidPageException if the offset is negative or the limit is not positive
+     */
+    public static ItemPage fromSortedItems(List<Item> children, int offset, int limit) throws InvalidPageException {
+        if (offset < 0) {
+            throw new InvalidPageException("The offset should not be negative");
+        }
+        if (limit <= 0) {
+            throw new InvalidPageException("The limit should be positive");
+        }
+
+        int total = children.size();
+        int start = Math.min(offset, total);
+        int end = start + Math.min(limit, total - start);
+        String nextCursor = end < total? createCursor(children.get(end - 1).getName()) : null;
+
+        return new ItemPage(new ArrayList<>(children.subList(start, end)), start, limit, total, nextCursor);
+    }
+
+    /**
+     * Returns the position of the first child after the one the cursor points to, in the given children sorted by
+     * name.
+     *
+     * @throws InvalidPageException if the cursor is not valid or it doesn't point to one of the children
+     */
+    public static int getCursorPosition(List<Item> children, String cursor) throws InvalidPageException {
+        String name = parseCursor(cursor);
+        int low = 0;
+        int high = children.size();
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (children.get(middle).getName().compareTo(name) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        if (low == 0 || !children.get(low - 1).getName().equals(name)) {
+            throw new InvalidPageException("The cursor doesn't point to any of the children");
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the cursor that points after the child with the given name.
+     */
+    public static String createCursor(String name) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the name of the child the cursor points after.
+     *
+     * @throws InvalidPageException if the cursor is not valid
+     */
+    public static String parseCursor(String cursor) throws InvalidPageException {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageException("Invalid cursor " + cursor, e);
+        }
+    }
+
+}
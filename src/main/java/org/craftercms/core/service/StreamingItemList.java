@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.service;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Read-only list that produces each element when it's accessed, by applying a function to the element at the same
+ * position of a source list. The produced elements are not kept, so a serializer that iterates the list (like the
+ * ones used by the REST API) can write a {@link Tree} of any size while only the current branch is in memory.
+ * <p>The list doesn't implement {@link java.util.RandomAccess}, so that serializers iterate it once instead of
+ * accessing each index, which would produce the same element several times.</p>
+ *
+ * @since 4.2.0
+ */
+public class StreamingItemList extends AbstractList<Item> {
+
+    protected final List<Item> source;
+    protected final Function<Item, Item> producer;
+
+    public StreamingItemList(List<Item> source, Function<Item, Item> producer) {
+        this.source = source;
+        this.producer = producer;
+    }
+
+    @Override
+    public Item get(int index) {
+        return producer.apply(source.get(index));
+    }
+
+    @Override
+    public int size() {
+        return source.size();
+    }
+
+}
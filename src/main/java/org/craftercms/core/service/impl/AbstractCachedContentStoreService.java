@@ -19,6 +19,7 @@ import java.util.List;
 
 import org.craftercms.commons.lang.Callback;
 import org.craftercms.core.exception.InvalidContextException;
+import org.craftercms.core.exception.InvalidPageException;
 import org.craftercms.core.exception.ItemProcessingException;
 import org.craftercms.core.exception.PathNotFoundException;
 import org.craftercms.core.exception.StoreException;
@@ -31,6 +32,7 @@ import org.craftercms.core.service.ContentStoreService;
 import org.craftercms.core.service.Context;
 import org.craftercms.core.service.Item;
 import org.craftercms.core.service.ItemFilter;
+import org.craftercms.core.service.ItemPage;
 import org.craftercms.core.service.Tree;
 import org.craftercms.core.util.cache.CacheTemplate;
 import org.craftercms.core.util.cache.impl.CachingAwareList;
@@ -58,6 +60,10 @@ public abstract class AbstractCachedContentStoreService implements ContentStoreS
      * A constant added to all {@code getTree()} cache keys.
      */
     public static final String CONST_KEY_ELEM_TREE = "contentStoreService.tree";
+    /**
+     * A constant added to all {@code getChildrenPage()} cache keys.
+     */
+    public static final String CONST_KEY_ELEM_CHILDREN_PAGE = "contentStoreService.childrenPage";
 
     /**
      * A constant added to all {@code exists()} cache keys.
@@ -215,6 +221,81 @@ public abstract class AbstractCachedContentStoreService implements ContentStoreS
         }
     }
 
+    @Override
+    public ItemPage findChildrenPage(Context context, CachingOptions cachingOptions, String url, int offset,
+                                     int limit, ItemFilter filter, ItemProcessor processor, boolean flatten)
+            throws InvalidContextException, XmlFileParseException, XmlMergeException, ItemProcessingException,
+            StoreException {
+        return findChildrenPage(context, cachingOptions, url, offset, null, limit, filter, processor, flatten);
+    }
+
+    @Override
+    public ItemPage findChildrenPage(Context context, CachingOptions cachingOptions, String url, String cursor,
+                                     int limit, ItemFilter filter, ItemProcessor processor, boolean flatten)
+            throws InvalidContextException, XmlFileParseException, XmlMergeException, ItemProcessingException,
+            StoreException {
+        return findChildrenPage(context, cachingOptions, url, 0, cursor, limit, filter, processor, flatten);
+    }
+
+    /**
+     * Returns the page of children, from the cache if possible. Since every different offset or cursor is a different
+     * cache key, they're checked before the page is cached: invalid values are rejected with an
+     * {@link InvalidPageException}, and all the offsets after the last child share the (empty) page of the offset
+     * that equals the number of children.
+     */
+    protected ItemPage findChildrenPage(final Context context, final CachingOptions cachingOptions, final String url,
+                                        final int offset, String cursor, final int limit,
+                                        final ItemFilter filter, final ItemProcessor processor, final boolean flatten)
+            throws InvalidContextException, InvalidPageException, XmlFileParseException, XmlMergeException,
+            ItemProcessingException, StoreException {
+        if (offset < 0) {
+            throw new InvalidPageException("The offset should not be negative");
+        }
+        if (limit <= 0) {
+            throw new InvalidPageException("The limit should be positive");
+        }
+        if (cursor != null) {
+            // Different encodings of the same name should get the same page
+            cursor = ItemPage.createCursor(ItemPage.parseCursor(cursor));
+        }
+
+        try {
+            return getCachedChildrenPage(context, cachingOptions, url, cursor != null? cursor : offset, offset,
+                                         cursor, limit, filter, processor, flatten);
+        } catch (OffsetOutOfRangeException e) {
+            return getCachedChildrenPage(context, cachingOptions, url, e.getTotal(), e.getTotal(), null, limit,
+                                         filter, processor, flatten);
+        }
+    }
+
+    private ItemPage getCachedChildrenPage(final Context context, final CachingOptions cachingOptions,
+                                           final String url, final Object position, final int offset,
+                                           final String cursor, final int limit, final ItemFilter filter,
+                                           final ItemProcessor processor, final boolean flatten)
+            throws InvalidContextException, InvalidPageException, XmlFileParseException, XmlMergeException,
+            ItemProcessingException, StoreException {
+        final CachingOptions actualCachingOptions = cachingOptions != null? cachingOptions: defaultCachingOptions;
+        var actualProcessor = getProcessor(processor, flatten);
+
+        // The same page can be requested by position or by cursor, but they're cached separately
+        return cacheTemplate.getObject(context, actualCachingOptions, new Callback<>() {
+
+            @Override
+            public ItemPage execute() {
+                return doFindChildrenPage(context, actualCachingOptions, url, offset, cursor, limit, filter,
+                                          actualProcessor, flatten);
+            }
+
+            @Override
+            public String toString() {
+                return String.format(AbstractCachedContentStoreService.this.getClass().getName() +
+                                     ".getChildrenPage(%s, %s, %s, %d, %s, %s)", context, url, position, limit,
+                                     filter, actualProcessor);
+            }
+
+        }, url, position, limit, filter, actualProcessor, CONST_KEY_ELEM_CHILDREN_PAGE);
+    }
+
     @Override
     public Tree findTree(final Context context, final CachingOptions cachingOptions, final String url, final int depth,
                          final ItemFilter filter, final ItemProcessor processor, final boolean flatten)
@@ -263,9 +344,63 @@ public abstract class AbstractCachedContentStoreService implements ContentStoreS
             throws InvalidContextException, XmlFileParseException, XmlMergeException, ItemProcessingException,
             StoreException;
 
+    /**
+     * Returns the page of children that starts at the given offset, or after the given cursor if it's not null.
+     * This implementation loads all the children with {@link #doFindChildren} and takes the page from them, so
+     * subclasses should override it to only process the children of the page.
+     */
+    protected ItemPage doFindChildrenPage(Context context, CachingOptions cachingOptions, String url, int offset,
+                                          String cursor, int limit, ItemFilter filter, ItemProcessor processor,
+                                          boolean flatten) throws InvalidContextException, XmlFileParseException,
+            XmlMergeException, ItemProcessingException, StoreException {
+        List<Item> children = doFindChildren(context, cachingOptions, url, filter, processor, flatten);
+        if (children != null) {
+            return ItemPage.fromSortedItems(children, getPageStart(children, offset, cursor), limit);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the position of the first child of the page in the given children, sorted by name.
+     *
+     * @throws InvalidPageException     if the cursor doesn't point to any of the children
+     * @throws OffsetOutOfRangeException if the offset is greater than the number of children
+     */
+    protected int getPageStart(List<Item> children, int offset, String cursor) throws InvalidPageException {
+        if (cursor != null) {
+            return ItemPage.getCursorPosition(children, cursor);
+        } else if (offset > children.size()) {
+            throw new OffsetOutOfRangeException(children.size());
+        } else {
+            return offset;
+        }
+    }
+
     protected abstract Tree doFindTree(Context context, CachingOptions cachingOptions, String url, int depth,
                                        ItemFilter filter, ItemProcessor processor, boolean flatten)
             throws InvalidContextException, XmlFileParseException, XmlMergeException, ItemProcessingException,
             StoreException;
 
+    /**
+     * Thrown while loading a page whose offset is after the last child, so that the page is requested again with the
+     * offset clamped instead of being cached under the original offset.
+     */
+    protected static class OffsetOutOfRangeException extends InvalidPageException {
+
+        private static final long serialVersionUID = 5101476234930658313L;
+
+        private final int total;
+
+        public OffsetOutOfRangeException(int total) {
+            super("The offset is greater than the number of children (" + total + ")");
+            this.total = total;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+    }
+
 }
@@ -152,6 +152,24 @@ public class CacheServiceImpl implements CacheService {
         }
     }
 
+    @Override
+    public Object peek(Context context, Object key) throws InvalidContextException, InternalCacheEngineException {
+        if (context.isCacheOn()) {
+            try {
+                CacheItem item = cache.peek(context.getCacheScope(), key);
+                if (item != null) {
+                    return item.getValue();
+                } else {
+                    return null;
+                }
+            } catch (InvalidScopeException e) {
+                throw new InvalidContextException("No scope associated to context " + context);
+            }
+        } else {
+            return null;
+        }
+    }
+
     @Override
     public void put(Context context, Object key, Object value) throws InvalidContextException,
         InternalCacheEngineException {
@@ -169,8 +187,13 @@ public class CacheServiceImpl implements CacheService {
                     Object... loaderParams) throws InvalidContextException, InternalCacheEngineException {
         if (context.isCacheOn() && cachingOptions.doCaching()) {
             try {
-                cache.put(context.getCacheScope(), key, value, cachingOptions.getExpireAfter(),
-                          cachingOptions.getRefreshFrequency(), loader, loaderParams);
+                if (cachingOptions.isStaleWhileRevalidate()) {
+                    cache.put(context.getCacheScope(), key, value, cachingOptions.getExpireAfter(),
+                              cachingOptions.getRefreshFrequency(), true, loader, loaderParams);
+                } else {
+                    cache.put(context.getCacheScope(), key, value, cachingOptions.getExpireAfter(),
+                              cachingOptions.getRefreshFrequency(), loader, loaderParams);
+                }
             } catch (InvalidScopeException e) {
                 throw new InvalidContextException("No scope associated to context " + context);
             }
@@ -210,4 +233,11 @@ public class CacheServiceImpl implements CacheService {
         }
     }
 
+    @Override
+    public void recordLoad(Context context, long loadTime, boolean success) {
+        if (context.isCacheOn()) {
+            cache.recordLoad(context.getCacheScope(), loadTime, success);
+        }
+    }
+
 }
@@ -0,0 +1,501 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.service.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FilenameUtils;
+import org.craftercms.core.cache.CacheItem;
+import org.craftercms.core.cache.impl.serialization.CacheValueSerializer;
+import org.craftercms.core.cache.impl.serialization.BinaryCacheValueSerializer;
+import org.craftercms.core.exception.InvalidContextException;
+import org.craftercms.core.service.CacheService;
+import org.craftercms.core.service.CachingOptions;
+import org.craftercms.core.service.Context;
+import org.craftercms.core.store.impl.filesystem.FileSystemContent;
+import org.craftercms.core.store.impl.filesystem.FileSystemContext;
+import org.craftercms.core.store.impl.filesystem.FileSystemContextWatcher;
+import org.craftercms.core.util.ContentStoreUtils;
+import org.craftercms.core.util.cache.impl.CompositeCacheKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Saves the cache scope of a {@link FileSystemContext} to a snapshot file, and loads it back when the context is
+ * created again (usually after a restart), so that the context doesn't start with an empty cache.
+ * <p>Only the items whose key is made of strings, numbers, booleans and nulls, and whose value is a boolean, a
+ * string, a {@link FileSystemContent} or a value supported by the {@link CacheValueSerializer} (items, trees and
+ * lists of them) are saved. Cache loaders can't be saved, so items that need to be refreshed are restored to expire
+ * when they should have been refreshed, and then they're loaded again like any other.</p>
+ * <p>A snapshot is validated against the last modified time of the files and folders under the root folder of the
+ * context: the objects affected by the ones that changed since the snapshot was saved are removed with
+ * {@link FileSystemContextWatcher#invalidate(java.util.Collection, java.util.Collection)}. The dependencies the
+ * watcher tracked for each item (like the descriptors merged into it) are saved with it, so the items loaded from a
+ * changed file are also removed. Without a watcher, there's no way to tell which objects are affected, so the
+ * snapshot is only used if nothing changed.</p>
+ *
+ * @since 4.2.0
+ */
+public class CacheSnapshotManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshotManager.class);
+
+    public static final String SNAPSHOT_FILE_EXTENSION = ".snapshot";
+
+    private static final String THREAD_NAME_PREFIX = "crafter-cache-snapshot-";
+
+    private static final int MAGIC = 0x43435348;
+    private static final int VERSION = 2;
+
+    /**
+     * Margin subtracted from the snapshot time when comparing it with the last modified time of the files, for
+     * filesystems with a coarse time resolution.
+     */
+    private static final long LAST_MODIFIED_TIME_MARGIN = 2000;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_BOOLEAN = 2;
+    private static final byte TYPE_INTEGER = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_CONTENT = 5;
+    private static final byte TYPE_SERIALIZED = 6;
+
+    protected CacheService cacheService;
+    protected String snapshotFolder;
+    protected boolean enabled;
+    protected CacheValueSerializer serializer;
+
+    public CacheSnapshotManager(CacheService cacheService, String snapshotFolder) {
+        this.cacheService = cacheService;
+        this.snapshotFolder = snapshotFolder;
+        this.serializer = new BinaryCacheValueSerializer();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Sets the serializer used for the items, trees and lists of the cache. Defaults to
+     * {@link BinaryCacheValueSerializer}.
+     */
+    public void setSerializer(CacheValueSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    /**
+     * Returns true if snapshots are enabled and the cache of the given context can be saved.
+     */
+    public boolean isSupported(Context context) {
+        return enabled && context.isCacheOn() && context instanceof FileSystemContext;
+    }
+
+    /**
+     * Saves the cache scope of the given context to its snapshot file, replacing any previous one. The file is
+     * replaced atomically, so a reader never sees a partial snapshot.
+     *
+     * @return the number of items saved, or -1 if the context is not supported
+     */
+    public int saveSnapshot(Context context) throws IOException {
+        if (!isSupported(context)) {
+            return -1;
+        }
+
+        Path snapshotFile = getSnapshotFile(context);
+        Path rootFolder = ((FileSystemContext) context).getRootFolder().toPath();
+        // Taken before reading the items, so that any change made while saving is considered after the snapshot
+        long snapshotTime = System.currentTimeMillis();
+        int saved = 0;
+
+        Files.createDirectories(snapshotFile.getParent());
+
+        Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, rootFolder.toString());
+            out.writeLong(snapshotTime);
+
+            FileSystemContextWatcher watcher = ((FileSystemContext) context).getWatcher();
+
+            for (Object key : new ArrayList<>(cacheService.getKeys(context))) {
+                CacheItem item = cacheService.getItem(context, key);
+                if (item != null) {
+                    List<String> dependencyUrls = watcher != null?
+                                                  watcher.getKeyIndex().getDependencyUrls(key) : List.of();
+                    byte[] entry = encodeEntry(key, item, dependencyUrls);
+                    if (entry != null) {
+                        out.writeInt(entry.length);
+                        out.write(entry);
+                        saved++;
+                    }
+                }
+            }
+
+            out.writeInt(-1);
+        }
+
+        Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        logger.info("Saved {} cache items of context {} to {}", saved, context, snapshotFile);
+
+        return saved;
+    }
+
+    /**
+     * Loads the snapshot of the given context, if there's one, in a background thread. Items that are already in the
+     * cache when the thread gets to them are not replaced.
+     */
+    public void restoreSnapshot(Context context) {
+        if (!isSupported(context)) {
+            return;
+        }
+
+        Path snapshotFile = getSnapshotFile(context);
+        if (!Files.isRegularFile(snapshotFile)) {
+            return;
+        }
+
+        Thread restorer = new Thread(() -> {
+            try {
+                doRestore((FileSystemContext) context, snapshotFile);
+            } catch (InvalidContextException e) {
+                logger.debug("Context {} was destroyed while its cache snapshot was being restored", context);
+            } catch (Exception e) {
+                logger.warn("Unable to restore the cache of context {} from {}", context, snapshotFile, e);
+            }
+        }, THREAD_NAME_PREFIX + context.getId());
+
+        restorer.setDaemon(true);
+        restorer.start();
+    }
+
+    /**
+     * Restores the cache of the given context from the snapshot file, removing the objects affected by the files
+     * that changed after it was saved.
+     *
+     * @return the number of items restored
+     */
+    protected int doRestore(FileSystemContext context, Path snapshotFile) throws IOException {
+        Path rootFolder = context.getRootFolder().toPath();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !rootFolder.toString().equals(readString(in))) {
+                logger.info("Snapshot file {} doesn't belong to {}, ignoring it", snapshotFile, rootFolder);
+                return 0;
+            }
+
+            long snapshotTime = in.readLong();
+            long validationTime = System.currentTimeMillis();
+            Set<String> changedUrls = findChangedUrls(rootFolder, snapshotTime);
+            FileSystemContextWatcher watcher = context.getWatcher();
+
+            if (watcher == null && !changedUrls.isEmpty()) {
+                logger.info("{} paths of {} changed since {} was saved, ignoring it", changedUrls.size(), rootFolder,
+                            snapshotFile);
+                return 0;
+            }
+
+            // Paths deleted after the snapshot are only detected through their parent folder, which was modified
+            Set<String> deletedUrls = new HashSet<>();
+            int restored = 0;
+
+            try {
+                for (int length = in.readInt(); length >= 0; length = in.readInt()) {
+                    byte[] entry = new byte[length];
+                    in.readFully(entry);
+
+                    if (restoreEntry(context, rootFolder, entry, changedUrls, deletedUrls)) {
+                        restored++;
+                    }
+                }
+            } catch (EOFException | StreamCorruptedException e) {
+                // The entries already restored are complete, so they're kept (and validated below)
+                logger.warn("Snapshot file {} is corrupted, only {} items were restored", snapshotFile, restored);
+            }
+
+            if (watcher != null) {
+                // Changes made while restoring could have been handled by the watcher before the items were restored
+                changedUrls.addAll(findChangedUrls(rootFolder, validationTime));
+                changedUrls.addAll(deletedUrls);
+
+                if (!changedUrls.isEmpty()) {
+                    watcher.invalidate(changedUrls, Collections.emptyList());
+                }
+            }
+
+            logger.info("Restored {} cache items of context {} from {} ({} changed paths)", restored, context,
+                        snapshotFile, changedUrls.size());
+
+            return restored;
+        } catch (EOFException | StreamCorruptedException e) {
+            logger.warn("Snapshot file {} is corrupted, ignoring it", snapshotFile);
+
+            return 0;
+        }
+    }
+
+    /**
+     * Decodes an entry of the snapshot and puts it in the cache, unless there's already an item with the same key.
+     *
+     * @return true if the entry was put in the cache
+     */
+    protected boolean restoreEntry(FileSystemContext context, Path rootFolder, byte[] entry, Set<String> changedUrls,
+                                   Set<String> deletedUrls) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry));
+
+        Object[] elements = new Object[in.readInt()];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = readObject(in);
+        }
+
+        long expireAfter = in.readLong();
+        Object value = readObject(in);
+        CompositeCacheKey key = new CompositeCacheKey(elements);
+
+        List<String> dependencyUrls = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            dependencyUrls.add(readString(in));
+        }
+
+        if (elements.length > 0 && elements[0] instanceof String && ((String) elements[0]).startsWith("/")) {
+            String url = ContentStoreUtils.normalizePath((String) elements[0]);
+            String parentUrl = FilenameUtils.getFullPathNoEndSeparator(url);
+
+            if (changedUrls.contains(parentUrl.isEmpty()? "/" : parentUrl) &&
+                !Files.exists(rootFolder.resolve(url.substring(1)))) {
+                deletedUrls.add(url);
+            }
+        }
+
+        if (value == null || cacheService.hasKey(context, key)) {
+            return false;
+        }
+
+        cacheService.put(context, key, value, new CachingOptions(true, expireAfter, CacheItem.NEVER_REFRESH), null);
+
+        FileSystemContextWatcher watcher = context.getWatcher();
+        if (watcher != null) {
+            watcher.index(key, dependencyUrls);
+        }
+
+        return true;
+    }
+
+    /**
+     * Encodes the key, expiration, value and dependencies (the URLs of the objects it was loaded from, as tracked by
+     * the watcher) of the given item.
+     *
+     * @return the encoded entry, or null if the key or the value are not supported
+     */
+    protected byte[] encodeEntry(Object key, CacheItem item, List<String> dependencyUrls) throws IOException {
+        if (!(key instanceof CompositeCacheKey)) {
+            return null;
+        }
+
+        CompositeCacheKey compositeKey = (CompositeCacheKey) key;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(compositeKey.size());
+        for (int i = 0; i < compositeKey.size(); i++) {
+            if (!writeKeyElement(out, compositeKey.getElement(i))) {
+                return null;
+            }
+        }
+
+        out.writeLong(getExpireAfter(item));
+
+        if (!writeValue(out, item.getValue())) {
+            return null;
+        }
+
+        out.writeInt(dependencyUrls.size());
+        for (String dependencyUrl : dependencyUrls) {
+            writeString(out, dependencyUrl);
+        }
+
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns the ticks after which the restored item should expire: its expiration or, if it needs to be refreshed
+     * before, its refresh frequency.
+     */
+    protected long getExpireAfter(CacheItem item) {
+        long expireAfter = item.getTicksToExpire();
+        long refreshFrequency = item.getTicksToRefresh();
+
+        if (refreshFrequency != CacheItem.NEVER_REFRESH &&
+            (expireAfter == CacheItem.NEVER_EXPIRE || refreshFrequency < expireAfter)) {
+            return refreshFrequency;
+        } else {
+            return expireAfter;
+        }
+    }
+
+    protected boolean writeKeyElement(DataOutputStream out, Object element) throws IOException {
+        if (element == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (element instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String) element);
+        } else if (element instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) element);
+        } else if (element instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt((Integer) element);
+        } else if (element instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) element);
+        } else {
+            // Compared by identity, so it would never match the key of a lookup after a restart
+            return false;
+        }
+
+        return true;
+    }
+
+    protected boolean writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Boolean || value instanceof String) {
+            return writeKeyElement(out, value);
+        } else if (value instanceof FileSystemContent) {
+            out.writeByte(TYPE_CONTENT);
+            writeString(out, ((FileSystemContent) value).getPath().toString());
+        } else if (value != null && serializer.supports(value)) {
+            byte[] data;
+            try {
+                data = serializer.serialize(value);
+            } catch (NotSerializableException e) {
+                logger.debug("Value of type {} can't be saved: {}", value.getClass().getName(), e.getMessage());
+                return false;
+            }
+
+            out.writeByte(TYPE_SERIALIZED);
+            out.writeInt(data.length);
+            out.write(data);
+        } else {
+            return false;
+        }
+
+        return true;
+    }
+
+    protected Object readObject(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_INTEGER:
+                return in.readInt();
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_CONTENT:
+                return new FileSystemContent(Path.of(readString(in)));
+            case TYPE_SERIALIZED:
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+
+                return serializer.deserialize(data);
+            default:
+                throw new StreamCorruptedException("Unexpected type " + type);
+        }
+    }
+
+    /**
+     * Returns the URLs of the files and folders under the root folder that were modified after the given time.
+     */
+    protected Set<String> findChangedUrls(Path rootFolder, long since) throws IOException {
+        Set<String> changedUrls = new HashSet<>();
+        long threshold = since - LAST_MODIFIED_TIME_MARGIN;
+
+        Files.walkFileTree(rootFolder, new SimpleFileVisitor<>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return visitFile(dir, attrs);
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.lastModifiedTime().toMillis() >= threshold) {
+                    changedUrls.add("/" + FilenameUtils.separatorsToUnix(rootFolder.relativize(file).toString()));
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+
+        return changedUrls;
+    }
+
+    protected Path getSnapshotFile(Context context) {
+        return Path.of(snapshotFolder, context.getId() + SNAPSHOT_FILE_EXTENSION);
+    }
+
+    protected void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    protected String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new StreamCorruptedException("Invalid string length " + length);
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
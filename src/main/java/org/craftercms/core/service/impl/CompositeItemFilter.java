@@ -23,6 +23,7 @@ import java.util.List;
 import org.apache.commons.collections4.CollectionUtils;
 import org.craftercms.core.service.Item;
 import org.craftercms.core.service.ItemFilter;
+import org.craftercms.core.util.cache.impl.CompositeCacheKey;
 
 /**
  * Composite {@link ItemFilter} implementation. Calls {@link ItemFilter}s before processing and after processing,
@@ -139,16 +140,12 @@ public class CompositeItemFilter implements ItemFilter {
 
         CompositeItemFilter that = (CompositeItemFilter)o;
 
-        if (filters != null? !filters.equals(that.filters): that.filters != null) {
-            return false;
-        }
-
-        return true;
+        return CompositeCacheKey.elementsEqual(filters, that.filters);
     }
 
     @Override
     public int hashCode() {
-        return filters != null? filters.hashCode(): 0;
+        return CompositeCacheKey.elementsHashCode(filters);
     }
 
     @Override
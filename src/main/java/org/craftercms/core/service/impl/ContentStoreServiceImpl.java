@@ -20,6 +20,8 @@ import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.craftercms.commons.concurrent.locks.KeyBasedLockFactory;
+import org.craftercms.commons.concurrent.locks.WeakKeyBasedReentrantLockFactory;
 import org.craftercms.commons.config.ConfigurationProvider;
 import org.craftercms.commons.file.blob.Blob;
 import org.craftercms.commons.file.blob.BlobStore;
@@ -33,6 +35,7 @@ import org.craftercms.core.store.ContentStoreAdapter;
 import org.craftercms.core.store.ContentStoreAdapterRegistry;
 import org.craftercms.core.util.XmlUtils;
 import org.craftercms.core.util.cache.CacheTemplate;
+import org.craftercms.core.util.cache.impl.CacheDependencies;
 import org.craftercms.core.util.cache.impl.CachingAwareList;
 import org.craftercms.core.xml.mergers.DescriptorMergeStrategy;
 import org.craftercms.core.xml.mergers.DescriptorMergeStrategyResolver;
@@ -42,15 +45,29 @@ import org.dom4j.Document;
 import org.dom4j.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.TaskDecorator;
 
 import java.beans.ConstructorProperties;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Default implementation of {@link org.craftercms.core.service.ContentStoreService}. Extends from
@@ -58,9 +75,20 @@ import java.util.concurrent.ConcurrentHashMap;
  *
  * @author Alfonso Vásquez
  */
-public class ContentStoreServiceImpl extends AbstractCachedContentStoreService {
+public class ContentStoreServiceImpl extends AbstractCachedContentStoreService
+        implements InitializingBean, DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(ContentStoreServiceImpl.class);
+
+    public static final int DEFAULT_MAX_TRAVERSAL_PARALLELISM_PER_REQUEST = 4;
+
+    private static final String TRAVERSAL_THREAD_NAME_PREFIX = "crafter-tree-traversal-";
+
+    /**
+     * Permits of the parallel traversal the current thread is working for, shared by all the threads of the same
+     * top-level call
+     */
+    private static final ThreadLocal<Semaphore> traversalPermits = new ThreadLocal<>();
     /**
      * Registry of {@link ContentStoreAdapter}s.
      */
@@ -81,6 +109,10 @@ public class ContentStoreServiceImpl extends AbstractCachedContentStoreService {
      * Map of open {@link org.craftercms.core.service.Context}s
      */
     protected Map<String, Context> contexts;
+    /**
+     * Locks the creation of each context, so that concurrent first requests don't create it more than once
+     */
+    protected KeyBasedLockFactory<ReentrantLock> contextLockFactory;
 
     protected BlobUrlResolver blobUrlResolver;
 
@@ -108,6 +140,35 @@ public class ContentStoreServiceImpl extends AbstractCachedContentStoreService {
      */
     protected String sourceTypeXPath;
 
+    /**
+     * Indicates if the children of trees and listings should be loaded in parallel. Filters and processors need
+     * to be thread safe when enabled.
+     */
+    protected boolean parallelTraversalEnabled = false;
+
+    /**
+     * The number of threads shared by all the parallel traversals. 0 or less means the number of processors
+     */
+    protected int traversalParallelism = 0;
+
+    /**
+     * The max number of threads a single tree or listing can use at the same time, including the calling thread
+     */
+    protected int maxTraversalParallelismPerRequest = DEFAULT_MAX_TRAVERSAL_PARALLELISM_PER_REQUEST;
+
+    /**
+     * Decorator applied to the tasks that load children in the traversal threads, to propagate any thread-bound
+     * state (like the current request or user) the processors need
+     */
+    protected TaskDecorator traversalTaskDecorator;
+
+    protected ExecutorService traversalExecutor;
+
+    /**
+     * Saves the cache of the contexts when they're destroyed, and restores it when they're created again. Optional
+     */
+    protected CacheSnapshotManager cacheSnapshotManager;
+
     @ConstructorProperties({"cacheTemplate", "storeAdapterRegistry", "mergeStrategyResolver", "merger",
             "processorResolver", "blobUrlResolver", "blobStoreResolver", "sourceAttributeName",
             "sourceTypeAttributeName", "sourceTypeXPath"})
@@ -127,12 +188,69 @@ public class ContentStoreServiceImpl extends AbstractCachedContentStoreService {
         this.sourceTypeAttributeName = sourceTypeAttributeName;
         this.sourceTypeXPath = sourceTypeXPath;
         contexts = new ConcurrentHashMap<>();
+        contextLockFactory = new WeakKeyBasedReentrantLockFactory();
     }
 
     public void setSourceAttributeEnabled(boolean sourceAttributeEnabled) {
         this.sourceAttributeEnabled = sourceAttributeEnabled;
     }
 
+    public void setParallelTraversalEnabled(boolean parallelTraversalEnabled) {
+        this.parallelTraversalEnabled = parallelTraversalEnabled;
+    }
+
+    public void setTraversalParallelism(int traversalParallelism) {
+        this.traversalParallelism = traversalParallelism;
+    }
+
+    public void setMaxTraversalParallelismPerRequest(int maxTraversalParallelismPerRequest) {
+        this.maxTraversalParallelismPerRequest = maxTraversalParallelismPerRequest;
+    }
+
+    public void setTraversalTaskDecorator(TaskDecorator traversalTaskDecorator) {
+        this.traversalTaskDecorator = traversalTaskDecorator;
+    }
+
+    public void setCacheSnapshotManager(CacheSnapshotManager cacheSnapshotManager) {
+        this.cacheSnapshotManager = cacheSnapshotManager;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (parallelTraversalEnabled && traversalExecutor == null) {
+            if (maxTraversalParallelismPerRequest <= 0) {
+                throw new IllegalStateException("maxTraversalParallelismPerRequest should be positive");
+            }
+
+            int parallelism = traversalParallelism > 0? traversalParallelism :
+                              Runtime.getRuntime().availableProcessors();
+
+            AtomicInteger threadCount = new AtomicInteger();
+            traversalExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, TRAVERSAL_THREAD_NAME_PREFIX + threadCount.getAndIncrement());
+                thread.setDaemon(true);
+
+                return thread;
+            });
+
+            logger.info("Parallel traversal enabled with {} threads ({} per request)", parallelism,
+                        maxTraversalParallelismPerRequest);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // The cache is destroyed after this service, so it still has the items of the contexts
+        for (Context context : contexts.values()) {
+            saveCacheSnapshot(context);
+        }
+
+        if (traversalExecutor != null) {
+            traversalExecutor.shutdownNow();
+            traversalExecutor = null;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -150,23 +268,50 @@ public class ContentStoreServiceImpl extends AbstractCachedContentStoreService {
         throws InvalidStoreTypeException, RootFolderNotFoundException, StoreException, AuthenticationException {
         String id = createContextId(tag, storeType, rootFolderPath, cacheOn, maxAllowedItemsInCache, ignoreHiddenFiles);
 
-        if (!contexts.containsKey(id)) {
-            ContentStoreAdapter storeAdapter = storeAdapterRegistry.get(storeType);
-            if (storeAdapter == null) {
-                throw new InvalidStoreTypeException("No registered content store adapter for store type " + storeType);
+        Context context = contexts.get(id);
+        if (context == null) {
+            Lock lock = contextLockFactory.getLock(id);
+            lock.lock();
+            try {
+                // Check if another thread already created the context
+                context = contexts.get(id);
+                if (context == null) {
+                    context = createContext(id, storeType, rootFolderPath, mergingOn, cacheOn,
+                                            maxAllowedItemsInCache, ignoreHiddenFiles, configurationVariables);
+                }
+            } finally {
+                lock.unlock();
             }
+        }
+
+        return context;
+    }
 
-            Context context = storeAdapter.createContext(id, rootFolderPath, mergingOn, cacheOn,
-                                                         maxAllowedItemsInCache, ignoreHiddenFiles, configurationVariables);
+    /**
+     * Creates the context with the store adapter, adds its cache scope and registers it. Must be called while
+     * holding the context's lock.
+     */
+    protected Context createContext(String id, String storeType, String rootFolderPath, boolean mergingOn,
+                                    boolean cacheOn, int maxAllowedItemsInCache, boolean ignoreHiddenFiles,
+                                    Map<String, String> configurationVariables)
+        throws InvalidStoreTypeException, RootFolderNotFoundException, StoreException, AuthenticationException {
+        ContentStoreAdapter storeAdapter = storeAdapterRegistry.get(storeType);
+        if (storeAdapter == null) {
+            throw new InvalidStoreTypeException("No registered content store adapter for store type " + storeType);
+        }
 
-            cacheTemplate.getCacheService().addScope(context);
+        Context context = storeAdapter.createContext(id, rootFolderPath, mergingOn, cacheOn,
+                                                     maxAllowedItemsInCache, ignoreHiddenFiles, configurationVariables);
 
-            contexts.put(id, context);
+        cacheTemplate.getCacheService().addScope(context);
 
-            return context;
-        } else {
-            return contexts.get(id);
+        if (cacheSnapshotManager != null) {
+            cacheSnapshotManager.restoreSnapshot(context);
         }
+
+        contexts.put(id, context);
+
+        return context;
     }
 
     @Override
@@ -180,6 +325,8 @@ public class ContentStoreServiceImpl extends AbstractCachedContentStoreService {
     @Override
     public boolean destroyContext(Context context) throws InvalidContextException, StoreException, AuthenticationException {
         if (contexts.containsKey(context.getId())) {
+            saveCacheSnapshot(context);
+
             context.getStoreAdapter().destroyContext(context);
 
             cacheTemplate.getCacheService().removeScope(context);
@@ -192,6 +339,20 @@ public class ContentStoreServiceImpl extends AbstractCachedContentStoreService {
         }
     }
 
+    /**
+     * Saves the cache of the given context with the {@link CacheSnapshotManager}, if there's one. Errors are only
+     * logged, since the snapshot is just an optimization.
+     */
+    protected void saveCacheSnapshot(Context context) {
+        if (cacheSnapshotManager != null) {
+            try {
+                cacheSnapshotManager.saveSnapshot(context);
+            } catch (Exception e) {
+                logger.warn("Unable to save the cache snapshot of context {}", context, e);
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -267,10 +428,16 @@ public class ContentStoreServiceImpl extends AbstractCachedContentStoreService {
 
         Item item = context.getStoreAdapter().findItem(context, cachingOptions, url, true);
         if (item != null) {
-            // Create a copy of the item, since it will be modified
-            item = new Item(item);
-            if (item.getDescriptorDom() != null) {
+            // Create a copy of the item, since it will be modified. The descriptor DOM is still the one cached by
+            // the store adapter, and it's only cloned if the merging doesn't already replace it with a new document
+            Document sourceDom = item.getDescriptorDom();
+            item = createWorkingCopy(item);
+            if (sourceDom != null) {
                 item = doMerging(context, cachingOptions, item);
+                if (item.getDescriptorDom() == sourceDom) {
+                    item.setDescriptorDom((Document) sourceDom.clone());
+                }
+
                 item = doProcessing(context, cachingOptions, item, processor);
             } else {
                 item = doProcessing(context, cachingOptions, item, processor);
@@ -280,6 +447,20 @@ public class ContentStoreServiceImpl extends AbstractCachedContentStoreService {
         return item;
     }
 
+    /**
+     * Creates the copy of a store adapter item that is merged and processed. The copy has its own properties, but
+     * shares the descriptor DOM with the original item, so the DOM should be replaced (by the merging or with a
+     * clone) before it's modified.
+     */
+    protected Item createWorkingCopy(Item item) {
+        Item copy = new Item(item, false);
+        if (item.getProperties() != null) {
+            copy.setProperties(new HashMap<>(item.getProperties()));
+        }
+
+        return copy;
+    }
+
     @Override
     protected List<Item> doFindChildren(Context context, CachingOptions cachingOptions, String url, ItemFilter filter,
                                         ItemProcessor processor, boolean flatten) throws InvalidContextException,
@@ -307,7 +488,8 @@ public class ContentStoreServiceImpl extends AbstractCachedContentStoreService {
 
         Item item = findItem(context, cachingOptions, url, processor, flatten);
         if (item != null) {
-            Tree tree = new Tree(item);
+            // The item comes from the cache and won't be modified, so the tree can share its descriptor DOM
+            Tree tree = new Tree(item, false);
             if (depth == ContentStoreService.UNLIMITED_TREE_DEPTH || depth >= 1) {
                 if (depth >= 1) {
                     depth--;
@@ -352,23 +534,59 @@ public class ContentStoreServiceImpl extends AbstractCachedContentStoreService {
                 children = doFilter(children, filter, true);
             }
 
-            List<Item> processedChildren = new ArrayList<>(children.size());
+            List<Item> processedChildren = processChildren(context, cachingOptions, children, depth, filter,
+                                                           processor, flatten);
 
-            for (Item child : children) {
-                try {
-                    Item processedChild;
-                    if (depth != null && child.isFolder()) {
-                        processedChild = getTree(context, cachingOptions, child.getUrl(), depth, filter, processor, flatten);
-                    } else {
-                        processedChild = getItem(context, cachingOptions, child.getUrl(), processor, flatten);
-                    }
-                    processedChildren.add(processedChild);
-                } catch (StoreAccessDeniedException e) {
-                    logger.warn("Access denied for url '{}'", child.getUrl());
-                    logger.debug("Error getting item for url: '{}'", child.getUrl(), e);
+            if (filter != null && filter.runAfterProcessing()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Running filter " + filter + " after processing for " + url + "...");
+                }
+
+                processedChildren = doFilter(processedChildren, filter, false);
+            }
+
+            processedChildren.sort(CompareByItemNameComparator.instance);
+
+            return new CachingAwareList<>(processedChildren);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Does the same as {@link #doFindChildren(Context, CachingOptions, String, Integer, ItemFilter, ItemProcessor,
+     * boolean)}, but sorts the children by name before processing them, so that only the children of the requested
+     * page are merged and processed. Because of this, a filter that runs after processing is applied to the page only,
+     * which can then have fewer children than the limit.
+     */
+    @Override
+    protected ItemPage doFindChildrenPage(Context context, CachingOptions cachingOptions, String url, int offset,
+                                          String cursor, int limit, ItemFilter filter, ItemProcessor processor,
+                                          boolean flatten) throws InvalidContextException, XmlFileParseException,
+            XmlMergeException, ItemProcessingException, StoreException {
+        if (!url.startsWith("/")) {
+            url = "/" + url;
+        }
+
+        List<Item> children = getChildrenInternal(context, cachingOptions, url, processor, flatten);
+        if (children != null) {
+            if (filter != null && filter.runBeforeProcessing()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Running filter " + filter + " before processing for " + url + "...");
                 }
+
+                children = doFilter(children, filter, true);
+            } else {
+                // The listing is cached by the store adapter, so it shouldn't be sorted in place
+                children = new ArrayList<>(children);
             }
 
+            children.sort(CompareByItemNameComparator.instance);
+
+            ItemPage page = ItemPage.fromSortedItems(children, getPageStart(children, offset, cursor), limit);
+            List<Item> processedChildren = processChildren(context, cachingOptions, page.getItems(), null, filter,
+                                                           processor, flatten);
+
             if (filter != null && filter.runAfterProcessing()) {
                 if (logger.isDebugEnabled()) {
                     logger.debug("Running filter " + filter + " after processing for " + url + "...");
@@ -377,14 +595,180 @@ public class ContentStoreServiceImpl extends AbstractCachedContentStoreService {
                 processedChildren = doFilter(processedChildren, filter, false);
             }
 
-            processedChildren.sort(CompareByItemNameComparator.instance);
+            page.setItems(processedChildren);
 
-            return new CachingAwareList<>(processedChildren);
+            return page;
         } else {
             return null;
         }
     }
 
+    /**
+     * Returns the merged and processed version of each child, in the same order, leaving out the children the
+     * current user is not allowed to access.
+     */
+    protected List<Item> processChildren(Context context, CachingOptions cachingOptions, List<Item> children,
+                                         Integer depth, ItemFilter filter, ItemProcessor processor, boolean flatten) {
+        if (isParallelTraversal(children)) {
+            return processChildrenInParallel(context, cachingOptions, children, depth, filter, processor, flatten);
+        }
+
+        List<Item> processedChildren = new ArrayList<>(children.size());
+
+        for (Item child : children) {
+            try {
+                processedChildren.add(processChild(context, cachingOptions, child, depth, filter, processor, flatten));
+            } catch (StoreAccessDeniedException e) {
+                logAccessDenied(child, e);
+            }
+        }
+
+        return processedChildren;
+    }
+
+    /**
+     * Returns the merged and processed version of the child: its tree if it's a folder and <code>depth</code> is not
+     * null, or the item otherwise.
+     */
+    protected Item processChild(Context context, CachingOptions cachingOptions, Item child, Integer depth,
+                                ItemFilter filter, ItemProcessor processor, boolean flatten) {
+        if (depth != null && child.isFolder()) {
+            return getTree(context, cachingOptions, child.getUrl(), depth, filter, processor, flatten);
+        } else {
+            return getItem(context, cachingOptions, child.getUrl(), processor, flatten);
+        }
+    }
+
+    protected boolean isParallelTraversal(List<Item> children) {
+        return parallelTraversalEnabled && traversalExecutor != null && children.size() > 1;
+    }
+
+    /**
+     * Same as calling {@link #processChild} for each child, but submitting a task per child while the traversal has
+     * permits left. The first call of a traversal (the one not running in a traversal thread) gets
+     * {@code maxTraversalParallelismPerRequest - 1} permits, shared by all its nested calls, and children without
+     * a permit are processed in the current thread. The returned list keeps the order of the children.
+     *
+     * <p>A thread never waits for a task that hasn't started: it runs the task itself instead, so the threads of the
+     * executor can block (on the cache locks for example) without starving the traversals. If a child fails, the
+     * tasks that haven't started are skipped and the running ones are awaited before the error is rethrown.</p>
+     */
+    protected List<Item> processChildrenInParallel(Context context, CachingOptions cachingOptions,
+                                                   List<Item> children, Integer depth, ItemFilter filter,
+                                                   ItemProcessor processor, boolean flatten) {
+        Semaphore permits = traversalPermits.get();
+        boolean traversalStart = permits == null;
+        if (traversalStart) {
+            // The calling thread is one of the threads of the traversal
+            permits = new Semaphore(maxTraversalParallelismPerRequest - 1);
+            traversalPermits.set(permits);
+        }
+
+        try {
+            int count = children.size();
+            Item[] processedChildren = new Item[count];
+            boolean[] accessDenied = new boolean[count];
+            TraversalTask[] tasks = new TraversalTask[count];
+
+            try {
+                for (int i = 0; i < count; i++) {
+                    int index = i;
+                    Item child = children.get(i);
+                    Runnable task = () -> {
+                        try {
+                            processedChildren[index] = processChild(context, cachingOptions, child, depth, filter,
+                                                                    processor, flatten);
+                        } catch (StoreAccessDeniedException e) {
+                            logAccessDenied(child, e);
+                            accessDenied[index] = true;
+                        }
+                    };
+
+                    // The last child is always processed in the current thread, which would be idle otherwise
+                    if (i < count - 1 && permits.tryAcquire()) {
+                        tasks[i] = new TraversalTask(task);
+                        try {
+                            traversalExecutor.execute(createTraversalTask(tasks[i], permits));
+                        } catch (RejectedExecutionException e) {
+                            // The task will be run by this thread when joined
+                            permits.release();
+                        }
+                    } else {
+                        task.run();
+                    }
+                }
+
+                for (TraversalTask task : tasks) {
+                    if (task != null) {
+                        task.join();
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                cancelTraversalTasks(tasks);
+                throw e;
+            }
+
+            List<Item> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (!accessDenied[i]) {
+                    result.add(processedChildren[i]);
+                }
+            }
+
+            return result;
+        } finally {
+            if (traversalStart) {
+                traversalPermits.remove();
+            }
+        }
+    }
+
+    /**
+     * Wraps the task so that it runs with the permits of its traversal, and gives back its permit when done. The
+     * objects it gets from the cache are also recorded as {@link CacheDependencies} of the object being loaded.
+     */
+    protected Runnable createTraversalTask(Runnable task, Semaphore permits) {
+        Runnable propagatingTask = CacheDependencies.propagate(task);
+        Runnable decoratedTask = traversalTaskDecorator != null?
+                                 traversalTaskDecorator.decorate(propagatingTask) : propagatingTask;
+
+        return () -> {
+            Semaphore previousPermits = traversalPermits.get();
+            traversalPermits.set(permits);
+            try {
+                decoratedTask.run();
+            } finally {
+                if (previousPermits != null) {
+                    traversalPermits.set(previousPermits);
+                } else {
+                    traversalPermits.remove();
+                }
+
+                permits.release();
+            }
+        };
+    }
+
+    /**
+     * Skips the tasks that haven't started and waits for the ones that are running, ignoring their errors
+     */
+    protected void cancelTraversalTasks(TraversalTask[] tasks) {
+        for (TraversalTask task : tasks) {
+            if (task != null && !task.claim()) {
+                try {
+                    task.await();
+                } catch (RuntimeException | Error e) {
+                    logger.debug("Error in traversal task after the traversal failed", e);
+                }
+            }
+        }
+    }
+
+    protected void logAccessDenied(Item child, StoreAccessDeniedException e) {
+        logger.warn("Access denied for url '{}'", child.getUrl());
+        logger.debug("Error getting item for url: '{}'", child.getUrl(), e);
+    }
+
     /**
      * This method is meant to be overridden when the children need to be further processed/filtered
      *
@@ -610,4 +994,74 @@ public class ContentStoreServiceImpl extends AbstractCachedContentStoreService {
         }
     }
 
+    /**
+     * Task of a parallel traversal that runs only once, either in a thread of the executor or in the thread that
+     * joins it, whichever claims it first.
+     */
+    protected static class TraversalTask implements Runnable {
+
+        private final Runnable task;
+        private final AtomicBoolean claimed;
+        private final CompletableFuture<Void> done;
+
+        public TraversalTask(Runnable task) {
+            this.task = task;
+            this.claimed = new AtomicBoolean();
+            this.done = new CompletableFuture<>();
+        }
+
+        /**
+         * Returns true if the caller should run the task, false if it was already claimed
+         */
+        public boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        @Override
+        public void run() {
+            if (claim()) {
+                try {
+                    task.run();
+                    done.complete(null);
+                } catch (Throwable e) {
+                    done.completeExceptionally(e);
+                }
+            }
+        }
+
+        /**
+         * Runs the task in the current thread if it hasn't started, or waits for it to finish otherwise
+         */
+        public void join() {
+            if (claim()) {
+                task.run();
+            } else {
+                await();
+            }
+        }
+
+        /**
+         * Waits for the task to finish in the thread that claimed it, rethrowing any error it threw
+         */
+        public void await() {
+            try {
+                done.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new IllegalStateException("Interrupted while waiting for a traversal task", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                } else {
+                    throw new IllegalStateException("Traversal task failed", cause);
+                }
+            }
+        }
+
+    }
+
 }
@@ -52,6 +52,25 @@ public class ExcludeByUrlItemFilter implements ItemFilter {
         return ArrayUtils.isEmpty(excludeRegexes) || !RegexUtils.matchesAny(item.getUrl(), excludeRegexes);
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ExcludeByUrlItemFilter that = (ExcludeByUrlItemFilter) o;
+
+        return Arrays.equals(excludeRegexes, that.excludeRegexes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(excludeRegexes);
+    }
+
     @Override
     public String toString() {
         return "ExcludeByUrlItemFilter{" +
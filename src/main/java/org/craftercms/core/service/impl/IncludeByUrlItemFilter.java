@@ -52,6 +52,25 @@ public class IncludeByUrlItemFilter implements ItemFilter {
         return ArrayUtils.isEmpty(includeRegexes) || RegexUtils.matchesAny(item.getUrl(), includeRegexes);
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        IncludeByUrlItemFilter that = (IncludeByUrlItemFilter) o;
+
+        return Arrays.equals(includeRegexes, that.includeRegexes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(includeRegexes);
+    }
+
     @Override
     public String toString() {
         return "IncludeByUrlItemFilter{" +
@@ -20,6 +20,11 @@ import org.springframework.core.io.Resource;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Implementation of {@link Content} that relies on a {@link Resource}
@@ -61,4 +66,31 @@ public class ResourceBasedContent implements Content {
         return resource.getInputStream();
     }
 
+    /**
+     * Returns the resource's channel, which is a {@link FileChannel} for file based resources and wraps the
+     * resource's input stream otherwise.
+     */
+    @Override
+    public ReadableByteChannel getChannel() throws IOException {
+        return resource.readableChannel();
+    }
+
+    /**
+     * Maps the resource into memory if it's a file, returning null otherwise (e.g. for resources in remote blob
+     * stores) or if the file doesn't exist anymore. See {@link Content#map()} for what happens if the file is
+     * truncated while the buffer is in use.
+     */
+    @Override
+    public MappedByteBuffer map() throws IOException {
+        if (!resource.isFile()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
 }
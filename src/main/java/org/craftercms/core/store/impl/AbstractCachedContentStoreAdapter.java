@@ -59,9 +59,13 @@ public abstract class AbstractCachedContentStoreAdapter implements ContentStoreA
     @Override
     public boolean exists(final Context context, final CachingOptions cachingOptions, final String path)
         throws InvalidContextException, StoreException {
+        if (isDefinitelyAbsent(context, path)) {
+            return false;
+        }
+
         final CachingOptions actualCachingOptions = cachingOptions != null? cachingOptions: defaultCachingOptions;
 
-        return cacheTemplate.getObject(context, actualCachingOptions, new Callback<Boolean>() {
+        boolean exists = cacheTemplate.getObject(context, actualCachingOptions, new Callback<Boolean>() {
 
             @Override
             public Boolean execute() {
@@ -75,11 +79,21 @@ public abstract class AbstractCachedContentStoreAdapter implements ContentStoreA
             }
 
         }, path, CONST_KEY_ELEM_EXISTS);
+
+        if (!exists) {
+            onPathNotFound(context, path);
+        }
+
+        return exists;
     }
 
     @Override
     public Content findContent(final Context context, final CachingOptions cachingOptions,
                                final String path) throws InvalidContextException, StoreException {
+        if (isDefinitelyAbsent(context, path)) {
+            return null;
+        }
+
         final CachingOptions actualCachingOptions = cachingOptions != null? cachingOptions: defaultCachingOptions;
 
         return cacheTemplate.getObject(context, actualCachingOptions, new Callback<Content>() {
@@ -102,6 +116,10 @@ public abstract class AbstractCachedContentStoreAdapter implements ContentStoreA
     public Item findItem(final Context context, final CachingOptions cachingOptions, final String path,
                          final boolean withDescriptor) throws InvalidContextException, XmlFileParseException,
                                                               StoreException {
+        if (isDefinitelyAbsent(context, path)) {
+            return null;
+        }
+
         final CachingOptions actualCachingOptions = cachingOptions != null? cachingOptions: defaultCachingOptions;
 
         return cacheTemplate.getObject(context, actualCachingOptions, new Callback<Item>() {
@@ -123,6 +141,10 @@ public abstract class AbstractCachedContentStoreAdapter implements ContentStoreA
     @Override
     public List<Item> findItems(final Context context, final CachingOptions cachingOptions, final String path)
             throws InvalidContextException, XmlFileParseException, StoreException {
+        if (isDefinitelyAbsent(context, path)) {
+            return null;
+        }
+
         final CachingOptions actualCachingOptions = cachingOptions != null? cachingOptions: defaultCachingOptions;
 
         return cacheTemplate.getObject(context, actualCachingOptions, new Callback<List<Item>>() {
@@ -150,6 +172,49 @@ public abstract class AbstractCachedContentStoreAdapter implements ContentStoreA
         }, path, CONST_KEY_ELEM_ITEMS);
     }
 
+    /**
+     * Returns true if the path is known not to exist in the store, so that the lookups can return right away,
+     * without going to the cache or the store. Returns false by default.
+     */
+    protected boolean isDefinitelyAbsent(Context context, String path) {
+        return false;
+    }
+
+    /**
+     * Called when {@link #exists(Context, CachingOptions, String)} returns false for a path that
+     * {@link #isDefinitelyAbsent(Context, String)} didn't catch. Does nothing by default.
+     */
+    protected void onPathNotFound(Context context, String path) {
+    }
+
+    /**
+     * Puts an item that was loaded as part of a bulk operation (like a directory listing) in the cache, if it isn't
+     * already there, under the same key {@link #findItem(Context, CachingOptions, String, boolean)} uses, so that
+     * it doesn't need to be loaded again by itself.
+     */
+    protected void putItemInCache(final Context context, final CachingOptions cachingOptions, final String path,
+                                  final boolean withDescriptor, Item item) {
+        // Replacing an entry that's already cached would restart its expiration and refresh
+        if (cacheTemplate.hasObject(context, path, withDescriptor, CONST_KEY_ELEM_ITEM)) {
+            return;
+        }
+
+        cacheTemplate.putObject(context, cachingOptions, new Callback<Item>() {
+
+            @Override
+            public Item execute() {
+                return doFindItem(context, cachingOptions, path, withDescriptor);
+            }
+
+            @Override
+            public String toString() {
+                return String.format(AbstractCachedContentStoreAdapter.this.getClass().getName() +
+                                     ".findItem(%s, %s, %s)", context, path, withDescriptor);
+            }
+
+        }, item, path, withDescriptor, CONST_KEY_ELEM_ITEM);
+    }
+
     protected abstract boolean doExists(Context context, CachingOptions cachingOptions, String path)
         throws InvalidContextException, StoreException;
 
@@ -27,6 +27,7 @@ import org.craftercms.core.service.Item;
 import org.craftercms.core.util.ContentStoreUtils;
 import org.craftercms.core.util.cache.CacheTemplate;
 import org.craftercms.core.util.cache.impl.CachingAwareList;
+import org.dom4j.Document;
 import org.dom4j.DocumentException;
 import org.dom4j.io.SAXReader;
 import org.slf4j.Logger;
@@ -35,9 +36,12 @@ import org.springframework.validation.Validator;
 import org.xml.sax.SAXException;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.util.List;
 
 import static java.lang.String.format;
@@ -109,10 +113,7 @@ public abstract class AbstractFileBasedContentStoreAdapter extends AbstractCache
             return null;
         }
 
-        Item item = new Item();
-        item.setName(file.getName());
-        item.setUrl(path);
-        item.setFolder(file.isDirectory());
+        Item item = createItem(file, path);
 
         if (withDescriptor) {
             File descriptorFile;
@@ -138,26 +139,39 @@ public abstract class AbstractFileBasedContentStoreAdapter extends AbstractCache
             }
 
             if (descriptorFile != null) {
-                try {
-                    InputStream fileInputStream = getContent(context, cachingOptions, descriptorFile).getInputStream();
-                    Reader fileReader = new InputStreamReader(fileInputStream, charset);
-
-                    try {
-                        item.setDescriptorDom(createXmlReader().read(fileReader));
-                    } finally {
-                        IOUtils.closeQuietly(fileReader);
-                    }
-                } catch (IOException e) {
-                    throw new StoreException("Unable to open input stream for descriptor file at " + descriptorFile, e);
-                } catch (DocumentException e) {
-                    throw new XmlFileParseException("Error while parsing xml document at " + descriptorFile, e);
-                }
+                item.setDescriptorDom(loadDescriptorDom(context, cachingOptions, descriptorFile));
             }
         }
 
         return item;
     }
 
+    /**
+     * Parses the given descriptor file.
+     */
+    protected Document loadDescriptorDom(Context context, CachingOptions cachingOptions, File descriptorFile)
+            throws InvalidContextException, XmlFileParseException, StoreException {
+        try {
+            // Decode directly from the content's channel, without an intermediate buffered stream. Invalid bytes
+            // are replaced (like InputStreamReader does) instead of failing the whole descriptor
+            ReadableByteChannel channel = getContent(context, cachingOptions, descriptorFile).getChannel();
+            CharsetDecoder decoder = Charset.forName(charset).newDecoder()
+                                            .onMalformedInput(CodingErrorAction.REPLACE)
+                                            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            Reader fileReader = Channels.newReader(channel, decoder, -1);
+
+            try {
+                return createXmlReader().read(fileReader);
+            } finally {
+                IOUtils.closeQuietly(fileReader);
+            }
+        } catch (IOException e) {
+            throw new StoreException("Unable to open input stream for descriptor file at " + descriptorFile, e);
+        } catch (DocumentException e) {
+            throw new XmlFileParseException("Error while parsing xml document at " + descriptorFile, e);
+        }
+    }
+
     @Override
     protected List<Item> doFindItems(Context context, CachingOptions cachingOptions, String path)
             throws InvalidContextException, PathNotFoundException,
@@ -184,12 +198,13 @@ public abstract class AbstractFileBasedContentStoreAdapter extends AbstractCache
                 // Ignore any item metadata file. Metadata file DOMs are included in their respective
                 // items.
                 if (!child.isFile() || !child.getName().endsWith(metadataFileExtension)) {
+                    // Build the item straight from the listing, instead of looking up each child again, and cache
+                    // it as if it had been found by itself
                     String fileRelPath = path + (!path.equals("/")? "/": "") + child.getName();
-                    Item item = findItem(context, cachingOptions, fileRelPath, false);
+                    Item item = createItem(child, fileRelPath);
 
-                    if (item != null) {
-                        items.add(item);
-                    }
+                    putItemInCache(context, cachingOptions, fileRelPath, false, item);
+                    items.add(item);
                 }
             }
         }
@@ -197,6 +212,18 @@ public abstract class AbstractFileBasedContentStoreAdapter extends AbstractCache
         return items;
     }
 
+    /**
+     * Creates the item (without descriptor) for the given file.
+     */
+    protected Item createItem(File file, String path) {
+        Item item = new Item();
+        item.setName(file.getName());
+        item.setUrl(path);
+        item.setFolder(file.isDirectory());
+
+        return item;
+    }
+
     /**
      * Creates and configures an XML SAX reader.
      */
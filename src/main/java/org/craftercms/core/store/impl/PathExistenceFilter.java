@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.craftercms.core.cache.CacheStatistics;
+
+/**
+ * Scalable Bloom filter of the paths that exist in a content store. If {@link #mightContain(String)} returns false
+ * the path definitely doesn't exist, so the store adapter can answer without going to the cache or the store.
+ * <p>The filter starts with a capacity of {@code initialCapacity} paths. When it's full, a new filter with twice the
+ * capacity and half the false positive probability is added, so the overall false positive probability stays under
+ * twice the configured one no matter how many paths are added. Paths can't be removed: a deleted path is just
+ * reported as a possible one.</p>
+ * <p>The filter only answers once {@link #setReady(boolean)} is called, which should happen after all the existing
+ * paths have been added. Until then, all paths are reported as possible.</p>
+ *
+ * @since 4.2.0
+ */
+public class PathExistenceFilter {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 65536;
+    public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    protected final double falsePositiveProbability;
+    protected final List<BloomFilter<CharSequence>> filters;
+
+    protected BloomFilter<CharSequence> currentFilter;
+    protected long currentCapacity;
+    protected double currentFalsePositiveProbability;
+    protected volatile boolean ready;
+
+    protected LongAdder pathCount;
+    protected LongAdder queryCount;
+    protected LongAdder negativeCount;
+    protected LongAdder falsePositiveCount;
+
+    public PathExistenceFilter() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_FALSE_POSITIVE_PROBABILITY);
+    }
+
+    public PathExistenceFilter(long initialCapacity, double falsePositiveProbability) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity should be positive");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("falsePositiveProbability should be between 0 and 1");
+        }
+
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.filters = new CopyOnWriteArrayList<>();
+        this.pathCount = new LongAdder();
+        this.queryCount = new LongAdder();
+        this.negativeCount = new LongAdder();
+        this.falsePositiveCount = new LongAdder();
+
+        // The first filter gets half of the probability, so that the sum of the whole series stays under it
+        addFilter(initialCapacity, falsePositiveProbability / 2);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    /**
+     * Adds an existing path to the filter.
+     */
+    public synchronized void add(String path) {
+        if (currentFilter.put(path)) {
+            pathCount.increment();
+
+            if (currentFilter.approximateElementCount() >= currentCapacity) {
+                addFilter(currentCapacity * 2, currentFalsePositiveProbability / 2);
+            }
+        }
+    }
+
+    /**
+     * Returns false if the path definitely doesn't exist, or true if it might exist (or the filter is not ready).
+     */
+    public boolean mightContain(String path) {
+        if (!ready) {
+            return true;
+        }
+
+        queryCount.increment();
+
+        for (BloomFilter<CharSequence> filter : filters) {
+            if (filter.mightContain(path)) {
+                return true;
+            }
+        }
+
+        negativeCount.increment();
+
+        return false;
+    }
+
+    /**
+     * Records that a path reported as possible by {@link #mightContain(String)} didn't actually exist.
+     */
+    public void recordFalsePositive() {
+        falsePositiveCount.increment();
+    }
+
+    /**
+     * Returns the approximate number of distinct paths added to the filter (a path that was already reported as
+     * possible when added is not counted).
+     */
+    public long getPathCount() {
+        return pathCount.sum();
+    }
+
+    /**
+     * Returns the number of Bloom filters in the series.
+     */
+    public int getFilterCount() {
+        return filters.size();
+    }
+
+    /**
+     * Returns the number of queries answered since the filter became ready.
+     */
+    public long getQueryCount() {
+        return queryCount.sum();
+    }
+
+    /**
+     * Returns the number of queries answered as "definitely absent".
+     */
+    public long getNegativeCount() {
+        return negativeCount.sum();
+    }
+
+    /**
+     * Returns the number of paths that were reported as possible but didn't exist.
+     */
+    public long getFalsePositiveCount() {
+        return falsePositiveCount.sum();
+    }
+
+    /**
+     * Returns the observed false positive rate: the fraction of the queries for paths that don't exist that the
+     * filter didn't catch.
+     */
+    public double getFalsePositiveRate() {
+        long falsePositives = falsePositiveCount.sum();
+        long absent = falsePositives + negativeCount.sum();
+
+        return absent > 0? (double) falsePositives / absent : 0;
+    }
+
+    /**
+     * Returns the configured false positive probability (the expected one is always lower).
+     */
+    public double getFalsePositiveProbability() {
+        return falsePositiveProbability;
+    }
+
+    /**
+     * Returns the current expected false positive probability, based on the number of paths in each filter.
+     */
+    public double getExpectedFalsePositiveProbability() {
+        double allNegative = 1;
+        for (BloomFilter<CharSequence> filter : filters) {
+            allNegative *= 1 - filter.expectedFpp();
+        }
+
+        return 1 - allNegative;
+    }
+
+    /**
+     * Copies the counters of the filter to the given statistics.
+     */
+    public void applyTo(CacheStatistics statistics) {
+        statistics.setExistenceFilterQueryCount(getQueryCount());
+        statistics.setExistenceFilterNegativeCount(getNegativeCount());
+        statistics.setExistenceFilterFalsePositiveCount(getFalsePositiveCount());
+    }
+
+    @Override
+    public String toString() {
+        return "PathExistenceFilter{" +
+               "ready=" + ready +
+               ", pathCount=" + getPathCount() +
+               ", filterCount=" + getFilterCount() +
+               ", queryCount=" + getQueryCount() +
+               ", negativeCount=" + getNegativeCount() +
+               ", falsePositiveCount=" + getFalsePositiveCount() +
+               ", expectedFalsePositiveProbability=" + getExpectedFalsePositiveProbability() +
+               '}';
+    }
+
+    protected void addFilter(long capacity, double probability) {
+        currentFilter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), capacity, probability);
+        currentCapacity = capacity;
+        currentFalsePositiveProbability = probability;
+
+        filters.add(currentFilter);
+    }
+
+}
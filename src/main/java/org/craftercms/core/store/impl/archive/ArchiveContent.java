@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.archive;
+
+import org.craftercms.core.service.Content;
+import org.craftercms.core.util.io.ByteBufferInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Gives access to the content of a file in a {@link ZipArchive}. Stored (uncompressed) files are read straight from
+ * the mapped archive, so {@link #map()} returns a view of their data without copying it. Deflated files are
+ * decompressed as they're read.
+ *
+ * @since 4.2.0
+ */
+public class ArchiveContent implements Content {
+
+    private static final int INFLATER_BUFFER_SIZE = 8192;
+
+    private final ZipArchive archive;
+    private final ZipArchive.Entry entry;
+
+    public ArchiveContent(ZipArchive archive, ZipArchive.Entry entry) {
+        this.archive = archive;
+        this.entry = entry;
+    }
+
+    @Override
+    public long getLastModified() {
+        return entry.getLastModified();
+    }
+
+    @Override
+    public long getLength() {
+        return entry.getSize();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        MappedByteBuffer data = getData();
+
+        if (entry.getMethod() == ZipArchive.METHOD_STORED) {
+            return new ByteBufferInputStream(data);
+        } else {
+            Inflater inflater = new Inflater(true);
+
+            return new InflaterInputStream(new ByteBufferInputStream(data), inflater, INFLATER_BUFFER_SIZE) {
+
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException {
+                    if (!closed) {
+                        closed = true;
+                        // The inflater was provided, so it's not released by the stream
+                        inflater.end();
+                        super.close();
+                    }
+                }
+
+            };
+        }
+    }
+
+    /**
+     * Returns a view of the data in the mapped archive if the file is stored without compression, or null if it's
+     * compressed.
+     */
+    @Override
+    public MappedByteBuffer map() throws IOException {
+        if (entry.getMethod() == ZipArchive.METHOD_STORED) {
+            return getData();
+        } else {
+            return null;
+        }
+    }
+
+    protected MappedByteBuffer getData() throws IOException {
+        if (entry.isEncrypted()) {
+            throw new IOException("Entry " + entry.getUrl() + " of " + archive.getFile() + " is encrypted");
+        }
+        if (entry.getMethod() != ZipArchive.METHOD_STORED && entry.getMethod() != ZipArchive.METHOD_DEFLATED) {
+            throw new IOException("Entry " + entry.getUrl() + " of " + archive.getFile() + " uses an unsupported " +
+                                  "compression method (" + entry.getMethod() + ")");
+        }
+
+        return archive.getData(entry);
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.archive;
+
+import org.craftercms.core.exception.AuthenticationException;
+import org.craftercms.core.exception.InvalidContextException;
+import org.craftercms.core.exception.RootFolderNotFoundException;
+import org.craftercms.core.exception.StoreException;
+import org.craftercms.core.service.CachingOptions;
+import org.craftercms.core.service.Content;
+import org.craftercms.core.service.Context;
+import org.craftercms.core.store.impl.AbstractFileBasedContentStoreAdapter;
+import org.craftercms.core.store.impl.File;
+import org.craftercms.core.util.ContentStoreUtils;
+import org.craftercms.core.util.cache.CacheTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ResourceLoaderAware;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.validation.Validator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only implementation of {@link org.craftercms.core.store.ContentStoreAdapter} that serves a whole store from a
+ * single ZIP file, which is mapped into memory (see {@link ZipArchive}). The root folder path of the contexts is the
+ * URL of the ZIP file (e.g. {@code file:/opt/sites/mysite.zip}).
+ *
+ * <p>To update the content, a new archive should be moved in place of the old one (an atomic rename). The new archive
+ * is opened the next time the context is validated, and the context is then moved to a new, empty cache scope. Reads
+ * that started before the swap finish with the old archive, but what they load is not cached.</p>
+ *
+ * @since 4.2.0
+ */
+public class ArchiveContentStoreAdapter extends AbstractFileBasedContentStoreAdapter implements ResourceLoaderAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveContentStoreAdapter.class);
+
+    public static final String STORE_TYPE = "archive";
+
+    private ResourceLoader resourceLoader;
+
+    public ArchiveContentStoreAdapter(Validator pathValidator, String descriptorFileExtension,
+                                      String metadataFileExtension, CacheTemplate cacheTemplate) {
+        super(pathValidator, descriptorFileExtension, metadataFileExtension, cacheTemplate);
+    }
+
+    @Override
+    public void setResourceLoader(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @Override
+    public Context createContext(String id, String rootFolderPath, boolean mergingOn, boolean cacheOn,
+                                 int maxAllowedItemsInCache, boolean ignoreHiddenFiles,
+                                 Map<String, String> configurationVariables)
+            throws RootFolderNotFoundException, StoreException, AuthenticationException {
+        Resource archiveResource = resourceLoader.getResource(rootFolderPath);
+
+        if (!archiveResource.exists()) {
+            throw new RootFolderNotFoundException("Archive " + rootFolderPath + " not found (make sure that it " +
+                                                  "has a valid URL prefix (e.g. file:))");
+        }
+
+        Path archiveFile;
+        try {
+            archiveFile = archiveResource.getFile().toPath();
+        } catch (IOException e) {
+            throw new StoreException("Unable to retrieve file handle for archive " + rootFolderPath, e);
+        }
+
+        return new ArchiveContext(id, this, rootFolderPath, openArchive(archiveFile), mergingOn, cacheOn,
+                                  maxAllowedItemsInCache, ignoreHiddenFiles, configurationVariables);
+    }
+
+    /**
+     * Returns true if the archive still exists. If it has been replaced since it was opened, the new archive is
+     * opened and the context is moved to a new cache scope.
+     */
+    @Override
+    public boolean validate(Context context) throws InvalidContextException, StoreException, AuthenticationException {
+        ArchiveContext archiveContext = (ArchiveContext)context;
+        ZipArchive archive = archiveContext.getArchive();
+
+        if (!Files.exists(archive.getFile())) {
+            return false;
+        }
+
+        if (archive.isStale()) {
+            synchronized (archiveContext) {
+                if (archiveContext.getArchive() == archive) {
+                    archiveContext.setArchive(openArchive(archive.getFile()));
+
+                    // A new scope instead of clearing the current one, so that objects still being loaded from
+                    // the old archive are not cached
+                    cacheTemplate.getCacheService().renewScope(context);
+
+                    logger.info("Archive {} of context {} was replaced, its cache has been renewed", archive.getFile(),
+                                context.getId());
+                }
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public void destroyContext(Context context) throws InvalidContextException, StoreException, AuthenticationException {
+        // Nothing to do: the mapping of the archive is released when it's garbage collected
+    }
+
+    @Override
+    protected boolean isDefinitelyAbsent(Context context, String path) {
+        // The whole archive is indexed, so a lookup in the index is cheaper than one in the cache
+        validatePath(path);
+
+        return ((ArchiveContext)context).getArchive().getEntry(ContentStoreUtils.normalizePath(path)) == null;
+    }
+
+    @Override
+    protected Content getContent(Context context, CachingOptions cachingOptions, File file)
+            throws InvalidContextException, StoreException {
+        ArchiveFile archiveFile = (ArchiveFile)file;
+
+        return new ArchiveContent(archiveFile.getArchive(), archiveFile.getEntry());
+    }
+
+    @Override
+    protected File findFile(Context context, CachingOptions cachingOptions, String path)
+            throws InvalidContextException, StoreException {
+        ZipArchive archive = ((ArchiveContext)context).getArchive();
+        ZipArchive.Entry entry = archive.getEntry(ContentStoreUtils.normalizePath(path));
+
+        return entry != null? new ArchiveFile(archive, entry) : null;
+    }
+
+    @Override
+    protected List<File> getChildren(Context context, CachingOptions cachingOptions, File dir)
+            throws InvalidContextException, StoreException {
+        ArchiveFile archiveDir = (ArchiveFile)dir;
+        ZipArchive archive = archiveDir.getArchive();
+        String dirUrl = archiveDir.getEntry().getUrl();
+        List<String> names = archiveDir.getEntry().getChildren();
+
+        if (names == null) {
+            return null;
+        }
+
+        List<File> children = new ArrayList<>(names.size());
+        for (String name : names) {
+            if (context.ignoreHiddenFiles() && name.startsWith(".")) {
+                continue;
+            }
+
+            ZipArchive.Entry entry = archive.getEntry(dirUrl.equals(ZipArchive.ROOT_URL)? "/" + name :
+                                                      dirUrl + "/" + name);
+            if (entry != null) {
+                children.add(new ArchiveFile(archive, entry));
+            }
+        }
+
+        return children;
+    }
+
+    protected ZipArchive openArchive(Path archiveFile) throws StoreException {
+        try {
+            ZipArchive archive = ZipArchive.open(archiveFile);
+
+            logger.debug("Opened {}", archive);
+
+            return archive;
+        } catch (IOException e) {
+            throw new StoreException("Unable to open archive " + archiveFile, e);
+        }
+    }
+
+}
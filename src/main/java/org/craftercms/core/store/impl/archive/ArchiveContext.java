@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.archive;
+
+import org.craftercms.core.service.ContextImpl;
+
+import java.util.Map;
+
+/**
+ * Extension of context that adds properties used by the {@link ArchiveContentStoreAdapter}.
+ *
+ * @since 4.2.0
+ */
+public class ArchiveContext extends ContextImpl {
+
+    private volatile ZipArchive archive;
+
+    public ArchiveContext(String id, ArchiveContentStoreAdapter storeAdapter, String rootFolderPath,
+                          ZipArchive archive, boolean mergingOn, boolean cacheOn, int maxAllowedItemsInCache,
+                          boolean ignoreHiddenFiles, Map<String, String> configurationVariables) {
+        super(id, storeAdapter, rootFolderPath, mergingOn, cacheOn, maxAllowedItemsInCache, ignoreHiddenFiles,
+              configurationVariables);
+
+        this.archive = archive;
+    }
+
+    /**
+     * Returns the archive that currently holds the content of the context.
+     */
+    public ZipArchive getArchive() {
+        return archive;
+    }
+
+    public void setArchive(ZipArchive archive) {
+        this.archive = archive;
+    }
+
+}
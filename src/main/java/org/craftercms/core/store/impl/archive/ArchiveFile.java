@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.archive;
+
+import org.craftercms.core.store.impl.File;
+
+/**
+ * Adapter to an entry of a {@link ZipArchive}, used by the {@link ArchiveContentStoreAdapter}. The file keeps the
+ * archive it was found in, so that its content is read from the same archive even if it's swapped afterwards.
+ *
+ * @since 4.2.0
+ */
+public class ArchiveFile implements File {
+
+    private final ZipArchive archive;
+    private final ZipArchive.Entry entry;
+
+    public ArchiveFile(ZipArchive archive, ZipArchive.Entry entry) {
+        this.archive = archive;
+        this.entry = entry;
+    }
+
+    public ZipArchive getArchive() {
+        return archive;
+    }
+
+    public ZipArchive.Entry getEntry() {
+        return entry;
+    }
+
+    @Override
+    public String getName() {
+        return entry.getName();
+    }
+
+    @Override
+    public String getPath() {
+        return entry.getUrl();
+    }
+
+    @Override
+    public boolean isFile() {
+        return !entry.isDirectory();
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return entry.isDirectory();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ArchiveFile other = (ArchiveFile)o;
+
+        return archive == other.archive && entry == other.entry;
+    }
+
+    @Override
+    public int hashCode() {
+        return entry.getUrl().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return archive.getFile() + "!" + entry.getUrl();
+    }
+
+}
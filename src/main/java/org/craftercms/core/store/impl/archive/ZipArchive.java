@@ -0,0 +1,433 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * ZIP file mapped into memory, with an index of its entries built from the central directory. The central directory
+ * is read once when the archive is opened, so lookups and listings are just map lookups, and the data of each entry
+ * is read straight from the mapped file (page cache), without a system call per file.
+ *
+ * <p>Folders don't need their own entries in the ZIP file: the parent folders of every entry are added to the index.
+ * Only stored and deflated entries can be read. ZIP64 archives are supported, as long as they're not bigger than
+ * 2 GB, which is the max size of a single mapping.</p>
+ *
+ * @since 4.2.0
+ */
+public class ZipArchive {
+
+    public static final String ROOT_URL = "/";
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_MIN_SIZE = 22;
+    private static final int ZIP64_EOCD_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EOCD_LOCATOR_SIZE = 20;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+    private static final long ZIP64_MAGIC_32 = 0xFFFFFFFFL;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    private static final int FLAG_ENCRYPTED = 0x1;
+    private static final int FLAG_UTF8 = 0x800;
+
+    public static final int METHOD_STORED = 0;
+    public static final int METHOD_DEFLATED = 8;
+
+    private final Path file;
+    private final MappedByteBuffer data;
+    private final Map<String, Entry> entries;
+    private final Object fileKey;
+    private final long lastModified;
+    private final long size;
+
+    private ZipArchive(Path file, MappedByteBuffer data, Map<String, Entry> entries, BasicFileAttributes attributes) {
+        this.file = file;
+        this.data = data;
+        this.entries = entries;
+        this.fileKey = attributes.fileKey();
+        this.lastModified = attributes.lastModifiedTime().toMillis();
+        this.size = attributes.size();
+    }
+
+    /**
+     * Maps the given ZIP file into memory and indexes its entries.
+     *
+     * @throws IOException if the file can't be read or it's not a valid ZIP file
+     */
+    public static ZipArchive open(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (attributes.size() > Integer.MAX_VALUE) {
+            throw new IOException("Archive " + file + " is bigger than the max supported size of 2 GB");
+        }
+
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        data.order(ByteOrder.LITTLE_ENDIAN);
+
+        return new ZipArchive(file, data, readCentralDirectory(file, data), attributes);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the entry for the given url (normalized, with a leading slash), or null if there's none.
+     */
+    public Entry getEntry(String url) {
+        return entries.get(url);
+    }
+
+    /**
+     * Returns the number of files and folders in the archive, including the root folder.
+     */
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns true if the file at the archive's path is no longer the one that was mapped, like when a new version
+     * of the archive is moved in its place.
+     */
+    public boolean isStale() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+            return !Objects.equals(fileKey, attributes.fileKey()) ||
+                   lastModified != attributes.lastModifiedTime().toMillis() || size != attributes.size();
+        } catch (IOException e) {
+            // The archive was deleted, but the current mapping can still be used
+            return false;
+        }
+    }
+
+    /**
+     * Returns a read-only buffer with the (possibly compressed) data of the given file entry.
+     *
+     * @throws IOException if the local header of the entry is not valid
+     */
+    public MappedByteBuffer getData(Entry entry) throws IOException {
+        int dataOffset = entry.dataOffset;
+        if (dataOffset < 0) {
+            // The local extra field can be different than the central one, so its length has to be read from the
+            // local header
+            int headerOffset = (int) entry.localHeaderOffset;
+            if (headerOffset + LOCAL_HEADER_SIZE > data.limit() ||
+                data.getInt(headerOffset) != LOCAL_HEADER_SIGNATURE) {
+                throw new IOException("Invalid local header for entry " + entry.getUrl() + " in " + file);
+            }
+
+            dataOffset = headerOffset + LOCAL_HEADER_SIZE + Short.toUnsignedInt(data.getShort(headerOffset + 26)) +
+                         Short.toUnsignedInt(data.getShort(headerOffset + 28));
+            entry.dataOffset = dataOffset;
+        }
+
+        if (dataOffset + entry.compressedSize > data.limit()) {
+            throw new IOException("The data of entry " + entry.getUrl() + " is outside of " + file);
+        }
+
+        return data.slice(dataOffset, (int) entry.compressedSize);
+    }
+
+    @Override
+    public String toString() {
+        return "ZipArchive{" +
+               "file=" + file +
+               ", entries=" + entries.size() +
+               '}';
+    }
+
+    private static Map<String, Entry> readCentralDirectory(Path file, ByteBuffer data) throws IOException {
+        int eocdOffset = findEndOfCentralDirectory(data);
+        if (eocdOffset < 0) {
+            throw new IOException(file + " is not a ZIP file (end of central directory not found)");
+        }
+
+        long entryCount = Short.toUnsignedInt(data.getShort(eocdOffset + 10));
+        long directoryOffset = Integer.toUnsignedLong(data.getInt(eocdOffset + 16));
+
+        int locatorOffset = eocdOffset - ZIP64_EOCD_LOCATOR_SIZE;
+        if (locatorOffset >= 0 && data.getInt(locatorOffset) == ZIP64_EOCD_LOCATOR_SIGNATURE) {
+            long zip64EocdOffset = data.getLong(locatorOffset + 8);
+            if (zip64EocdOffset < 0 || zip64EocdOffset + 56 > data.limit() ||
+                data.getInt((int) zip64EocdOffset) != ZIP64_EOCD_SIGNATURE) {
+                throw new IOException("Invalid ZIP64 end of central directory in " + file);
+            }
+
+            entryCount = data.getLong((int) zip64EocdOffset + 32);
+            directoryOffset = data.getLong((int) zip64EocdOffset + 48);
+        }
+
+        if (directoryOffset < 0 || directoryOffset > eocdOffset) {
+            throw new IOException("Invalid central directory offset in " + file);
+        }
+
+        Map<String, Entry> entries = new HashMap<>((int) Math.min(entryCount * 2, Integer.MAX_VALUE / 2));
+        Entry root = new Entry(ROOT_URL, "", true);
+        entries.put(ROOT_URL, root);
+
+        int offset = (int) directoryOffset;
+        for (long i = 0; i < entryCount; i++) {
+            if (offset + CENTRAL_HEADER_SIZE > eocdOffset || data.getInt(offset) != CENTRAL_HEADER_SIGNATURE) {
+                throw new IOException("Invalid central directory header at offset " + offset + " of " + file);
+            }
+
+            int flags = Short.toUnsignedInt(data.getShort(offset + 8));
+            int method = Short.toUnsignedInt(data.getShort(offset + 10));
+            int dosTime = Short.toUnsignedInt(data.getShort(offset + 12));
+            int dosDate = Short.toUnsignedInt(data.getShort(offset + 14));
+            long compressedSize = Integer.toUnsignedLong(data.getInt(offset + 20));
+            long uncompressedSize = Integer.toUnsignedLong(data.getInt(offset + 24));
+            int nameLength = Short.toUnsignedInt(data.getShort(offset + 28));
+            int extraLength = Short.toUnsignedInt(data.getShort(offset + 30));
+            int commentLength = Short.toUnsignedInt(data.getShort(offset + 32));
+            long localHeaderOffset = Integer.toUnsignedLong(data.getInt(offset + 42));
+
+            int nameOffset = offset + CENTRAL_HEADER_SIZE;
+            Charset charset = (flags & FLAG_UTF8) != 0? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+            String name = readString(data, nameOffset, nameLength, charset);
+
+            if (uncompressedSize == ZIP64_MAGIC_32 || compressedSize == ZIP64_MAGIC_32 ||
+                localHeaderOffset == ZIP64_MAGIC_32) {
+                // The real values are in the ZIP64 extra field, in this order, but only the ones that didn't fit
+                int extraOffset = findExtraField(data, nameOffset + nameLength, extraLength, ZIP64_EXTRA_FIELD_ID);
+                if (extraOffset < 0) {
+                    throw new IOException("Missing ZIP64 extra field for entry " + name + " in " + file);
+                }
+
+                int valueOffset = extraOffset + 4;
+                if (uncompressedSize == ZIP64_MAGIC_32) {
+                    uncompressedSize = data.getLong(valueOffset);
+                    valueOffset += 8;
+                }
+                if (compressedSize == ZIP64_MAGIC_32) {
+                    compressedSize = data.getLong(valueOffset);
+                    valueOffset += 8;
+                }
+                if (localHeaderOffset == ZIP64_MAGIC_32) {
+                    localHeaderOffset = data.getLong(valueOffset);
+                }
+            }
+
+            boolean directory = name.endsWith("/");
+            String url = toUrl(name);
+
+            if (!url.equals(ROOT_URL)) {
+                Entry entry = entries.get(url);
+                if (entry == null) {
+                    entry = new Entry(url, url.substring(url.lastIndexOf('/') + 1), directory);
+                    addToParent(entries, entry);
+                } else if (entry.isDirectory() != directory) {
+                    throw new IOException("Entry " + name + " is both a file and a folder in " + file);
+                }
+
+                if (!directory) {
+                    entry.flags = flags;
+                    entry.method = method;
+                    entry.compressedSize = compressedSize;
+                    entry.size = uncompressedSize;
+                    entry.localHeaderOffset = localHeaderOffset;
+                }
+                entry.lastModified = dosToJavaTime(dosDate, dosTime);
+            }
+
+            offset = nameOffset + nameLength + extraLength + commentLength;
+        }
+
+        for (Entry entry : entries.values()) {
+            if (entry.children != null) {
+                ((ArrayList<String>) entry.children).trimToSize();
+            }
+        }
+
+        return entries;
+    }
+
+    private static void addToParent(Map<String, Entry> entries, Entry entry) throws IOException {
+        entries.put(entry.getUrl(), entry);
+
+        String url = entry.getUrl();
+        int lastSlash = url.lastIndexOf('/');
+        String parentUrl = lastSlash > 0? url.substring(0, lastSlash) : ROOT_URL;
+
+        Entry parent = entries.get(parentUrl);
+        if (parent == null) {
+            parent = new Entry(parentUrl, parentUrl.substring(parentUrl.lastIndexOf('/') + 1), true);
+            addToParent(entries, parent);
+        } else if (!parent.isDirectory()) {
+            throw new IOException("Entry " + parentUrl + " is both a file and a folder");
+        }
+
+        parent.children.add(entry.getName());
+    }
+
+    private static int findEndOfCentralDirectory(ByteBuffer data) {
+        int minOffset = Math.max(0, data.limit() - EOCD_MIN_SIZE - MAX_COMMENT_LENGTH);
+        for (int offset = data.limit() - EOCD_MIN_SIZE; offset >= minOffset; offset--) {
+            if (data.getInt(offset) == EOCD_SIGNATURE &&
+                offset + EOCD_MIN_SIZE + Short.toUnsignedInt(data.getShort(offset + 20)) == data.limit()) {
+                return offset;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int findExtraField(ByteBuffer data, int offset, int length, int id) {
+        int end = offset + length;
+        while (offset + 4 <= end) {
+            int fieldId = Short.toUnsignedInt(data.getShort(offset));
+            int fieldLength = Short.toUnsignedInt(data.getShort(offset + 2));
+            if (fieldId == id) {
+                return offset;
+            }
+
+            offset += 4 + fieldLength;
+        }
+
+        return -1;
+    }
+
+    private static String readString(ByteBuffer data, int offset, int length, Charset charset) {
+        byte[] bytes = new byte[length];
+        data.get(offset, bytes);
+
+        return new String(bytes, charset);
+    }
+
+    private static String toUrl(String name) {
+        String url = name.replace('\\', '/');
+        if (url.endsWith("/")) {
+            url = url.substring(0, url.length() - 1);
+        }
+
+        return url.startsWith("/")? url : "/" + url;
+    }
+
+    private static long dosToJavaTime(int dosDate, int dosTime) {
+        if (dosDate == 0) {
+            return 0;
+        }
+
+        try {
+            LocalDateTime time = LocalDateTime.of(((dosDate >> 9) & 0x7f) + 1980, (dosDate >> 5) & 0x0f,
+                                                  dosDate & 0x1f, (dosTime >> 11) & 0x1f, (dosTime >> 5) & 0x3f,
+                                                  (dosTime << 1) & 0x3e);
+
+            return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeException e) {
+            // Some tools write invalid dates, which are just ignored
+            return 0;
+        }
+    }
+
+    /**
+     * A file or folder in the archive.
+     */
+    public static class Entry {
+
+        private final String url;
+        private final String name;
+        private final List<String> children;
+        private int flags;
+        private int method;
+        private long compressedSize;
+        private long size;
+        private long localHeaderOffset;
+        private long lastModified;
+        private volatile int dataOffset;
+
+        private Entry(String url, String name, boolean directory) {
+            this.url = url;
+            this.name = name;
+            this.children = directory? new ArrayList<>() : null;
+            this.dataOffset = -1;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDirectory() {
+            return children != null;
+        }
+
+        /**
+         * Returns the names of the children of the folder, or null if the entry is a file.
+         */
+        public List<String> getChildren() {
+            return children != null? Collections.unmodifiableList(children) : null;
+        }
+
+        public int getMethod() {
+            return method;
+        }
+
+        public boolean isEncrypted() {
+            return (flags & FLAG_ENCRYPTED) != 0;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public String toString() {
+            return url;
+        }
+
+    }
+
+}
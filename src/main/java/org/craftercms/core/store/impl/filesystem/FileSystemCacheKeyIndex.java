@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.filesystem;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Index of the keys of the objects cached for a {@link FileSystemContext}, used by the
+ * {@link FileSystemContextWatcher} to find the objects affected by the files that change without going through all
+ * the keys of the cache scope. Each key is indexed by the URL it was cached for and by the URLs of the other cached
+ * objects that were used to load it (its dependencies, like the descriptors merged into an item or the components it
+ * includes). URLs are kept sorted, so the keys of a whole folder can be found by prefix.
+ * <p>Keys that leave the cache without going through the watcher (like the evicted ones) stay in the index until
+ * {@link #prune(Predicate)} is called.</p>
+ *
+ * @since 4.2.0
+ */
+public class FileSystemCacheKeyIndex {
+
+    protected final NavigableMap<String, Set<Object>> keysByUrl;
+    protected final Map<String, Set<Object>> keysByDependency;
+    protected final Map<Object, Entry> entries;
+
+    public FileSystemCacheKeyIndex() {
+        keysByUrl = new TreeMap<>();
+        keysByDependency = new HashMap<>();
+        entries = new HashMap<>();
+    }
+
+    /**
+     * Adds the key to the index, replacing its previous dependencies.
+     *
+     * @param key               the key of the cached object
+     * @param url               the URL the object was cached for
+     * @param dependencyUrls    the URLs of the objects used to load it
+     */
+    public synchronized void add(Object key, String url, Collection<String> dependencyUrls) {
+        remove(key);
+
+        Entry entry = new Entry(url, dependencyUrls.stream()
+                                                   .filter(dependencyUrl -> !dependencyUrl.equals(url))
+                                                   .distinct()
+                                                   .toArray(String[]::new));
+        entries.put(key, entry);
+        keysByUrl.computeIfAbsent(url, u -> new HashSet<>()).add(key);
+        for (String dependencyUrl : entry.dependencyUrls) {
+            keysByDependency.computeIfAbsent(dependencyUrl, u -> new HashSet<>()).add(key);
+        }
+    }
+
+    public synchronized void remove(Object key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            removeFrom(keysByUrl, entry.url, key);
+            for (String dependencyUrl : entry.dependencyUrls) {
+                removeFrom(keysByDependency, dependencyUrl, key);
+            }
+        }
+    }
+
+    /**
+     * Returns the URL the key was cached for, or null if it's not in the index.
+     */
+    public synchronized String getUrl(Object key) {
+        Entry entry = entries.get(key);
+
+        return entry != null? entry.url : null;
+    }
+
+    /**
+     * Returns the URLs of the dependencies of the key, or an empty list if it's not in the index.
+     */
+    public synchronized List<String> getDependencyUrls(Object key) {
+        Entry entry = entries.get(key);
+
+        return entry != null? List.of(entry.dependencyUrls) : List.of();
+    }
+
+    /**
+     * Returns the keys cached for the given URL.
+     */
+    public synchronized Set<Object> getKeys(String url) {
+        Set<Object> keys = keysByUrl.get(url);
+
+        return keys != null? new HashSet<>(keys) : new HashSet<>();
+    }
+
+    /**
+     * Returns the keys cached for the URLs that start with the given prefix.
+     */
+    public synchronized Set<Object> getKeysWithPrefix(String prefix) {
+        Set<Object> keys = new HashSet<>();
+        keysByUrl.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().forEach(keys::addAll);
+
+        return keys;
+    }
+
+    /**
+     * Returns the keys cached for the given folder and everything under it.
+     */
+    public synchronized Set<Object> getKeysUnder(String folderUrl) {
+        if (folderUrl.equals("/")) {
+            return getAllKeys();
+        }
+
+        Set<Object> keys = getKeys(folderUrl);
+        // '0' is the char that comes after '/'
+        keysByUrl.subMap(folderUrl + "/", true, folderUrl + "0", false).values().forEach(keys::addAll);
+
+        return keys;
+    }
+
+    /**
+     * Returns the keys that depend on the given URL.
+     */
+    public synchronized Set<Object> getDependentKeys(String url) {
+        Set<Object> keys = keysByDependency.get(url);
+
+        return keys != null? new HashSet<>(keys) : new HashSet<>();
+    }
+
+    public synchronized Set<Object> getAllKeys() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        keysByUrl.clear();
+        keysByDependency.clear();
+    }
+
+    /**
+     * Removes the keys that don't match the predicate, like the ones that are not in the cache anymore.
+     *
+     * @return the number of keys removed
+     */
+    public synchronized int prune(Predicate<Object> predicate) {
+        int removed = 0;
+        for (Object key : getAllKeys()) {
+            if (!predicate.test(key)) {
+                remove(key);
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
+    protected static void removeFrom(Map<String, Set<Object>> keysByUrl, String url, Object key) {
+        Set<Object> keys = keysByUrl.get(url);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysByUrl.remove(url);
+        }
+    }
+
+    protected static class Entry {
+
+        protected final String url;
+        protected final String[] dependencyUrls;
+
+        public Entry(String url, String[] dependencyUrls) {
+            this.url = url;
+            this.dependencyUrls = dependencyUrls;
+        }
+
+    }
+
+}
@@ -18,34 +18,99 @@ package org.craftercms.core.store.impl.filesystem;
 import org.craftercms.core.service.Content;
 
 import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 
 /**
- * Gives access to the content of a file in the local filesystem
+ * Gives access to the content of a file in the local filesystem. The last modified date and length are read from
+ * the file every time, like {@link java.io.File} does, since the content can be cached while the file is modified
+ * and they need to match the data returned by {@link #getInputStream()}.
  *
  * @author avasquez
  * @since 3.1.4
  */
 public class FileSystemContent implements Content {
 
-    private java.io.File file;
+    private Path path;
 
     public FileSystemContent(File file) {
-        this.file = file;
+        this(file.toPath());
+    }
+
+    /**
+     * Creates the content for the given path.
+     *
+     * @since 4.2.0
+     */
+    public FileSystemContent(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Returns the path of the file.
+     *
+     * @since 4.2.0
+     */
+    public Path getPath() {
+        return path;
     }
 
     @Override
     public long getLastModified() {
-        return file.lastModified();
+        BasicFileAttributes attrs = getAttributes();
+
+        return attrs != null? attrs.lastModifiedTime().toMillis() : 0L;
     }
 
     @Override
     public long getLength() {
-        return file.length();
+        BasicFileAttributes attrs = getAttributes();
+
+        return attrs != null? attrs.size() : 0L;
     }
 
     @Override
     public InputStream getInputStream() throws FileNotFoundException {
-        return new BufferedInputStream(new FileInputStream(file));
+        try {
+            return new BufferedInputStream(Files.newInputStream(path));
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(path.toString());
+        } catch (IOException e) {
+            throw (FileNotFoundException) new FileNotFoundException(path + " (" + e.getMessage() + ")").initCause(e);
+        }
+    }
+
+    /**
+     * Returns a {@link FileChannel} for the file.
+     */
+    @Override
+    public ReadableByteChannel getChannel() throws IOException {
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(path.toString());
+        }
+    }
+
+    /**
+     * Maps the whole file into memory. The mapping stays valid after the channel used to create it is closed. See
+     * {@link Content#map()} for what happens if the file is truncated while the buffer is in use.
+     */
+    @Override
+    public MappedByteBuffer map() throws IOException {
+        try (FileChannel channel = (FileChannel) getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    protected BasicFileAttributes getAttributes() {
+        return FileSystemFile.readAttributes(path);
     }
 
 }
@@ -15,6 +15,8 @@
  */
 package org.craftercms.core.store.impl.filesystem;
 
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.core.exception.AuthenticationException;
 import org.craftercms.core.exception.InvalidContextException;
@@ -25,15 +27,31 @@ import org.craftercms.core.service.Content;
 import org.craftercms.core.service.Context;
 import org.craftercms.core.store.impl.AbstractFileBasedContentStoreAdapter;
 import org.craftercms.core.store.impl.File;
+import org.craftercms.core.store.impl.PathExistenceFilter;
+import org.craftercms.core.util.ContentStoreUtils;
 import org.craftercms.core.util.cache.CacheTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.validation.Validator;
 
-import java.io.FileFilter;
 import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 
@@ -44,12 +62,85 @@ import java.util.Map;
  */
 public class FileSystemContentStoreAdapter extends AbstractFileBasedContentStoreAdapter implements ResourceLoaderAware {
 
+    private static final Logger logger = LoggerFactory.getLogger(FileSystemContentStoreAdapter.class);
+
     public static final String STORE_TYPE = "filesystem";
 
+    private static final DirectoryStream.Filter<Path> ACCEPT_ALL_FILTER = path -> true;
+    private static final DirectoryStream.Filter<Path> IGNORE_HIDDEN_FILES_FILTER = path -> !Files.isHidden(path);
+
     private ResourceLoader resourceLoader;
+    private boolean watcherEnabled;
+    private long watcherQuietPeriod;
+    private String levelDescriptorName;
+    private String[] sharedPaths;
+    private String[] scopeClearingPaths;
+    private boolean existenceFilterEnabled;
+    private double existenceFilterFalsePositiveProbability;
+    private boolean pathIndexEnabled;
+    private String pathIndexFolder;
 
     public FileSystemContentStoreAdapter(Validator pathValidator, String descriptorFileExtension, String metadataFileExtension, CacheTemplate cacheTemplate) {
         super(pathValidator, descriptorFileExtension, metadataFileExtension, cacheTemplate);
+        this.watcherQuietPeriod = FileSystemContextWatcher.DEFAULT_QUIET_PERIOD;
+        this.existenceFilterFalsePositiveProbability = PathExistenceFilter.DEFAULT_FALSE_POSITIVE_PROBABILITY;
+    }
+
+    /**
+     * Sets if the root folder of each context with cache on should be watched, so that only the cached objects
+     * affected by a file change are removed (see {@link FileSystemContextWatcher}).
+     */
+    public void setWatcherEnabled(boolean watcherEnabled) {
+        this.watcherEnabled = watcherEnabled;
+    }
+
+    public void setWatcherQuietPeriod(long watcherQuietPeriod) {
+        this.watcherQuietPeriod = watcherQuietPeriod;
+    }
+
+    public void setLevelDescriptorName(String levelDescriptorName) {
+        this.levelDescriptorName = levelDescriptorName;
+    }
+
+    public void setSharedPaths(String[] sharedPaths) {
+        this.sharedPaths = sharedPaths;
+    }
+
+    public void setScopeClearingPaths(String[] scopeClearingPaths) {
+        this.scopeClearingPaths = scopeClearingPaths;
+    }
+
+    /**
+     * Sets if each watched context should keep a {@link PathExistenceFilter} of its paths, so that lookups of paths
+     * that don't exist are answered without going to the cache or the filesystem. The filter is kept up to date by
+     * the watcher, which adds the created paths as soon as their events arrive, so it's only used when the watcher
+     * is enabled. Like the cache, it can miss a file for the short time the watch service takes to report it.
+     */
+    public void setExistenceFilterEnabled(boolean existenceFilterEnabled) {
+        this.existenceFilterEnabled = existenceFilterEnabled;
+    }
+
+    public void setExistenceFilterFalsePositiveProbability(double existenceFilterFalsePositiveProbability) {
+        this.existenceFilterFalsePositiveProbability = existenceFilterFalsePositiveProbability;
+    }
+
+    /**
+     * Sets if each watched context should keep a {@link FileSystemPathIndex} of its paths, used for lookups and
+     * listings instead of the filesystem. The index is kept up to date by the watcher, so it's only used when the
+     * watcher is enabled. Paths that are not in the index are still looked up in the filesystem, since they could
+     * have been created after the last update of the index. The index is loaded or built in the background when
+     * the context is created, and the filesystem is used until it's ready.
+     */
+    public void setPathIndexEnabled(boolean pathIndexEnabled) {
+        this.pathIndexEnabled = pathIndexEnabled;
+    }
+
+    /**
+     * Sets the folder where the path indexes are saved when their contexts are destroyed, to be loaded the next time
+     * the contexts are created.
+     */
+    public void setPathIndexFolder(String pathIndexFolder) {
+        this.pathIndexFolder = pathIndexFolder;
     }
 
     @Override
@@ -75,8 +166,37 @@ public class FileSystemContentStoreAdapter extends AbstractFileBasedContentStore
             throw new StoreException("Unable to retrieve file handle for root folder " + rootFolderPath, e);
         }
 
-        return new FileSystemContext(id, this, rootFolderPath, rootFolder, mergingOn, cacheOn, maxAllowedItemsInCache,
-                                     ignoreHiddenFiles, configurationVariables);
+        FileSystemContext context = new FileSystemContext(id, this, rootFolderPath, rootFolder, mergingOn, cacheOn,
+                                                          maxAllowedItemsInCache, ignoreHiddenFiles,
+                                                          configurationVariables);
+        if (watcherEnabled && cacheOn) {
+            // The filter needs to be in the context before the watcher starts, so that no created path is missed
+            if (existenceFilterEnabled) {
+                context.setExistenceFilter(new PathExistenceFilter(PathExistenceFilter.DEFAULT_INITIAL_CAPACITY,
+                                                                   existenceFilterFalsePositiveProbability));
+            }
+            if (pathIndexEnabled) {
+                context.setPathIndex(new FileSystemPathIndex(context.getRootFolder().toPath()));
+            }
+
+            FileSystemContextWatcher watcher = createWatcher(context);
+            if (watcher != null) {
+                context.setWatcher(watcher);
+
+                if (pathIndexEnabled) {
+                    loadPathIndex(context);
+                }
+                if (existenceFilterEnabled) {
+                    buildExistenceFilter(context);
+                }
+            } else {
+                // Without the watcher, the filter and the index wouldn't know about the changes
+                context.setExistenceFilter(null);
+                context.setPathIndex(null);
+            }
+        }
+
+        return context;
     }
 
     @Override
@@ -88,22 +208,197 @@ public class FileSystemContentStoreAdapter extends AbstractFileBasedContentStore
 
     @Override
     public void destroyContext(Context context) throws InvalidContextException, StoreException, AuthenticationException {
-        // Nothing to destroy
+        FileSystemContextWatcher watcher = ((FileSystemContext)context).getWatcher();
+        if (watcher != null) {
+            watcher.close();
+        }
+
+        FileSystemPathIndex index = ((FileSystemContext)context).getPathIndex();
+        if (index != null && index.isReady()) {
+            try {
+                index.save(getPathIndexFile(index));
+            } catch (IOException e) {
+                logger.warn("Unable to save the path index of {}", index.getRootFolder(), e);
+            }
+        }
+    }
+
+    /**
+     * Loads the context's path index in the background from the file saved by a previous run, or builds it if
+     * there's none. Files are looked up in the filesystem until the index is ready. If the index can't be built, the
+     * context works without it.
+     */
+    protected void loadPathIndex(FileSystemContext context) {
+        FileSystemPathIndex index = context.getPathIndex();
+
+        Thread loader = new Thread(() -> {
+            try {
+                index.load(getPathIndexFile(index));
+            } catch (IOException e) {
+                logger.warn("Unable to index {}, its files will be looked up in the filesystem",
+                            index.getRootFolder(), e);
+
+                context.setPathIndex(null);
+            }
+        }, "crafter-fs-path-index-" + context.getId());
+
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    protected Path getPathIndexFile(FileSystemPathIndex index) {
+        String name = DigestUtils.sha1Hex(index.getRootFolder().toString()) + FileSystemPathIndex.INDEX_FILE_EXTENSION;
+
+        return Path.of(pathIndexFolder, name);
+    }
+
+    /**
+     * Creates and starts the watcher of the context. If the folders can't be watched (e.g. because the inotify
+     * watch limit was reached), returns null, so that the context works without a watcher and relies on the cache
+     * ticks instead.
+     */
+    protected FileSystemContextWatcher createWatcher(FileSystemContext context) {
+        FileSystemContextWatcher watcher = new FileSystemContextWatcher(context, cacheTemplate.getCacheService(),
+                                                                        context.getRootFolder().toPath(),
+                                                                        metadataFileExtension);
+        watcher.setQuietPeriod(watcherQuietPeriod);
+        watcher.setLevelDescriptorName(levelDescriptorName);
+        watcher.setSharedPaths(sharedPaths);
+        watcher.setScopeClearingPaths(scopeClearingPaths);
+
+        try {
+            watcher.start();
+        } catch (IOException e) {
+            watcher.close();
+
+            logger.warn("Unable to watch root folder {} for changes, its cache will only be refreshed by the " +
+                        "cache ticks", context.getRootFolder(), e);
+
+            return null;
+        }
+
+        return watcher;
+    }
+
+    /**
+     * Adds all the paths under the root folder to the context's existence filter in a background thread, and marks
+     * the filter as ready when done. Lookups are not filtered while the filter is being built.
+     */
+    protected void buildExistenceFilter(FileSystemContext context) {
+        Path rootFolder = context.getRootFolder().toPath();
+
+        Thread builder = new Thread(() -> {
+            PathExistenceFilter filter = context.getExistenceFilter();
+            try {
+                // Links are followed, like they are when the files are looked up
+                Files.walkFileTree(rootFolder, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                                   new SimpleFileVisitor<>() {
+
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        filter.add(getUrl(rootFolder, dir));
+
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        filter.add(getUrl(rootFolder, file));
+
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                        if (e instanceof FileSystemLoopException) {
+                            // The link itself is a path of the store, but what it points to is already in the filter
+                            filter.add(getUrl(rootFolder, file));
+
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        throw e;
+                    }
+
+                });
+
+                filter.setReady(true);
+
+                logger.info("Existence filter of {} ready: {}", rootFolder, filter);
+            } catch (IOException e) {
+                logger.error("Unable to build the existence filter of " + rootFolder + ", it will be disabled", e);
+
+                context.setExistenceFilter(null);
+            }
+        }, "crafter-fs-existence-filter-" + context.getId());
+
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @Override
+    protected boolean isDefinitelyAbsent(Context context, String path) {
+        PathExistenceFilter filter = ((FileSystemContext)context).getExistenceFilter();
+        if (filter != null && filter.isReady()) {
+            // Invalid paths still need to fail like they do when there's no filter
+            validatePath(path);
+
+            String url = ContentStoreUtils.normalizePath(path);
+
+            return !filter.mightContain(url);
+        }
+
+        return false;
+    }
+
+    @Override
+    protected void onPathNotFound(Context context, String path) {
+        PathExistenceFilter filter = ((FileSystemContext)context).getExistenceFilter();
+        if (filter != null && filter.isReady()) {
+            filter.recordFalsePositive();
+        }
+    }
+
+    protected String getUrl(Path rootFolder, Path path) {
+        return "/" + FilenameUtils.separatorsToUnix(rootFolder.relativize(path).toString());
     }
 
     @Override
     protected Content getContent(Context context, CachingOptions cachingOptions,
                                  File file) throws InvalidContextException, StoreException {
-        return new FileSystemContent(((FileSystemFile)file).getFile());
+        return new FileSystemContent(((FileSystemFile)file).toPath());
     }
 
     @Override
     protected File findFile(Context context, CachingOptions cachingOptions, String path) {
         FileSystemFile rootFolder = ((FileSystemContext)context).getRootFolder();
+        FileSystemPathIndex index = ((FileSystemContext)context).getPathIndex();
+
+        if (index != null && index.isReady()) {
+            String url = ContentStoreUtils.normalizePath(path);
+            FileSystemPathIndex.Entry entry = index.get(url);
+
+            if (entry != null) {
+                return new FileSystemFile(index.getPath(url), entry);
+            }
+
+            // The file could have been created after the last update of the index, check the filesystem
+        }
+
+        // Strip the leading slash, since an absolute path would be resolved against the filesystem root
+        path = StringUtils.stripStart(path, "/");
 
         if (StringUtils.isNotEmpty(path)) {
-            FileSystemFile file = new FileSystemFile(rootFolder, path);
-            if (file.getFile().exists()) {
+            FileSystemFile file;
+            try {
+                file = new FileSystemFile(rootFolder, path);
+            } catch (InvalidPathException e) {
+                // Same as java.io.File, a name the filesystem doesn't accept is just a file that doesn't exist
+                return null;
+            }
+
+            // A single call to the filesystem: the attributes are kept by the file for the rest of the checks
+            if (file.exists()) {
                 return file;
             } else {
                 return null;
@@ -114,38 +409,59 @@ public class FileSystemContentStoreAdapter extends AbstractFileBasedContentStore
     }
 
     @Override
-    protected List<File> getChildren(Context context, CachingOptions cachingOptions, File dir) {
-        java.io.File[] listing;
-        if (context.ignoreHiddenFiles()) {
-            listing = ((FileSystemFile)dir).getFile().listFiles(IgnoreHiddenFileFilter.INSTANCE);
-        } else {
-            listing = ((FileSystemFile)dir).getFile().listFiles();
+    protected List<File> getChildren(Context context, CachingOptions cachingOptions, File dir) throws StoreException {
+        Path dirPath = ((FileSystemFile)dir).toPath();
+        FileSystemPathIndex index = ((FileSystemContext)context).getPathIndex();
+
+        if (index != null && index.isReady()) {
+            List<File> children = getIndexedChildren(context, index, dirPath);
+            if (children != null) {
+                return children;
+            }
+
+            // The folder could have been created after the last update of the index, list it from the filesystem
         }
 
-        if (listing != null) {
-            List<File> children = new ArrayList<File>(listing.length);
-            for (java.io.File file : listing) {
-                children.add(new FileSystemFile(file));
+        DirectoryStream.Filter<Path> filter = context.ignoreHiddenFiles()? IGNORE_HIDDEN_FILES_FILTER : ACCEPT_ALL_FILTER;
+
+        try (DirectoryStream<Path> listing = Files.newDirectoryStream(dirPath, filter)) {
+            List<File> children = new ArrayList<>();
+            for (Path path : listing) {
+                // The attributes are read with the listing, so the callers can check the type of each child
+                // without going back to the filesystem
+                BasicFileAttributes attributes = FileSystemFile.readAttributes(path);
+                if (attributes != null) {
+                    children.add(new FileSystemFile(path, attributes));
+                }
             }
 
             return children;
-        } else {
+        } catch (NotDirectoryException | NoSuchFileException e) {
             return null;
+        } catch (IOException | DirectoryIteratorException e) {
+            throw new StoreException("Unable to list the children of " + dir, e);
         }
     }
 
-    private static class IgnoreHiddenFileFilter implements FileFilter {
-
-        public static final IgnoreHiddenFileFilter INSTANCE = new IgnoreHiddenFileFilter();
+    protected List<File> getIndexedChildren(Context context, FileSystemPathIndex index, Path dirPath) {
+        String dirUrl = index.getUrl(dirPath);
+        FileSystemPathIndex.Entry dirEntry = index.get(dirUrl);
 
-        private IgnoreHiddenFileFilter() {
+        if (dirEntry == null || !dirEntry.isDirectory()) {
+            return null;
         }
 
-        @Override
-        public boolean accept(java.io.File pathname) {
-            return !pathname.isHidden();
+        List<File> children = new ArrayList<>(dirEntry.getChildren().size());
+        for (String name : dirEntry.getChildren()) {
+            String childUrl = dirUrl.equals("/")? "/" + name : dirUrl + "/" + name;
+            FileSystemPathIndex.Entry entry = index.get(childUrl);
+
+            if (entry != null && !(context.ignoreHiddenFiles() && entry.isHidden())) {
+                children.add(new FileSystemFile(dirPath.resolve(name), entry));
+            }
         }
 
+        return children;
     }
 
 }
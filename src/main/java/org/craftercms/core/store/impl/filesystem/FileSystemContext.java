@@ -16,6 +16,8 @@
 package org.craftercms.core.store.impl.filesystem;
 
 import org.craftercms.core.service.ContextImpl;
+import org.craftercms.core.store.impl.PathExistenceFilter;
+import org.craftercms.core.util.cache.CacheObjectListener;
 
 import java.util.Map;
 
@@ -27,6 +29,9 @@ import java.util.Map;
 public class FileSystemContext extends ContextImpl {
 
     private final FileSystemFile rootFolder;
+    private FileSystemContextWatcher watcher;
+    private volatile PathExistenceFilter existenceFilter;
+    private volatile FileSystemPathIndex pathIndex;
 
     public FileSystemContext(String id, FileSystemContentStoreAdapter storeAdapter, String rootFolderPath,
                              FileSystemFile rootFolder, boolean mergingOn, boolean cacheOn, int maxAllowedItemsInCache,
@@ -40,5 +45,62 @@ public class FileSystemContext extends ContextImpl {
         return rootFolder;
     }
 
+    /**
+     * Returns the watcher that invalidates the cache of the context when its files change, or null if the files
+     * are not being watched.
+     *
+     * @since 4.2.0
+     */
+    public FileSystemContextWatcher getWatcher() {
+        return watcher;
+    }
+
+    public void setWatcher(FileSystemContextWatcher watcher) {
+        this.watcher = watcher;
+    }
+
+    /**
+     * Returns the generation of the {@link #getWatcher() watcher}, which changes every time it removes objects from
+     * the cache.
+     */
+    @Override
+    public long getCacheGeneration() {
+        return watcher != null? watcher.getGeneration() : 0;
+    }
+
+    /**
+     * Returns the {@link #getWatcher() watcher}, which keeps track of the cached objects to find the ones affected
+     * by the files that change.
+     */
+    @Override
+    public CacheObjectListener getCacheObjectListener() {
+        return watcher;
+    }
+
+    /**
+     * Returns the filter of the paths that exist under the root folder, or null if the context doesn't use one.
+     *
+     * @since 4.2.0
+     */
+    public PathExistenceFilter getExistenceFilter() {
+        return existenceFilter;
+    }
+
+    public void setExistenceFilter(PathExistenceFilter existenceFilter) {
+        this.existenceFilter = existenceFilter;
+    }
+
+    /**
+     * Returns the index of the paths under the root folder, or null if the context doesn't use one.
+     *
+     * @since 4.2.0
+     */
+    public FileSystemPathIndex getPathIndex() {
+        return pathIndex;
+    }
+
+    public void setPathIndex(FileSystemPathIndex pathIndex) {
+        this.pathIndex = pathIndex;
+    }
 
 }
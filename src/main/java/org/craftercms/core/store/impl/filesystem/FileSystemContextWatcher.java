@@ -0,0 +1,679 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.filesystem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.core.service.CacheService;
+import org.craftercms.core.service.Context;
+import org.craftercms.core.store.impl.PathExistenceFilter;
+import org.craftercms.core.util.ContentStoreUtils;
+import org.craftercms.core.util.cache.CacheObjectListener;
+import org.craftercms.core.util.cache.impl.CompositeCacheKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.craftercms.core.service.impl.AbstractCachedContentStoreService.CONST_KEY_ELEM_CHILDREN;
+import static org.craftercms.core.service.impl.AbstractCachedContentStoreService.CONST_KEY_ELEM_CHILDREN_PAGE;
+import static org.craftercms.core.service.impl.AbstractCachedContentStoreService.CONST_KEY_ELEM_TREE;
+import static org.craftercms.core.store.impl.AbstractCachedContentStoreAdapter.CONST_KEY_ELEM_ITEMS;
+
+/**
+ * Watches the root folder of a {@link FileSystemContext} and, when files change, removes from the context's cache
+ * scope only the store adapter ({@code contentStoreAdapter.*}) and store service ({@code contentStoreService.*})
+ * objects affected by the change, instead of clearing the whole scope. For each changed URL the following objects are
+ * removed:
+ * <ul>
+ *     <li>All the objects cached for the URL itself.</li>
+ *     <li>The objects cached for its metadata file (or, if the URL is a metadata file, for the folder or static asset
+ *     it describes).</li>
+ *     <li>The children listings of its parent folder, and the trees of all its ancestors.</li>
+ *     <li>If it's a level descriptor, the store service objects of the whole folder, since the descriptors below it
+ *     inherit from it.</li>
+ *     <li>If it's under one of the {@code sharedPaths} (e.g. components that are included by other descriptors), all
+ *     the store service objects of the scope. The store adapter objects are kept, so the descriptors don't need to be
+ *     read and parsed again.</li>
+ *     <li>If it's under one of the {@code scopeClearingPaths}, the whole scope.</li>
+ *     <li>The objects that were loaded from any of the objects above, like the items that inherit from a changed
+ *     descriptor (through levels, an explicit parent or a content bundle) or include it, and so on.</li>
+ * </ul>
+ * The watcher is the {@link CacheObjectListener} of the context, so it's notified of every object a
+ * {@link org.craftercms.core.util.cache.CacheTemplate} caches, along with the objects that were requested while
+ * loading it, and keeps a {@link FileSystemCacheKeyIndex} of them. The affected objects are found through the index,
+ * without going through all the keys of the scope.
+ * <p>Every time objects are removed the {@link #getGeneration() generation} of the watcher changes, so that the
+ * objects that started loading before (which could come from the previous files) are not cached.</p>
+ * <p>Events are collected until no new ones arrive for {@code quietPeriod} milliseconds, so a publish that touches
+ * many files results in a single invalidation. If the watch service reports lost events, the whole scope is cleared.
+ * Objects cached in the scope by other components are not touched.</p>
+ * <p>If the context is a {@link FileSystemContext} with a {@link PathExistenceFilter}, the created paths are added to
+ * the filter as soon as their events arrive. If events are lost, the filter is removed from the context, since it
+ * could be missing paths.</p>
+ * <p>If the context has a {@link FileSystemPathIndex}, the index is updated before the cache, so that the objects
+ * loaded again don't come from outdated entries. If events are lost, the index is rebuilt.</p>
+ *
+ * @since 4.2.0
+ */
+public class FileSystemContextWatcher implements Closeable, CacheObjectListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSystemContextWatcher.class);
+
+    public static final long DEFAULT_QUIET_PERIOD = 500;
+
+    /**
+     * Min number of keys in the index before it's pruned. After pruning, it's pruned again when it doubles its size.
+     */
+    private static final int MIN_KEY_INDEX_PRUNE_THRESHOLD = 1024;
+
+    private static final String THREAD_NAME_PREFIX = "crafter-fs-watcher-";
+    private static final String ADAPTER_KEY_PREFIX = "contentStoreAdapter.";
+    private static final String SERVICE_KEY_PREFIX = "contentStoreService.";
+
+    protected final Context context;
+    protected final CacheService cacheService;
+    protected final Path rootFolder;
+    protected final String metadataFileExtension;
+
+    protected String levelDescriptorName;
+    protected String[] sharedPaths;
+    protected String[] scopeClearingPaths;
+    protected long quietPeriod;
+
+    protected WatchService watchService;
+    protected Map<WatchKey, Path> watchedFolders;
+    protected Map<Path, WatchKey> watchKeys;
+    protected Thread thread;
+    protected volatile boolean running;
+
+    protected final AtomicLong generation;
+    protected final FileSystemCacheKeyIndex keyIndex;
+    protected long indexedCacheVersion;
+    protected int keyIndexPruneThreshold;
+
+    public FileSystemContextWatcher(Context context, CacheService cacheService, Path rootFolder,
+                                    String metadataFileExtension) {
+        this.context = context;
+        this.cacheService = cacheService;
+        this.rootFolder = rootFolder;
+        this.metadataFileExtension = metadataFileExtension;
+        this.sharedPaths = new String[0];
+        this.scopeClearingPaths = new String[0];
+        this.quietPeriod = DEFAULT_QUIET_PERIOD;
+        this.watchedFolders = new ConcurrentHashMap<>();
+        this.watchKeys = new ConcurrentHashMap<>();
+        this.generation = new AtomicLong();
+        this.keyIndex = new FileSystemCacheKeyIndex();
+        this.indexedCacheVersion = context.getCacheVersion();
+        this.keyIndexPruneThreshold = MIN_KEY_INDEX_PRUNE_THRESHOLD;
+    }
+
+    public void setLevelDescriptorName(String levelDescriptorName) {
+        this.levelDescriptorName = levelDescriptorName;
+    }
+
+    public void setSharedPaths(String[] sharedPaths) {
+        this.sharedPaths = normalizePaths(sharedPaths);
+    }
+
+    public void setScopeClearingPaths(String[] scopeClearingPaths) {
+        this.scopeClearingPaths = normalizePaths(scopeClearingPaths);
+    }
+
+    public void setQuietPeriod(long quietPeriod) {
+        this.quietPeriod = quietPeriod;
+    }
+
+    /**
+     * Returns the number of folders being watched.
+     */
+    public int getWatchedFolderCount() {
+        return watchedFolders.size();
+    }
+
+    /**
+     * Returns the generation of the cached objects, which changes every time the watcher removes objects from the
+     * cache.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the index of the cached objects.
+     */
+    public FileSystemCacheKeyIndex getKeyIndex() {
+        return keyIndex;
+    }
+
+    /**
+     * Registers all the folders under the root folder and starts the thread that processes the events.
+     */
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        registerTree(rootFolder, null);
+
+        running = true;
+        thread = new Thread(this::processEvents, THREAD_NAME_PREFIX + context.getId());
+        thread.setDaemon(true);
+        thread.start();
+
+        logger.info("Watching {} folders under {} for changes", watchedFolders.size(), rootFolder);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn("Unable to close the watch service for {}", rootFolder, e);
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public void objectCached(Object key, Collection<Object> dependencyKeys) {
+        List<String> dependencyUrls = new ArrayList<>(dependencyKeys.size());
+        for (Object dependencyKey : dependencyKeys) {
+            String dependencyUrl = getCachedUrl(dependencyKey);
+            if (dependencyUrl != null) {
+                dependencyUrls.add(dependencyUrl);
+            }
+        }
+
+        index(key, dependencyUrls);
+    }
+
+    /**
+     * Adds the key of a cached object to the index, if it's a store adapter or store service object.
+     *
+     * @param key               the key of the object
+     * @param dependencyUrls    the URLs of the objects it was loaded from
+     */
+    public void index(Object key, Collection<String> dependencyUrls) {
+        String url = getCachedUrl(key);
+        if (url == null) {
+            return;
+        }
+
+        synchronized (keyIndex) {
+            long cacheVersion = context.getCacheVersion();
+            if (cacheVersion != indexedCacheVersion) {
+                // The scope was renewed, so the indexed objects are not in the cache anymore
+                keyIndex.clear();
+                indexedCacheVersion = cacheVersion;
+            }
+
+            keyIndex.add(key, url, dependencyUrls);
+
+            if (keyIndex.size() > keyIndexPruneThreshold) {
+                int pruned = keyIndex.prune(this::isCached);
+                keyIndexPruneThreshold = Math.max(MIN_KEY_INDEX_PRUNE_THRESHOLD, keyIndex.size() * 2);
+
+                logger.debug("Removed {} keys that are not cached anymore from the index of context {}", pruned,
+                             context);
+            }
+        }
+    }
+
+    /**
+     * Removes from the cache the objects affected by changes to the specified URLs.
+     *
+     * @param changedUrls        the URLs of the files or folders that were created, modified or deleted
+     * @param removedFolderUrls  the URLs of the folders that were deleted, whose whole content is removed from the
+     *                           cache
+     */
+    public void invalidate(Collection<String> changedUrls, Collection<String> removedFolderUrls) {
+        // Objects that started loading before this point could come from the previous files
+        generation.incrementAndGet();
+
+        Set<String> urls = new HashSet<>();
+        Set<String> describedUrls = new HashSet<>();
+        Set<String> listingUrls = new HashSet<>();
+        Set<String> treeUrls = new HashSet<>();
+        List<String> servicePrefixes = new ArrayList<>();
+        boolean clearServiceObjects = false;
+
+        for (String url : changedUrls) {
+            if (isUnder(url, scopeClearingPaths)) {
+                logger.debug("{} changed, clearing the whole cache of context {}", url, context);
+
+                clearScope();
+                return;
+            }
+
+            clearServiceObjects |= isUnder(url, sharedPaths);
+
+            urls.add(url);
+            if (url.endsWith(metadataFileExtension)) {
+                describedUrls.add(StringUtils.removeEnd(url, metadataFileExtension));
+            } else {
+                urls.add(FilenameUtils.removeExtension(url) + metadataFileExtension);
+            }
+
+            String parentUrl = getParentUrl(url);
+            if (parentUrl != null) {
+                listingUrls.add(parentUrl);
+                if (FilenameUtils.getName(url).equals(levelDescriptorName)) {
+                    servicePrefixes.add(parentUrl);
+                }
+
+                for (String ancestor = parentUrl; ancestor != null; ancestor = getParentUrl(ancestor)) {
+                    treeUrls.add(ancestor);
+                }
+            }
+        }
+
+        Set<Object> keys = new HashSet<>();
+        if (clearServiceObjects) {
+            addKeys(keys, keyIndex.getAllKeys(), this::isServiceKey);
+        }
+        for (String url : urls) {
+            keys.addAll(keyIndex.getKeys(url));
+        }
+        for (String describedUrl : describedUrls) {
+            addKeys(keys, keyIndex.getKeysWithPrefix(describedUrl),
+                    key -> describedUrl.equals(FilenameUtils.removeExtension(keyIndex.getUrl(key))));
+        }
+        for (String listingUrl : listingUrls) {
+            addKeys(keys, keyIndex.getKeys(listingUrl), key -> isListing(getType(key)));
+        }
+        for (String treeUrl : treeUrls) {
+            addKeys(keys, keyIndex.getKeys(treeUrl), key -> getType(key).equals(CONST_KEY_ELEM_TREE));
+        }
+        for (String servicePrefix : servicePrefixes) {
+            addKeys(keys, keyIndex.getKeysUnder(servicePrefix), this::isServiceKey);
+        }
+        for (String removedFolderUrl : removedFolderUrls) {
+            keys.addAll(keyIndex.getKeysUnder(removedFolderUrl));
+        }
+
+        // Then the objects loaded from the changed files or from any of the objects being removed, recursively
+        Set<String> visitedUrls = new HashSet<>(urls);
+        Deque<String> pendingUrls = new ArrayDeque<>(urls);
+        for (Object key : keys) {
+            addUrl(keyIndex.getUrl(key), visitedUrls, pendingUrls);
+        }
+        while (!pendingUrls.isEmpty()) {
+            for (Object key : keyIndex.getDependentKeys(pendingUrls.poll())) {
+                if (keys.add(key)) {
+                    addUrl(keyIndex.getUrl(key), visitedUrls, pendingUrls);
+                }
+            }
+        }
+
+        int removed = 0;
+        for (Object key : keys) {
+            keyIndex.remove(key);
+            if (cacheService.remove(context, key)) {
+                removed++;
+            }
+        }
+
+        logger.debug("Removed {} objects from the cache of context {} after changes to {}", removed, context,
+                     changedUrls);
+    }
+
+    /**
+     * Clears the whole cache scope of the context, along with the index.
+     */
+    protected void clearScope() {
+        generation.incrementAndGet();
+        keyIndex.clear();
+
+        cacheService.clearScope(context);
+    }
+
+    protected void processEvents() {
+        while (running) {
+            try {
+                Set<String> changedUrls = new HashSet<>();
+                Set<String> removedFolderUrls = new HashSet<>();
+                boolean overflow = false;
+
+                // Wait for the first event, then keep collecting until there's a quiet period
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    overflow |= collectEvents(key, changedUrls, removedFolderUrls);
+                    key = watchService.poll(quietPeriod, TimeUnit.MILLISECONDS);
+                }
+
+                if (overflow) {
+                    logger.info("Some file events of {} were lost, clearing the whole cache of context {}",
+                                rootFolder, context);
+
+                    disableExistenceFilter();
+                    rebuildPathIndex();
+
+                    clearScope();
+                } else if (!changedUrls.isEmpty()) {
+                    updatePathIndex(changedUrls);
+                    invalidate(changedUrls, removedFolderUrls);
+                }
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                logger.warn("Error while processing the file events of {}", rootFolder, e);
+            }
+        }
+    }
+
+    /**
+     * Adds the URLs of the key's events to the given sets, registering any new folder.
+     *
+     * @return true if events were lost
+     */
+    protected boolean collectEvents(WatchKey key, Set<String> changedUrls, Set<String> removedFolderUrls)
+            throws IOException {
+        boolean overflow = false;
+        Path folder = watchedFolders.get(key);
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || folder == null) {
+                overflow = true;
+                continue;
+            }
+
+            Path path = folder.resolve((Path) event.context());
+            if (context.ignoreHiddenFiles() && Files.isHidden(path)) {
+                continue;
+            }
+
+            changedUrls.add(getUrl(path));
+
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                addToExistenceFilter(getUrl(path));
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                registerTree(path, changedUrls);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE && watchKeys.containsKey(path)) {
+                removedFolderUrls.add(getUrl(path));
+                unregisterTree(path);
+            }
+        }
+
+        if (!key.reset()) {
+            Path removed = watchedFolders.remove(key);
+            if (removed != null) {
+                watchKeys.remove(removed);
+            }
+        }
+
+        return overflow;
+    }
+
+    /**
+     * Registers the folder and all its subfolders in the watch service. If {@code createdUrls} is not null, the URLs
+     * of all the files found are added to it (since they were created with the folder).
+     */
+    protected void registerTree(Path folder, Set<String> createdUrls) throws IOException {
+        // Links are followed, so that changes in linked folders are also seen
+        Files.walkFileTree(folder, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                           new SimpleFileVisitor<>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(rootFolder) && context.ignoreHiddenFiles() && Files.isHidden(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                            StandardWatchEventKinds.ENTRY_DELETE,
+                                            StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedFolders.put(key, dir);
+                watchKeys.put(dir, key);
+
+                if (createdUrls != null) {
+                    createdUrls.add(getUrl(dir));
+                    addToExistenceFilter(getUrl(dir));
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (createdUrls != null) {
+                    createdUrls.add(getUrl(file));
+                    addToExistenceFilter(getUrl(file));
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                if (e instanceof FileSystemLoopException) {
+                    // The folder the link points to is already registered
+                    logger.debug("Link {} creates a cycle, it won't be registered again", file);
+
+                    if (createdUrls != null) {
+                        createdUrls.add(getUrl(file));
+                        addToExistenceFilter(getUrl(file));
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+
+                // The file could have been deleted while walking the tree
+                logger.debug("Unable to visit {}", file, e);
+
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+    }
+
+    protected void unregisterTree(Path folder) {
+        watchKeys.entrySet().removeIf(entry -> {
+            if (entry.getKey().startsWith(folder)) {
+                entry.getValue().cancel();
+                watchedFolders.remove(entry.getValue());
+
+                return true;
+            } else {
+                return false;
+            }
+        });
+    }
+
+    protected void addToExistenceFilter(String url) {
+        if (context instanceof FileSystemContext) {
+            PathExistenceFilter filter = ((FileSystemContext) context).getExistenceFilter();
+            if (filter != null) {
+                filter.add(url);
+            }
+        }
+    }
+
+    protected void disableExistenceFilter() {
+        if (context instanceof FileSystemContext && ((FileSystemContext) context).getExistenceFilter() != null) {
+            logger.warn("The path existence filter of context {} could be missing paths, it will be disabled",
+                        context);
+
+            ((FileSystemContext) context).setExistenceFilter(null);
+        }
+    }
+
+    protected void updatePathIndex(Collection<String> changedUrls) {
+        FileSystemPathIndex index = getPathIndex();
+        if (index != null) {
+            index.update(changedUrls);
+        }
+    }
+
+    protected void rebuildPathIndex() {
+        FileSystemPathIndex index = getPathIndex();
+        if (index != null) {
+            index.rebuild();
+        }
+    }
+
+    protected FileSystemPathIndex getPathIndex() {
+        return context instanceof FileSystemContext? ((FileSystemContext) context).getPathIndex() : null;
+    }
+
+    protected String getUrl(Path path) {
+        return "/" + FilenameUtils.separatorsToUnix(rootFolder.relativize(path).toString());
+    }
+
+    /**
+     * Returns the URL the object was cached for, if it's a store adapter or store service object, or null otherwise.
+     */
+    protected String getCachedUrl(Object key) {
+        if (!(key instanceof CompositeCacheKey)) {
+            return null;
+        }
+
+        CompositeCacheKey compositeKey = (CompositeCacheKey) key;
+        if (compositeKey.size() < 2 || !(compositeKey.getElement(0) instanceof String) ||
+            !(compositeKey.getElement(compositeKey.size() - 1) instanceof String)) {
+            return null;
+        }
+
+        String type = getType(key);
+        if (!type.startsWith(SERVICE_KEY_PREFIX) && !type.startsWith(ADAPTER_KEY_PREFIX)) {
+            return null;
+        }
+
+        return ContentStoreUtils.normalizePath((String) compositeKey.getElement(0));
+    }
+
+    /**
+     * Returns the type of an indexed key, its last element.
+     */
+    protected String getType(Object key) {
+        CompositeCacheKey compositeKey = (CompositeCacheKey) key;
+
+        return (String) compositeKey.getElement(compositeKey.size() - 1);
+    }
+
+    protected boolean isServiceKey(Object key) {
+        return getType(key).startsWith(SERVICE_KEY_PREFIX);
+    }
+
+    protected boolean isCached(Object key) {
+        try {
+            return cacheService.hasKey(context, key);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    protected boolean isListing(String type) {
+        return type.equals(CONST_KEY_ELEM_ITEMS) || type.equals(CONST_KEY_ELEM_CHILDREN) ||
+               type.equals(CONST_KEY_ELEM_CHILDREN_PAGE);
+    }
+
+    protected static void addKeys(Set<Object> keys, Collection<Object> candidates, Predicate<Object> predicate) {
+        for (Object candidate : candidates) {
+            if (predicate.test(candidate)) {
+                keys.add(candidate);
+            }
+        }
+    }
+
+    protected static void addUrl(String url, Set<String> visitedUrls, Deque<String> pendingUrls) {
+        if (url != null && visitedUrls.add(url)) {
+            pendingUrls.add(url);
+        }
+    }
+
+    protected static String getParentUrl(String url) {
+        if (url.equals("/")) {
+            return null;
+        }
+
+        int index = url.lastIndexOf('/');
+
+        return index > 0? url.substring(0, index) : "/";
+    }
+
+    protected static boolean isUnder(String url, String[] paths) {
+        for (String path : paths) {
+            if (isUnder(url, path)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    protected static boolean isUnder(String url, Collection<String> paths) {
+        for (String path : paths) {
+            if (isUnder(url, path)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    protected static boolean isUnder(String url, String path) {
+        return path.equals("/") || url.equals(path) || url.startsWith(path + "/");
+    }
+
+    protected static String[] normalizePaths(String[] paths) {
+        if (ArrayUtils.isEmpty(paths)) {
+            return new String[0];
+        }
+
+        List<String> normalized = new ArrayList<>(paths.length);
+        for (String path : paths) {
+            if (StringUtils.isNotBlank(path)) {
+                normalized.add(ContentStoreUtils.normalizePath(path.trim()));
+            }
+        }
+
+        return normalized.toArray(new String[0]);
+    }
+
+}
@@ -15,57 +15,110 @@
  */
 package org.craftercms.core.store.impl.filesystem;
 
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.InputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 
-import org.craftercms.core.service.Content;
 import org.craftercms.core.store.impl.File;
 
 /**
- * Adapter to a filesystem {@link java.io.File}, used by {@link org.craftercms.core.store.ContentStoreAdapter}s;
+ * Adapter to a filesystem {@link Path}, used by {@link org.craftercms.core.store.ContentStoreAdapter}s. The
+ * {@link BasicFileAttributes} of the file are read once (or provided on creation), and then reused by
+ * {@link #isFile()}, {@link #isDirectory()} and the {@link FileSystemContent}, so that each check doesn't require
+ * another call to the filesystem.
  *
  * @author Alfonso Vásquez
  */
 public class FileSystemFile implements File {
 
-    private java.io.File file;
+    private Path path;
+    private volatile BasicFileAttributes attributes;
 
     public FileSystemFile(String path) {
-        file = new java.io.File(path);
+        this.path = Path.of(path);
     }
 
     public FileSystemFile(FileSystemFile parent, String child) {
-        file = new java.io.File(parent.getFile(), child);
+        this.path = parent.toPath().resolve(child);
     }
 
     public FileSystemFile(java.io.File file) {
-        this.file = file;
+        this.path = file.toPath();
+    }
+
+    /**
+     * Creates a file whose attributes have already been read.
+     *
+     * @since 4.2.0
+     */
+    public FileSystemFile(Path path, BasicFileAttributes attributes) {
+        this.path = path;
+        this.attributes = attributes;
     }
 
     public java.io.File getFile() {
-        return file;
+        return path.toFile();
+    }
+
+    /**
+     * Returns the NIO path of the file.
+     *
+     * @since 4.2.0
+     */
+    public Path toPath() {
+        return path;
+    }
+
+    /**
+     * Returns the attributes of the file, reading them the first time this method is called, or null if the file
+     * doesn't exist or can't be accessed.
+     *
+     * @since 4.2.0
+     */
+    public BasicFileAttributes getAttributes() {
+        BasicFileAttributes attrs = attributes;
+        if (attrs == null) {
+            attrs = readAttributes(path);
+            attributes = attrs;
+        }
+
+        return attrs;
+    }
+
+    /**
+     * Returns true if the file exists.
+     *
+     * @since 4.2.0
+     */
+    public boolean exists() {
+        return getAttributes() != null;
     }
 
     @Override
     public String getName() {
-        return file.getName();
+        Path name = path.getFileName();
+
+        return name != null? name.toString() : "";
     }
 
     @Override
     public String getPath() {
-        return file.getPath();
+        return path.toString();
     }
 
     @Override
     public boolean isFile() {
-        return file.isFile();
+        BasicFileAttributes attrs = getAttributes();
+
+        return attrs != null && attrs.isRegularFile();
     }
 
     @Override
     public boolean isDirectory() {
-        return file.isDirectory();
+        BasicFileAttributes attrs = getAttributes();
+
+        return attrs != null && attrs.isDirectory();
     }
 
     @Override
@@ -79,7 +132,7 @@ public class FileSystemFile implements File {
 
         FileSystemFile other = (FileSystemFile)o;
 
-        if (!file.equals(other.file)) {
+        if (!path.equals(other.path)) {
             return false;
         }
 
@@ -88,12 +141,27 @@ public class FileSystemFile implements File {
 
     @Override
     public int hashCode() {
-        return file.hashCode();
+        return path.hashCode();
     }
 
     @Override
     public String toString() {
-        return file.toString();
+        return path.toString();
+    }
+
+    /**
+     * Reads the attributes of the given path (following symbolic links), returning null if it doesn't exist or
+     * can't be accessed.
+     *
+     * @since 4.2.0
+     */
+    public static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // Same as java.io.File.exists(), any error means the file can't be accessed
+            return null;
+        }
     }
 
 }
@@ -0,0 +1,613 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.filesystem;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of all the paths under the root folder of a {@link FileSystemContext}, with their type, size, last modified
+ * time and, for folders, the names of their children. Lookups and listings served from the index don't touch the
+ * filesystem.
+ * <p>The index can be saved to a file and loaded on the next start. The file is memory-mapped only to read it: the
+ * loaded entries are kept in the heap, like the ones of a built index. A loaded index is validated by
+ * comparing the last modified time of each folder with the one recorded: only the folders whose entries changed are
+ * listed again. Files modified in place don't change the time of their folder, so the size and last modified time of
+ * files are just a hint, and should be read again from the filesystem when the file is opened.</p>
+ * <p>While the context is running, the index is kept up to date by the {@link FileSystemContextWatcher} through
+ * {@link #update(Collection)}. Until the index is ready, lookups should go to the filesystem. The index can be built
+ * or loaded in the background: the updates received meanwhile are queued and applied before it becomes ready. Since
+ * the watcher only updates the index after its quiet period, a missing entry doesn't mean that the path doesn't
+ * exist, it could have been created since the last update.</p>
+ * <p>Entries are sorted by URL, so a folder and all its descendants are removed as a single range.</p>
+ * <p>Links are followed. A link to one of its ancestor folders is not indexed, since it would make the index
+ * infinite.</p>
+ *
+ * @since 4.2.0
+ */
+public class FileSystemPathIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSystemPathIndex.class);
+
+    public static final String INDEX_FILE_EXTENSION = ".idx";
+
+    private static final int MAGIC = 0x43504958;
+    private static final int VERSION = 1;
+
+    private static final byte DIRECTORY_FLAG = 1;
+    private static final byte HIDDEN_FLAG = 2;
+
+    protected final Path rootFolder;
+    protected final ConcurrentNavigableMap<String, Entry> entries;
+    /**
+     * URLs changed while the index is being built or loaded, guarded by its own lock like {@link #loading}
+     */
+    protected final Set<String> pendingUrls;
+    protected boolean loading;
+    protected volatile boolean ready;
+
+    public FileSystemPathIndex(Path rootFolder) {
+        this.rootFolder = rootFolder;
+        this.entries = new ConcurrentSkipListMap<>();
+        this.pendingUrls = new LinkedHashSet<>();
+        // Changes can be reported before the first build or load starts, they need to be applied too
+        this.loading = true;
+    }
+
+    public Path getRootFolder() {
+        return rootFolder;
+    }
+
+    /**
+     * Returns true if the index has been built or loaded, and can be used instead of the filesystem.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns the number of paths in the index.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the entry of the given (normalized) URL, or null if there's no file or folder at that URL.
+     */
+    public Entry get(String url) {
+        return entries.get(url);
+    }
+
+    /**
+     * Returns the URL of the given path, relative to the root folder.
+     */
+    public String getUrl(Path path) {
+        return "/" + FilenameUtils.separatorsToUnix(rootFolder.relativize(path).toString());
+    }
+
+    /**
+     * Returns the path of the given URL.
+     */
+    public Path getPath(String url) {
+        return url.equals("/")? rootFolder : rootFolder.resolve(url.substring(1));
+    }
+
+    /**
+     * Indexes the whole root folder, discarding any previous entries.
+     */
+    public synchronized void build() throws IOException {
+        startLoading();
+        try {
+            entries.clear();
+
+            BasicFileAttributes attributes = Files.readAttributes(rootFolder, BasicFileAttributes.class);
+            indexFolder(rootFolder, attributes, new HashSet<>());
+        } catch (IOException | RuntimeException e) {
+            abortLoading();
+            throw e;
+        }
+
+        logger.info("Indexed {} paths of {}", entries.size(), rootFolder);
+
+        finishLoading();
+    }
+
+    /**
+     * Loads the index from the given file and validates it against the root folder. If the file doesn't exist, or
+     * it's not a valid index of the root folder, the index is built from scratch.
+     */
+    public synchronized void load(Path indexFile) throws IOException {
+        startLoading();
+        try {
+            if (Files.isRegularFile(indexFile) && read(indexFile)) {
+                int changedFolders = validate();
+
+                logger.info("Loaded {} paths of {} from {} ({} changed folders)", entries.size(), rootFolder,
+                            indexFile, changedFolders);
+
+                finishLoading();
+            } else {
+                build();
+            }
+        } catch (IOException | RuntimeException e) {
+            abortLoading();
+            throw e;
+        }
+    }
+
+    /**
+     * Saves the index to the given file. The file is replaced atomically, so a reader never sees a partial index.
+     */
+    public synchronized void save(Path indexFile) throws IOException {
+        Files.createDirectories(indexFile.getParent());
+
+        Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, rootFolder.toString());
+            out.writeInt(entries.size());
+
+            for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                Entry entry = mapEntry.getValue();
+
+                writeString(out, mapEntry.getKey());
+                out.writeByte((entry.isDirectory()? DIRECTORY_FLAG : 0) | (entry.isHidden()? HIDDEN_FLAG : 0));
+                out.writeLong(entry.size());
+                out.writeLong(entry.getLastModified());
+
+                if (entry.isDirectory()) {
+                    out.writeInt(entry.getChildren().size());
+                    for (String name : entry.getChildren()) {
+                        writeString(out, name);
+                    }
+                }
+            }
+        }
+
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        logger.info("Saved {} paths of {} to {}", entries.size(), rootFolder, indexFile);
+    }
+
+    /**
+     * Updates the index after the files or folders at the given URLs changed. The parent folder of each URL is
+     * listed again (indexing any new subfolder), so creations, modifications and deletions are all covered. If the
+     * index is being built or loaded, the URLs are queued and this method returns right away.
+     */
+    public void update(Collection<String> changedUrls) {
+        synchronized (pendingUrls) {
+            if (loading) {
+                pendingUrls.addAll(changedUrls);
+                return;
+            }
+        }
+
+        synchronized (this) {
+            doUpdate(changedUrls);
+        }
+    }
+
+    /**
+     * Same as {@link #build()}, but logs any error instead of throwing it. The index is left not ready if it fails.
+     */
+    public void rebuild() {
+        try {
+            build();
+        } catch (IOException e) {
+            logger.error("Unable to index {}", rootFolder, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FileSystemPathIndex{" +
+               "rootFolder=" + rootFolder +
+               ", size=" + entries.size() +
+               ", ready=" + ready +
+               '}';
+    }
+
+    /**
+     * Marks the index as not ready, queueing the updates until {@link #finishLoading()} is called.
+     */
+    protected void startLoading() {
+        ready = false;
+
+        synchronized (pendingUrls) {
+            loading = true;
+            pendingUrls.clear();
+        }
+    }
+
+    /**
+     * Applies the updates queued while loading, and marks the index as ready.
+     */
+    protected void finishLoading() {
+        while (true) {
+            List<String> urls;
+            synchronized (pendingUrls) {
+                if (pendingUrls.isEmpty()) {
+                    loading = false;
+                    ready = true;
+                    return;
+                }
+
+                urls = new ArrayList<>(pendingUrls);
+                pendingUrls.clear();
+            }
+
+            if (!doUpdate(urls)) {
+                // The index was rebuilt instead
+                return;
+            }
+        }
+    }
+
+    protected void abortLoading() {
+        synchronized (pendingUrls) {
+            loading = false;
+            pendingUrls.clear();
+        }
+    }
+
+    /**
+     * Updates the entries of the parent folders of the given URLs.
+     *
+     * @return false if an error occurred and the whole index was rebuilt instead
+     */
+    protected boolean doUpdate(Collection<String> changedUrls) {
+        Set<String> folderUrls = new LinkedHashSet<>();
+        for (String url : changedUrls) {
+            if (!url.equals("/")) {
+                String parentUrl = FilenameUtils.getFullPathNoEndSeparator(url);
+                folderUrls.add(parentUrl.isEmpty()? "/" : parentUrl);
+            }
+        }
+
+        for (String folderUrl : folderUrls) {
+            Path folder = getPath(folderUrl);
+            BasicFileAttributes attributes = FileSystemFile.readAttributes(folder);
+
+            if (attributes == null || !attributes.isDirectory()) {
+                removeTree(folderUrl);
+            } else if (entries.containsKey(folderUrl)) {
+                // If the folder is not indexed yet, it's new, and it will be indexed with its parent
+                try {
+                    indexFolder(folder, attributes, new HashSet<>());
+                } catch (IOException e) {
+                    logger.warn("Unable to update the index of folder {}, reindexing {}", folder, rootFolder, e);
+
+                    rebuild();
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Lists the given folder and updates the entries of its children. Subfolders that are not indexed yet are
+     * indexed recursively, and children that no longer exist are removed with all their descendants.
+     *
+     * @param ancestorKeys  the keys (see {@link #getFolderKey(Path, BasicFileAttributes)}) of the folders being
+     *                      indexed above this one, used to skip links that point back to them
+     */
+    protected void indexFolder(Path folder, BasicFileAttributes attributes, Set<Object> ancestorKeys)
+            throws IOException {
+        String folderUrl = getUrl(folder);
+        Entry previous = entries.get(folderUrl);
+        List<String> names = new ArrayList<>();
+        Object folderKey = getFolderKey(folder, attributes);
+
+        ancestorKeys.add(folderKey);
+        try (DirectoryStream<Path> listing = Files.newDirectoryStream(folder)) {
+            for (Path child : listing) {
+                BasicFileAttributes childAttributes = FileSystemFile.readAttributes(child);
+                if (childAttributes == null) {
+                    continue;
+                }
+
+                if (childAttributes.isDirectory() &&
+                    ancestorKeys.contains(getFolderKey(child, childAttributes))) {
+                    logger.debug("Link {} points to one of its ancestors, it won't be indexed", child);
+                    continue;
+                }
+
+                String childUrl = getUrl(child);
+                Entry existing = entries.get(childUrl);
+                names.add(child.getFileName().toString());
+
+                if (childAttributes.isDirectory()) {
+                    if (existing == null || !existing.isDirectory()) {
+                        removeTree(childUrl);
+                        indexFolder(child, childAttributes, ancestorKeys);
+                    }
+                } else {
+                    if (existing != null && existing.isDirectory()) {
+                        removeTree(childUrl);
+                    }
+
+                    entries.put(childUrl, new Entry(childAttributes, isHidden(child), null));
+                }
+            }
+        } catch (DirectoryIteratorException e) {
+            throw e.getCause();
+        } finally {
+            ancestorKeys.remove(folderKey);
+        }
+
+        if (previous != null && previous.isDirectory()) {
+            Set<String> currentNames = new HashSet<>(names);
+            for (String name : previous.getChildren()) {
+                if (!currentNames.contains(name)) {
+                    removeTree(getChildUrl(folderUrl, name));
+                }
+            }
+        }
+
+        entries.put(folderUrl, new Entry(attributes, !folderUrl.equals("/") && isHidden(folder), names));
+    }
+
+    /**
+     * Lists again the folders whose last modified time is not the one in the index.
+     *
+     * @return the number of folders that changed
+     */
+    protected int validate() throws IOException {
+        int changedFolders = 0;
+
+        List<String> folderUrls = new ArrayList<>();
+        for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+            if (mapEntry.getValue().isDirectory()) {
+                folderUrls.add(mapEntry.getKey());
+            }
+        }
+
+        for (String folderUrl : folderUrls) {
+            Entry entry = entries.get(folderUrl);
+            if (entry == null) {
+                // Removed while validating a parent folder
+                continue;
+            }
+
+            Path folder = getPath(folderUrl);
+            BasicFileAttributes attributes = FileSystemFile.readAttributes(folder);
+
+            if (attributes == null || !attributes.isDirectory()) {
+                removeTree(folderUrl);
+                changedFolders++;
+            } else if (attributes.lastModifiedTime().toMillis() != entry.getLastModified()) {
+                indexFolder(folder, attributes, new HashSet<>());
+                changedFolders++;
+            }
+        }
+
+        if (!entries.containsKey("/")) {
+            throw new IOException("Root folder " + rootFolder + " not found");
+        }
+
+        return changedFolders;
+    }
+
+    /**
+     * Reads the entries from the given index file.
+     *
+     * @return false if the file is not an index of the root folder
+     */
+    protected boolean read(Path indexFile) throws IOException {
+        entries.clear();
+
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION ||
+                !rootFolder.toString().equals(readString(buffer))) {
+                logger.info("Index file {} doesn't belong to {}, ignoring it", indexFile, rootFolder);
+                return false;
+            }
+
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                String url = readString(buffer);
+                byte flags = buffer.get();
+                long size = buffer.getLong();
+                long lastModified = buffer.getLong();
+                List<String> children = null;
+
+                if ((flags & DIRECTORY_FLAG) != 0) {
+                    int childCount = buffer.getInt();
+                    children = new ArrayList<>(childCount);
+                    for (int j = 0; j < childCount; j++) {
+                        children.add(readString(buffer));
+                    }
+                }
+
+                entries.put(url, new Entry(size, lastModified, (flags & HIDDEN_FLAG) != 0, children));
+            }
+
+            return true;
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            logger.warn("Index file {} is corrupted, ignoring it", indexFile);
+
+            entries.clear();
+
+            return false;
+        }
+    }
+
+    /**
+     * Returns the key that identifies the folder in the filesystem, regardless of the links used to reach it.
+     */
+    protected Object getFolderKey(Path folder, BasicFileAttributes attributes) throws IOException {
+        Object key = attributes.fileKey();
+
+        return key != null? key : folder.toRealPath();
+    }
+
+    /**
+     * Removes the entry of the URL and the entries of all its descendants, which are right after it in the map.
+     */
+    protected void removeTree(String url) {
+        if (entries.remove(url) != null) {
+            if (url.equals("/")) {
+                entries.clear();
+            } else {
+                // '0' is the character right after '/', so the range holds all the URLs that start with url + "/"
+                entries.subMap(url + "/", url + "0").clear();
+            }
+        }
+    }
+
+    protected String getChildUrl(String folderUrl, String name) {
+        return folderUrl.equals("/")? "/" + name : folderUrl + "/" + name;
+    }
+
+    protected boolean isHidden(Path path) {
+        try {
+            return Files.isHidden(path);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    protected void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    protected String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Indexed file or folder. Implements {@link BasicFileAttributes}, so it can be used in place of the attributes
+     * read from the filesystem.
+     */
+    public static class Entry implements BasicFileAttributes {
+
+        private final long size;
+        private final long lastModified;
+        private final boolean hidden;
+        private final List<String> children;
+
+        protected Entry(BasicFileAttributes attributes, boolean hidden, List<String> children) {
+            this(attributes.size(), attributes.lastModifiedTime().toMillis(), hidden, children);
+        }
+
+        protected Entry(long size, long lastModified, boolean hidden, List<String> children) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hidden = hidden;
+            this.children = children != null? List.copyOf(children) : null;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public boolean isHidden() {
+            return hidden;
+        }
+
+        /**
+         * Returns the names of the children of the folder, or null if the entry is a file.
+         */
+        public List<String> getChildren() {
+            return children;
+        }
+
+        @Override
+        public FileTime lastModifiedTime() {
+            return FileTime.fromMillis(lastModified);
+        }
+
+        @Override
+        public FileTime lastAccessTime() {
+            return lastModifiedTime();
+        }
+
+        @Override
+        public FileTime creationTime() {
+            return lastModifiedTime();
+        }
+
+        @Override
+        public boolean isRegularFile() {
+            return children == null;
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return children != null;
+        }
+
+        @Override
+        public boolean isSymbolicLink() {
+            return false;
+        }
+
+        @Override
+        public boolean isOther() {
+            return false;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public Object fileKey() {
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.memory;
+
+import org.craftercms.core.service.Content;
+import org.craftercms.core.util.io.ByteBufferInputStream;
+
+import java.io.InputStream;
+
+/**
+ * Gives access to the content of an {@link InMemoryFile}.
+ *
+ * @since 4.2.0
+ */
+public class InMemoryContent implements Content {
+
+    private final InMemoryFile file;
+
+    public InMemoryContent(InMemoryFile file) {
+        this.file = file;
+    }
+
+    @Override
+    public long getLastModified() {
+        return file.getLastModified();
+    }
+
+    @Override
+    public long getLength() {
+        return file.getSize();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteBufferInputStream(file.getData());
+    }
+
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.memory;
+
+import org.craftercms.core.exception.AuthenticationException;
+import org.craftercms.core.exception.InvalidContextException;
+import org.craftercms.core.exception.RootFolderNotFoundException;
+import org.craftercms.core.exception.StoreException;
+import org.craftercms.core.exception.XmlFileParseException;
+import org.craftercms.core.service.CachingOptions;
+import org.craftercms.core.service.Content;
+import org.craftercms.core.service.Context;
+import org.craftercms.core.store.impl.AbstractFileBasedContentStoreAdapter;
+import org.craftercms.core.store.impl.File;
+import org.craftercms.core.util.ContentStoreUtils;
+import org.craftercms.core.util.cache.CacheTemplate;
+import org.dom4j.Document;
+import org.dom4j.DocumentException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ResourceLoaderAware;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.validation.Validator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of {@link org.craftercms.core.store.ContentStoreAdapter} that loads all the files of a root folder
+ * in memory when the context is created, so that lookups, listings and reads are answered without any I/O. XML
+ * descriptors are also parsed when loaded, so they take roughly twice their size in memory. Only meant for small
+ * sites, so the size of the files that can be loaded per context is limited by {@link #setMaxSize(long)}.
+ *
+ * <p>Changes in the root folder are not picked up until {@link #reload(Context)} is called, which loads all the
+ * files again and then swaps them in at once, moving the context to a new cache scope.</p>
+ *
+ * @since 4.2.0
+ */
+public class InMemoryContentStoreAdapter extends AbstractFileBasedContentStoreAdapter implements ResourceLoaderAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryContentStoreAdapter.class);
+
+    public static final String STORE_TYPE = "memory";
+
+    public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+    private ResourceLoader resourceLoader;
+    private boolean offHeap;
+    private long maxSize;
+
+    public InMemoryContentStoreAdapter(Validator pathValidator, String descriptorFileExtension,
+                                       String metadataFileExtension, CacheTemplate cacheTemplate) {
+        super(pathValidator, descriptorFileExtension, metadataFileExtension, cacheTemplate);
+        this.maxSize = DEFAULT_MAX_SIZE;
+    }
+
+    /**
+     * Sets if the data of the files should be kept in direct buffers, outside of the heap, so that it doesn't add to
+     * the work of the garbage collector. The parsed descriptors are always kept in the heap.
+     */
+    public void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Sets the max total size in bytes of the files of a context. Contexts whose files are bigger fail to load.
+     */
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void setResourceLoader(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @Override
+    public Context createContext(String id, String rootFolderPath, boolean mergingOn, boolean cacheOn,
+                                 int maxAllowedItemsInCache, boolean ignoreHiddenFiles,
+                                 Map<String, String> configurationVariables)
+            throws RootFolderNotFoundException, StoreException, AuthenticationException {
+        Resource rootFolderResource = resourceLoader.getResource(rootFolderPath);
+
+        if (!rootFolderResource.exists()) {
+            throw new RootFolderNotFoundException("Root folder " + rootFolderPath + " not found (make sure that it " +
+                                                  "has a valid URL prefix (e.g. file:))");
+        }
+
+        Path rootFolder;
+        try {
+            rootFolder = rootFolderResource.getFile().toPath();
+        } catch (IOException e) {
+            throw new StoreException("Unable to retrieve file handle for root folder " + rootFolderPath, e);
+        }
+
+        InMemoryContext context = new InMemoryContext(id, this, rootFolderPath, rootFolder, mergingOn, cacheOn,
+                                                      maxAllowedItemsInCache, ignoreHiddenFiles,
+                                                      configurationVariables);
+        context.setFiles(loadFiles(rootFolder));
+
+        return context;
+    }
+
+    @Override
+    public boolean validate(Context context) throws InvalidContextException, StoreException, AuthenticationException {
+        return Files.isDirectory(((InMemoryContext)context).getRootFolder());
+    }
+
+    @Override
+    public void destroyContext(Context context) throws InvalidContextException, StoreException, AuthenticationException {
+        ((InMemoryContext)context).setFiles(Collections.emptyMap());
+    }
+
+    /**
+     * Loads all the files of the context's root folder again, and swaps them in for the current ones once they're
+     * completely loaded, moving the context to a new cache scope. Lookups are served from the current files while the new
+     * ones are being loaded.
+     *
+     * @throws StoreException if the files can't be loaded, in which case the current files are kept
+     */
+    public void reload(Context context) throws StoreException {
+        InMemoryContext memoryContext = (InMemoryContext)context;
+
+        synchronized (memoryContext) {
+            memoryContext.setFiles(loadFiles(memoryContext.getRootFolder()));
+
+            // A new scope instead of clearing the current one, so that objects still being loaded from the old files
+            // are not cached
+            cacheTemplate.getCacheService().renewScope(context);
+        }
+    }
+
+    @Override
+    protected boolean isDefinitelyAbsent(Context context, String path) {
+        // All the files are in memory, so a lookup there is cheaper than one in the cache
+        validatePath(path);
+
+        return !((InMemoryContext)context).getFiles().containsKey(ContentStoreUtils.normalizePath(path));
+    }
+
+    @Override
+    protected Content getContent(Context context, CachingOptions cachingOptions, File file)
+            throws InvalidContextException, StoreException {
+        return new InMemoryContent((InMemoryFile)file);
+    }
+
+    @Override
+    protected Document loadDescriptorDom(Context context, CachingOptions cachingOptions, File descriptorFile)
+            throws InvalidContextException, XmlFileParseException, StoreException {
+        Document dom = ((InMemoryFile)descriptorFile).getDescriptorDom();
+        if (dom != null) {
+            return dom;
+        }
+
+        // Parse it again to get the same error as other store adapters
+        return super.loadDescriptorDom(context, cachingOptions, descriptorFile);
+    }
+
+    @Override
+    protected File findFile(Context context, CachingOptions cachingOptions, String path)
+            throws InvalidContextException, StoreException {
+        return ((InMemoryContext)context).getFiles().get(ContentStoreUtils.normalizePath(path));
+    }
+
+    @Override
+    protected List<File> getChildren(Context context, CachingOptions cachingOptions, File dir)
+            throws InvalidContextException, StoreException {
+        InMemoryFile memoryDir = (InMemoryFile)dir;
+        Map<String, InMemoryFile> files = ((InMemoryContext)context).getFiles();
+
+        if (!memoryDir.isDirectory()) {
+            return null;
+        }
+
+        String dirUrl = memoryDir.getUrl();
+        List<File> children = new ArrayList<>(memoryDir.getChildren().size());
+
+        for (String name : memoryDir.getChildren()) {
+            InMemoryFile child = files.get(dirUrl.equals("/")? "/" + name : dirUrl + "/" + name);
+            if (child != null && !(context.ignoreHiddenFiles() && child.isHidden())) {
+                children.add(child);
+            }
+        }
+
+        return children;
+    }
+
+    protected Map<String, InMemoryFile> loadFiles(Path rootFolder) throws StoreException {
+        Map<String, InMemoryFile> files = new HashMap<>();
+        Map<String, List<String>> children = new HashMap<>();
+        long[] totalSize = {0};
+
+        try {
+            Files.walkFileTree(rootFolder, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                               new SimpleFileVisitor<>() {
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    String url = getUrl(rootFolder, dir);
+                    children.put(url, new ArrayList<>());
+                    addToParent(url);
+
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (!attrs.isRegularFile()) {
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    totalSize[0] += attrs.size();
+                    if (totalSize[0] > maxSize) {
+                        throw new IOException("The files are bigger than the max size of " + maxSize + " bytes");
+                    }
+
+                    String url = getUrl(rootFolder, file);
+                    String name = file.getFileName().toString();
+                    byte[] bytes = Files.readAllBytes(file);
+                    Document dom = name.endsWith(descriptorFileExtension)? parseDescriptor(url, bytes) : null;
+
+                    files.put(url, new InMemoryFile(url, name, Files.isHidden(file),
+                                                    attrs.lastModifiedTime().toMillis(), toBuffer(bytes), dom));
+                    addToParent(url);
+
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                    if (e != null) {
+                        throw e;
+                    }
+
+                    String url = getUrl(rootFolder, dir);
+                    Path name = dir.getFileName();
+
+                    files.put(url, new InMemoryFile(url, name != null? name.toString() : "",
+                                                    !url.equals("/") && Files.isHidden(dir),
+                                                    Files.getLastModifiedTime(dir).toMillis(),
+                                                    List.copyOf(children.remove(url))));
+
+                    return FileVisitResult.CONTINUE;
+                }
+
+                private void addToParent(String url) {
+                    if (!url.equals("/")) {
+                        int lastSlash = url.lastIndexOf('/');
+                        children.get(lastSlash > 0? url.substring(0, lastSlash) : "/")
+                                .add(url.substring(lastSlash + 1));
+                    }
+                }
+
+            });
+        } catch (IOException e) {
+            throw new StoreException("Unable to load the files of " + rootFolder + " in memory", e);
+        }
+
+        logger.info("Loaded {} files and folders ({} bytes) of {} in memory", files.size(), totalSize[0],
+                    rootFolder);
+
+        return Collections.unmodifiableMap(files);
+    }
+
+    protected ByteBuffer toBuffer(byte[] bytes) {
+        if (offHeap) {
+            return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        } else {
+            return ByteBuffer.wrap(bytes);
+        }
+    }
+
+    protected Document parseDescriptor(String url, byte[] bytes) {
+        try {
+            return createXmlReader().read(new InputStreamReader(new ByteArrayInputStream(bytes), charset));
+        } catch (IOException | DocumentException e) {
+            // The error is thrown when the descriptor is looked up, like in other store adapters
+            logger.debug("Unable to parse descriptor {}", url, e);
+
+            return null;
+        }
+    }
+
+    protected String getUrl(Path rootFolder, Path path) {
+        String relativePath = rootFolder.relativize(path).toString().replace('\\', '/');
+
+        return "/" + relativePath;
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.memory;
+
+import org.craftercms.core.store.impl.File;
+import org.dom4j.Document;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A file or folder loaded in memory by the {@link InMemoryContentStoreAdapter}. Files hold their bytes and, if they
+ * are XML descriptors, their parsed DOM. Instances are never modified after they're loaded.
+ *
+ * @since 4.2.0
+ */
+public class InMemoryFile implements File {
+
+    private final String url;
+    private final String name;
+    private final boolean hidden;
+    private final long lastModified;
+    private final List<String> children;
+    private final ByteBuffer data;
+    private final Document descriptorDom;
+
+    /**
+     * Creates a folder with the names of its children.
+     */
+    public InMemoryFile(String url, String name, boolean hidden, long lastModified, List<String> children) {
+        this(url, name, hidden, lastModified, children, null, null);
+    }
+
+    /**
+     * Creates a file with its data, and its DOM if it's a descriptor (optional, can be null).
+     */
+    public InMemoryFile(String url, String name, boolean hidden, long lastModified, ByteBuffer data,
+                        Document descriptorDom) {
+        this(url, name, hidden, lastModified, null, data.asReadOnlyBuffer(), descriptorDom);
+    }
+
+    private InMemoryFile(String url, String name, boolean hidden, long lastModified, List<String> children,
+                         ByteBuffer data, Document descriptorDom) {
+        this.url = url;
+        this.name = name;
+        this.hidden = hidden;
+        this.lastModified = lastModified;
+        this.children = children;
+        this.data = data;
+        this.descriptorDom = descriptorDom;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getPath() {
+        return url;
+    }
+
+    @Override
+    public boolean isFile() {
+        return children == null;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return children != null;
+    }
+
+    public boolean isHidden() {
+        return hidden;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns the names of the children of the folder, or null if it's a file.
+     */
+    public List<String> getChildren() {
+        return children;
+    }
+
+    /**
+     * Returns a new read-only buffer with the data of the file, or null if it's a folder.
+     */
+    public ByteBuffer getData() {
+        return data != null? data.duplicate() : null;
+    }
+
+    public long getSize() {
+        return data != null? data.capacity() : 0;
+    }
+
+    /**
+     * Returns the parsed descriptor, or null if the file is not a descriptor or it couldn't be parsed when loaded.
+     * The DOM is shared by all the lookups of the file, so it shouldn't be modified.
+     */
+    public Document getDescriptorDom() {
+        return descriptorDom;
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+
+}
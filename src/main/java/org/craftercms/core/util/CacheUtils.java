@@ -16,8 +16,7 @@
 package org.craftercms.core.util;
 
 import org.craftercms.core.service.Context;
-
-import java.util.Arrays;
+import org.craftercms.core.util.cache.impl.CompositeCacheKey;
 
 /**
  * Utility methods for caching.
@@ -27,10 +26,11 @@ import java.util.Arrays;
 public class CacheUtils {
 
     /**
-     * Returns a cache key generated by appending the string representations of the specified key elements.
+     * Returns a cache key composed of the specified key elements. See {@link CompositeCacheKey} for how the
+     * elements are compared.
      */
     public static Object generateKey(Object... keyElements) {
-        return Arrays.toString(keyElements);
+        return new CompositeCacheKey(keyElements);
     }
 
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.util;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.craftercms.core.service.Content;
+import org.craftercms.core.service.Item;
+import org.craftercms.core.service.Tree;
+import org.dom4j.Attribute;
+import org.dom4j.Branch;
+import org.dom4j.Element;
+import org.dom4j.Node;
+
+/**
+ * Utility methods to estimate the heap footprint of cached objects. The estimates are rough (they assume
+ * compressed oops and don't account for shared instances) but they grow with the real size of the objects, which
+ * is what matters when they are used to weigh cache entries.
+ *
+ * @since 4.2.0
+ */
+public class SizeEstimationUtils {
+
+    /**
+     * Size of an object header plus a few fields, used for small objects of unknown type
+     */
+    public static final int OBJECT_OVERHEAD = 16;
+    public static final int REFERENCE_SIZE = 4;
+    /**
+     * Size used for objects this class doesn't know how to measure
+     */
+    public static final int DEFAULT_OBJECT_SIZE = 256;
+
+    private static final int STRING_OVERHEAD = 40;
+    private static final int COLLECTION_OVERHEAD = 40;
+    private static final int MAP_ENTRY_OVERHEAD = 32;
+    private static final int ITEM_OVERHEAD = 64;
+    private static final int NODE_OVERHEAD = 48;
+    private static final int ATTRIBUTE_OVERHEAD = 32;
+
+    private SizeEstimationUtils() {
+    }
+
+    /**
+     * Returns the estimated size in bytes of the specified object, including the objects it references.
+     */
+    public static long estimateSize(Object obj) {
+        if (obj == null) {
+            return 0;
+        } else if (obj instanceof Tree) {
+            return estimateSize((Tree) obj);
+        } else if (obj instanceof Item) {
+            return estimateSize((Item) obj);
+        } else if (obj instanceof Node) {
+            return estimateSize((Node) obj);
+        } else if (obj instanceof CharSequence) {
+            return estimateSize((CharSequence) obj);
+        } else if (obj instanceof Collection) {
+            return estimateSize((Collection<?>) obj);
+        } else if (obj instanceof Map) {
+            return estimateSize((Map<?, ?>) obj);
+        } else if (obj instanceof byte[]) {
+            return OBJECT_OVERHEAD + ((byte[]) obj).length;
+        } else if (obj instanceof Boolean || obj instanceof Number || obj instanceof Character ||
+                   obj instanceof Enum) {
+            return OBJECT_OVERHEAD;
+        } else if (obj instanceof Content) {
+            // Content implementations only reference the file/resource, the data is read on demand
+            return ITEM_OVERHEAD;
+        } else {
+            return DEFAULT_OBJECT_SIZE;
+        }
+    }
+
+    /**
+     * Returns the estimated size in bytes of the item, its descriptor DOM and its properties.
+     */
+    public static long estimateSize(Item item) {
+        return ITEM_OVERHEAD +
+               estimateSize(item.getName()) +
+               estimateSize(item.getUrl()) +
+               estimateSize(item.getDescriptorUrl()) +
+               estimateSize(item.getDescriptorDom()) +
+               estimateSize(item.getProperties());
+    }
+
+    /**
+     * Returns the estimated size in bytes of the tree, including all its descendants.
+     */
+    public static long estimateSize(Tree tree) {
+        return estimateSize((Item) tree) + estimateSize(tree.getChildren());
+    }
+
+    /**
+     * Returns the estimated size in bytes of the node and all its descendants.
+     */
+    public static long estimateSize(Node node) {
+        if (node == null) {
+            return 0;
+        }
+
+        long size = NODE_OVERHEAD;
+
+        if (node instanceof Element) {
+            Element element = (Element) node;
+            size += estimateSize(element.getName());
+            for (int i = 0, count = element.attributeCount(); i < count; i++) {
+                Attribute attribute = element.attribute(i);
+                size += ATTRIBUTE_OVERHEAD + estimateSize(attribute.getName()) + estimateSize(attribute.getValue());
+            }
+        }
+
+        if (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int count = branch.nodeCount();
+            size += COLLECTION_OVERHEAD + (long) count * REFERENCE_SIZE;
+
+            for (int i = 0; i < count; i++) {
+                size += estimateSize(branch.node(i));
+            }
+        } else {
+            size += estimateSize(node.getText());
+        }
+
+        return size;
+    }
+
+    public static long estimateSize(CharSequence str) {
+        // Assumes Latin-1 compact strings, which is what most content is
+        return str != null? STRING_OVERHEAD + str.length() : 0;
+    }
+
+    public static long estimateSize(Collection<?> collection) {
+        if (collection == null) {
+            return 0;
+        }
+
+        long size = COLLECTION_OVERHEAD + (long) collection.size() * REFERENCE_SIZE;
+        for (Object element : collection) {
+            size += estimateSize(element);
+        }
+
+        return size;
+    }
+
+    public static long estimateSize(Map<?, ?> map) {
+        if (map == null) {
+            return 0;
+        }
+
+        long size = COLLECTION_OVERHEAD;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            size += MAP_ENTRY_OVERHEAD + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+        }
+
+        return size;
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.util.cache;
+
+import java.util.Collection;
+
+/**
+ * Listener of the objects a {@link CacheTemplate} puts in the cache of a context (see
+ * {@link org.craftercms.core.service.Context#getCacheObjectListener()}), along with the other cached objects that
+ * were used to load them, so that it can tell which objects are affected when any of those change.
+ *
+ * @since 4.2.0
+ */
+@FunctionalInterface
+public interface CacheObjectListener {
+
+    /**
+     * Called after an object is put in the cache.
+     *
+     * @param key               the key of the object
+     * @param dependencyKeys    the keys of the cached objects that were requested while the object was loaded (empty
+     *                          if it wasn't loaded by the template)
+     */
+    void objectCached(Object key, Collection<Object> dependencyKeys);
+
+}
@@ -16,6 +16,7 @@
 package org.craftercms.core.util.cache;
 
 import org.craftercms.commons.lang.Callback;
+import org.craftercms.core.cache.CacheItem;
 import org.craftercms.core.service.CacheService;
 import org.craftercms.core.service.CachingOptions;
 import org.craftercms.core.service.Context;
@@ -78,4 +79,26 @@ public interface CacheTemplate {
      */
     <T> T getObject(Context context, CachingOptions cachingOptions, Callback<T> callback, Object... keyElements);
 
+    /**
+     * Puts an object that was already loaded in the cache, without checking if there's already an object for the
+     * key. Useful to populate the cache with several objects that were loaded together.
+     *
+     * @param context           the context (needed by the cache service)
+     * @param cachingOptions    the options used for caching (if null, the default ones are used)
+     * @param callback          the callback used to reload the object when it needs to be refreshed
+     * @param obj               the object to cache
+     * @param keyElements       the key elements, used to create the final cache key
+     * @since 4.2.0
+     */
+    default <T> void putObject(Context context, CachingOptions cachingOptions, Callback<T> callback, T obj,
+                               Object... keyElements) {
+        if (cachingOptions == null) {
+            cachingOptions = CachingOptions.DEFAULT_CACHING_OPTIONS;
+        }
+
+        getCacheService().put(context, getKey(keyElements), obj, cachingOptions,
+                              cachingOptions.getRefreshFrequency() != CacheItem.NEVER_REFRESH?
+                                  parameters -> callback.execute() : null);
+    }
+
 }
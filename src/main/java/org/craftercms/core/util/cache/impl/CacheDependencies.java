@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.util.cache.impl;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.craftercms.core.service.Context;
+
+/**
+ * Keys of the cached objects that are requested through a {@link DefaultCacheTemplate} while another object of the
+ * same context is being loaded, which are the objects it depends on (like the descriptors that are merged into an
+ * item, or the items it includes). Each thread has its current set of dependencies, started when a load begins and
+ * finished when it ends, so nested loads have their own set.
+ * <p>Tasks that load part of an object in other threads need to be wrapped with {@link #propagate(Runnable)}, so that
+ * the keys they request are added to the dependencies of the object.</p>
+ *
+ * @since 4.2.0
+ */
+public class CacheDependencies {
+
+    private static final ThreadLocal<CacheDependencies> current = new ThreadLocal<>();
+
+    protected final Context context;
+    protected final CacheDependencies parent;
+    protected final Set<Object> keys;
+
+    protected CacheDependencies(Context context, CacheDependencies parent) {
+        this.context = context;
+        this.parent = parent;
+        this.keys = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Starts the dependencies of an object of the given context that is going to be loaded in the current thread.
+     */
+    public static CacheDependencies start(Context context) {
+        CacheDependencies dependencies = new CacheDependencies(context, current.get());
+        current.set(dependencies);
+
+        return dependencies;
+    }
+
+    /**
+     * Adds the key to the dependencies of the object being loaded in the current thread, if it belongs to the same
+     * context.
+     */
+    public static void record(Context context, Object key) {
+        CacheDependencies dependencies = current.get();
+        if (dependencies != null && dependencies.context == context) {
+            dependencies.keys.add(key);
+        }
+    }
+
+    /**
+     * Returns a task that runs the given one with the dependencies of the current thread, or the same task if
+     * nothing is being loaded.
+     */
+    public static Runnable propagate(Runnable task) {
+        CacheDependencies dependencies = current.get();
+        if (dependencies == null) {
+            return task;
+        }
+
+        return () -> {
+            CacheDependencies previous = current.get();
+            current.set(dependencies);
+            try {
+                task.run();
+            } finally {
+                current.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Ends these dependencies, making the ones of the enclosing load (if any) the current ones again.
+     *
+     * @param inherit   true if the enclosing load should also depend on these keys, like when the object was not
+     *                  cached and the enclosing one can't depend on it instead
+     */
+    public void finish(boolean inherit) {
+        current.set(parent);
+
+        if (inherit && parent != null && parent.context == context) {
+            parent.keys.addAll(keys);
+        }
+    }
+
+    public Collection<Object> getKeys() {
+        return keys;
+    }
+
+}
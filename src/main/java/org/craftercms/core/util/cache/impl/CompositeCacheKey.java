@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.util.cache.impl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Immutable cache key made of several elements (usually the parameters of the cached method plus a constant that
+ * identifies the method). The hash code is computed once, at creation, and equality is checked element by element,
+ * so lookups don't need to build the string representation of every element like the old string based keys did.
+ *
+ * <p>Elements are compared with their own {@code equals}. For backwards compatibility with the string based keys,
+ * elements whose class overrides {@code toString} but not {@code equals} are compared by their string
+ * representation, computed when the key is created. Elements that override neither keep identity semantics.
+ * Composite elements (like {@link org.craftercms.core.processors.impl.ItemProcessorPipeline} or
+ * {@link org.craftercms.core.service.impl.CompositeItemFilter}) should compare their nested elements with
+ * {@link #elementsEqual(Collection, Collection)} and {@link #elementsHashCode(Collection)} to get the same
+ * semantics.</p>
+ *
+ * @since 4.2.0
+ */
+public final class CompositeCacheKey {
+
+    private static final ClassValue<Boolean> COMPARED_BY_STRING = new ClassValue<>() {
+
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return !overrides(type, "equals", Object.class) && overrides(type, "toString");
+        }
+
+    };
+
+    private final Object[] elements;
+    private final int hashCode;
+
+    /**
+     * Creates a new key. The array is copied only if some element needs to be replaced by its string
+     * representation, so it shouldn't be modified after the key is created.
+     */
+    public CompositeCacheKey(Object... elements) {
+        Object[] copy = null;
+        for (int i = 0; i < elements.length; i++) {
+            Object element = elements[i];
+            Object comparable = toComparable(element);
+            if (comparable != element) {
+                if (copy == null) {
+                    copy = elements.clone();
+                }
+                copy[i] = comparable;
+            }
+        }
+
+        this.elements = copy != null? copy : elements;
+        this.hashCode = Arrays.hashCode(this.elements);
+    }
+
+    /**
+     * Returns the number of elements of the key.
+     */
+    public int size() {
+        return elements.length;
+    }
+
+    /**
+     * Returns the element at the specified position.
+     */
+    public Object getElement(int index) {
+        return elements[index];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        CompositeCacheKey that = (CompositeCacheKey) o;
+
+        return hashCode == that.hashCode && Arrays.equals(elements, that.elements);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * Returns the same representation the old string based keys had, so logs and anything that relied on the
+     * string form of the key keep working.
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(elements);
+    }
+
+    /**
+     * Compares two collections of key elements with the same semantics used by the keys, so elements that only
+     * override {@code toString} are compared by their string representation.
+     */
+    public static boolean elementsEqual(Collection<?> elements1, Collection<?> elements2) {
+        if (elements1 == elements2) {
+            return true;
+        }
+        if (elements1 == null || elements2 == null || elements1.size() != elements2.size()) {
+            return false;
+        }
+
+        Iterator<?> iter1 = elements1.iterator();
+        Iterator<?> iter2 = elements2.iterator();
+        while (iter1.hasNext() && iter2.hasNext()) {
+            Object element1 = toComparable(iter1.next());
+            Object element2 = toComparable(iter2.next());
+            if (element1 != null? !element1.equals(element2) : element2 != null) {
+                return false;
+            }
+        }
+
+        return !iter1.hasNext() && !iter2.hasNext();
+    }
+
+    /**
+     * Returns a hash code for a collection of key elements that is consistent with
+     * {@link #elementsEqual(Collection, Collection)}.
+     */
+    public static int elementsHashCode(Collection<?> elements) {
+        if (elements == null) {
+            return 0;
+        }
+
+        int hashCode = 1;
+        for (Object element : elements) {
+            Object comparable = toComparable(element);
+            hashCode = 31 * hashCode + (comparable != null? comparable.hashCode() : 0);
+        }
+
+        return hashCode;
+    }
+
+    private static Object toComparable(Object element) {
+        return element != null && COMPARED_BY_STRING.get(element.getClass())? element.toString() : element;
+    }
+
+    private static boolean overrides(Class<?> type, String methodName, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(methodName, parameterTypes).getDeclaringClass() != Object.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+}
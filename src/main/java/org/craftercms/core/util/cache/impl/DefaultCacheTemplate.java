@@ -26,8 +26,11 @@ import org.craftercms.core.service.CacheService;
 import org.craftercms.core.service.CachingOptions;
 import org.craftercms.core.service.Context;
 import org.craftercms.core.util.CacheUtils;
+import org.craftercms.core.util.cache.CacheObjectListener;
 import org.craftercms.core.util.cache.CacheTemplate;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -72,6 +75,7 @@ public class DefaultCacheTemplate implements CacheTemplate {
     public <T> T getObject(Context context, CachingOptions cachingOptions, Callback<T> callback,
                            Object... keyElements) {
         Object key = getKey(keyElements);
+        CacheDependencies.record(context, key);
 
         T obj = doGet(context, callback, key);
         if (obj == null) {
@@ -81,6 +85,16 @@ public class DefaultCacheTemplate implements CacheTemplate {
         return obj;
     }
 
+    @Override
+    public <T> void putObject(Context context, CachingOptions cachingOptions, Callback<T> callback, T obj,
+                              Object... keyElements) {
+        if (cachingOptions == null) {
+            cachingOptions = CachingOptions.DEFAULT_CACHING_OPTIONS;
+        }
+
+        doPut(context, cachingOptions, callback, getKey(keyElements), obj);
+    }
+
     @SuppressWarnings("unchecked")
     protected <T> T doGet(Context context, Callback<T> callback, Object key) {
         T obj = null;
@@ -93,39 +107,149 @@ public class DefaultCacheTemplate implements CacheTemplate {
         return obj;
     }
 
+    /**
+     * Gets the object from the cache like {@link #doGet(Context, Callback, Object)}, but without recording the
+     * lookup in the statistics. Used to check again for an object whose miss was already recorded.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> T doPeek(Context context, Callback<T> callback, Object key) {
+        T obj = null;
+        try {
+            obj = (T)cacheService.peek(context, key);
+        } catch (Exception e) {
+            logGetFailure(context, callback, key, e);
+        }
+
+        return obj;
+    }
+
     protected <T> T loadAndPutInCache(Context context, CachingOptions cachingOptions, Callback<T> callback, Object key) {
         // Use the context's cache scope + the cache key as the lock key
-        Lock lock = lockFactory.getLock(context.getCacheScope() + ":" + key);
+        Lock lock = lockFactory.getLock(new CompositeCacheKey(context.getCacheScope(), key));
         lock.lock();
         try {
             // Check if another thread already has put the item in cache
-            T obj = doGet(context, callback, key);
+            T obj = doPeek(context, callback, key);
             if (obj == null) {
-                obj = callback.execute();
-                if (obj != null) {
-                    if (cachingOptions == null) {
-                        cachingOptions = CachingOptions.DEFAULT_CACHING_OPTIONS;
-                    }
+                obj = doLoadAndPut(context, cachingOptions, callback, key);
+            }
+
+            return obj;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-                    obj = doPut(context, cachingOptions, callback, key, obj);
+    /**
+     * Loads the object and puts it in the cache (see
+     * {@link #doPut(Context, CachingOptions, Callback, Object, Object, long, long, Collection)}). If the context has a
+     * {@link CacheObjectListener}, the keys of the cached objects requested while loading are its dependencies.
+     */
+    protected <T> T doLoadAndPut(Context context, CachingOptions cachingOptions, Callback<T> callback, Object key) {
+        long cacheVersion = context.getCacheVersion();
+        long cacheGeneration = context.getCacheGeneration();
+        CacheDependencies dependencies = context.getCacheObjectListener() != null?
+                                         CacheDependencies.start(context) : null;
+        boolean cached = false;
+        try {
+            T obj = doLoad(context, callback);
+            if (obj != null) {
+                if (cachingOptions == null) {
+                    cachingOptions = CachingOptions.DEFAULT_CACHING_OPTIONS;
                 }
+
+                cached = doPut(context, cachingOptions, callback, key, obj, cacheVersion, cacheGeneration,
+                               dependencies != null? dependencies.getKeys() : Collections.emptyList());
             }
 
             return obj;
         } finally {
-            lock.unlock();
+            if (dependencies != null) {
+                dependencies.finish(!cached);
+            }
+        }
+    }
+
+    /**
+     * Executes the callback to load the object, recording the time it took in the statistics of the context's
+     * cache scope.
+     */
+    protected <T> T doLoad(Context context, Callback<T> callback) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T obj = callback.execute();
+            success = true;
+
+            return obj;
+        } finally {
+            cacheService.recordLoad(context, System.nanoTime() - start, success);
         }
     }
 
     protected <T> T doPut(Context context, CachingOptions cachingOptions, Callback<T> callback, Object key, T obj) {
+        doPut(context, cachingOptions, callback, key, obj, Collections.emptyList());
+
+        return obj;
+    }
+
+    /**
+     * Puts the object in the cache and notifies the {@link CacheObjectListener} of the context, if there's one.
+     *
+     * @return true if the object was put in the cache
+     */
+    protected <T> boolean doPut(Context context, CachingOptions cachingOptions, Callback<T> callback, Object key,
+                                T obj, Collection<Object> dependencyKeys) {
         try {
             CacheLoader loader = getCacheLoader(callback, cachingOptions.getRefreshFrequency());
             cacheService.put(context, key, obj, cachingOptions, loader);
         } catch (Exception e) {
             logPutFailure(context, callback, key, obj, e);
+
+            return false;
         }
 
-        return obj;
+        CacheObjectListener listener = context.getCacheObjectListener();
+        if (listener != null) {
+            listener.objectCached(key, dependencyKeys);
+        }
+
+        return true;
+    }
+
+    /**
+     * Same as {@link #doPut(Context, CachingOptions, Callback, Object, Object, Collection)}, but only if the cache
+     * version and generation of the context are still the ones it had when the object started loading. If they
+     * changed (see {@link CacheService#renewScope(Context)} and {@link Context#getCacheGeneration()}), the object
+     * could come from the previous content of the store, so it's not cached. The generation is checked again after
+     * the put, since the content could have changed right before it.
+     *
+     * @return true if the object was put in the cache
+     */
+    protected <T> boolean doPut(Context context, CachingOptions cachingOptions, Callback<T> callback, Object key,
+                                T obj, long cacheVersion, long cacheGeneration, Collection<Object> dependencyKeys) {
+        if (context.getCacheVersion() != cacheVersion || context.getCacheGeneration() != cacheGeneration) {
+            logStaleLoad(context, key);
+
+            return false;
+        }
+
+        if (!doPut(context, cachingOptions, callback, key, obj, dependencyKeys)) {
+            return false;
+        }
+
+        if (context.getCacheGeneration() != cacheGeneration) {
+            logStaleLoad(context, key);
+            try {
+                cacheService.remove(context, key);
+            } catch (Exception e) {
+                logger.error("Unable to remove cached object: key='" + key + "', context=" + context, e);
+            }
+
+            return false;
+        }
+
+        return true;
     }
 
     protected <T> CacheLoader getCacheLoader(final Callback<T> callback, long refreshFrequency) {
@@ -136,6 +260,13 @@ public class DefaultCacheTemplate implements CacheTemplate {
         }
     }
 
+    protected void logStaleLoad(Context context, Object key) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Content of context " + context + " changed while loading the object for key '" + key +
+                         "', it won't be cached");
+        }
+    }
+
     protected void logGetFailure(Context context, Callback<?> callback, Object key, Exception e) {
         logger.error("Unable to retrieve cached object: key='" + key + "', context=" + context + ", " +
                      "callback=" + callback, e);
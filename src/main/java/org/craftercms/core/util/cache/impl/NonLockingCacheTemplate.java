@@ -34,16 +34,10 @@ public class NonLockingCacheTemplate extends DefaultCacheTemplate {
 
     @Override
     protected <T> T loadAndPutInCache(Context context, CachingOptions options, Callback<T> callback, Object key) {
-        T obj = doGet(context, callback, key);
+        // The lookup was already recorded by getObject, so check again without counting another miss
+        T obj = doPeek(context, callback, key);
         if (obj == null) {
-            obj = callback.execute();
-            if (obj != null) {
-                if (options == null) {
-                    options = CachingOptions.DEFAULT_CACHING_OPTIONS;
-                }
-
-                obj = doPut(context, options, callback, key, obj);
-            }
+            obj = doLoadAndPut(context, options, callback, key);
         }
 
         return obj;
@@ -37,4 +37,10 @@ public class NoopCacheTemplate extends DefaultCacheTemplate {
         return callback.execute();
     }
 
+    @Override
+    public <T> void putObject(Context context, CachingOptions cachingOptions, Callback<T> callback, T obj,
+                              Object... keyElements) {
+        // Nothing is cached
+    }
+
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.util.cache.impl;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.craftercms.commons.lang.Callback;
+import org.craftercms.core.service.CacheService;
+import org.craftercms.core.service.CachingOptions;
+import org.craftercms.core.service.Context;
+
+/**
+ * Extension of {@link DefaultCacheTemplate} that deduplicates concurrent loads of the same item through a map of
+ * in-flight loads instead of locks: the first thread that misses an item registers a {@link CompletableFuture} for
+ * its scope and key and executes the callback, while the other threads that miss the same item meanwhile just wait
+ * for that future and share its result. No lock object is created per miss and the map only holds the loads that
+ * are currently running.
+ *
+ * <p>If the callback throws an exception, the waiting threads get the same exception and the next miss starts a new
+ * load. If the same thread misses an item it is already loading (e.g. a descriptor that includes itself), the item
+ * is loaded again instead of waiting, like the reentrant locks of {@link DefaultCacheTemplate} allowed.</p>
+ *
+ * @since 4.2.0
+ */
+public class SingleFlightCacheTemplate extends DefaultCacheTemplate {
+
+    protected final Map<Object, InFlightLoad> inFlightLoads;
+
+    public SingleFlightCacheTemplate(CacheService cacheService) {
+        super(cacheService);
+
+        inFlightLoads = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the number of loads currently running.
+     */
+    public int getInFlightLoads() {
+        return inFlightLoads.size();
+    }
+
+    @Override
+    protected <T> T loadAndPutInCache(Context context, CachingOptions cachingOptions, Callback<T> callback,
+                                      Object key) {
+        Object loadKey = new CompositeCacheKey(context.getCacheScope(), key);
+        InFlightLoad load = new InFlightLoad();
+
+        InFlightLoad existingLoad = inFlightLoads.putIfAbsent(loadKey, load);
+        if (existingLoad != null) {
+            if (existingLoad.owner == Thread.currentThread()) {
+                return doLoadAndPut(context, cachingOptions, callback, key);
+            } else {
+                return awaitLoad(existingLoad);
+            }
+        }
+
+        try {
+            // Check if another load already put the item in cache before this one was registered
+            T obj = doPeek(context, callback, key);
+            if (obj == null) {
+                obj = doLoadAndPut(context, cachingOptions, callback, key);
+            }
+
+            load.complete(obj);
+
+            return obj;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(loadKey, load);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T> T awaitLoad(InFlightLoad load) {
+        try {
+            return (T) load.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Result of a running load, along with the thread that's executing it.
+     */
+    protected static class InFlightLoad extends CompletableFuture<Object> {
+
+        protected final Thread owner;
+
+        public InFlightLoad() {
+            owner = Thread.currentThread();
+        }
+
+    }
+
+}
@@ -17,9 +17,12 @@ package org.craftercms.core.util.xml.marshalling.xstream;
 
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.converters.DataHolder;
+import com.thoughtworks.xstream.converters.collections.CollectionConverter;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 import org.apache.commons.lang3.ArrayUtils;
 import org.craftercms.core.service.Item;
+import org.craftercms.core.service.ItemPage;
+import org.craftercms.core.service.StreamingItemList;
 import org.craftercms.core.service.Tree;
 import org.dom4j.Document;
 import org.dom4j.io.OutputFormat;
@@ -29,6 +32,8 @@ import org.springframework.oxm.xstream.XStreamMarshaller;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Extension of {@link org.springframework.oxm.xstream.XStreamMarshaller} that:
@@ -46,6 +51,7 @@ public class CrafterXStreamMarshaller extends XStreamMarshaller {
 
     public static final String ITEM_CLASS_ALIAS = "item";
     public static final String TREE_CLASS_ALIAS = "tree";
+    public static final String ITEM_PAGE_CLASS_ALIAS = "page";
     public static final String DOCUMENT_CLASS_ALIAS = "document";
 
     protected Class[] unsupportedClasses;
@@ -67,9 +73,16 @@ public class CrafterXStreamMarshaller extends XStreamMarshaller {
     protected void customizeXStream(XStream xstream) {
         xstream.alias(ITEM_CLASS_ALIAS, Item.class);
         xstream.alias(TREE_CLASS_ALIAS, Tree.class);
+        xstream.alias(ITEM_PAGE_CLASS_ALIAS, ItemPage.class);
         xstream.aliasType(DOCUMENT_CLASS_ALIAS, Document.class);
 
         xstream.registerConverter(Dom4jDocumentConverter.INSTANCE);
+
+        // Write the children of streamed trees like any other list (without a class attribute). ArrayList is added
+        // again so that it's still the class used to read lists
+        xstream.registerConverter(new CollectionConverter(xstream.getMapper(), StreamingItemList.class));
+        xstream.addDefaultImplementation(StreamingItemList.class, List.class);
+        xstream.addDefaultImplementation(ArrayList.class, List.class);
     }
 
     /**
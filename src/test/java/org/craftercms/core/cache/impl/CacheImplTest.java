@@ -16,7 +16,9 @@
 package org.craftercms.core.cache.impl;
 
 import org.craftercms.core.cache.CacheItem;
+import org.craftercms.core.cache.CacheStatistics;
 import org.craftercms.core.cache.impl.store.MapCacheStoreAdapter;
+import org.craftercms.core.cache.impl.store.guava.GuavaCacheStoreAdapter;
 import org.craftercms.core.exception.InternalCacheEngineException;
 import org.craftercms.core.exception.InvalidScopeException;
 import org.junit.Before;
@@ -26,6 +28,13 @@ import static org.craftercms.core.cache.CacheItem.NEVER_EXPIRE;
 import static org.craftercms.core.cache.CacheItem.NEVER_REFRESH;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * {@link org.craftercms.core.cache.impl.CacheImpl} unit test.
@@ -54,7 +63,7 @@ public class CacheImplTest {
 
     @Before
     public void setUp() throws InternalCacheEngineException {
-        cacheStore = new MapCacheStoreAdapter();
+        cacheStore = spy(new MapCacheStoreAdapter());
 
         cache = new CacheImpl(cacheStore);
         cache.setCacheRefresher(new CacheRefresherImpl());
@@ -95,4 +104,105 @@ public class CacheImplTest {
         assertNull(item);
     }
 
+    @Test
+    public void testTickOnlyChecksDueItems() throws Exception {
+        for (int i = 0; i < MAX_ITEMS_IN_MEMORY - 1; i++) {
+            cache.put(SCOPE, i, "Value #" + i);
+        }
+        cache.put(SCOPE, ITEM_KEY3, ITEM_VALUE3, 1, NEVER_REFRESH, null);
+
+        cache.tick();
+
+        assertNull(cache.get(SCOPE, ITEM_KEY3));
+        verify(cacheStore, never()).getKeys(anyString());
+        // Once by the tick and once by the assertion above
+        verify(cacheStore, times(2)).get(anyString(), any());
+    }
+
+    @Test
+    public void testDeadlineIndexIsBounded() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            // Replacing an item replaces its entry, even if the deadline changes
+            cache.put(SCOPE, ITEM_KEY1, ITEM_VALUE1, EXPIRATION_VALUE1 + i, NEVER_REFRESH, null);
+        }
+        assertEquals(1, cache.deadlineIndex.size());
+
+        cache.put(SCOPE, ITEM_KEY1, ITEM_VALUE1);
+        assertEquals(0, cache.deadlineIndex.size());
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(SCOPE, i, "Value #" + i, EXPIRATION_VALUE1 + i, NEVER_REFRESH, null);
+            cache.remove(SCOPE, i);
+        }
+        assertEquals(0, cache.deadlineIndex.size());
+
+        for (int i = 0; i < MAX_ITEMS_IN_MEMORY; i++) {
+            cache.put(SCOPE, i, "Value #" + i, EXPIRATION_VALUE1 + i, NEVER_REFRESH, null);
+        }
+        assertEquals(MAX_ITEMS_IN_MEMORY, cache.deadlineIndex.size());
+
+        cache.clearScope(SCOPE);
+        assertEquals(0, cache.deadlineIndex.size());
+    }
+
+    @Test
+    public void testEvictedItemsAreRemovedFromDeadlineIndex() throws Exception {
+        CacheImpl boundedCache = new CacheImpl(new GuavaCacheStoreAdapter());
+        boundedCache.addScope(SCOPE, MAX_ITEMS_IN_MEMORY);
+
+        for (int i = 0; i < MAX_ITEMS_IN_MEMORY * 10; i++) {
+            boundedCache.put(SCOPE, i, "Value #" + i, EXPIRATION_VALUE1 + i, NEVER_REFRESH, null);
+        }
+
+        assertEquals(boundedCache.getSize(SCOPE), boundedCache.deadlineIndex.size());
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        cache.put(SCOPE, ITEM_KEY1, ITEM_VALUE1, NEVER_EXPIRE, REFRESH_FREQUENCY_VALUE1, new DummyCacheLoader(),
+                  ITEM_VALUE1);
+        cache.put(SCOPE, ITEM_KEY3, ITEM_VALUE3, 1, NEVER_REFRESH, null);
+
+        cache.get(SCOPE, ITEM_KEY1);
+        cache.get(SCOPE, ITEM_KEY2);
+
+        // Ticks = 1. Item #1 should be refreshed (a load) and #3 removed from cache (an eviction).
+        cache.tick();
+
+        CacheStatistics statistics = cache.getStatistics(SCOPE);
+        assertEquals(1, statistics.getSize());
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+        assertEquals(1, statistics.getLoadSuccessCount());
+        assertEquals(0, statistics.getLoadFailureCount());
+        assertEquals(1, statistics.getLoadTimeHistogram().values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(1L, (long) statistics.getEvictionCounts().get(CacheImpl.EXPIRED_EVICTION_CAUSE));
+        assertTrue(statistics.getEstimatedMemory() > ITEM_VALUE1.length());
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        CacheRefresher staleItemRefresher = spy(new CacheRefresherImpl());
+        cache.setStaleItemRefresher(staleItemRefresher);
+
+        cache.put(SCOPE, ITEM_KEY1, ITEM_VALUE1, NEVER_EXPIRE, REFRESH_FREQUENCY_VALUE1, true,
+                  new DummyCacheLoader(), ITEM_VALUE1);
+
+        // Ticks = 1. Item #1 needs to be refreshed, but the ticker leaves it to the next read.
+        cache.tick();
+
+        verify(staleItemRefresher, never()).refreshItems(any(), any());
+        assertEquals(ITEM_VALUE1, cacheStore.get(SCOPE, ITEM_KEY1).getValue());
+
+        // The read gets the stale value and triggers the refresh
+        CacheItem item = cache.get(SCOPE, ITEM_KEY1);
+        assertEquals(ITEM_VALUE1, item.getValue());
+        verify(staleItemRefresher).refreshItems(any(), any());
+
+        item = cache.get(SCOPE, ITEM_KEY1);
+        assertEquals(ITEM_VALUE1.toUpperCase(), item.getValue());
+        assertTrue(item.isStaleWhileRevalidate());
+        verify(staleItemRefresher, times(1)).refreshItems(any(), any());
+    }
+
 }
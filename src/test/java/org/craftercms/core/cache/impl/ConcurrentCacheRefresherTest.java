@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.craftercms.core.cache.CacheItem;
+import org.craftercms.core.cache.CacheLoader;
+import org.craftercms.core.cache.impl.store.MapCacheStoreAdapter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.craftercms.core.cache.CacheItem.NEVER_EXPIRE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ConcurrentCacheRefresher} unit test.
+ */
+public class ConcurrentCacheRefresherTest {
+
+    private static final String SCOPE = "test";
+    private static final String KEY = "key";
+    private static final String VALUE = "value";
+    private static final long WAIT_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private ConcurrentCacheRefresher refresher;
+    private CacheImpl cache;
+
+    @Before
+    public void setUp() {
+        cache = new CacheImpl(new MapCacheStoreAdapter());
+        cache.addScope(SCOPE, 10);
+
+        refresher = new ConcurrentCacheRefresher();
+        refresher.setMaxConcurrentRefreshes(2);
+        refresher.setRefreshTimeout(0);
+        refresher.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() {
+        refresher.destroy();
+    }
+
+    @Test
+    public void testDuplicateRefreshesAreCoalesced() throws Exception {
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        CacheItem item = createItem(params -> {
+            loaderStarted.countDown();
+            releaseLoader.await();
+
+            return VALUE.toUpperCase();
+        });
+
+        refresher.refreshItems(List.of(item), cache);
+        assertTrue(loaderStarted.await(WAIT_TIMEOUT, TimeUnit.MILLISECONDS));
+
+        refresher.refreshItems(List.of(item), cache);
+        assertEquals(1, refresher.getCoalescedRefreshes());
+
+        releaseLoader.countDown();
+        waitFor(() -> refresher.getCompletedRefreshes() == 1);
+
+        assertEquals(VALUE.toUpperCase(), cache.get(SCOPE, KEY).getValue());
+        assertEquals(0, refresher.getActiveRefreshes());
+        assertEquals(0, refresher.getQueueDepth());
+    }
+
+    @Test
+    public void testSlowLoaderIsTimedOut() throws Exception {
+        refresher.setRefreshTimeout(100);
+
+        CacheItem item = createItem(params -> {
+            Thread.sleep(WAIT_TIMEOUT);
+
+            return VALUE.toUpperCase();
+        });
+
+        refresher.refreshItems(List.of(item), cache);
+        waitFor(() -> refresher.getTimedOutRefreshes() == 1 && refresher.getActiveRefreshes() == 0);
+
+        assertEquals(VALUE, cache.get(SCOPE, KEY).getValue());
+        assertEquals(0, refresher.getFailedRefreshes());
+    }
+
+    @Test
+    public void testTimedOutLoaderKeepsItsSlotUntilItReturns() throws Exception {
+        ConcurrentCacheRefresher singleRefresher = new ConcurrentCacheRefresher();
+        singleRefresher.setMaxConcurrentRefreshes(1);
+        singleRefresher.setRefreshTimeout(50);
+        singleRefresher.afterPropertiesSet();
+
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        CountDownLatch otherLoaderStarted = new CountDownLatch(1);
+        CacheItem item = createItem(KEY, params -> {
+            // Ignores the interrupts of the timeout
+            while (true) {
+                try {
+                    releaseLoader.await();
+                    return VALUE.toUpperCase();
+                } catch (InterruptedException e) {
+                    // keep waiting
+                }
+            }
+        });
+        CacheItem otherItem = createItem("otherKey", params -> {
+            otherLoaderStarted.countDown();
+
+            return VALUE.toUpperCase();
+        });
+
+        try {
+            singleRefresher.refreshItems(List.of(item, otherItem), cache);
+            waitFor(() -> singleRefresher.getTimedOutRefreshes() == 1);
+
+            assertFalse(otherLoaderStarted.await(200, TimeUnit.MILLISECONDS));
+            assertEquals(1, singleRefresher.getActiveRefreshes());
+            assertEquals(1, singleRefresher.getQueueDepth());
+
+            releaseLoader.countDown();
+
+            assertTrue(otherLoaderStarted.await(WAIT_TIMEOUT, TimeUnit.MILLISECONDS));
+            waitFor(() -> singleRefresher.getCompletedRefreshes() == 1);
+
+            assertEquals(VALUE, cache.get(SCOPE, KEY).getValue());
+            assertEquals(VALUE.toUpperCase(), cache.get(SCOPE, "otherKey").getValue());
+        } finally {
+            singleRefresher.destroy();
+        }
+    }
+
+    @Test
+    public void testExecutorIsCreatedOnFirstRefresh() throws Exception {
+        assertNull(refresher.executor);
+
+        refresher.refreshItems(List.of(createItem(params -> VALUE.toUpperCase())), cache);
+        waitFor(() -> refresher.getCompletedRefreshes() == 1);
+
+        assertNotNull(refresher.executor);
+    }
+
+    @Test
+    public void testFinishedRefreshIsNotInterrupted() {
+        refresher.setRefreshTimeout(100);
+
+        ConcurrentCacheRefresher.RefreshTimeout timeout = refresher.new RefreshTimeout(createItem(params -> VALUE),
+                                                                                        Thread.currentThread());
+        assertTrue(timeout.finish());
+
+        // The timeout fires right after the refresh finished
+        timeout.run();
+
+        assertFalse(Thread.interrupted());
+        assertEquals(0, refresher.getTimedOutRefreshes());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNotInitialized() {
+        new ConcurrentCacheRefresher().refreshItems(List.of(createItem(params -> VALUE)), cache);
+    }
+
+    private CacheItem createItem(CacheLoader loader) {
+        return createItem(KEY, loader);
+    }
+
+    private CacheItem createItem(String key, CacheLoader loader) {
+        cache.put(SCOPE, key, VALUE, NEVER_EXPIRE, 1, loader);
+
+        return cache.get(SCOPE, key);
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT;
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timed out waiting for the refresher", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+}
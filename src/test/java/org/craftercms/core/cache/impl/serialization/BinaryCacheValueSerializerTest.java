@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl.serialization;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.craftercms.core.service.Item;
+import org.craftercms.core.service.Tree;
+import org.craftercms.core.util.cache.impl.CachingAwareList;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.craftercms.core.cache.impl.serialization.TestCacheValues.assertItemEquals;
+import static org.craftercms.core.cache.impl.serialization.TestCacheValues.createItem;
+import static org.junit.Assert.*;
+
+/**
+ * {@link BinaryCacheValueSerializer} unit test.
+ *
+ * @since 4.2.0
+ */
+public class BinaryCacheValueSerializerTest {
+
+    private BinaryCacheValueSerializer serializer;
+
+    @Before
+    public void setUp() {
+        serializer = new BinaryCacheValueSerializer();
+    }
+
+    @Test
+    public void testItem() throws Exception {
+        Item item = createItem("/site/website/index.xml");
+        item.setCachingTime(1234567890123L);
+        item.setProperty("tags", List.of("home", "main"));
+        item.setProperty("count", -42);
+        item.setProperty("size", Long.MAX_VALUE);
+        item.setProperty("ratio", 0.5);
+        item.setProperty("disabled", false);
+        item.setProperty("nothing", null);
+
+        Item copy = (Item) serializer.deserialize(serializer.serialize(item));
+
+        assertNotSame(item, copy);
+        assertItemEquals(item, copy);
+        assertEquals(-42, copy.getProperty("count"));
+        assertEquals(Long.MAX_VALUE, copy.getProperty("size"));
+    }
+
+    @Test
+    public void testItemWithoutDescriptor() throws Exception {
+        Item item = new Item();
+        item.setName("other-name");
+        item.setUrl("/static-assets/images");
+        item.setFolder(true);
+
+        Item copy = (Item) serializer.deserialize(serializer.serialize(item));
+
+        assertItemEquals(item, copy);
+        assertNull(copy.getDescriptorUrl());
+        assertNull(copy.getProperties());
+        assertNull(copy.getCachingTime());
+    }
+
+    @Test
+    public void testTreeAndList() throws Exception {
+        Tree tree = new Tree(createItem("/site/website"));
+        Tree subtree = new Tree(createItem("/site/website/about"));
+        subtree.setChildren(List.of(createItem("/site/website/about/index.xml")));
+        tree.setChildren(List.of(createItem("/site/website/index.xml"), subtree));
+
+        Tree copy = (Tree) serializer.deserialize(serializer.serialize(tree));
+
+        assertItemEquals(tree, copy);
+        assertEquals(2, copy.getChildren().size());
+        assertItemEquals(subtree.getChildren().get(0), ((Tree) copy.getChildren().get(1)).getChildren().get(0));
+
+        Tree leaf = new Tree(createItem("/site/website/leaf.xml"));
+        assertNull(((Tree) serializer.deserialize(serializer.serialize(leaf))).getChildren());
+
+        CachingAwareList<Item> list = new CachingAwareList<>(List.of(createItem("/a.xml"), tree));
+        list.setCachingTime(10L);
+
+        @SuppressWarnings("unchecked")
+        List<Item> listCopy = (List<Item>) serializer.deserialize(serializer.serialize(list));
+
+        assertTrue(listCopy instanceof CachingAwareList);
+        assertEquals(10L, (long) ((CachingAwareList<?>) listCopy).getCachingTime());
+        assertEquals(2, listCopy.size());
+        assertTrue(listCopy.get(1) instanceof Tree);
+        assertItemEquals(tree, listCopy.get(1));
+    }
+
+    @Test
+    public void testDirectBuffer() throws Exception {
+        Item item = createItem("/site/website/index.xml");
+        byte[] data = serializer.serialize(item);
+
+        // Surrounded by other bytes, to check that only the value is read
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length + 8);
+        buffer.putInt(7).put(data).putInt(7).flip().position(4);
+
+        assertItemEquals(item, (Item) serializer.deserialize(buffer));
+        assertEquals(4, buffer.remaining());
+    }
+
+    @Test
+    public void testSmallerThanXml() throws Exception {
+        List<Item> children = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            children.add(createItem("/site/website/page" + i + "/index.xml"));
+        }
+
+        CachingAwareList<Item> list = new CachingAwareList<>(children);
+
+        int binarySize = serializer.serialize(list).length;
+        int xmlSize = new XmlCacheValueSerializer().serialize(list).length;
+
+        assertTrue("Binary size " + binarySize + " should be smaller than XML size " + xmlSize,
+                   binarySize < xmlSize);
+    }
+
+    @Test
+    public void testInvalidValues() throws Exception {
+        assertFalse(serializer.supports("value"));
+        assertThrows(NotSerializableException.class, () -> serializer.serialize("value"));
+
+        Item item = createItem("/site/website/index.xml");
+        item.setProperty("object", new Object());
+        assertThrows(NotSerializableException.class, () -> serializer.serialize(item));
+
+        byte[] data = serializer.serialize(createItem("/site/website/index.xml"));
+
+        assertThrows(IOException.class, () -> serializer.deserialize(Arrays.copyOf(data, data.length / 2)));
+        assertThrows(IOException.class, () -> serializer.deserialize(new XmlCacheValueSerializer().serialize(
+            createItem("/site/website/index.xml"))));
+
+        for (int i = 1; i < data.length; i++) {
+            byte[] corrupted = data.clone();
+            corrupted[i] = (byte) 0xFF;
+            try {
+                serializer.deserialize(corrupted);
+            } catch (IOException e) {
+                // Expected, as long as it's not another kind of exception
+            }
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl.serialization;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.craftercms.core.service.Item;
+import org.dom4j.DocumentException;
+import org.dom4j.DocumentHelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Items used as cache values by the tests of the serializers and of the components that use them, and the assertion
+ * to compare them after a round trip.
+ *
+ * @since 4.2.0
+ */
+public final class TestCacheValues {
+
+    /**
+     * Descriptor with the XML features a serializer needs to keep: declaration, processing instruction, comment,
+     * entities, CDATA, namespaces (prefixed and default) and non ASCII text.
+     */
+    public static final String DESCRIPTOR_XML =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<?xml-stylesheet type=\"text/xsl\" href=\"page.xsl\"?>\n" +
+        "<page xmlns:cr=\"http://craftercms.org/ns\" cr:id=\"1\">" +
+        "<!-- Generated -->" +
+        "<title>Home &amp; more</title>" +
+        "<body><![CDATA[<p>Welcome</p>]]></body>" +
+        "<cr:items><item key=\"a\" value=\"ñandú\"/><item key=\"b\" value=\"中文\"/></cr:items>" +
+        "<other xmlns=\"http://example.com/default\"><inner>text</inner></other>" +
+        "</page>";
+
+    private TestCacheValues() {
+    }
+
+    /**
+     * Creates an item for the given URL, with the {@link #DESCRIPTOR_XML} as descriptor and a property.
+     */
+    public static Item createItem(String url) throws DocumentException {
+        Item item = new Item();
+        item.setName(url.substring(url.lastIndexOf('/') + 1));
+        item.setUrl(url);
+        item.setDescriptorUrl(url);
+        item.setDescriptorDom(DocumentHelper.parseText(DESCRIPTOR_XML));
+        item.setProperties(new HashMap<>(Map.of("transformedUrl", "/" + item.getName())));
+
+        return item;
+    }
+
+    /**
+     * Asserts that the actual item is a copy of the expected one (not including the children of trees).
+     */
+    public static void assertItemEquals(Item expected, Item actual) {
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getUrl(), actual.getUrl());
+        assertEquals(expected.getDescriptorUrl(), actual.getDescriptorUrl());
+        assertEquals(expected.isFolder(), actual.isFolder());
+        assertEquals(expected.getProperties(), actual.getProperties());
+        assertEquals(expected.getCachingTime(), actual.getCachingTime());
+        if (expected.getDescriptorDom() != null) {
+            assertEquals(expected.getDescriptorDom().asXML(), actual.getDescriptorDom().asXML());
+        } else {
+            assertNull(actual.getDescriptorDom());
+        }
+    }
+
+}
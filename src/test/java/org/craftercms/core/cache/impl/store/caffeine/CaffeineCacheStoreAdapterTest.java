@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl.store.caffeine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.core.cache.CacheItem;
+import org.craftercms.core.cache.CacheLoader;
+import org.craftercms.core.cache.impl.CacheItemImpl;
+import org.craftercms.core.service.Item;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.craftercms.core.cache.CacheItem.NEVER_EXPIRE;
+import static org.craftercms.core.cache.CacheItem.NEVER_REFRESH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link CaffeineCacheStoreAdapter} unit test.
+ */
+public class CaffeineCacheStoreAdapterTest {
+
+    private static final String SCOPE = "test";
+    private static final String VALUE = "value";
+    private static final long TICK_FREQUENCY = 50;
+    private static final long WAIT_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private CaffeineCacheStoreAdapter adapter;
+
+    @Before
+    public void setUp() {
+        adapter = new CaffeineCacheStoreAdapter();
+        adapter.setTickFrequency(TICK_FREQUENCY);
+    }
+
+    @After
+    public void tearDown() {
+        adapter.destroy();
+    }
+
+    @Test
+    public void testScopeIsBoundedByEstimatedSize() throws Exception {
+        adapter.setMaxBytesPerScope(100_000);
+        adapter.addScope(SCOPE, Integer.MAX_VALUE);
+
+        String bigValue = StringUtils.repeat('x', 10_000);
+        for (int i = 0; i < 100; i++) {
+            adapter.put(createItem("key" + i, bigValue, NEVER_EXPIRE, NEVER_REFRESH, null));
+        }
+
+        waitFor(() -> adapter.getSize(SCOPE) < 10);
+
+        CaffeineCacheStatistics stats = (CaffeineCacheStatistics) adapter.getStatistics(SCOPE);
+        assertEquals(100_000, stats.getMaximum());
+        assertTrue(stats.getWeightedSize() <= 100_000);
+        assertTrue(stats.getEvictionCount() > 90);
+    }
+
+    @Test
+    public void testNativeExpiration() throws Exception {
+        adapter.setNativeExpirationEnabled(true);
+        adapter.addScope(SCOPE, 10);
+
+        adapter.put(createItem("expiring", VALUE, 1, NEVER_REFRESH, null));
+        adapter.put(createItem("permanent", VALUE, NEVER_EXPIRE, NEVER_REFRESH, null));
+
+        waitFor(() -> adapter.get(SCOPE, "expiring") == null);
+
+        assertEquals(VALUE, adapter.get(SCOPE, "permanent").getValue());
+    }
+
+    @Test
+    public void testItemWithoutDescriptorIsWeighed() throws Exception {
+        adapter.setMaxBytesPerScope(100_000);
+        adapter.addScope(SCOPE, Integer.MAX_VALUE);
+
+        // Folders and static assets have no DOM
+        Item folder = new Item();
+        folder.setName("folder");
+        folder.setUrl("/site/website/folder");
+        folder.setFolder(true);
+
+        adapter.put(createItem("folder", folder, NEVER_EXPIRE, NEVER_REFRESH, null));
+
+        assertSame(folder, adapter.get(SCOPE, "folder").getValue());
+
+        // The weighted size is updated by the maintenance of the scope
+        waitFor(() -> adapter.getStatistics(SCOPE).getEstimatedMemory() > 0);
+    }
+
+    private CacheItem createItem(String key, Object value, long ticksToExpire, long ticksToRefresh,
+                                 CacheLoader loader) {
+        return new CacheItemImpl(SCOPE, 0, key, value, ticksToExpire, ticksToRefresh, loader, new Object[0]);
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT;
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timed out waiting for the cache", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+}
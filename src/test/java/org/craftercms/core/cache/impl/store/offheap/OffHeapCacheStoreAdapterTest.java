@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl.store.offheap;
+
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.core.cache.CacheItem;
+import org.craftercms.core.cache.CacheStatistics;
+import org.craftercms.core.cache.impl.CacheItemImpl;
+import org.craftercms.core.exception.InvalidScopeException;
+import org.craftercms.core.service.Item;
+import org.craftercms.core.service.Tree;
+import org.craftercms.core.util.cache.impl.CachingAwareList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.craftercms.core.cache.CacheItem.NEVER_EXPIRE;
+import static org.craftercms.core.cache.CacheItem.NEVER_REFRESH;
+import static org.craftercms.core.cache.impl.serialization.TestCacheValues.assertItemEquals;
+import static org.craftercms.core.cache.impl.serialization.TestCacheValues.createItem;
+import static org.junit.Assert.*;
+
+/**
+ * {@link OffHeapCacheStoreAdapter} unit test.
+ */
+public class OffHeapCacheStoreAdapterTest {
+
+    private static final String SCOPE = "test";
+
+    private OffHeapCacheStoreAdapter adapter;
+
+    @Before
+    public void setUp() {
+        adapter = new OffHeapCacheStoreAdapter();
+        adapter.setSlabSize(4096);
+    }
+
+    @After
+    public void tearDown() {
+        adapter.destroy();
+    }
+
+    @Test
+    public void testItemsAreDeserialized() throws Exception {
+        adapter.addScope(SCOPE, 10);
+
+        Item item = createItem("/site/website/index.xml");
+        item.setProperty("tags", List.of("home", "main"));
+        item.setCachingTime(1000L);
+
+        Tree tree = new Tree(createItem("/site/website"));
+        tree.setChildren(List.of(item));
+
+        CachingAwareList<Item> list = new CachingAwareList<>(List.of(item, tree));
+
+        adapter.put(createCacheItem("item", item));
+        adapter.put(createCacheItem("tree", tree));
+        adapter.put(createCacheItem("list", list));
+        adapter.put(createCacheItem("exists", Boolean.TRUE));
+
+        Item cachedItem = (Item) adapter.get(SCOPE, "item").getValue();
+        assertNotSame(item, cachedItem);
+        assertItemEquals(item, cachedItem);
+        assertEquals(SCOPE, cachedItem.getScope());
+        assertEquals("item", cachedItem.getKey());
+
+        Tree cachedTree = (Tree) adapter.get(SCOPE, "tree").getValue();
+        assertItemEquals(tree, cachedTree);
+        assertEquals(1, cachedTree.getChildren().size());
+        assertItemEquals(item, cachedTree.getChildren().get(0));
+
+        @SuppressWarnings("unchecked")
+        List<Item> cachedList = (List<Item>) adapter.get(SCOPE, "list").getValue();
+        assertEquals(2, cachedList.size());
+        assertItemEquals(item, cachedList.get(0));
+        assertTrue(cachedList.get(1) instanceof Tree);
+
+        // Not supported by the serializer, so kept in the heap
+        assertSame(Boolean.TRUE, adapter.get(SCOPE, "exists").getValue());
+
+        CacheStatistics stats = adapter.getStatistics(SCOPE);
+        assertEquals(4, stats.getSize());
+        assertTrue(stats.getEstimatedMemory() > 0);
+    }
+
+    @Test
+    public void testScopeIsBoundedByItemCount() throws Exception {
+        adapter.addScope(SCOPE, 10);
+
+        for (int i = 0; i < 20; i++) {
+            adapter.put(createCacheItem("key" + i, createItem("/item" + i)));
+
+            // Keep the first item referenced, so that the clock keeps skipping it
+            assertNotNull(adapter.get(SCOPE, "key0"));
+        }
+
+        assertEquals(10, adapter.getSize(SCOPE));
+        assertTrue(adapter.hasKey(SCOPE, "key0"));
+        assertTrue(adapter.hasKey(SCOPE, "key19"));
+        assertEquals(10, adapter.getStatistics(SCOPE).getEvictionCount());
+    }
+
+    @Test
+    public void testScopeIsBoundedByOffHeapMemory() throws Exception {
+        adapter.setMaxBytesPerScope(16 * 4096);
+        adapter.addScope(SCOPE, Integer.MAX_VALUE);
+
+        Item item = createItem("/big.xml");
+        item.setProperty("body", StringUtils.repeat('x', 1000));
+
+        for (int i = 0; i < 200; i++) {
+            adapter.put(createCacheItem("key" + i, item));
+        }
+
+        assertTrue(adapter.getSize(SCOPE) < 200);
+        assertTrue(adapter.getStatistics(SCOPE).getEstimatedMemory() <= 16 * 4096);
+        assertItemEquals(item, (Item) adapter.get(SCOPE, "key199").getValue());
+
+        // Bigger than a slab, so it gets one of its own after evicting enough items
+        Item hugeItem = createItem("/huge.xml");
+        hugeItem.setProperty("body", StringUtils.repeat('x', 10_000));
+
+        adapter.put(createCacheItem("huge", hugeItem));
+        assertItemEquals(hugeItem, (Item) adapter.get(SCOPE, "huge").getValue());
+
+        adapter.clearScope(SCOPE);
+
+        assertEquals(0, adapter.getSize(SCOPE));
+        assertEquals(0, adapter.getStatistics(SCOPE).getEstimatedMemory());
+
+        adapter.put(createCacheItem("key", item));
+        assertItemEquals(item, (Item) adapter.get(SCOPE, "key").getValue());
+    }
+
+    @Test
+    public void testReplaceAndRemove() throws Exception {
+        adapter.addScope(SCOPE, 10);
+
+        adapter.put(createCacheItem("key", createItem("/a.xml")));
+        adapter.put(createCacheItem("key", createItem("/b.xml")));
+
+        assertEquals(1, adapter.getSize(SCOPE));
+        assertEquals("/b.xml", ((Item) adapter.get(SCOPE, "key").getValue()).getUrl());
+
+        assertTrue(adapter.remove(SCOPE, "key"));
+        assertFalse(adapter.remove(SCOPE, "key"));
+        assertNull(adapter.get(SCOPE, "key"));
+        assertEquals(0, adapter.getStatistics(SCOPE).getEstimatedMemory());
+
+        assertThrows(InvalidScopeException.class, () -> adapter.get("missing", "key"));
+    }
+
+    private CacheItem createCacheItem(String key, Object value) {
+        return new CacheItemImpl(SCOPE, 0, key, value, NEVER_EXPIRE, NEVER_REFRESH, null, new Object[0]);
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.cache.impl.store.tiered;
+
+import java.util.List;
+
+import org.craftercms.core.cache.CacheItem;
+import org.craftercms.core.cache.impl.CacheItemImpl;
+import org.craftercms.core.cache.impl.store.guava.GuavaCacheStoreAdapter;
+import org.craftercms.core.cache.impl.store.offheap.OffHeapCacheStoreAdapter;
+import org.craftercms.core.service.Item;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.craftercms.core.cache.CacheItem.NEVER_EXPIRE;
+import static org.craftercms.core.cache.CacheItem.NEVER_REFRESH;
+import static org.junit.Assert.*;
+
+/**
+ * {@link TieredCacheStoreAdapter} unit test.
+ */
+public class TieredCacheStoreAdapterTest {
+
+    private static final String SCOPE = "test";
+    // With a ratio of 0.5, the first level holds 2 items
+    private static final int MAX_ITEMS = 4;
+
+    private GuavaCacheStoreAdapter firstLevel;
+    private OffHeapCacheStoreAdapter secondLevel;
+    private TieredCacheStoreAdapter adapter;
+
+    @Before
+    public void setUp() {
+        firstLevel = new GuavaCacheStoreAdapter();
+        secondLevel = new OffHeapCacheStoreAdapter();
+
+        adapter = new TieredCacheStoreAdapter(List.of(firstLevel, secondLevel));
+        adapter.setUpperLevelMaxItemsRatio(0.5);
+    }
+
+    @After
+    public void tearDown() {
+        firstLevel.destroy();
+        secondLevel.destroy();
+    }
+
+    @Test
+    public void testWriteBack() throws Exception {
+        adapter.addScope(SCOPE, MAX_ITEMS);
+
+        adapter.put(createCacheItem("a"));
+        adapter.put(createCacheItem("b"));
+        adapter.put(createCacheItem("c"));
+
+        // The oldest item is demoted instead of discarded
+        assertEquals(2, firstLevel.getSize(SCOPE));
+        assertEquals(1, secondLevel.getSize(SCOPE));
+        assertTrue(secondLevel.hasKey(SCOPE, "a"));
+        assertEquals(3, adapter.getSize(SCOPE));
+        assertEquals(3, adapter.getKeys(SCOPE).size());
+
+        // Promoting it demotes the least recently used one of the first level
+        assertEquals("/a", ((Item) adapter.get(SCOPE, "a").getValue()).getUrl());
+        assertTrue(firstLevel.hasKey(SCOPE, "a"));
+        assertFalse(secondLevel.hasKey(SCOPE, "a"));
+        assertTrue(secondLevel.hasKey(SCOPE, "b"));
+        assertEquals(3, adapter.getSize(SCOPE));
+
+        // A new version of a demoted item replaces the old one
+        adapter.put(createCacheItem("b"));
+        assertTrue(firstLevel.hasKey(SCOPE, "b"));
+        assertFalse(secondLevel.hasKey(SCOPE, "b"));
+        assertEquals(3, adapter.getSize(SCOPE));
+
+        // Items are only discarded by the last level
+        for (int i = 0; i < 10; i++) {
+            adapter.put(createCacheItem("key" + i));
+        }
+
+        TieredCacheStatistics stats = (TieredCacheStatistics) adapter.getStatistics(SCOPE);
+        assertEquals(2 + MAX_ITEMS, stats.getSize());
+        assertEquals(13 - stats.getSize(), stats.getEvictionCount());
+        assertEquals(2, stats.getLevelStatistics().size());
+        assertEquals(stats.getLevelStatistics().get(1).getEstimatedMemory() +
+                     stats.getLevelStatistics().get(0).getEstimatedMemory(), stats.getEstimatedMemory());
+    }
+
+    @Test
+    public void testWriteThrough() throws Exception {
+        adapter.setWriteThrough(true);
+        adapter.addScope(SCOPE, MAX_ITEMS);
+
+        adapter.put(createCacheItem("a"));
+        adapter.put(createCacheItem("b"));
+        adapter.put(createCacheItem("c"));
+
+        assertEquals(2, firstLevel.getSize(SCOPE));
+        assertEquals(3, secondLevel.getSize(SCOPE));
+        assertEquals(3, adapter.getSize(SCOPE));
+
+        // Promoted items are kept in the lower levels
+        assertNotNull(adapter.get(SCOPE, "a"));
+        assertTrue(firstLevel.hasKey(SCOPE, "a"));
+        assertTrue(secondLevel.hasKey(SCOPE, "a"));
+        assertEquals(0, adapter.getStatistics(SCOPE).getEvictionCount());
+    }
+
+    @Test
+    public void testPeekDoesNotPromote() throws Exception {
+        adapter.addScope(SCOPE, MAX_ITEMS);
+
+        adapter.put(createCacheItem("a"));
+        adapter.put(createCacheItem("b"));
+        adapter.put(createCacheItem("c"));
+
+        assertEquals("/a", ((Item) adapter.peek(SCOPE, "a").getValue()).getUrl());
+        assertFalse(firstLevel.hasKey(SCOPE, "a"));
+        assertTrue(secondLevel.hasKey(SCOPE, "a"));
+        assertTrue(firstLevel.hasKey(SCOPE, "b"));
+        assertTrue(firstLevel.hasKey(SCOPE, "c"));
+        assertNull(adapter.peek(SCOPE, "d"));
+    }
+
+    @Test
+    public void testRemoveAndClear() throws Exception {
+        adapter.addScope(SCOPE, MAX_ITEMS);
+
+        adapter.put(createCacheItem("a"));
+        adapter.put(createCacheItem("b"));
+        adapter.put(createCacheItem("c"));
+
+        assertTrue(adapter.hasKey(SCOPE, "a"));
+        assertTrue(adapter.remove(SCOPE, "a"));
+        assertFalse(adapter.hasKey(SCOPE, "a"));
+        assertNull(adapter.get(SCOPE, "a"));
+
+        adapter.clearScope(SCOPE);
+
+        assertEquals(0, adapter.getSize(SCOPE));
+        assertEquals(0, firstLevel.getSize(SCOPE));
+        assertEquals(0, secondLevel.getSize(SCOPE));
+
+        adapter.removeScope(SCOPE);
+
+        assertFalse(adapter.hasScope(SCOPE));
+        assertFalse(secondLevel.hasScope(SCOPE));
+    }
+
+    private CacheItem createCacheItem(String key) {
+        Item item = new Item();
+        item.setName(key);
+        item.setUrl("/" + key);
+
+        return new CacheItemImpl(SCOPE, 0, key, item, NEVER_EXPIRE, NEVER_REFRESH, null, new Object[0]);
+    }
+
+}
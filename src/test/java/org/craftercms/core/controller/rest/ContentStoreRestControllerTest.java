@@ -15,11 +15,15 @@
  */
 package org.craftercms.core.controller.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.craftercms.core.exception.ForbiddenPathException;
+import org.craftercms.core.exception.PathNotFoundException;
+import org.craftercms.core.exception.StoreException;
 import org.craftercms.core.service.*;
 import org.craftercms.core.store.ContentStoreAdapter;
 import org.craftercms.core.util.cache.CachingAwareObject;
 import org.craftercms.core.util.cache.impl.CachingAwareList;
+import org.craftercms.core.util.xml.marshalling.xstream.CrafterXStreamMarshaller;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.mock.web.MockHttpServletRequest;
@@ -28,7 +32,9 @@ import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.WebRequest;
 
 import jakarta.servlet.http.HttpServletResponse;
+import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
@@ -174,6 +180,118 @@ public class ContentStoreRestControllerTest {
         fail("Expected " + ForbiddenPathException.class.getName() + " exception");
     }
 
+    @Test
+    public void testGetTreeStreaming() throws Exception {
+        Item folder = createItem(FOLDER_URL, true);
+        Item child = createItem(ITEM_URL, false);
+        Item subfolder = createItem(FOLDER_URL + "/subfolder", true);
+        Item grandchild = createItem(FOLDER_URL + "/subfolder/item", false);
+
+        when(storeService.getItem(context, null, FOLDER_URL, null, false)).thenReturn(folder);
+        when(storeService.getChildren(eq(context), isNull(), eq(FOLDER_URL), any(ItemFilter.class), isNull(),
+                                      eq(false)))
+                .thenReturn(new CachingAwareList<>(List.of(child, subfolder)));
+        when(storeService.getChildren(eq(context), isNull(), eq(subfolder.getUrl()), any(ItemFilter.class), isNull(),
+                                      eq(false)))
+                .thenReturn(new CachingAwareList<>(List.of(grandchild)));
+
+        storeRestController.setStreamingEnabled(true);
+
+        Tree streamedTree = storeRestController.getTree(webRequest, response, context.getId(), FOLDER_URL,
+                                                        TREE_DEPTH_HARD_LIMIT, false);
+
+        // The subtrees are only loaded when the children are iterated
+        verify(storeService, never()).getChildren(eq(context), isNull(), eq(subfolder.getUrl()),
+                                                  any(ItemFilter.class), isNull(), eq(false));
+        verify(storeService, never()).getTree(any(Context.class), any(), anyString(), anyInt(), any(), any(),
+                                              anyBoolean());
+
+        Tree subtree = new Tree(subfolder, false);
+        subtree.setChildren(new ArrayList<>(List.of(grandchild)));
+        Tree expectedTree = new Tree(folder, false);
+        expectedTree.setChildren(new ArrayList<>(List.of(child, subtree)));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals(objectMapper.writeValueAsString(expectedTree), objectMapper.writeValueAsString(streamedTree));
+
+        CrafterXStreamMarshaller marshaller = new CrafterXStreamMarshaller();
+        assertEquals(marshal(marshaller, expectedTree), marshal(marshaller, streamedTree));
+    }
+
+    @Test
+    public void testGetTreeStreamingNotModified() throws Exception {
+        Item folder = createItem(FOLDER_URL, true);
+        CachingAwareList<Item> rootChildren = new CachingAwareList<>(List.of(createItem(ITEM_URL, false)));
+
+        when(storeService.getItem(context, null, FOLDER_URL, null, false)).thenReturn(folder);
+        when(storeService.getChildren(eq(context), isNull(), eq(FOLDER_URL), any(ItemFilter.class), isNull(),
+                                      eq(false)))
+                .thenReturn(rootChildren);
+
+        storeRestController.setStreamingEnabled(true);
+
+        testNotModified(rootChildren, () -> storeRestController.getTree(webRequest, response, context.getId(),
+                                                                        FOLDER_URL, TREE_DEPTH_HARD_LIMIT, false));
+    }
+
+    @Test
+    public void testGetTreeStreamingWithPlainList() throws Exception {
+        Item folder = createItem(FOLDER_URL, true);
+        Item child = createItem(ITEM_URL, false);
+
+        when(storeService.getItem(context, null, FOLDER_URL, null, false)).thenReturn(folder);
+        when(storeService.getChildren(eq(context), isNull(), eq(FOLDER_URL), any(ItemFilter.class), isNull(),
+                                      eq(false)))
+                .thenReturn(List.of(child));
+
+        storeRestController.setStreamingEnabled(true);
+
+        Tree streamedTree = storeRestController.getTree(webRequest, response, context.getId(), FOLDER_URL,
+                                                        TREE_DEPTH_HARD_LIMIT, false);
+
+        assertEquals(List.of(child), streamedTree.getChildren());
+    }
+
+    @Test
+    public void testGetTreeStreamingFailure() throws Exception {
+        Item folder = createItem(FOLDER_URL, true);
+        Item subfolder = createItem(FOLDER_URL + "/subfolder", true);
+
+        when(storeService.getItem(context, null, FOLDER_URL, null, false)).thenReturn(folder);
+        when(storeService.getChildren(eq(context), isNull(), eq(FOLDER_URL), any(ItemFilter.class), isNull(),
+                                      eq(false)))
+                .thenReturn(new CachingAwareList<>(List.of(subfolder)));
+        when(storeService.getChildren(eq(context), isNull(), eq(subfolder.getUrl()), any(ItemFilter.class), isNull(),
+                                      eq(false)))
+                .thenThrow(new PathNotFoundException("Deleted"));
+
+        storeRestController.setStreamingEnabled(true);
+
+        Tree streamedTree = storeRestController.getTree(webRequest, response, context.getId(), FOLDER_URL,
+                                                        TREE_DEPTH_HARD_LIMIT, false);
+
+        // The error happens while writing, and it says which folder couldn't be loaded
+        StoreException e = assertThrows(StoreException.class, () -> streamedTree.getChildren().get(0));
+        assertTrue(e.getMessage().contains(subfolder.getUrl()));
+        assertTrue(e.getCause() instanceof PathNotFoundException);
+    }
+
+    private Item createItem(String url, boolean folder) {
+        Item item = new Item();
+        item.setName(url.substring(url.lastIndexOf('/') + 1));
+        item.setUrl(url);
+        item.setFolder(folder);
+
+        return item;
+    }
+
+    private String marshal(CrafterXStreamMarshaller marshaller, Object graph) throws Exception {
+        StringWriter writer = new StringWriter();
+        marshaller.marshalWriter(graph, writer, null);
+
+        return writer.toString();
+    }
+
     private void testNotModified(CachingAwareObject cachingAwareObject, Supplier<Object> supplier) {
         cachingAwareObject.setCachingTime(System.currentTimeMillis());
         request.addHeader(IF_MODIFIED_SINCE_HEADER_NAME, cachingAwareObject.getCachingTime());
@@ -23,12 +23,15 @@ import org.craftercms.core.exception.AuthenticationException;
 import org.craftercms.core.exception.PathNotFoundException;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.http.converter.HttpMessageNotWritableException;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.web.context.request.ServletWebRequest;
 
 import static org.craftercms.core.controller.rest.RestControllerBase.MESSAGE_MODEL_ATTRIBUTE_NAME;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
 
 /**
  * Tests for {@link ExceptionHandlers}
@@ -86,6 +89,21 @@ public class ExceptionHandlersTest {
         assertEquals(ex.getMessage(), model.get(MESSAGE_MODEL_ATTRIBUTE_NAME));
     }
 
+    @Test
+    public void testHandleHttpMessageNotWritableException() {
+        HttpMessageNotWritableException ex = new HttpMessageNotWritableException("This is a test");
+
+        Map<String, Object> model = exceptionHandler.handleHttpMessageNotWritableException(request, response, ex);
+        assertEquals(ex.getMessage(), model.get(MESSAGE_MODEL_ATTRIBUTE_NAME));
+
+        // Once committed the response can only be aborted
+        response.setCommitted(true);
+
+        assertSame(ex, assertThrows(HttpMessageNotWritableException.class,
+                                    () -> exceptionHandler.handleHttpMessageNotWritableException(request, response,
+                                                                                                 ex)));
+    }
+
     @Test
     public void testHandleException() {
         Exception ex = new Exception("This is a test");
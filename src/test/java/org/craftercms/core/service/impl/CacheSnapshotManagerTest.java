@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.service.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.craftercms.core.cache.impl.CacheImpl;
+import org.craftercms.core.cache.impl.store.MapCacheStoreAdapter;
+import org.craftercms.core.service.CacheService;
+import org.craftercms.core.service.CachingOptions;
+import org.craftercms.core.service.Content;
+import org.craftercms.core.service.Item;
+import org.craftercms.core.store.impl.filesystem.FileSystemContent;
+import org.craftercms.core.store.impl.filesystem.FileSystemContext;
+import org.craftercms.core.store.impl.filesystem.FileSystemContextWatcher;
+import org.craftercms.core.store.impl.filesystem.FileSystemFile;
+import org.craftercms.core.util.CacheUtils;
+import org.craftercms.core.util.cache.impl.CachingAwareList;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.craftercms.core.cache.impl.serialization.TestCacheValues.createItem;
+import static org.craftercms.core.service.impl.AbstractCachedContentStoreService.CONST_KEY_ELEM_CHILDREN;
+import static org.craftercms.core.service.impl.AbstractCachedContentStoreService.CONST_KEY_ELEM_ITEM;
+import static org.craftercms.core.store.impl.AbstractCachedContentStoreAdapter.CONST_KEY_ELEM_CONTENT;
+import static org.craftercms.core.store.impl.AbstractCachedContentStoreAdapter.CONST_KEY_ELEM_EXISTS;
+import static org.junit.Assert.*;
+
+/**
+ * {@link CacheSnapshotManager} unit test.
+ *
+ * @since 4.2.0
+ */
+public class CacheSnapshotManagerTest {
+
+    private static final String PAGE_URL = "/site/website/index.xml";
+    private static final String OTHER_PAGE_URL = "/site/website/about/index.xml";
+    private static final String COMPONENT_URL = "/site/components/header.xml";
+    private static final String FOLDER_URL = "/site/website";
+    private static final String PROCESSOR = "processor";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Path rootFolder;
+    private CacheSnapshotManager snapshotManager;
+
+    @Before
+    public void setUp() throws Exception {
+        rootFolder = tempFolder.newFolder("root").toPath();
+        Files.createDirectories(rootFolder.resolve(OTHER_PAGE_URL.substring(1)).getParent());
+        Files.writeString(rootFolder.resolve(PAGE_URL.substring(1)), "<page/>");
+        Files.writeString(rootFolder.resolve(OTHER_PAGE_URL.substring(1)), "<page/>");
+        Files.createDirectories(rootFolder.resolve(COMPONENT_URL.substring(1)).getParent());
+        Files.writeString(rootFolder.resolve(COMPONENT_URL.substring(1)), "<component/>");
+    }
+
+    @Test
+    public void testSaveAndRestore() throws Exception {
+        FileSystemContext context = createContext();
+        CacheService cacheService = cacheService();
+
+        Item page = createItem(PAGE_URL);
+        Content content = new FileSystemContent(rootFolder.resolve(PAGE_URL.substring(1)));
+
+        cacheService.put(context, CacheUtils.generateKey(PAGE_URL, PROCESSOR, CONST_KEY_ELEM_ITEM), page,
+                         new CachingOptions(true, 10, 5), parameters -> page);
+        cacheService.put(context, CacheUtils.generateKey(FOLDER_URL, null, PROCESSOR, CONST_KEY_ELEM_CHILDREN),
+                         new CachingAwareList<>(List.of(page)));
+        cacheService.put(context, CacheUtils.generateKey(PAGE_URL, CONST_KEY_ELEM_EXISTS), true);
+        cacheService.put(context, CacheUtils.generateKey(PAGE_URL, CONST_KEY_ELEM_CONTENT), content);
+        // Neither the key nor the value can be restored
+        cacheService.put(context, CacheUtils.generateKey(PAGE_URL, new Object(), "other"), "value");
+        cacheService.put(context, CacheUtils.generateKey(PAGE_URL, "other"), new Object());
+
+        backdateFiles();
+
+        assertEquals(4, snapshotManager.saveSnapshot(context));
+
+        FileSystemContext newContext = createContext();
+        assertEquals(4, snapshotManager.doRestore(newContext, snapshotManager.getSnapshotFile(newContext)));
+
+        cacheService = cacheService();
+
+        Item cachedPage = (Item) cacheService.get(newContext,
+                                                  CacheUtils.generateKey(PAGE_URL, PROCESSOR, CONST_KEY_ELEM_ITEM));
+        assertNotNull(cachedPage);
+        assertEquals(PAGE_URL, cachedPage.getUrl());
+        assertEquals(page.getDescriptorDom().asXML(), cachedPage.getDescriptorDom().asXML());
+
+        // Items that need to be refreshed are restored to expire at their refresh deadline instead
+        var cachedPageItem = cacheService.getItem(newContext,
+                                                  CacheUtils.generateKey(PAGE_URL, PROCESSOR, CONST_KEY_ELEM_ITEM));
+        assertEquals(5, cachedPageItem.getTicksToExpire());
+        assertNull(cachedPageItem.getLoader());
+
+        List<?> children = (List<?>) cacheService.get(newContext, CacheUtils.generateKey(FOLDER_URL, null, PROCESSOR,
+                                                                                         CONST_KEY_ELEM_CHILDREN));
+        assertEquals(1, children.size());
+        assertEquals(Boolean.TRUE, cacheService.get(newContext, CacheUtils.generateKey(PAGE_URL,
+                                                                                       CONST_KEY_ELEM_EXISTS)));
+
+        Content cachedContent = (Content) cacheService.get(newContext,
+                                                           CacheUtils.generateKey(PAGE_URL, CONST_KEY_ELEM_CONTENT));
+        assertEquals(content.getLength(), cachedContent.getLength());
+    }
+
+    @Test
+    public void testChangedFilesAreInvalidated() throws Exception {
+        FileSystemContext context = createContext();
+
+        cacheService().put(context, CacheUtils.generateKey(PAGE_URL, PROCESSOR, CONST_KEY_ELEM_ITEM),
+                           createItem(PAGE_URL));
+        cacheService().put(context, CacheUtils.generateKey(OTHER_PAGE_URL, PROCESSOR, CONST_KEY_ELEM_ITEM),
+                           createItem(OTHER_PAGE_URL));
+        cacheService().put(context, CacheUtils.generateKey(OTHER_PAGE_URL, CONST_KEY_ELEM_EXISTS), true);
+        cacheService().put(context, CacheUtils.generateKey(COMPONENT_URL, PROCESSOR, CONST_KEY_ELEM_ITEM),
+                           createItem(COMPONENT_URL));
+
+        backdateFiles();
+
+        assertEquals(4, snapshotManager.saveSnapshot(context));
+
+        Files.writeString(rootFolder.resolve(PAGE_URL.substring(1)), "<page><title>New</title></page>");
+        Files.delete(rootFolder.resolve(OTHER_PAGE_URL.substring(1)));
+
+        // Without a watcher, there's no way to know which objects are affected
+        FileSystemContext newContext = createContext();
+        assertEquals(0, snapshotManager.doRestore(newContext, snapshotManager.getSnapshotFile(newContext)));
+        assertEquals(0, cacheService().getSize(newContext));
+
+        newContext = createContext();
+        FileSystemContextWatcher watcher = new FileSystemContextWatcher(newContext, cacheService(), rootFolder,
+                                                                        ".meta.xml");
+        newContext.setWatcher(watcher);
+        try {
+            assertEquals(4, snapshotManager.doRestore(newContext, snapshotManager.getSnapshotFile(newContext)));
+        } finally {
+            watcher.close();
+        }
+
+        // The modified page and the deleted one are removed
+        assertEquals(1, cacheService().getSize(newContext));
+        assertTrue(cacheService().hasKey(newContext, CacheUtils.generateKey(COMPONENT_URL, PROCESSOR,
+                                                                            CONST_KEY_ELEM_ITEM)));
+    }
+
+    @Test
+    public void testDependentsAreInvalidated() throws Exception {
+        FileSystemContext context = createContext();
+        FileSystemContextWatcher watcher = new FileSystemContextWatcher(context, cacheService(), rootFolder,
+                                                                        ".meta.xml");
+        context.setWatcher(watcher);
+
+        Object componentKey = CacheUtils.generateKey(COMPONENT_URL, PROCESSOR, CONST_KEY_ELEM_ITEM);
+        Object pageKey = CacheUtils.generateKey(PAGE_URL, PROCESSOR, CONST_KEY_ELEM_ITEM);
+        Object otherPageKey = CacheUtils.generateKey(OTHER_PAGE_URL, PROCESSOR, CONST_KEY_ELEM_ITEM);
+
+        cacheService().put(context, componentKey, createItem(COMPONENT_URL));
+        cacheService().put(context, pageKey, createItem(PAGE_URL));
+        cacheService().put(context, otherPageKey, createItem(OTHER_PAGE_URL));
+        // The page includes the component
+        watcher.objectCached(componentKey, List.of());
+        watcher.objectCached(pageKey, List.of(componentKey));
+        watcher.objectCached(otherPageKey, List.of());
+
+        backdateFiles();
+
+        assertEquals(3, snapshotManager.saveSnapshot(context));
+
+        Files.writeString(rootFolder.resolve(COMPONENT_URL.substring(1)), "<component><title>New</title></component>");
+
+        FileSystemContext newContext = createContext();
+        FileSystemContextWatcher newWatcher = new FileSystemContextWatcher(newContext, cacheService(), rootFolder,
+                                                                           ".meta.xml");
+        newContext.setWatcher(newWatcher);
+
+        assertEquals(3, snapshotManager.doRestore(newContext, snapshotManager.getSnapshotFile(newContext)));
+
+        assertFalse(cacheService().hasKey(newContext, componentKey));
+        assertFalse(cacheService().hasKey(newContext, pageKey));
+        assertTrue(cacheService().hasKey(newContext, otherPageKey));
+    }
+
+    @Test
+    public void testUnsupportedContexts() throws Exception {
+        FileSystemContext context = createContext();
+
+        snapshotManager.setEnabled(false);
+
+        assertFalse(snapshotManager.isSupported(context));
+        assertEquals(-1, snapshotManager.saveSnapshot(context));
+        assertFalse(Files.exists(snapshotManager.getSnapshotFile(context)));
+    }
+
+    private FileSystemContext createContext() throws IOException {
+        FileSystemContext context = new FileSystemContext("test", null, rootFolder.toString(),
+                                                          new FileSystemFile(rootFolder.toFile()), true, true, 0,
+                                                          true, null);
+        CacheService cacheService = new CacheServiceImpl(new CacheImpl(new MapCacheStoreAdapter()));
+        cacheService.addScope(context);
+
+        snapshotManager = new CacheSnapshotManager(cacheService, tempFolder.getRoot().toPath().resolve("snapshots")
+                                                                           .toString());
+        snapshotManager.setEnabled(true);
+
+        return context;
+    }
+
+    private CacheService cacheService() {
+        return snapshotManager.cacheService;
+    }
+
+    /**
+     * Moves the last modified time of all the files and folders to the past, so that they're not considered
+     * changed after the snapshot.
+     */
+    private void backdateFiles() throws IOException {
+        FileTime time = FileTime.fromMillis(System.currentTimeMillis() - 60_000);
+
+        try (Stream<Path> paths = Files.walk(rootFolder)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Files.setLastModifiedTime(path, time);
+            }
+        }
+    }
+
+}
@@ -16,7 +16,10 @@
 package org.craftercms.core.service.impl;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.craftercms.core.exception.InvalidPageException;
+import org.craftercms.core.exception.ItemProcessingException;
 import org.craftercms.core.exception.PathNotFoundException;
+import org.craftercms.core.processors.ItemProcessor;
 import org.craftercms.core.processors.impl.ItemProcessorPipeline;
 import org.craftercms.core.processors.impl.SkipAllItemProcessor;
 import org.craftercms.core.processors.impl.TextMetaDataCollectionExtractingProcessor;
@@ -36,8 +39,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.craftercms.core.service.CachingOptions.DEFAULT_CACHING_OPTIONS;
 import static org.craftercms.core.service.ContentStoreService.UNLIMITED_TREE_DEPTH;
@@ -316,6 +326,70 @@ public class ContentStoreServiceImplTest {
         }
     }
 
+    @Test
+    public void testGetChildrenPage() throws Exception {
+        List<Item> children = contentStoreService.getChildren(context, ROOT_FOLDER_PATH);
+
+        ItemPage page = contentStoreService.findChildrenPage(context, null, ROOT_FOLDER_PATH, 1, 2, null, null, true);
+        assertNotNull(page);
+        assertEquals(1, page.getOffset());
+        assertEquals(children.size(), page.getTotal());
+        assertEquals(children.subList(1, 3), page.getItems());
+        assertNotNull(page.getNextCursor());
+
+        // Sleep so that we get a different caching time in the next call if the caching is being done wrong.
+        Thread.sleep(100);
+
+        ItemPage cachedPage = contentStoreService.getChildrenPage(context, null, ROOT_FOLDER_PATH, 1, 2, null, null,
+                                                                  true);
+        assertEquals(page, cachedPage);
+        assertEquals(page.getCachingTime(), cachedPage.getCachingTime());
+
+        List<Item> pagedChildren = new ArrayList<>();
+        String cursor = null;
+        do {
+            page = cursor != null?
+                    contentStoreService.getChildrenPage(context, null, ROOT_FOLDER_PATH, cursor, 2, null, null, true) :
+                    contentStoreService.getChildrenPage(context, null, ROOT_FOLDER_PATH, 0, 2, null, null, true);
+            assertTrue(page.getItems().size() <= 2);
+
+            pagedChildren.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(children, pagedChildren);
+
+        assertNull(contentStoreService.findChildrenPage(context, null, INVALID_PATH, 0, 2, null, null, true));
+
+        try {
+            contentStoreService.getChildrenPage(context, null, INVALID_PATH, 0, 2, null, null, true);
+            fail("Expected " + PathNotFoundException.class.getName());
+        } catch (PathNotFoundException e) {
+        }
+    }
+
+    @Test
+    public void testGetChildrenPageOutOfRange() throws Exception {
+        int total = contentStoreService.getChildren(context, ROOT_FOLDER_PATH).size();
+
+        ItemPage page = contentStoreService.getChildrenPage(context, null, ROOT_FOLDER_PATH, total + 1, 2, null, null,
+                                                            true);
+        assertEquals(total, page.getOffset());
+        assertTrue(page.getItems().isEmpty());
+
+        Thread.sleep(100);
+
+        // Every offset after the last child gets the same cached page
+        ItemPage otherPage = contentStoreService.getChildrenPage(context, null, ROOT_FOLDER_PATH, total + 100, 2, null,
+                                                                 null, true);
+        assertEquals(page.getCachingTime(), otherPage.getCachingTime());
+
+        assertThrows(InvalidPageException.class, () -> contentStoreService.getChildrenPage(
+            context, null, ROOT_FOLDER_PATH, "not a cursor", 2, null, null, true));
+        assertThrows(InvalidPageException.class, () -> contentStoreService.getChildrenPage(
+            context, null, ROOT_FOLDER_PATH, ItemPage.createCursor("missing"), 2, null, null, true));
+    }
+
     @Test
     public void testGetTree() throws Exception {
         Tree tree = contentStoreService.findTree(context, ROOT_FOLDER_PATH);
@@ -385,6 +459,69 @@ public class ContentStoreServiceImplTest {
         }
     }
 
+    @Test
+    public void testGetTreeInParallel() throws Exception {
+        ContentStoreServiceImpl storeServiceImpl = (ContentStoreServiceImpl) contentStoreService;
+        storeServiceImpl.setParallelTraversalEnabled(true);
+        storeServiceImpl.setMaxTraversalParallelismPerRequest(2);
+        storeServiceImpl.afterPropertiesSet();
+
+        try {
+            Tree tree = contentStoreService.findTree(context, ROOT_FOLDER_PATH);
+            assertRootFolderTree(tree, UNLIMITED_TREE_DEPTH, false, false);
+
+            ItemProcessorPipeline extractorPipeline = new ItemProcessorPipeline();
+            extractorPipeline.addProcessor(new TextMetaDataCollectionExtractingProcessor("//extension"));
+            extractorPipeline.addProcessor(new TextMetaDataExtractingProcessor("//first-quote", "//second-quote",
+                                                                               "//third-quote", "//size"));
+
+            tree = contentStoreService.findTree(context, DEFAULT_CACHING_OPTIONS, ROOT_FOLDER_PATH, 1,
+                                                OnlyNonDescriptorsFilter.instance, extractorPipeline);
+            assertRootFolderTree(tree, 1, true, true);
+        } finally {
+            storeServiceImpl.destroy();
+            storeServiceImpl.setParallelTraversalEnabled(false);
+        }
+    }
+
+    @Test
+    public void testFailedParallelTraversalWaitsForRunningTasks() throws Exception {
+        ContentStoreServiceImpl storeServiceImpl = (ContentStoreServiceImpl) contentStoreService;
+        storeServiceImpl.setParallelTraversalEnabled(true);
+        storeServiceImpl.setTraversalParallelism(4);
+        storeServiceImpl.setMaxTraversalParallelismPerRequest(4);
+        storeServiceImpl.afterPropertiesSet();
+
+        AtomicInteger running = new AtomicInteger();
+        ItemProcessor processor = (ctx, cachingOptions, item) -> {
+            running.incrementAndGet();
+            try {
+                if (SYSTEM_INFO_COMPONENT_PATH.equals(item.getUrl())) {
+                    throw new ItemProcessingException("Expected error");
+                }
+
+                Thread.sleep(100);
+
+                return item;
+            } catch (InterruptedException e) {
+                throw new ItemProcessingException("Interrupted", e);
+            } finally {
+                running.decrementAndGet();
+            }
+        };
+
+        try {
+            contentStoreService.getTree(context, DEFAULT_CACHING_OPTIONS, ROOT_FOLDER_PATH, 1, null, processor);
+            fail("Expected " + ItemProcessingException.class.getName());
+        } catch (ItemProcessingException e) {
+            assertEquals(0, running.get());
+        } finally {
+            storeServiceImpl.destroy();
+            storeServiceImpl.setParallelTraversalEnabled(false);
+            storeServiceImpl.setTraversalParallelism(0);
+        }
+    }
+
     @Test
     public void testSkipAllItemProcessor() {
         reset(procesorResolverChain);
@@ -421,6 +558,31 @@ public class ContentStoreServiceImplTest {
         });
     }
 
+    @Test
+    public void testConcurrentContextCreation() throws Exception {
+        // A different max of items in cache, so that it's not the context of the other tests
+        Callable<Context> getContext = () -> contentStoreService.getContext(null,
+                FileSystemContentStoreAdapter.STORE_TYPE, CLASSPATH_STORE_ROOT_FOLDER_PATH, DEFAULT_MERGING_ON,
+                DEFAULT_CACHE_ON, DEFAULT_MAX_ALLOWED_ITEMS_IN_CACHE + 1, DEFAULT_IGNORE_HIDDEN_FILES,
+                contextConfigVariables);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Context>> futures = executor.invokeAll(Collections.nCopies(8, getContext));
+
+            Context newContext = futures.get(0).get();
+            try {
+                for (Future<Context> future : futures) {
+                    assertSame(newContext, future.get());
+                }
+            } finally {
+                contentStoreService.destroyContext(newContext);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private void assertSystemInfoProperties(Item item) {
         assertEquals(getJavaVersion(), item.getProperty("//system-info/java-version"));
         assertEquals(getOsName(), item.getProperty("//system-info/os-name"));
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl;
+
+import org.craftercms.core.cache.CacheStatistics;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link PathExistenceFilter} unit test.
+ *
+ * @since 4.2.0
+ */
+public class PathExistenceFilterTest {
+
+    private static final String PAGE_URL = "/site/website/index.xml";
+    private static final String MISSING_URL = "/site/website/missing.xml";
+
+    @Test
+    public void testNotReady() throws Exception {
+        PathExistenceFilter filter = new PathExistenceFilter();
+        filter.add(PAGE_URL);
+
+        assertTrue(filter.mightContain(MISSING_URL));
+        assertEquals(0, filter.getQueryCount());
+    }
+
+    @Test
+    public void testMightContain() throws Exception {
+        PathExistenceFilter filter = new PathExistenceFilter();
+        filter.add(PAGE_URL);
+        filter.setReady(true);
+
+        assertTrue(filter.mightContain(PAGE_URL));
+        assertFalse(filter.mightContain(MISSING_URL));
+        assertEquals(2, filter.getQueryCount());
+        assertEquals(1, filter.getNegativeCount());
+
+        filter.recordFalsePositive();
+
+        assertEquals(1, filter.getFalsePositiveCount());
+        assertEquals(0.5, filter.getFalsePositiveRate(), 0.0);
+    }
+
+    @Test
+    public void testApplyTo() throws Exception {
+        PathExistenceFilter filter = new PathExistenceFilter();
+        filter.add(PAGE_URL);
+        filter.setReady(true);
+
+        filter.mightContain(PAGE_URL);
+        filter.mightContain(MISSING_URL);
+        filter.recordFalsePositive();
+
+        CacheStatistics statistics = new CacheStatistics();
+        filter.applyTo(statistics);
+
+        assertEquals(2, statistics.getExistenceFilterQueryCount());
+        assertEquals(1, statistics.getExistenceFilterNegativeCount());
+        assertEquals(1, statistics.getExistenceFilterFalsePositiveCount());
+        assertEquals(0.5, statistics.getExistenceFilterFalsePositiveRate(), 0);
+    }
+
+    @Test
+    public void testGrowth() throws Exception {
+        PathExistenceFilter filter = new PathExistenceFilter(100, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("/site/website/page-" + i + ".xml");
+        }
+        filter.setReady(true);
+
+        assertTrue(filter.getFilterCount() > 1);
+        assertTrue(filter.getPathCount() > 990);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("/site/website/page-" + i + ".xml"));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("/site/website/missing-" + i + ".xml")) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 10000 * 0.02);
+    }
+
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.archive;
+
+import org.craftercms.commons.lang.Callback;
+import org.craftercms.commons.validation.validators.impl.SecurePathValidator;
+import org.craftercms.core.exception.StoreException;
+import org.craftercms.core.service.CacheService;
+import org.craftercms.core.service.Content;
+import org.craftercms.core.service.Context;
+import org.craftercms.core.service.Item;
+import org.craftercms.core.util.cache.CacheTemplate;
+import org.dom4j.Element;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.craftercms.core.service.CachingOptions.DEFAULT_CACHING_OPTIONS;
+import static org.craftercms.core.service.Context.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ArchiveContentStoreAdapterTest {
+
+    private static final String DESCRIPTOR_FILE_EXTENSION = ".xml";
+    private static final String METADATA_FILE_EXTENSION = ".meta.xml";
+
+    // Same store used by the filesystem adapter tests, packed in a ZIP file
+    private static final String CLASSPATH_STORE_ROOT_FOLDER_PATH = "stores/FileSystemContentStoreAdapterTest";
+    private static final String ARCHIVE_PATH = "site.zip";
+
+    private static final String FOLDER_PATH = "/folder";
+    private static final String FOLDER_METADATA_FILE_PATH = FOLDER_PATH + METADATA_FILE_EXTENSION;
+    private static final String DESCRIPTOR_NAME = "descriptor.xml";
+    private static final String DESCRIPTOR_PATH = FOLDER_PATH + "/" + DESCRIPTOR_NAME;
+    private static final String CRAFTER_CMS_LOGO_NAME = "craftercms_logo.png";
+    private static final String CRAFTER_CMS_LOGO_PATH = FOLDER_PATH + "/" + CRAFTER_CMS_LOGO_NAME;
+    private static final String INVALID_PATH = "/an/invalid/../path";
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private Path storeRoot;
+    private Path archive;
+    private CacheTemplate cacheTemplate;
+    private CacheService cacheService;
+    private ArchiveContentStoreAdapter storeAdapter;
+
+    @Before
+    public void setUp() throws Exception {
+        storeRoot = new ClassPathResource(CLASSPATH_STORE_ROOT_FOLDER_PATH).getFile().toPath();
+        archive = tmpFolder.getRoot().toPath().resolve(ARCHIVE_PATH);
+
+        createArchive(archive);
+
+        cacheService = mock(CacheService.class);
+        cacheTemplate = mock(CacheTemplate.class);
+        when(cacheTemplate.getCacheService()).thenReturn(cacheService);
+        when(cacheTemplate.getObject(any(Context.class), eq(DEFAULT_CACHING_OPTIONS), any(Callback.class),
+                                     any(Object[].class)))
+                .thenAnswer(invocation -> ((Callback<?>) invocation.getArguments()[2]).execute());
+
+        ResourceLoader resourceLoader = mock(ResourceLoader.class);
+        when(resourceLoader.getResource(ARCHIVE_PATH)).thenReturn(new FileSystemResource(archive));
+
+        storeAdapter = new ArchiveContentStoreAdapter(new SecurePathValidator(), DESCRIPTOR_FILE_EXTENSION,
+                                                      METADATA_FILE_EXTENSION, cacheTemplate);
+        storeAdapter.setResourceLoader(resourceLoader);
+    }
+
+    @Test
+    public void testGetInvalidPath() {
+        Context context = createTestContext();
+        assertThrows(StoreException.class, () -> storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, INVALID_PATH,
+                                                                       true));
+    }
+
+    @Test
+    public void testGetFolderItem() throws Exception {
+        Context context = createTestContext();
+
+        Item item = storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, FOLDER_PATH, true);
+        assertNotNull(item);
+        assertEquals(FOLDER_PATH, item.getUrl());
+        assertTrue(item.isFolder());
+        assertEquals(FOLDER_METADATA_FILE_PATH, item.getDescriptorUrl());
+
+        Element user = (Element) item.getDescriptorDom().selectSingleNode("/folder-metadata/permissions/permission" +
+                                                                          "/user");
+        assertNotNull(user);
+        assertEquals("admin", user.getText());
+
+        assertNull(storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, "/folder/missing.xml", true));
+        assertFalse(storeAdapter.exists(context, DEFAULT_CACHING_OPTIONS, "/missing"));
+    }
+
+    @Test
+    public void testGetDescriptorItem() throws Exception {
+        Context context = createTestContext();
+
+        Item item = storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, DESCRIPTOR_PATH, true);
+        assertNotNull(item);
+        assertEquals(DESCRIPTOR_NAME, item.getName());
+        assertFalse(item.isFolder());
+        assertEquals("CrafterCMS", item.getDescriptorDom().selectSingleNode("/descriptor/body").getText());
+    }
+
+    @Test
+    public void testGetItems() throws Exception {
+        Context context = createTestContext();
+
+        List<Item> items = storeAdapter.findItems(context, DEFAULT_CACHING_OPTIONS, FOLDER_PATH);
+        assertNotNull(items);
+
+        items.sort(Comparator.comparing(Item::getName));
+
+        assertEquals(2, items.size());
+        assertEquals(CRAFTER_CMS_LOGO_PATH, items.get(0).getUrl());
+        assertEquals(DESCRIPTOR_PATH, items.get(1).getUrl());
+
+        items = storeAdapter.findItems(context, DEFAULT_CACHING_OPTIONS, "/");
+        assertNotNull(items);
+        assertEquals(1, items.size());
+        assertTrue(items.get(0).isFolder());
+    }
+
+    @Test
+    public void testGetContent() throws Exception {
+        Context context = createTestContext();
+
+        // Stored without compression, so it can be mapped
+        byte[] logo = Files.readAllBytes(storeRoot.resolve(CRAFTER_CMS_LOGO_PATH.substring(1)));
+        Content content = storeAdapter.findContent(context, DEFAULT_CACHING_OPTIONS, CRAFTER_CMS_LOGO_PATH);
+        assertNotNull(content);
+        assertEquals(logo.length, content.getLength());
+        assertEquals(ByteBuffer.wrap(logo), content.map());
+
+        try (InputStream in = content.getInputStream()) {
+            assertArrayEquals(logo, in.readAllBytes());
+        }
+
+        // Deflated
+        byte[] descriptor = Files.readAllBytes(storeRoot.resolve(DESCRIPTOR_PATH.substring(1)));
+        content = storeAdapter.findContent(context, DEFAULT_CACHING_OPTIONS, DESCRIPTOR_PATH);
+        assertNotNull(content);
+        assertEquals(descriptor.length, content.getLength());
+        assertNull(content.map());
+
+        try (InputStream in = content.getInputStream()) {
+            assertArrayEquals(descriptor, in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testSwapArchive() throws Exception {
+        Context context = createTestContext();
+        assertTrue(storeAdapter.validate(context));
+        verify(cacheService, never()).renewScope(context);
+
+        Path newArchive = tmpFolder.newFile("new-site.zip").toPath();
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(newArchive))) {
+            out.putNextEntry(new ZipEntry("new-folder/index.xml"));
+            out.write("<page/>".getBytes());
+        }
+
+        Files.setLastModifiedTime(newArchive, Files.getLastModifiedTime(archive));
+        Files.move(newArchive, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        assertTrue(storeAdapter.validate(context));
+        verify(cacheService).renewScope(context);
+
+        assertNull(storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, FOLDER_PATH, false));
+        assertNotNull(storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, "/new-folder/index.xml", false));
+
+        Files.delete(archive);
+
+        assertFalse(storeAdapter.validate(context));
+    }
+
+    private Context createTestContext() {
+        return storeAdapter.createContext("0", ARCHIVE_PATH, DEFAULT_MERGING_ON, DEFAULT_CACHE_ON,
+                                          DEFAULT_MAX_ALLOWED_ITEMS_IN_CACHE, true, null);
+    }
+
+    /**
+     * Packs the store folder without folder entries, storing the images and deflating the rest
+     */
+    private void createArchive(Path archive) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive));
+             Stream<Path> files = Files.walk(storeRoot)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                byte[] data = Files.readAllBytes(file);
+                ZipEntry entry = new ZipEntry(storeRoot.relativize(file).toString().replace('\\', '/'));
+
+                if (file.toString().endsWith(".png")) {
+                    CRC32 crc = new CRC32();
+                    crc.update(data);
+
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(data.length);
+                    entry.setCrc(crc.getValue());
+                }
+
+                out.putNextEntry(entry);
+                out.write(data);
+                out.closeEntry();
+            }
+        }
+    }
+
+}
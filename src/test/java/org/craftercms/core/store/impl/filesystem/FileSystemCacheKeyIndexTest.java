@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.filesystem;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * {@link FileSystemCacheKeyIndex} unit test.
+ *
+ * @since 4.2.0
+ */
+public class FileSystemCacheKeyIndexTest {
+
+    private FileSystemCacheKeyIndex index;
+
+    @Before
+    public void setUp() {
+        index = new FileSystemCacheKeyIndex();
+        index.add("page", "/site/website/index.xml", List.of("/site/website/base.xml", "/site/website/index.xml"));
+        index.add("section", "/site/website", List.of());
+        index.add("other", "/site/website2/index.xml", List.of("/site/website/base.xml"));
+        index.add("root", "/", List.of());
+    }
+
+    @Test
+    public void testGetKeys() {
+        assertEquals(Set.of("page"), index.getKeys("/site/website/index.xml"));
+        assertEquals(Set.of("page", "section"), index.getKeysUnder("/site/website"));
+        assertEquals(Set.of("page", "section", "other", "root"), index.getKeysUnder("/"));
+        assertEquals(Set.of("page"), index.getKeysWithPrefix("/site/website/index"));
+    }
+
+    @Test
+    public void testDependencies() {
+        // A key never depends on its own URL
+        assertEquals(List.of("/site/website/base.xml"), index.getDependencyUrls("page"));
+        assertEquals(Set.of("page", "other"), index.getDependentKeys("/site/website/base.xml"));
+
+        index.add("page", "/site/website/index.xml", List.of("/site/website/other-base.xml"));
+
+        assertEquals(Set.of("other"), index.getDependentKeys("/site/website/base.xml"));
+        assertEquals(Set.of("page"), index.getDependentKeys("/site/website/other-base.xml"));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void testRemove() {
+        index.remove("page");
+
+        assertNull(index.getUrl("page"));
+        assertEquals(Set.of(), index.getKeys("/site/website/index.xml"));
+        assertEquals(Set.of("other"), index.getDependentKeys("/site/website/base.xml"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testPrune() {
+        assertEquals(2, index.prune(key -> key.equals("page") || key.equals("root")));
+
+        assertEquals(Set.of("page", "root"), index.getAllKeys());
+        assertEquals(Set.of("page"), index.getDependentKeys("/site/website/base.xml"));
+    }
+
+}
@@ -15,25 +15,41 @@
  */
 package org.craftercms.core.store.impl.filesystem;
 
+import org.apache.commons.io.FileUtils;
 import org.craftercms.commons.lang.Callback;
 import org.craftercms.commons.validation.validators.impl.SecurePathValidator;
 import org.craftercms.core.exception.StoreException;
+import org.craftercms.core.service.CacheService;
+import org.craftercms.core.service.CachingOptions;
+import org.craftercms.core.service.Content;
 import org.craftercms.core.service.Context;
 import org.craftercms.core.service.Item;
+import org.craftercms.core.store.impl.PathExistenceFilter;
 import org.craftercms.core.util.cache.CacheTemplate;
 import org.dom4j.Element;
 import org.dom4j.Node;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.ResourceLoader;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
 import static org.craftercms.core.service.CachingOptions.DEFAULT_CACHING_OPTIONS;
+import static org.craftercms.core.store.impl.AbstractCachedContentStoreAdapter.CONST_KEY_ELEM_ITEM;
 import static org.craftercms.core.service.Context.*;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -123,6 +139,7 @@ public class FileSystemContentStoreAdapterTest {
     @Test
     public void testGetItems() throws Exception {
         Context context = createTestContext(true);
+        when(cacheTemplate.hasObject(context, CRAFTER_CMS_LOGO_PATH, false, CONST_KEY_ELEM_ITEM)).thenReturn(true);
 
         List<Item> items = storeAdapter.findItems(context, DEFAULT_CACHING_OPTIONS, FOLDER_PATH);
         assertNotNull(items);
@@ -144,6 +161,183 @@ public class FileSystemContentStoreAdapterTest {
         assertFalse(items.get(1).isFolder());
         assertNull(items.get(1).getDescriptorUrl());
         assertNull(items.get(1).getDescriptorDom());
+
+        // The children are cached from the listing, instead of being looked up one by one
+        verify(cacheTemplate).putObject(eq(context), eq(DEFAULT_CACHING_OPTIONS), any(), same(items.get(1)),
+                                        eq(DESCRIPTOR_PATH), eq(false), eq(CONST_KEY_ELEM_ITEM));
+        // Children that are already cached are left as they are
+        verify(cacheTemplate, never()).putObject(any(Context.class), any(CachingOptions.class), any(Callback.class),
+                                                 any(), eq(CRAFTER_CMS_LOGO_PATH), anyBoolean(),
+                                                 eq(CONST_KEY_ELEM_ITEM));
+        verify(cacheTemplate, never()).getObject(any(Context.class), any(CachingOptions.class), any(Callback.class),
+                                                 eq(DESCRIPTOR_PATH), eq(false), eq(CONST_KEY_ELEM_ITEM));
+    }
+
+    @Test
+    public void testGetContent() throws Exception {
+        Context context = createTestContext(true);
+        java.io.File logoFile = new ClassPathResource(CLASSPATH_STORE_ROOT_FOLDER_PATH + CRAFTER_CMS_LOGO_PATH).getFile();
+
+        Content content = storeAdapter.findContent(context, DEFAULT_CACHING_OPTIONS, CRAFTER_CMS_LOGO_PATH);
+        assertNotNull(content);
+        assertEquals(logoFile.length(), content.getLength());
+        assertEquals(logoFile.lastModified(), content.getLastModified());
+
+        try (InputStream in = content.getInputStream()) {
+            assertEquals(logoFile.length(), in.readAllBytes().length);
+        }
+        try (ReadableByteChannel channel = content.getChannel()) {
+            assertTrue(channel instanceof FileChannel);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(logoFile.length(), content.transferTo(Channels.newChannel(out)));
+        assertArrayEquals(Files.readAllBytes(logoFile.toPath()), out.toByteArray());
+        assertEquals(logoFile.length(), content.map().remaining());
+
+        // A target that doesn't take any data at first makes the transfer fall back to copying the rest
+        ByteArrayOutputStream slowOut = new ByteArrayOutputStream();
+        WritableByteChannel slowTarget = new WritableByteChannel() {
+
+            private final WritableByteChannel delegate = Channels.newChannel(slowOut);
+            private boolean refused;
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                if (!refused) {
+                    refused = true;
+                    return 0;
+                }
+
+                return delegate.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+
+        };
+
+        assertEquals(logoFile.length(), content.transferTo(slowTarget));
+        assertArrayEquals(Files.readAllBytes(logoFile.toPath()), slowOut.toByteArray());
+    }
+
+    @Test
+    public void testContentOfModifiedFile() throws Exception {
+        Path file = Files.createTempFile("content", ".txt");
+        try {
+            Files.writeString(file, "old");
+            Content content = new FileSystemContent(file);
+            assertEquals(3, content.getLength());
+
+            // The content can be cached while the file is rewritten, the length needs to match the new data
+            Files.writeString(file, "newer");
+            assertEquals(5, content.getLength());
+            try (InputStream in = content.getInputStream()) {
+                assertEquals(5, in.readAllBytes().length);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testGetItemWithInvalidName() throws Exception {
+        Context context = createTestContext(true);
+
+        assertNull(storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, FOLDER_PATH + "/invalid\u0000name.xml",
+                                         false));
+    }
+
+    @Test
+    public void testExistenceFilterWithCreatedFile() throws Exception {
+        Path rootFolder = Files.createTempDirectory("store");
+        try {
+            Path folder = Files.createDirectory(rootFolder.resolve(FOLDER_NAME));
+
+            FileSystemContext context = createTestContext(rootFolder);
+            PathExistenceFilter filter = new PathExistenceFilter(100, 0.01);
+            filter.add("/");
+            filter.add(FOLDER_PATH);
+            filter.setReady(true);
+            context.setExistenceFilter(filter);
+
+            assertTrue(storeAdapter.isDefinitelyAbsent(context, DESCRIPTOR_PATH));
+
+            try (FileSystemContextWatcher watcher = new FileSystemContextWatcher(context, mock(CacheService.class),
+                                                                                rootFolder, METADATA_FILE_EXTENSION)) {
+                watcher.start();
+
+                // The watcher adds the file to the filter when its create event arrives
+                Files.writeString(folder.resolve(DESCRIPTOR_NAME), "<descriptor/>");
+
+                long deadline = System.currentTimeMillis() + 10000;
+                while (storeAdapter.isDefinitelyAbsent(context, DESCRIPTOR_PATH) &&
+                       System.currentTimeMillis() < deadline) {
+                    Thread.sleep(50);
+                }
+            }
+
+            assertFalse(storeAdapter.isDefinitelyAbsent(context, DESCRIPTOR_PATH));
+            assertNotNull(storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, DESCRIPTOR_PATH, false));
+        } finally {
+            FileUtils.deleteDirectory(rootFolder.toFile());
+        }
+    }
+
+    @Test
+    public void testPathIndexWithRecentlyCreatedFiles() throws Exception {
+        Path rootFolder = Files.createTempDirectory("store");
+        try {
+            Files.createDirectory(rootFolder.resolve(FOLDER_NAME));
+
+            FileSystemContext context = createTestContext(rootFolder);
+            FileSystemPathIndex index = new FileSystemPathIndex(rootFolder);
+            index.build();
+            context.setPathIndex(index);
+
+            // Created before the watcher could update the index
+            Files.writeString(rootFolder.resolve(DESCRIPTOR_PATH.substring(1)), "<descriptor/>");
+            Files.createDirectories(rootFolder.resolve("new/folder"));
+
+            assertNotNull(storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, DESCRIPTOR_PATH, false));
+            assertEquals(1, storeAdapter.findItems(context, DEFAULT_CACHING_OPTIONS, "/new").size());
+        } finally {
+            FileUtils.deleteDirectory(rootFolder.toFile());
+        }
+    }
+
+    @Test
+    public void testGetDescriptorItemWithInvalidBytes() throws Exception {
+        Path rootFolder = Files.createTempDirectory("store");
+        try {
+            Files.createDirectory(rootFolder.resolve(FOLDER_NAME));
+            // 0xC3 starts a 2 byte UTF-8 sequence, but it's followed by an ASCII char
+            Files.write(rootFolder.resolve(DESCRIPTOR_PATH.substring(1)), new byte[] {
+                '<', 'd', '>', (byte) 0xC3, 'a', '<', '/', 'd', '>'
+            });
+
+            FileSystemContext context = createTestContext(rootFolder);
+
+            Item item = storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, DESCRIPTOR_PATH, true);
+            assertEquals("\uFFFDa", item.getDescriptorDom().getRootElement().getText());
+        } finally {
+            FileUtils.deleteDirectory(rootFolder.toFile());
+        }
+    }
+
+    private FileSystemContext createTestContext(Path rootFolder) {
+        ResourceLoader resourceLoader = mock(ResourceLoader.class);
+        when(resourceLoader.getResource("temp")).thenReturn(new FileSystemResource(rootFolder));
+        storeAdapter.setResourceLoader(resourceLoader);
+
+        return (FileSystemContext) storeAdapter.createContext("0", "temp", DEFAULT_MERGING_ON, DEFAULT_CACHE_ON,
+                                                              DEFAULT_MAX_ALLOWED_ITEMS_IN_CACHE, true, null);
     }
 
     private Context createTestContext(boolean ignoreHiddenFiles) {
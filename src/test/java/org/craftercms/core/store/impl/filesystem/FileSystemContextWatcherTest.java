@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.filesystem;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import org.craftercms.core.cache.impl.CacheImpl;
+import org.craftercms.core.cache.impl.store.MapCacheStoreAdapter;
+import org.craftercms.core.service.CacheService;
+import org.craftercms.core.service.Context;
+import org.craftercms.core.service.ContextImpl;
+import org.craftercms.core.service.impl.CacheServiceImpl;
+import org.craftercms.core.store.impl.AbstractCachedContentStoreAdapter;
+import org.craftercms.core.util.CacheUtils;
+import org.craftercms.core.util.cache.CacheObjectListener;
+import org.craftercms.core.util.cache.CacheTemplate;
+import org.craftercms.core.util.cache.impl.DefaultCacheTemplate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.craftercms.core.service.impl.AbstractCachedContentStoreService.CONST_KEY_ELEM_CHILDREN;
+import static org.craftercms.core.service.impl.AbstractCachedContentStoreService.CONST_KEY_ELEM_ITEM;
+import static org.craftercms.core.service.impl.AbstractCachedContentStoreService.CONST_KEY_ELEM_TREE;
+import static org.craftercms.core.store.impl.AbstractCachedContentStoreAdapter.CONST_KEY_ELEM_ITEMS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link FileSystemContextWatcher} unit test.
+ *
+ * @since 4.2.0
+ */
+public class FileSystemContextWatcherTest {
+
+    private static final String METADATA_FILE_EXTENSION = ".meta.xml";
+    private static final String LEVEL_DESCRIPTOR_NAME = "crafter-level-descriptor.level.xml";
+
+    private static final String PAGE_URL = "/site/website/about/index.xml";
+    private static final String OTHER_PAGE_URL = "/site/website/contact/index.xml";
+    private static final String FOLDER_URL = "/site/website/about";
+    private static final String SECTION_URL = "/site/website";
+    private static final String COMPONENT_URL = "/site/components/header.xml";
+    private static final String PARENT_URL = "/site/website/templates/base.xml";
+    private static final String VARIANT_URL = "/site/website/about/index_es.xml";
+    private static final String ADAPTER_ITEM = AbstractCachedContentStoreAdapter.CONST_KEY_ELEM_ITEM;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private CacheService cacheService;
+    private Context context;
+    private FileSystemContextWatcher watcher;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheService = new CacheServiceImpl(new CacheImpl(new MapCacheStoreAdapter()));
+        context = new ContextImpl("test", null, null, true, true, 0, true, null) {
+
+            @Override
+            public long getCacheGeneration() {
+                return watcher.getGeneration();
+            }
+
+            @Override
+            public CacheObjectListener getCacheObjectListener() {
+                return watcher;
+            }
+
+        };
+        cacheService.addScope(context);
+
+        watcher = new FileSystemContextWatcher(context, cacheService, tempFolder.getRoot().toPath(),
+                                               METADATA_FILE_EXTENSION);
+        watcher.setLevelDescriptorName(LEVEL_DESCRIPTOR_NAME);
+        watcher.setSharedPaths(new String[] { "/site/components" });
+        watcher.setScopeClearingPaths(new String[] { "/config" });
+        watcher.setQuietPeriod(50);
+    }
+
+    @After
+    public void tearDown() {
+        watcher.close();
+    }
+
+    @Test
+    public void testInvalidatePage() {
+        Object pageItem = put(PAGE_URL, CONST_KEY_ELEM_ITEM);
+        Object otherPageItem = put(OTHER_PAGE_URL, CONST_KEY_ELEM_ITEM);
+        Object folderChildren = put(FOLDER_URL, CONST_KEY_ELEM_CHILDREN);
+        Object folderItems = put(FOLDER_URL, CONST_KEY_ELEM_ITEMS);
+        Object folderItem = put(FOLDER_URL, CONST_KEY_ELEM_ITEM);
+        Object sectionTree = put(SECTION_URL, CONST_KEY_ELEM_TREE);
+        Object sectionChildren = put(SECTION_URL, CONST_KEY_ELEM_CHILDREN);
+        Object otherKey = CacheUtils.generateKey(PAGE_URL, "engine.model");
+        cacheService.put(context, otherKey, "value");
+
+        watcher.invalidate(List.of(PAGE_URL), Collections.emptyList());
+
+        assertFalse(cacheService.hasKey(context, pageItem));
+        assertFalse(cacheService.hasKey(context, folderChildren));
+        assertFalse(cacheService.hasKey(context, folderItems));
+        assertFalse(cacheService.hasKey(context, sectionTree));
+        assertTrue(cacheService.hasKey(context, otherPageItem));
+        assertTrue(cacheService.hasKey(context, folderItem));
+        assertTrue(cacheService.hasKey(context, sectionChildren));
+        assertTrue(cacheService.hasKey(context, otherKey));
+    }
+
+    @Test
+    public void testInvalidateLevelDescriptorAndSharedPaths() {
+        Object pageItem = put(PAGE_URL, CONST_KEY_ELEM_ITEM);
+        Object pageDescriptor = put(PAGE_URL, ADAPTER_ITEM);
+
+        watcher.invalidate(List.of(FOLDER_URL + "/" + LEVEL_DESCRIPTOR_NAME), Collections.emptyList());
+
+        assertFalse(cacheService.hasKey(context, pageItem));
+        assertTrue(cacheService.hasKey(context, pageDescriptor));
+
+        pageItem = put(PAGE_URL, CONST_KEY_ELEM_ITEM);
+
+        watcher.invalidate(List.of(COMPONENT_URL), Collections.emptyList());
+
+        assertFalse(cacheService.hasKey(context, pageItem));
+        assertTrue(cacheService.hasKey(context, pageDescriptor));
+
+        watcher.invalidate(List.of("/config/site.xml"), Collections.emptyList());
+
+        assertFalse(cacheService.hasKey(context, pageDescriptor));
+    }
+
+    @Test
+    public void testFileChangeEvent() throws Exception {
+        Path page = tempFolder.getRoot().toPath().resolve(PAGE_URL.substring(1));
+        Files.createDirectories(page.getParent());
+        Files.writeString(page, "<page/>");
+
+        watcher.start();
+
+        Object pageItem = put(PAGE_URL, CONST_KEY_ELEM_ITEM);
+        Object otherPageItem = put(OTHER_PAGE_URL, CONST_KEY_ELEM_ITEM);
+
+        Files.writeString(page, "<page><title>About</title></page>");
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (cacheService.hasKey(context, pageItem) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertFalse(cacheService.hasKey(context, pageItem));
+        assertTrue(cacheService.hasKey(context, otherPageItem));
+    }
+
+    @Test
+    public void testLinkedFolders() throws Exception {
+        Path root = tempFolder.getRoot().toPath();
+        Path folder = Files.createDirectories(root.resolve(FOLDER_URL.substring(1)));
+        Path outside = Files.createTempDirectory("linked");
+        try {
+            Files.createSymbolicLink(folder.resolve("linked"), outside);
+            Files.createSymbolicLink(folder.resolve("loop"), root.resolve("site"));
+
+            watcher.start();
+
+            // /, /site, /site/website, /site/website/about and the linked folder, the cycle isn't registered again
+            assertEquals(5, watcher.getWatchedFolderCount());
+        } finally {
+            Files.delete(outside);
+        }
+    }
+
+    @Test
+    public void testInvalidateDependents() {
+        Object parentDescriptor = put(PARENT_URL, ADAPTER_ITEM);
+        // Depends on its explicit parent, and on a locale variant that doesn't exist yet
+        Object pageItem = put(PAGE_URL, CONST_KEY_ELEM_ITEM, parentDescriptor,
+                              CacheUtils.generateKey(VARIANT_URL, ADAPTER_ITEM));
+        // Includes the page
+        Object otherPageItem = put(OTHER_PAGE_URL, CONST_KEY_ELEM_ITEM, pageItem);
+        Object componentItem = put(COMPONENT_URL, CONST_KEY_ELEM_ITEM);
+
+        watcher.invalidate(List.of(PARENT_URL), Collections.emptyList());
+
+        assertFalse(cacheService.hasKey(context, parentDescriptor));
+        assertFalse(cacheService.hasKey(context, pageItem));
+        assertFalse(cacheService.hasKey(context, otherPageItem));
+        assertTrue(cacheService.hasKey(context, componentItem));
+
+        pageItem = put(PAGE_URL, CONST_KEY_ELEM_ITEM, CacheUtils.generateKey(VARIANT_URL, ADAPTER_ITEM));
+        otherPageItem = put(OTHER_PAGE_URL, CONST_KEY_ELEM_ITEM, pageItem);
+
+        watcher.invalidate(List.of(VARIANT_URL), Collections.emptyList());
+
+        assertFalse(cacheService.hasKey(context, pageItem));
+        assertFalse(cacheService.hasKey(context, otherPageItem));
+        assertTrue(cacheService.hasKey(context, componentItem));
+        assertEquals(1, watcher.getKeyIndex().size());
+    }
+
+    @Test
+    public void testDependenciesRecordedByTemplate() {
+        CacheTemplate cacheTemplate = new DefaultCacheTemplate(cacheService);
+
+        cacheTemplate.getObject(context, () -> {
+            cacheTemplate.getObject(context, () -> "parent", PARENT_URL, ADAPTER_ITEM);
+            return "page";
+        }, PAGE_URL, CONST_KEY_ELEM_ITEM);
+
+        Object pageItem = cacheTemplate.getKey(PAGE_URL, CONST_KEY_ELEM_ITEM);
+        assertTrue(cacheService.hasKey(context, pageItem));
+        assertEquals(List.of(PARENT_URL), watcher.getKeyIndex().getDependencyUrls(pageItem));
+
+        watcher.invalidate(List.of(PARENT_URL), Collections.emptyList());
+
+        assertFalse(cacheService.hasKey(context, pageItem));
+    }
+
+    @Test
+    public void testLoadStartedBeforeChangeIsNotCached() {
+        CacheTemplate cacheTemplate = new DefaultCacheTemplate(cacheService);
+
+        String page = cacheTemplate.getObject(context, () -> {
+            // The file changes after it was read, but before the object is cached
+            watcher.invalidate(List.of(PAGE_URL), Collections.emptyList());
+            return "old page";
+        }, PAGE_URL, CONST_KEY_ELEM_ITEM);
+
+        assertEquals("old page", page);
+        assertFalse(cacheService.hasKey(context, cacheTemplate.getKey(PAGE_URL, CONST_KEY_ELEM_ITEM)));
+    }
+
+    private Object put(String url, String type, Object... dependencyKeys) {
+        Object key = CacheUtils.generateKey(url, type);
+        cacheService.put(context, key, "value");
+        watcher.objectCached(key, List.of(dependencyKeys));
+
+        return key;
+    }
+
+}
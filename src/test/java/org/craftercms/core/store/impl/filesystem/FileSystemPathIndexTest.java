@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.filesystem;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link FileSystemPathIndex} unit test.
+ *
+ * @since 4.2.0
+ */
+public class FileSystemPathIndexTest {
+
+    private static final String PAGE_URL = "/site/website/index.xml";
+    private static final String NEW_PAGE_URL = "/site/website/new.xml";
+    private static final String FOLDER_URL = "/site/website/about";
+    private static final String FOLDER_PAGE_URL = "/site/website/about/index.xml";
+    private static final String SECTION_URL = "/site/website";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Path rootFolder;
+    private Path indexFile;
+
+    @Before
+    public void setUp() throws Exception {
+        rootFolder = tempFolder.newFolder("root").toPath();
+        indexFile = tempFolder.getRoot().toPath().resolve("index/root.idx");
+
+        write(PAGE_URL, "<page/>");
+        write(FOLDER_PAGE_URL, "<page/>");
+    }
+
+    @Test
+    public void testBuild() throws Exception {
+        FileSystemPathIndex index = new FileSystemPathIndex(rootFolder);
+
+        assertFalse(index.isReady());
+
+        index.build();
+
+        assertTrue(index.isReady());
+        assertEquals(6, index.size());
+        assertTrue(index.get("/").isDirectory());
+        assertEquals(List.of("about", "index.xml"), index.get(SECTION_URL).getChildren().stream().sorted().toList());
+        assertTrue(index.get(PAGE_URL).isRegularFile());
+        assertEquals(7, index.get(PAGE_URL).size());
+        assertNull(index.get(NEW_PAGE_URL));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        FileSystemPathIndex index = new FileSystemPathIndex(rootFolder);
+        index.build();
+        index.save(indexFile);
+
+        // Changes while the context is not running
+        write(NEW_PAGE_URL, "<page/>");
+        FileUtils.deleteDirectory(getPath(FOLDER_URL).toFile());
+        touch(SECTION_URL);
+
+        FileSystemPathIndex loadedIndex = new FileSystemPathIndex(rootFolder);
+        loadedIndex.load(indexFile);
+
+        assertTrue(loadedIndex.isReady());
+        assertNotNull(loadedIndex.get(PAGE_URL));
+        assertNotNull(loadedIndex.get(NEW_PAGE_URL));
+        assertNull(loadedIndex.get(FOLDER_URL));
+        assertNull(loadedIndex.get(FOLDER_PAGE_URL));
+        assertEquals(List.of("index.xml", "new.xml"),
+                     loadedIndex.get(SECTION_URL).getChildren().stream().sorted().toList());
+    }
+
+    @Test
+    public void testLoadIndexOfOtherFolder() throws Exception {
+        FileSystemPathIndex index = new FileSystemPathIndex(rootFolder);
+        index.build();
+        index.save(indexFile);
+
+        Path otherFolder = tempFolder.newFolder("other").toPath();
+
+        FileSystemPathIndex otherIndex = new FileSystemPathIndex(otherFolder);
+        otherIndex.load(indexFile);
+
+        assertTrue(otherIndex.isReady());
+        assertEquals(1, otherIndex.size());
+        assertNull(otherIndex.get(PAGE_URL));
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        FileSystemPathIndex index = new FileSystemPathIndex(rootFolder);
+        index.build();
+
+        write(NEW_PAGE_URL, "<page/>");
+        write("/site/website/contact/form/index.xml", "<page/>");
+        FileUtils.deleteDirectory(getPath(FOLDER_URL).toFile());
+
+        index.update(List.of(NEW_PAGE_URL, "/site/website/contact", "/site/website/contact/form",
+                             "/site/website/contact/form/index.xml", FOLDER_URL));
+
+        assertNotNull(index.get(NEW_PAGE_URL));
+        assertNotNull(index.get("/site/website/contact/form/index.xml"));
+        assertNull(index.get(FOLDER_URL));
+        assertNull(index.get(FOLDER_PAGE_URL));
+    }
+
+    @Test
+    public void testRemoveTreeKeepsSiblings() throws Exception {
+        write("/site/website/about-us.xml", "<page/>");
+        write("/site/website/about0/index.xml", "<page/>");
+
+        FileSystemPathIndex index = new FileSystemPathIndex(rootFolder);
+        index.build();
+
+        FileUtils.deleteDirectory(getPath(FOLDER_URL).toFile());
+        index.update(List.of(FOLDER_URL));
+
+        assertNull(index.get(FOLDER_URL));
+        assertNull(index.get(FOLDER_PAGE_URL));
+        assertNotNull(index.get("/site/website/about-us.xml"));
+        assertNotNull(index.get("/site/website/about0"));
+        assertNotNull(index.get("/site/website/about0/index.xml"));
+    }
+
+    @Test
+    public void testUpdatesWhileLoadingAreQueued() throws Exception {
+        FileSystemPathIndex index = new FileSystemPathIndex(rootFolder);
+        index.build();
+
+        index.startLoading();
+
+        write(NEW_PAGE_URL, "<page/>");
+        index.update(List.of(NEW_PAGE_URL));
+
+        assertFalse(index.isReady());
+        assertNull(index.get(NEW_PAGE_URL));
+
+        index.finishLoading();
+
+        assertTrue(index.isReady());
+        assertNotNull(index.get(NEW_PAGE_URL));
+    }
+
+    @Test
+    public void testLinkCycle() throws Exception {
+        Files.createSymbolicLink(getPath(FOLDER_URL + "/loop"), getPath(SECTION_URL));
+
+        FileSystemPathIndex index = new FileSystemPathIndex(rootFolder);
+        index.build();
+
+        assertEquals(6, index.size());
+        assertNull(index.get(FOLDER_URL + "/loop"));
+        assertEquals(List.of("index.xml"), index.get(FOLDER_URL).getChildren());
+    }
+
+    private Path getPath(String url) {
+        return rootFolder.resolve(url.substring(1));
+    }
+
+    private void write(String url, String content) throws Exception {
+        Path file = getPath(url);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private void touch(String url) throws Exception {
+        // The modification time resolution of some filesystems is too coarse to notice the changes of a test
+        Path folder = getPath(url);
+        Files.setLastModifiedTime(folder, FileTime.fromMillis(Files.getLastModifiedTime(folder).toMillis() + 2000));
+    }
+
+}
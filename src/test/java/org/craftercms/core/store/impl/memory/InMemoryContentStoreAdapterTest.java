@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.store.impl.memory;
+
+import org.apache.commons.io.FileUtils;
+import org.craftercms.commons.lang.Callback;
+import org.craftercms.commons.validation.validators.impl.SecurePathValidator;
+import org.craftercms.core.exception.StoreException;
+import org.craftercms.core.exception.XmlFileParseException;
+import org.craftercms.core.service.CacheService;
+import org.craftercms.core.service.Content;
+import org.craftercms.core.service.Context;
+import org.craftercms.core.service.Item;
+import org.craftercms.core.util.cache.CacheTemplate;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.craftercms.core.service.CachingOptions.DEFAULT_CACHING_OPTIONS;
+import static org.craftercms.core.service.Context.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class InMemoryContentStoreAdapterTest {
+
+    private static final String DESCRIPTOR_FILE_EXTENSION = ".xml";
+    private static final String METADATA_FILE_EXTENSION = ".meta.xml";
+
+    // Same store used by the filesystem adapter tests, copied so that it can be modified
+    private static final String CLASSPATH_STORE_ROOT_FOLDER_PATH = "stores/FileSystemContentStoreAdapterTest";
+    private static final String ROOT_FOLDER_PATH = "site";
+
+    private static final String FOLDER_PATH = "/folder";
+    private static final String DESCRIPTOR_PATH = FOLDER_PATH + "/descriptor.xml";
+    private static final String CRAFTER_CMS_LOGO_PATH = FOLDER_PATH + "/craftercms_logo.png";
+    private static final String HIDDEN_FILE_PATH = FOLDER_PATH + "/.hidden";
+    private static final String INVALID_DESCRIPTOR_PATH = "/invalid.xml";
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private Path rootFolder;
+    private CacheService cacheService;
+    private InMemoryContentStoreAdapter storeAdapter;
+
+    @Before
+    public void setUp() throws Exception {
+        rootFolder = tmpFolder.newFolder(ROOT_FOLDER_PATH).toPath();
+
+        FileUtils.copyDirectory(new ClassPathResource(CLASSPATH_STORE_ROOT_FOLDER_PATH).getFile(),
+                                rootFolder.toFile());
+        Files.writeString(rootFolder.resolve(HIDDEN_FILE_PATH.substring(1)), "hidden");
+
+        cacheService = mock(CacheService.class);
+        CacheTemplate cacheTemplate = mock(CacheTemplate.class);
+        when(cacheTemplate.getCacheService()).thenReturn(cacheService);
+        when(cacheTemplate.getObject(any(Context.class), eq(DEFAULT_CACHING_OPTIONS), any(Callback.class),
+                                     any(Object[].class)))
+                .thenAnswer(invocation -> ((Callback<?>) invocation.getArguments()[2]).execute());
+
+        ResourceLoader resourceLoader = mock(ResourceLoader.class);
+        when(resourceLoader.getResource(ROOT_FOLDER_PATH)).thenReturn(new FileSystemResource(rootFolder));
+
+        storeAdapter = new InMemoryContentStoreAdapter(new SecurePathValidator(), DESCRIPTOR_FILE_EXTENSION,
+                                                       METADATA_FILE_EXTENSION, cacheTemplate);
+        storeAdapter.setResourceLoader(resourceLoader);
+    }
+
+    @Test
+    public void testGetItems() throws Exception {
+        Context context = createTestContext();
+
+        Item item = storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, DESCRIPTOR_PATH, true);
+        assertNotNull(item);
+        assertEquals("CrafterCMS", item.getDescriptorDom().selectSingleNode("/descriptor/body").getText());
+
+        item = storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, FOLDER_PATH, true);
+        assertNotNull(item);
+        assertTrue(item.isFolder());
+        assertNotNull(item.getDescriptorDom());
+
+        assertNull(storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, "/missing.xml", true));
+        assertThrows(StoreException.class, () -> storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS,
+                                                                       "/an/invalid/../path", true));
+
+        List<Item> items = storeAdapter.findItems(context, DEFAULT_CACHING_OPTIONS, FOLDER_PATH);
+        assertNotNull(items);
+
+        items.sort(Comparator.comparing(Item::getName));
+
+        // The hidden file is ignored
+        assertEquals(2, items.size());
+        assertEquals(CRAFTER_CMS_LOGO_PATH, items.get(0).getUrl());
+        assertEquals(DESCRIPTOR_PATH, items.get(1).getUrl());
+    }
+
+    @Test
+    public void testGetContent() throws Exception {
+        storeAdapter.setOffHeap(true);
+        Context context = createTestContext();
+
+        // The files are kept in memory, so they can be read after they're deleted
+        byte[] logo = Files.readAllBytes(rootFolder.resolve(CRAFTER_CMS_LOGO_PATH.substring(1)));
+        FileUtils.deleteDirectory(rootFolder.toFile());
+
+        Content content = storeAdapter.findContent(context, DEFAULT_CACHING_OPTIONS, CRAFTER_CMS_LOGO_PATH);
+        assertNotNull(content);
+        assertEquals(logo.length, content.getLength());
+
+        try (InputStream in = content.getInputStream()) {
+            assertArrayEquals(logo, in.readAllBytes());
+        }
+        try (InputStream in = content.getInputStream()) {
+            assertArrayEquals(logo, in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testInvalidDescriptor() throws Exception {
+        Files.writeString(rootFolder.resolve(INVALID_DESCRIPTOR_PATH.substring(1)), "<descriptor>");
+
+        Context context = createTestContext();
+
+        assertThrows(XmlFileParseException.class, () -> storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS,
+                                                                              INVALID_DESCRIPTOR_PATH, true));
+    }
+
+    @Test
+    public void testMaxSize() {
+        storeAdapter.setMaxSize(1024);
+
+        assertThrows(StoreException.class, this::createTestContext);
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        Context context = createTestContext();
+
+        Files.writeString(rootFolder.resolve("new.xml"), "<page/>");
+        Files.delete(rootFolder.resolve(DESCRIPTOR_PATH.substring(1)));
+
+        // Not picked up until reloaded
+        assertNull(storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, "/new.xml", false));
+        assertNotNull(storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, DESCRIPTOR_PATH, false));
+
+        storeAdapter.reload(context);
+
+        verify(cacheService).renewScope(context);
+        assertNotNull(storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, "/new.xml", false));
+        assertNull(storeAdapter.findItem(context, DEFAULT_CACHING_OPTIONS, DESCRIPTOR_PATH, false));
+    }
+
+    private Context createTestContext() {
+        return storeAdapter.createContext("0", ROOT_FOLDER_PATH, DEFAULT_MERGING_ON, DEFAULT_CACHE_ON,
+                                          DEFAULT_MAX_ALLOWED_ITEMS_IN_CACHE, true, null);
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.util.cache.impl;
+
+import java.util.Arrays;
+
+import org.craftercms.core.processors.ItemProcessor;
+import org.craftercms.core.processors.impl.ItemProcessorPipeline;
+import org.craftercms.core.service.CachingOptions;
+import org.craftercms.core.service.Context;
+import org.craftercms.core.service.Item;
+import org.craftercms.core.service.impl.ExcludeByUrlItemFilter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for {@link CompositeCacheKey}.
+ */
+public class CompositeCacheKeyTest {
+
+    @Test
+    public void testEqualElements() {
+        CompositeCacheKey key1 = new CompositeCacheKey("/site/website/index.xml", null, 2, "const");
+        CompositeCacheKey key2 = new CompositeCacheKey("/site/website/index.xml", null, 2, "const");
+
+        assertEquals(key1, key2);
+        assertEquals(key1.hashCode(), key2.hashCode());
+        assertNotEquals(key1, new CompositeCacheKey("/site/website/index.xml", null, 3, "const"));
+    }
+
+    @Test
+    public void testElementsWithEquals() {
+        Object filter1 = new ExcludeByUrlItemFilter(new String[] { "^/site/.*$" });
+        Object filter2 = new ExcludeByUrlItemFilter(new String[] { "^/site/.*$" });
+
+        assertEquals(new CompositeCacheKey("/", filter1), new CompositeCacheKey("/", filter2));
+    }
+
+    @Test
+    public void testElementsWithOnlyToString() {
+        assertEquals(new CompositeCacheKey("/", new ToStringOnly("a")), new CompositeCacheKey("/", new ToStringOnly("a")));
+        assertNotEquals(new CompositeCacheKey("/", new ToStringOnly("a")),
+                        new CompositeCacheKey("/", new ToStringOnly("b")));
+    }
+
+    @Test
+    public void testElementsArrayIsNotModified() {
+        Object element = new ToStringOnly("a");
+        Object[] elements = { "/", element };
+
+        new CompositeCacheKey(elements);
+
+        assertSame(element, elements[1]);
+    }
+
+    @Test
+    public void testNestedElementsWithOnlyToString() {
+        CompositeCacheKey key1 = new CompositeCacheKey("/", new ItemProcessorPipeline(new ToStringOnly("a"),
+                                                                                      new ToStringOnly("b")));
+        CompositeCacheKey key2 = new CompositeCacheKey("/", new ItemProcessorPipeline(new ToStringOnly("a"),
+                                                                                      new ToStringOnly("b")));
+
+        assertEquals(key1, key2);
+        assertEquals(key1.hashCode(), key2.hashCode());
+        assertNotEquals(key1, new CompositeCacheKey("/", new ItemProcessorPipeline(new ToStringOnly("a"),
+                                                                                   new ToStringOnly("c"))));
+    }
+
+    @Test
+    public void testElementsWithIdentity() {
+        Object element = new Object();
+
+        assertEquals(new CompositeCacheKey("/", element), new CompositeCacheKey("/", element));
+        assertNotEquals(new CompositeCacheKey("/", element), new CompositeCacheKey("/", new Object()));
+    }
+
+    @Test
+    public void testToString() {
+        Object[] elements = { "/site/website/index.xml", null, true, "const" };
+
+        assertEquals(Arrays.toString(elements), new CompositeCacheKey(elements.clone()).toString());
+    }
+
+    private static class ToStringOnly implements ItemProcessor {
+
+        private final String name;
+
+        private ToStringOnly(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Item process(Context context, CachingOptions cachingOptions, Item item) {
+            return item;
+        }
+
+        @Override
+        public String toString() {
+            return "ToStringOnly[" + name + "]";
+        }
+
+    }
+
+}
@@ -16,19 +16,27 @@
 package org.craftercms.core.util.cache.impl;
 
 import org.craftercms.commons.lang.Callback;
+import org.craftercms.core.cache.CacheStatistics;
+import org.craftercms.core.cache.impl.CacheImpl;
+import org.craftercms.core.cache.impl.store.MapCacheStoreAdapter;
 import org.craftercms.core.service.CacheService;
 import org.craftercms.core.service.Context;
+import org.craftercms.core.service.ContextImpl;
+import org.craftercms.core.service.impl.CacheServiceImpl;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.craftercms.core.service.CachingOptions.DEFAULT_CACHING_OPTIONS;
 import static org.craftercms.core.util.CacheUtils.generateKey;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.mockito.Mockito.*;
 
 /**
@@ -69,6 +77,45 @@ public class DefaultCacheTemplateTest {
         verify(cache).put(eq(context), eq(key), eq(time1), eq(DEFAULT_CACHING_OPTIONS), any());
     }
 
+    @Test
+    public void testColdGetIsRecordedOnce() throws Exception {
+        Context context = mock(Context.class);
+        when(context.isCacheOn()).thenReturn(true);
+        when(context.getCacheScope()).thenReturn("test");
+        when(context.getMaxAllowedItemsInCache()).thenReturn(10);
+
+        CacheService cacheService = new CacheServiceImpl(new CacheImpl(new MapCacheStoreAdapter()));
+        cacheService.addScope(context);
+
+        cacheTemplate = new DefaultCacheTemplate(cacheService);
+        cacheTemplate.getObject(context, DEFAULT_CACHING_OPTIONS, cacheTemplateCallback, RANDOM_KEY_ELEM);
+
+        CacheStatistics stats = cacheService.getStatistics(context);
+        assertEquals(1, stats.getMissCount());
+        assertEquals(0, stats.getHitCount());
+        assertEquals(1, stats.getLoadSuccessCount());
+    }
+
+    @Test
+    public void testScopeRenewedWhileLoading() throws Exception {
+        Context context = new ContextImpl("test", null, null, true, true, 10, true, null);
+        CacheServiceImpl cacheService = new CacheServiceImpl(new CacheImpl(new MapCacheStoreAdapter()));
+        cacheService.addScope(context);
+        String previousScope = context.getCacheScope();
+
+        // The content is replaced while the object is loaded from the previous content
+        cacheTemplate = new DefaultCacheTemplate(cacheService);
+        cacheTemplate.getObject(context, DEFAULT_CACHING_OPTIONS, () -> {
+            cacheService.renewScope(context);
+
+            return System.currentTimeMillis();
+        }, RANDOM_KEY_ELEM);
+
+        assertNotEquals(previousScope, context.getCacheScope());
+        assertEquals(List.of(context.getCacheScope()), List.copyOf(cacheService.getScopes()));
+        assertFalse(cacheService.hasKey(context, generateKey(RANDOM_KEY_ELEM)));
+    }
+
     private void setUpTestContext() {
         context = mock(Context.class);
     }
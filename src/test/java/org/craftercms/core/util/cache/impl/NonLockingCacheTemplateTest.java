@@ -24,7 +24,6 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
-import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -59,7 +58,8 @@ public class NonLockingCacheTemplateTest {
     public void testCacheIsNotUsed() {
         cacheTemplate.getObject(context, () -> CACHE_VALUE, CACHE_KEY);
 
-        verify(cacheService, times(2)).get(eq(context), eq(List.of(CACHE_KEY).toString()));
+        verify(cacheService, times(1)).get(eq(context), eq(new CompositeCacheKey(CACHE_KEY)));
+        verify(cacheService, times(1)).peek(eq(context), eq(new CompositeCacheKey(CACHE_KEY)));
         verify(lockFactory, never()).getLock(any());
     }
 
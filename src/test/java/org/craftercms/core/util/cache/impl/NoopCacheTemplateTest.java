@@ -30,6 +30,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 /**
  * @author joseross
@@ -56,8 +57,10 @@ public class NoopCacheTemplateTest {
     @Test
     public void testCacheIsNotUsed() {
         cacheTemplate.getObject(context, () -> CACHE_VALUE, CACHE_KEY);
+        cacheTemplate.putObject(context, null, () -> CACHE_VALUE, CACHE_VALUE, CACHE_KEY);
 
         verify(cacheService, never()).get(eq(context), any());
+        verifyNoInteractions(cacheService);
         verify(lockFactory, never()).getLock(any());
     }
 
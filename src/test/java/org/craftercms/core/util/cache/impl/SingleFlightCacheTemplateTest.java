@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.core.util.cache.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.craftercms.core.cache.impl.CacheImpl;
+import org.craftercms.core.cache.impl.store.MapCacheStoreAdapter;
+import org.craftercms.core.service.Context;
+import org.craftercms.core.service.impl.CacheServiceImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link SingleFlightCacheTemplate} unit test.
+ */
+public class SingleFlightCacheTemplateTest {
+
+    private static final String SCOPE = "test";
+    private static final String CACHE_KEY = "test";
+    private static final String CACHE_VALUE = "Hello";
+    private static final int THREADS = 8;
+
+    private Context context;
+    private SingleFlightCacheTemplate cacheTemplate;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        CacheImpl cache = new CacheImpl(new MapCacheStoreAdapter());
+        cache.addScope(SCOPE, 10);
+
+        context = mock(Context.class);
+        when(context.isCacheOn()).thenReturn(true);
+        when(context.getCacheScope()).thenReturn(SCOPE);
+
+        cacheTemplate = new SingleFlightCacheTemplate(new CacheServiceImpl(cache));
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+
+                return cacheTemplate.getObject(context, () -> {
+                    loads.incrementAndGet();
+                    sleep(200);
+
+                    return CACHE_VALUE;
+                }, CACHE_KEY);
+            }));
+        }
+
+        start.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals(CACHE_VALUE, result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, cacheTemplate.getInFlightLoads());
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() {
+        try {
+            cacheTemplate.getObject(context, () -> {
+                throw new IllegalStateException("Load failed");
+            }, CACHE_KEY);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        assertEquals(0, cacheTemplate.getInFlightLoads());
+        assertEquals(CACHE_VALUE, cacheTemplate.getObject(context, () -> CACHE_VALUE, CACHE_KEY));
+    }
+
+    @Test
+    public void testReentrantLoadDoesNotWait() {
+        String value = cacheTemplate.getObject(context, () ->
+            cacheTemplate.getObject(context, () -> CACHE_VALUE, CACHE_KEY).toUpperCase(), CACHE_KEY);
+
+        assertEquals(CACHE_VALUE.toUpperCase(), value);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}